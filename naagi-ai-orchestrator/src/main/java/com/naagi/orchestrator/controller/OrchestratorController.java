@@ -4,6 +4,7 @@ import com.naagi.orchestrator.model.OrchestrationRequest;
 import com.naagi.orchestrator.model.OrchestrationResponse;
 import com.naagi.orchestrator.service.OrchestrationService;
 import com.naagi.orchestrator.service.StreamingOrchestrationService;
+import com.naagi.orchestrator.service.ToolCatalogCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
@@ -22,6 +23,7 @@ public class OrchestratorController {
 
     private final OrchestrationService orchestrationService;
     private final StreamingOrchestrationService streamingOrchestrationService;
+    private final ToolCatalogCache toolCatalogCache;
 
     @PostMapping("/orchestrate")
     public ResponseEntity<OrchestrationResponse> orchestrate(@RequestBody OrchestrationRequest request) {
@@ -45,6 +47,17 @@ public class OrchestratorController {
         return emitter;
     }
 
+    /**
+     * Change notification from category-admin after tool or override edits.
+     * Without a categoryId every cached category is refreshed.
+     */
+    @PostMapping("/tool-catalog/invalidate")
+    public ResponseEntity<Map<String, Object>> invalidateToolCatalog(
+            @RequestParam(required = false) String categoryId) {
+        int invalidated = toolCatalogCache.invalidate(categoryId);
+        return ResponseEntity.ok(Map.of("invalidated", invalidated));
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         return ResponseEntity.ok(Map.of(
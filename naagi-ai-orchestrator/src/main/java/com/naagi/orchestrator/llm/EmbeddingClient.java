@@ -0,0 +1,10 @@
+package com.naagi.orchestrator.llm;
+
+import java.util.List;
+
+public interface EmbeddingClient {
+    /**
+     * One vector per text, in the order of {@code texts}
+     */
+    List<float[]> embed(List<String> texts);
+}
@@ -0,0 +1,95 @@
+package com.naagi.orchestrator.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Embeddings from the OpenAI-compatible /v1/embeddings endpoint of llama.cpp,
+ * all texts in one request
+ */
+@Component
+@Slf4j
+public class LlamaCppEmbeddingClient implements EmbeddingClient {
+
+    private final String baseUrl;
+    private final String model;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    public LlamaCppEmbeddingClient(
+            @Value("${naagi.embedding.baseUrl:${naagi.llm.baseUrl}}") String baseUrl,
+            @Value("${naagi.embedding.model:nomic-embed-text}") String model,
+            ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.model = model;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            ObjectNode body = objectMapper.createObjectNode();
+            body.put("model", model);
+            ArrayNode input = body.putArray("input");
+            texts.forEach(input::add);
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/v1/embeddings"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() / 100 != 2) {
+                throw new RuntimeException("Embedding HTTP " + response.statusCode() + ": " + response.body());
+            }
+
+            JsonNode data = objectMapper.readTree(response.body()).path("data");
+            if (!data.isArray() || data.size() != texts.size()) {
+                throw new IllegalStateException("Expected " + texts.size() + " embeddings, got " + data.size());
+            }
+
+            float[][] vectors = new float[texts.size()][];
+            for (JsonNode item : data) {
+                JsonNode embedding = item.path("embedding");
+                float[] vector = new float[embedding.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) embedding.get(i).asDouble();
+                }
+                vectors[item.path("index").asInt()] = vector;
+            }
+
+            log.debug("[TIMING] Embedded {} texts: {}ms", texts.size(), System.currentTimeMillis() - startTime);
+            return Arrays.asList(vectors);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Embedding interrupted", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Embedding failed", e);
+        }
+    }
+}
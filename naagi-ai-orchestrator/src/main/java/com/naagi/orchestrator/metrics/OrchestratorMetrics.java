@@ -4,6 +4,7 @@ import io.micrometer.core.instrument.*;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Centralized metrics for AI Orchestrator operations.
@@ -17,6 +18,7 @@ public class OrchestratorMetrics {
     private final Timer toolSelectionTimer;
     private final Timer llmChatTimer;
     private final Timer toolExecutionTimer;
+    private final Timer toolShortlistTimer;
 
     // Counters
     private final Counter orchestrationCounter;
@@ -27,6 +29,15 @@ public class OrchestratorMetrics {
     private final Counter lowConfidenceCounter;
     private final Counter toolExecutionCounter;
     private final Counter toolExecutionErrorCounter;
+    private final Counter toolCatalogHitCounter;
+    private final Counter toolCatalogMissCounter;
+
+    // Distribution summaries
+    private final DistributionSummary toolCatalogServedAge;
+    private final DistributionSummary toolShortlistSize;
+    private final DistributionSummary toolShortlistSelectedRank;
+
+    private final MeterRegistry registry;
 
     // Gauges (tracked separately)
     private volatile long lastOrchestrationTimeMs = 0;
@@ -35,6 +46,8 @@ public class OrchestratorMetrics {
     private volatile double lastConfidenceScore = 0;
 
     public OrchestratorMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
         // Timers for operation durations
         this.orchestrationTimer = Timer.builder("orchestrator.orchestration.duration")
                 .description("Total orchestration request duration")
@@ -97,6 +110,34 @@ public class OrchestratorMetrics {
                 .tags("operation", "execute")
                 .register(registry);
 
+        this.toolCatalogHitCounter = Counter.builder("orchestrator.tool.catalog.requests")
+                .description("Tool catalog lookups served from the cache")
+                .tags("result", "hit")
+                .register(registry);
+
+        this.toolCatalogMissCounter = Counter.builder("orchestrator.tool.catalog.requests")
+                .description("Tool catalog lookups that had to wait for a fetch")
+                .tags("result", "miss")
+                .register(registry);
+
+        this.toolCatalogServedAge = DistributionSummary.builder("orchestrator.tool.catalog.served.age.seconds")
+                .description("Age of the cached tool catalog when served")
+                .baseUnit("seconds")
+                .register(registry);
+
+        this.toolShortlistTimer = Timer.builder("orchestrator.tool.shortlist.duration")
+                .description("Time to shortlist tools by embedding similarity")
+                .tags("component", "shortlist")
+                .register(registry);
+
+        this.toolShortlistSize = DistributionSummary.builder("orchestrator.tool.shortlist.size")
+                .description("Share of the catalog offered to the LLM after shortlisting")
+                .register(registry);
+
+        this.toolShortlistSelectedRank = DistributionSummary.builder("orchestrator.tool.shortlist.selected.rank")
+                .description("Similarity rank of the tool the LLM picked from a shortlist")
+                .register(registry);
+
         // Gauges for last operation values
         Gauge.builder("orchestrator.last.orchestration.time.ms", this, OrchestratorMetrics::getLastOrchestrationTimeMs)
                 .description("Last orchestration time in milliseconds")
@@ -157,6 +198,74 @@ public class OrchestratorMetrics {
         }
     }
 
+    public void recordToolCatalogHit(long ageMs) {
+        toolCatalogHitCounter.increment();
+        toolCatalogServedAge.record(ageMs / 1000.0);
+    }
+
+    public void recordToolCatalogMiss() {
+        toolCatalogMissCounter.increment();
+    }
+
+    /**
+     * @param result modified, not_modified or failed
+     */
+    public void recordToolCatalogRefresh(String result) {
+        registry.counter("orchestrator.tool.catalog.refreshes", "result", result).increment();
+    }
+
+    public void recordToolShortlist(int offered, int catalogSize, long durationMs) {
+        toolShortlistTimer.record(durationMs, TimeUnit.MILLISECONDS);
+        toolShortlistSize.record((double) offered / catalogSize);
+    }
+
+    public void recordToolShortlistRank(int rank) {
+        toolShortlistSelectedRank.record(rank);
+    }
+
+    /**
+     * @param hit whether the shortlist contained the tool picked from the whole catalog
+     */
+    public void recordToolShortlistRecall(boolean hit) {
+        registry.counter("orchestrator.tool.shortlist.recall.checks", "result", hit ? "hit" : "miss").increment();
+    }
+
+    /**
+     * @param result routed, lexical_action, lexical_unclear, cold, centroid_unclear or error
+     */
+    public void recordFastPathDecision(String result) {
+        registry.counter("orchestrator.fast.path.decisions", "result", result).increment();
+    }
+
+    /**
+     * @param corrected whether the LLM confidently picked another tool than the fast path
+     */
+    public void recordFastPathVerification(boolean corrected) {
+        registry.counter("orchestrator.fast.path.verifications", "result", corrected ? "corrected" : "confirmed").increment();
+    }
+
+    public void registerFastPathCentroids(Supplier<Number> knowledgeSamples, Supplier<Number> actionSamples) {
+        Gauge.builder("orchestrator.fast.path.centroid.samples", knowledgeSamples)
+                .description("Messages learned into the fast path centroid")
+                .tag("class", "knowledge")
+                .register(registry);
+
+        Gauge.builder("orchestrator.fast.path.centroid.samples", actionSamples)
+                .description("Messages learned into the fast path centroid")
+                .tag("class", "action")
+                .register(registry);
+    }
+
+    public void registerToolCatalog(Supplier<Number> cachedCategories, Supplier<Number> oldestAgeSeconds) {
+        Gauge.builder("orchestrator.tool.catalog.categories", cachedCategories)
+                .description("Categories with a cached tool catalog")
+                .register(registry);
+
+        Gauge.builder("orchestrator.tool.catalog.oldest.age.seconds", oldestAgeSeconds)
+                .description("Age of the oldest cached tool catalog")
+                .register(registry);
+    }
+
     // Getters for gauges
     public long getLastOrchestrationTimeMs() {
         return lastOrchestrationTimeMs;
@@ -0,0 +1,267 @@
+package com.naagi.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.naagi.orchestrator.metrics.OrchestratorMetrics;
+import com.naagi.orchestrator.model.ToolSelectionResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Routes clear knowledge questions straight to rag_query without the LLM
+ * tool selection call.
+ *
+ * A message takes the fast path only if both checks agree:
+ * <ol>
+ *   <li>Lexical rules: it opens like a knowledge question ("what is", "how do",
+ *   "explain", ...) and has no sign of an action or a specific entity
+ *   (imperative verbs, IDs, numbers, "my ...").</li>
+ *   <li>Nearest centroid: its embedding is closer, by at least {@code margin},
+ *   to the centroid of past messages the LLM routed to rag_query than to the
+ *   centroid of messages it routed to other tools.</li>
+ * </ol>
+ * The centroids are learned from confident LLM selections; until each has
+ * {@code min-samples} messages every message goes to the LLM. The message
+ * vector is embedded once by {@link ToolSelectionService} and shared with the
+ * tool shortlist; without it every message goes to the LLM.
+ * Anything ambiguous goes to the LLM as well.
+ *
+ * A sample of fast-path decisions is checked later by running the LLM selector
+ * in the background; a confident pick of another tool counts as a correction.
+ */
+@Service
+@Slf4j
+public class FastPathRouter {
+
+    private static final String RAG_QUERY_TOOL = "rag_query";
+
+    private static final List<String> KNOWLEDGE_OPENERS = List.of(
+            "what is", "what are", "what's", "what does", "what do",
+            "how do", "how does", "how to", "how can", "how many", "how much",
+            "why", "explain", "describe", "define", "tell me about",
+            "can you explain", "difference between", "what is the difference",
+            "best practice", "when should", "is it possible");
+
+    // An opener counts at the start of the message or of a clause, not in the middle of one
+    private static final Pattern KNOWLEDGE_OPENER = Pattern.compile(
+            "(^|[.,;:!?]\\s*|\\b(and|but|so|also)\\s+)("
+                    + KNOWLEDGE_OPENERS.stream().map(Pattern::quote).collect(Collectors.joining("|")) + ")\\b");
+
+    private static final Pattern ACTION_OPENER = Pattern.compile(
+            "^(please\\s+)?(create|generate|make|get|fetch|show|list|find|look\\s*up|check|run|execute|"
+                    + "delete|remove|update|set|send|book|cancel|schedule|submit|calculate|start|stop|deploy)\\b");
+
+    // "my balance", "APP-123", "user 5", long numbers, e-mail addresses, URLs
+    private static final Pattern SPECIFIC_ENTITY = Pattern.compile(
+            "\\b(my|mine|our)\\b|\\b[a-z]{2,}-\\d+\\b|\\b(id|user|order|account|ticket|invoice|project)\\s*#?\\d+"
+                    + "|#\\d+|\\d{4,}|\\S+@\\S+|https?://");
+
+    enum Lexical { KNOWLEDGE, ACTION, UNCLEAR }
+
+    private final OrchestratorMetrics metrics;
+    private final boolean enabled;
+    private final double margin;
+    private final double highConfidenceThreshold;
+    private final int minSamples;
+    private final int maxSamples;
+    private final double verifySampleRate;
+
+    private final Centroid knowledgeCentroid = new Centroid();
+    private final Centroid actionCentroid = new Centroid();
+    private final ExecutorService backgroundExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Running sum of normalized message vectors
+     */
+    private static final class Centroid {
+        private float[] sum;
+        private int count;
+
+        synchronized void add(float[] vector) {
+            if (sum == null) {
+                sum = new float[vector.length];
+            }
+            for (int i = 0; i < Math.min(sum.length, vector.length); i++) {
+                sum[i] += vector[i];
+            }
+            count++;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        /**
+         * Cosine similarity of a normalized vector to the centroid
+         */
+        synchronized double similarity(float[] vector) {
+            double dot = 0;
+            double norm = 0;
+            for (int i = 0; i < Math.min(sum.length, vector.length); i++) {
+                dot += sum[i] * vector[i];
+                norm += sum[i] * sum[i];
+            }
+            return norm == 0 ? 0 : dot / Math.sqrt(norm);
+        }
+    }
+
+    public FastPathRouter(
+            OrchestratorMetrics metrics,
+            @Value("${naagi.fast-path.enabled:true}") boolean enabled,
+            @Value("${naagi.fast-path.margin:0.05}") double margin,
+            @Value("${naagi.fast-path.min-samples:20}") int minSamples,
+            @Value("${naagi.fast-path.max-samples:1000}") int maxSamples,
+            @Value("${naagi.fast-path.verify-sample-rate:0.05}") double verifySampleRate,
+            @Value("${naagi.tool-selection.confidence.high-threshold:0.8}") double highConfidenceThreshold) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.margin = margin;
+        this.minSamples = minSamples;
+        this.maxSamples = maxSamples;
+        this.verifySampleRate = verifySampleRate;
+        this.highConfidenceThreshold = highConfidenceThreshold;
+        metrics.registerFastPathCentroids(knowledgeCentroid::count, actionCentroid::count);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        backgroundExecutor.shutdownNow();
+    }
+
+    /**
+     * Whether {@link #route} or {@link #learn} would use the message vector: the
+     * centroids still take samples, or the message could take the fast path
+     */
+    public boolean usesVector(String userMessage) {
+        return enabled && (knowledgeCentroid.count() < maxSamples || actionCentroid.count() < maxSamples
+                || classify(userMessage) == Lexical.KNOWLEDGE);
+    }
+
+    /**
+     * A rag_query selection for a clear knowledge question, or empty to let the LLM select
+     *
+     * @param vector normalized embedding of the message, null if embedding failed
+     */
+    public Optional<ToolSelectionResult> route(String userMessage, float[] vector, List<JsonNode> availableTools) {
+        if (!enabled || userMessage == null || userMessage.isBlank()) {
+            return Optional.empty();
+        }
+        Optional<String> ragTool = availableTools.stream()
+                .map(ToolShortlistService::toolName)
+                .filter(name -> name.startsWith(RAG_QUERY_TOOL))
+                .findFirst();
+        if (ragTool.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Lexical lexical = classify(userMessage);
+        if (lexical != Lexical.KNOWLEDGE) {
+            metrics.recordFastPathDecision("lexical_" + lexical.name().toLowerCase(Locale.ROOT));
+            return Optional.empty();
+        }
+        if (knowledgeCentroid.count() < minSamples || actionCentroid.count() < minSamples) {
+            metrics.recordFastPathDecision("cold");
+            log.debug("Fast path cold: {} knowledge / {} action samples (need {})",
+                    knowledgeCentroid.count(), actionCentroid.count(), minSamples);
+            return Optional.empty();
+        }
+
+        if (vector == null) {
+            metrics.recordFastPathDecision("error");
+            log.debug("Fast path skipped: no message embedding");
+            return Optional.empty();
+        }
+
+        double knowledge = knowledgeCentroid.similarity(vector);
+        double action = actionCentroid.similarity(vector);
+        if (knowledge - action < margin) {
+            metrics.recordFastPathDecision("centroid_unclear");
+            log.debug("Fast path declined: knowledge={} action={}",
+                    String.format("%.3f", knowledge), String.format("%.3f", action));
+            return Optional.empty();
+        }
+
+        metrics.recordFastPathDecision("routed");
+        log.info("Fast path to {} (knowledge={}, action={})", ragTool.get(),
+                String.format("%.3f", knowledge), String.format("%.3f", action));
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("question", userMessage);
+        return Optional.of(new ToolSelectionResult(ragTool.get(), 1.0, parameters,
+                "Knowledge question routed to the knowledge base without tool selection", List.of()));
+    }
+
+    /**
+     * Learn from a confident LLM selection
+     *
+     * @param vector normalized embedding of the message, null if embedding failed
+     */
+    public void learn(float[] vector, ToolSelectionResult selection) {
+        if (!enabled || vector == null || selection.getSelectedTool() == null
+                || selection.getConfidence() < highConfidenceThreshold) {
+            return;
+        }
+        Centroid centroid = selection.getSelectedTool().startsWith(RAG_QUERY_TOOL) ? knowledgeCentroid : actionCentroid;
+        if (centroid.count() >= maxSamples) {
+            return;
+        }
+        centroid.add(vector);
+    }
+
+    /**
+     * For a sample of fast-path decisions, run the LLM selector in the background
+     * and count a confident pick of another tool as a correction
+     *
+     * @param vector       normalized embedding of the message
+     * @param llmSelection selects a tool with the LLM
+     */
+    public void sampleVerification(String userMessage, float[] vector, ToolSelectionResult fastPath,
+                                   Supplier<ToolSelectionResult> llmSelection) {
+        if (ThreadLocalRandom.current().nextDouble() >= verifySampleRate) {
+            return;
+        }
+        backgroundExecutor.execute(() -> {
+            try {
+                ToolSelectionResult selection = llmSelection.get();
+                boolean corrected = selection.getSelectedTool() != null
+                        && selection.getConfidence() >= highConfidenceThreshold
+                        && !selection.getSelectedTool().startsWith(RAG_QUERY_TOOL);
+                metrics.recordFastPathVerification(corrected);
+                if (corrected) {
+                    log.info("Fast path corrected: LLM picked {} instead of {} for \"{}\"",
+                            selection.getSelectedTool(), fastPath.getSelectedTool(), userMessage);
+                }
+                learn(vector, selection);
+            } catch (RuntimeException e) {
+                log.debug("Fast path verification failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    static Lexical classify(String userMessage) {
+        String text = userMessage.trim().toLowerCase(Locale.ROOT);
+        if (ACTION_OPENER.matcher(text).find()) {
+            return Lexical.ACTION;
+        }
+        if (SPECIFIC_ENTITY.matcher(text).find()) {
+            return Lexical.ACTION;
+        }
+        if (KNOWLEDGE_OPENER.matcher(text).find()) {
+            return Lexical.KNOWLEDGE;
+        }
+        return Lexical.UNCLEAR;
+    }
+}
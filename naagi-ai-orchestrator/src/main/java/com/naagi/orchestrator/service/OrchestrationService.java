@@ -18,6 +18,7 @@ public class OrchestrationService {
 
     private final ToolSelectionService toolSelectionService;
     private final ToolRegistryClient toolRegistryClient;
+    private final ToolCatalogCache toolCatalogCache;
     private final McpGatewayClient mcpGatewayClient;
     private final LlmClient llmClient;
     private final ObjectMapper objectMapper;
@@ -25,12 +26,14 @@ public class OrchestrationService {
 
     public OrchestrationService(ToolSelectionService toolSelectionService,
                                 ToolRegistryClient toolRegistryClient,
+                                ToolCatalogCache toolCatalogCache,
                                 McpGatewayClient mcpGatewayClient,
                                 LlmClient llmClient,
                                 ObjectMapper objectMapper,
                                 OrchestratorMetrics metrics) {
         this.toolSelectionService = toolSelectionService;
         this.toolRegistryClient = toolRegistryClient;
+        this.toolCatalogCache = toolCatalogCache;
         this.mcpGatewayClient = mcpGatewayClient;
         this.llmClient = llmClient;
         this.objectMapper = objectMapper;
@@ -45,7 +48,7 @@ public class OrchestrationService {
             // Get available tools from registry - prefer category-specific tools
             List<JsonNode> availableTools;
             if (request.getCategoryId() != null && !request.getCategoryId().isBlank()) {
-                availableTools = toolRegistryClient.getToolsByCategory(request.getCategoryId());
+                availableTools = toolCatalogCache.getTools(request.getCategoryId());
                 log.info("Loaded {} tools for category {}", availableTools.size(), request.getCategoryId());
             } else {
                 availableTools = toolRegistryClient.getAllTools();
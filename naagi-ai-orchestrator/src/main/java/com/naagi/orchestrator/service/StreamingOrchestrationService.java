@@ -28,6 +28,7 @@ public class StreamingOrchestrationService {
 
     private final ToolSelectionService toolSelectionService;
     private final ToolRegistryClient toolRegistryClient;
+    private final ToolCatalogCache toolCatalogCache;
     private final McpGatewayClient mcpGatewayClient;
     private final LlmClient llmClient;
     private final ObjectMapper objectMapper;
@@ -38,6 +39,7 @@ public class StreamingOrchestrationService {
     public StreamingOrchestrationService(
             ToolSelectionService toolSelectionService,
             ToolRegistryClient toolRegistryClient,
+            ToolCatalogCache toolCatalogCache,
             McpGatewayClient mcpGatewayClient,
             LlmClient llmClient,
             ObjectMapper objectMapper,
@@ -45,6 +47,7 @@ public class StreamingOrchestrationService {
             @Value("${naagi.services.rag-service.url}") String ragServiceUrl) {
         this.toolSelectionService = toolSelectionService;
         this.toolRegistryClient = toolRegistryClient;
+        this.toolCatalogCache = toolCatalogCache;
         this.mcpGatewayClient = mcpGatewayClient;
         this.llmClient = llmClient;
         this.objectMapper = objectMapper;
@@ -66,7 +69,7 @@ public class StreamingOrchestrationService {
             // Get available tools
             List<JsonNode> availableTools;
             if (request.getCategoryId() != null && !request.getCategoryId().isBlank()) {
-                availableTools = toolRegistryClient.getToolsByCategory(request.getCategoryId());
+                availableTools = toolCatalogCache.getTools(request.getCategoryId());
             } else {
                 availableTools = toolRegistryClient.getAllTools();
             }
@@ -0,0 +1,164 @@
+package com.naagi.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.naagi.orchestrator.metrics.OrchestratorMetrics;
+import com.naagi.orchestrator.service.ToolRegistryClient.CatalogFetch;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-category cache of the tool catalog.
+ *
+ * The catalog changes a few times a day, so chat messages are served from
+ * memory. An entry older than {@code max-age-seconds}, or one invalidated by
+ * category-admin through {@link #invalidate}, is still served while a
+ * background refresh revalidates it with a conditional GET; category-admin
+ * answers 304 when the catalog ETag is unchanged. Only the first request for
+ * a category waits for the fetch. At most one fetch per category is in flight,
+ * and a failed refresh keeps the old entry.
+ */
+@Service
+@Slf4j
+public class ToolCatalogCache {
+
+    private final ToolRegistryClient toolRegistryClient;
+    private final OrchestratorMetrics metrics;
+    private final long maxAgeMs;
+
+    private final ConcurrentHashMap<String, CatalogEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<CatalogEntry>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param invalidation sequence number of the last invalidation of the entry, 0 if none
+     * @param stale        whether that invalidation is not yet reflected in {@code tools}
+     */
+    private record CatalogEntry(List<JsonNode> tools, String etag, long fetchedAt, long invalidation, boolean stale) {
+
+        long ageMs(long now) {
+            return now - fetchedAt;
+        }
+    }
+
+    public ToolCatalogCache(
+            ToolRegistryClient toolRegistryClient,
+            OrchestratorMetrics metrics,
+            @Value("${naagi.tool-catalog.max-age-seconds:60}") long maxAgeSeconds) {
+        this.toolRegistryClient = toolRegistryClient;
+        this.metrics = metrics;
+        this.maxAgeMs = maxAgeSeconds * 1000;
+        metrics.registerToolCatalog(entries::size, this::oldestAgeSeconds);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Tools for a category with overrides applied, possibly stale while a refresh runs
+     */
+    public List<JsonNode> getTools(String categoryId) {
+        CatalogEntry entry = entries.get(categoryId);
+        if (entry == null) {
+            metrics.recordToolCatalogMiss();
+            CatalogEntry loaded = refresh(categoryId).join();
+            return loaded != null ? loaded.tools() : List.of();
+        }
+
+        long now = System.currentTimeMillis();
+        metrics.recordToolCatalogHit(entry.ageMs(now));
+        if (entry.stale() || entry.ageMs(now) >= maxAgeMs) {
+            refresh(categoryId);
+        }
+        return entry.tools();
+    }
+
+    /**
+     * Mark a category's catalog, or every category's if {@code categoryId} is
+     * null, as changed and start refreshing it
+     *
+     * @return number of cached categories invalidated
+     */
+    public int invalidate(String categoryId) {
+        List<String> categoryIds = categoryId != null ? List.of(categoryId) : List.copyOf(entries.keySet());
+        int invalidated = 0;
+        for (String id : categoryIds) {
+            CatalogEntry entry = entries.computeIfPresent(id, (k, e) ->
+                    new CatalogEntry(e.tools(), e.etag(), e.fetchedAt(), invalidations.incrementAndGet(), true));
+            if (entry != null) {
+                invalidated++;
+                refresh(id);
+            }
+        }
+        log.info("Invalidated {} categories (requested: {})",
+                invalidated, categoryId != null ? categoryId : "all");
+        return invalidated;
+    }
+
+    /**
+     * Start a fetch for the category unless one is already running
+     */
+    private CompletableFuture<CatalogEntry> refresh(String categoryId) {
+        CompletableFuture<CatalogEntry> created = new CompletableFuture<>();
+        CompletableFuture<CatalogEntry> running = inFlight.putIfAbsent(categoryId, created);
+        if (running != null) {
+            return running;
+        }
+        refreshExecutor.execute(() -> {
+            CatalogEntry result;
+            try {
+                result = fetch(categoryId);
+            } catch (Throwable t) {
+                log.warn("Refresh failed for category {}: {}", categoryId, t.getMessage());
+                result = entries.get(categoryId);
+            }
+            // Unregister before completing, so a caller that waited on this fetch can start the next one
+            inFlight.remove(categoryId, created);
+            created.complete(result);
+        });
+        return created;
+    }
+
+    private CatalogEntry fetch(String categoryId) {
+        CatalogEntry current = entries.get(categoryId);
+        long invalidation = current != null ? current.invalidation() : 0;
+        long start = System.currentTimeMillis();
+        CatalogFetch fetch = toolRegistryClient.fetchToolsByCategory(categoryId, current != null ? current.etag() : null);
+
+        if (fetch == null) {
+            metrics.recordToolCatalogRefresh("failed");
+            log.warn("Could not load tools for category {}, keeping cached catalog: {}",
+                    categoryId, current != null);
+            return current;
+        }
+
+        CatalogEntry fetched = fetch.notModified() && current != null
+                ? new CatalogEntry(current.tools(), current.etag(), start, invalidation, false)
+                : new CatalogEntry(fetch.tools(), fetch.etag(), start, invalidation, false);
+        metrics.recordToolCatalogRefresh(fetch.notModified() ? "not_modified" : "modified");
+
+        // An invalidation that arrived during the fetch may not be reflected in it
+        CatalogEntry stored = entries.merge(categoryId, fetched, (old, e) -> old.invalidation() != invalidation
+                ? new CatalogEntry(e.tools(), e.etag(), e.fetchedAt(), old.invalidation(), true)
+                : e);
+        log.debug("Category {}: {} tools, etag={}, {}", categoryId, stored.tools().size(),
+                stored.etag(), fetch.notModified() ? "not modified" : "reloaded");
+        return stored;
+    }
+
+    private double oldestAgeSeconds() {
+        long now = System.currentTimeMillis();
+        return entries.values().stream().mapToLong(e -> e.ageMs(now)).max().orElse(0) / 1000.0;
+    }
+}
@@ -86,42 +86,78 @@ public class ToolRegistryClient {
         return null;
     }
 
+    /**
+     * Result of a conditional catalog fetch.
+     *
+     * @param tools the tools, or null when the catalog is unchanged (HTTP 304)
+     * @param etag  the catalog version from category-admin, or null for tool-registry fallbacks
+     */
+    public record CatalogFetch(List<JsonNode> tools, String etag) {
+        public boolean notModified() {
+            return tools == null;
+        }
+    }
+
     /**
      * Get tools for a category with parameter overrides applied.
      * Fetches merged tools from category-admin which includes locked values and enum restrictions.
      */
     public List<JsonNode> getToolsByCategory(String categoryId) {
+        CatalogFetch fetch = fetchToolsByCategory(categoryId, null);
+        return fetch != null ? fetch.tools() : List.of();
+    }
+
+    /**
+     * Get tools for a category, sending If-None-Match when an ETag from an
+     * earlier fetch is given.
+     *
+     * @return the fetch (not modified if category-admin answered 304), or null if both sources failed
+     */
+    public CatalogFetch fetchToolsByCategory(String categoryId, String etag) {
         // First try to get merged tools from category-admin (includes overrides)
-        List<JsonNode> mergedTools = getMergedToolsFromCategoryAdmin(categoryId);
-        if (!mergedTools.isEmpty()) {
-            return mergedTools;
+        CatalogFetch merged = getMergedToolsFromCategoryAdmin(categoryId, etag);
+        if (merged != null && (merged.notModified() || !merged.tools().isEmpty())) {
+            return merged;
         }
 
         // Fallback to tool-registry if category-admin fails
         log.warn("Falling back to tool-registry for category {} (category-admin unavailable)", categoryId);
-        return getToolsFromRegistry(categoryId);
+        List<JsonNode> tools = getToolsFromRegistry(categoryId);
+        if (tools.isEmpty() && merged == null) {
+            return null;
+        }
+        return new CatalogFetch(tools, null);
     }
 
     /**
      * Fetch merged tools from category-admin with parameter overrides applied.
+     *
+     * @return the fetch, or null on failure
      */
-    private List<JsonNode> getMergedToolsFromCategoryAdmin(String categoryId) {
+    private CatalogFetch getMergedToolsFromCategoryAdmin(String categoryId, String etag) {
         try {
             String url = categoryAdminUrl + "/api/categories/" + categoryId + "/tools/merged";
             log.debug("Fetching merged tools from category-admin: {}", url);
 
-            HttpRequest request = HttpRequest.newBuilder()
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
                     .uri(URI.create(url))
                     .timeout(Duration.ofSeconds(30))
-                    .GET()
-                    .build();
+                    .GET();
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() == 304 && etag != null) {
+                log.debug("Merged tools for category {} not modified", categoryId);
+                return new CatalogFetch(null, etag);
+            }
 
             if (response.statusCode() != 200) {
                 log.warn("Category-admin returned HTTP {} for merged tools, categoryId={}",
                         response.statusCode(), categoryId);
-                return List.of();
+                return null;
             }
 
             JsonNode toolsArray = objectMapper.readTree(response.body());
@@ -134,11 +170,11 @@ public class ToolRegistryClient {
             }
 
             log.info("Loaded {} merged tools for category {} from category-admin", tools.size(), categoryId);
-            return tools;
+            return new CatalogFetch(tools, response.headers().firstValue("ETag").orElse(null));
         } catch (Exception e) {
             log.warn("Error fetching merged tools from category-admin for category {}: {}",
                     categoryId, e.getMessage());
-            return List.of();
+            return null;
         }
     }
 
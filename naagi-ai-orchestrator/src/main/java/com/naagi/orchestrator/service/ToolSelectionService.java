@@ -3,9 +3,11 @@ package com.naagi.orchestrator.service;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naagi.orchestrator.llm.EmbeddingClient;
 import com.naagi.orchestrator.llm.LlmClient;
 import com.naagi.orchestrator.model.AlternativeTool;
 import com.naagi.orchestrator.model.ToolSelectionResult;
+import com.naagi.orchestrator.service.ToolShortlistService.Shortlist;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -14,13 +16,17 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Slf4j
 public class ToolSelectionService {
 
     private final LlmClient llmClient;
+    private final EmbeddingClient embeddingClient;
     private final ToolRegistryClient toolRegistryClient;
+    private final ToolShortlistService toolShortlistService;
+    private final FastPathRouter fastPathRouter;
     private final ObjectMapper objectMapper;
 
     @Value("${naagi.tool-selection.confidence.high-threshold:0.8}")
@@ -29,14 +35,74 @@ public class ToolSelectionService {
     @Value("${naagi.tool-selection.confidence.low-threshold:0.5}")
     private double lowConfidenceThreshold;
 
-    public ToolSelectionService(LlmClient llmClient, ToolRegistryClient toolRegistryClient, ObjectMapper objectMapper) {
+    public ToolSelectionService(LlmClient llmClient, EmbeddingClient embeddingClient,
+                                ToolRegistryClient toolRegistryClient,
+                                ToolShortlistService toolShortlistService, FastPathRouter fastPathRouter,
+                                ObjectMapper objectMapper) {
         this.llmClient = llmClient;
+        this.embeddingClient = embeddingClient;
         this.toolRegistryClient = toolRegistryClient;
+        this.toolShortlistService = toolShortlistService;
+        this.fastPathRouter = fastPathRouter;
         this.objectMapper = objectMapper;
     }
 
+    /**
+     * Select a tool for the message. Clear knowledge questions go straight to
+     * rag_query; everything else goes to the LLM. The message is embedded at
+     * most once, for both the fast path and the tool shortlist.
+     */
     public ToolSelectionResult selectTool(String userMessage, List<JsonNode> availableTools) {
-        String prompt = buildToolSelectionPrompt(userMessage, availableTools);
+        float[] vector = embedMessage(userMessage, availableTools);
+
+        Optional<ToolSelectionResult> fastPath = fastPathRouter.route(userMessage, vector, availableTools);
+        if (fastPath.isPresent()) {
+            fastPathRouter.sampleVerification(userMessage, vector, fastPath.get(),
+                    () -> selectWithLlm(userMessage, vector, availableTools));
+            return fastPath.get();
+        }
+
+        ToolSelectionResult result = selectWithLlm(userMessage, vector, availableTools);
+        fastPathRouter.learn(vector, result);
+        return result;
+    }
+
+    /**
+     * Normalized embedding of the message, or null if nothing needs it or embedding failed
+     */
+    private float[] embedMessage(String userMessage, List<JsonNode> availableTools) {
+        if (userMessage == null || userMessage.isBlank()
+                || !fastPathRouter.usesVector(userMessage) && !toolShortlistService.applies(availableTools)) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            float[] vector = ToolShortlistService.normalize(embeddingClient.embed(List.of(userMessage)).get(0));
+            log.info("[TIMING] Message embedding: {}ms", System.currentTimeMillis() - start);
+            return vector;
+        } catch (RuntimeException e) {
+            log.warn("Message embedding failed, selecting from all tools with the LLM: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Large catalogs are first shortlisted by embedding similarity so only the
+     * closest tools go into the prompt.
+     */
+    private ToolSelectionResult selectWithLlm(String userMessage, float[] vector, List<JsonNode> availableTools) {
+        Shortlist shortlist = toolShortlistService.shortlist(vector, availableTools);
+
+        ToolSelectionResult result = selectFrom(userMessage, shortlist.tools());
+
+        toolShortlistService.recordSelection(shortlist, result.getSelectedTool());
+        toolShortlistService.sampleRecall(shortlist, result.getSelectedTool(),
+                () -> selectFrom(userMessage, availableTools).getSelectedTool());
+        return result;
+    }
+
+    private ToolSelectionResult selectFrom(String userMessage, List<JsonNode> tools) {
+        String prompt = buildToolSelectionPrompt(userMessage, tools);
 
         log.debug("Tool selection prompt: {}", prompt);
 
@@ -82,7 +148,7 @@ public class ToolSelectionService {
 
         int index = 1;
         for (JsonNode tool : tools) {
-            String name = tool.has("toolId") ? tool.get("toolId").asText() : tool.get("name").asText();
+            String name = ToolShortlistService.toolName(tool);
             String description = tool.has("humanReadableDescription") && !tool.get("humanReadableDescription").isNull()
                     ? tool.get("humanReadableDescription").asText()
                     : (tool.has("description") ? tool.get("description").asText() : "No description");
@@ -0,0 +1,286 @@
+package com.naagi.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.naagi.orchestrator.llm.EmbeddingClient;
+import com.naagi.orchestrator.metrics.OrchestratorMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Narrows a tool catalog down to the tools closest to the user message before
+ * the LLM picks one, so the selection prompt stays short as categories grow.
+ *
+ * A tool is embedded from its name, description and parameter names, and the
+ * vector is kept for as long as that text is unchanged, so each catalog
+ * version is embedded once. The message itself is embedded once by
+ * {@link ToolSelectionService} and shared with the fast path router. The
+ * {@code top-k} tools by cosine similarity are offered, plus rag_query, which
+ * is always offered. Catalogs of at most {@code top-k} tools, and requests
+ * whose embedding fails, get the whole catalog.
+ *
+ * Recall is logged for tuning k: the similarity rank of every tool the LLM
+ * picks, and for a sample of requests whether the LLM picks the same tool
+ * from the whole catalog.
+ */
+@Service
+@Slf4j
+public class ToolShortlistService {
+
+    private static final String RAG_QUERY_TOOL = "rag_query";
+    static final int MAX_CACHED_VECTORS = 10_000;
+
+    private final EmbeddingClient embeddingClient;
+    private final OrchestratorMetrics metrics;
+    private final boolean enabled;
+    private final int topK;
+    private final double recallSampleRate;
+
+    // Normalized vectors keyed by the embedded tool text
+    private final ConcurrentHashMap<String, float[]> toolVectors = new ConcurrentHashMap<>();
+    private final ExecutorService recallExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param tools   tools to offer the LLM
+     * @param ranking names of the whole catalog by similarity, empty if not shortlisted
+     */
+    public record Shortlist(List<JsonNode> tools, List<String> ranking) {
+
+        static Shortlist unchanged(List<JsonNode> tools) {
+            return new Shortlist(tools, List.of());
+        }
+
+        public boolean applied() {
+            return !ranking.isEmpty();
+        }
+
+        public boolean contains(String toolName) {
+            return tools.stream().anyMatch(tool -> toolName(tool).equals(toolName));
+        }
+
+        /**
+         * 1-based similarity rank of a tool in the whole catalog, 0 if it is not in the catalog
+         */
+        public int rankOf(String toolName) {
+            return ranking.indexOf(toolName) + 1;
+        }
+    }
+
+    private record ScoredTool(JsonNode tool, String name, double similarity) {}
+
+    public ToolShortlistService(
+            EmbeddingClient embeddingClient,
+            OrchestratorMetrics metrics,
+            @Value("${naagi.tool-shortlist.enabled:true}") boolean enabled,
+            @Value("${naagi.tool-shortlist.top-k:8}") int topK,
+            @Value("${naagi.tool-shortlist.recall-sample-rate:0.02}") double recallSampleRate) {
+        this.embeddingClient = embeddingClient;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.topK = topK;
+        this.recallSampleRate = recallSampleRate;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        recallExecutor.shutdownNow();
+    }
+
+    /**
+     * Name the selection prompt and the LLM use for a tool
+     */
+    static String toolName(JsonNode tool) {
+        return tool.has("toolId") ? tool.get("toolId").asText() : tool.get("name").asText();
+    }
+
+    /**
+     * Whether {@link #shortlist} would narrow this catalog, and so needs the message vector
+     */
+    public boolean applies(List<JsonNode> tools) {
+        return enabled && tools.size() > topK;
+    }
+
+    /**
+     * @param query normalized embedding of the message, null if embedding failed
+     */
+    public Shortlist shortlist(float[] query, List<JsonNode> tools) {
+        if (!applies(tools)) {
+            return Shortlist.unchanged(tools);
+        }
+        if (query == null) {
+            log.warn("No message embedding, offering all {} tools", tools.size());
+            return Shortlist.unchanged(tools);
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            List<float[]> vectors = vectorsFor(tools);
+
+            List<ScoredTool> ranked = new ArrayList<>(tools.size());
+            for (int i = 0; i < tools.size(); i++) {
+                JsonNode tool = tools.get(i);
+                ranked.add(new ScoredTool(tool, toolName(tool), dot(query, vectors.get(i))));
+            }
+            ranked.sort(Comparator.comparingDouble(ScoredTool::similarity).reversed());
+
+            Set<JsonNode> offered = new LinkedHashSet<>();
+            for (ScoredTool scored : ranked.subList(0, topK)) {
+                offered.add(scored.tool());
+            }
+            for (ScoredTool scored : ranked) {
+                if (scored.name().startsWith(RAG_QUERY_TOOL)) {
+                    offered.add(scored.tool());
+                }
+            }
+
+            long durationMs = System.currentTimeMillis() - start;
+            metrics.recordToolShortlist(offered.size(), tools.size(), durationMs);
+            log.info("[TIMING] Shortlisted {} of {} tools: {}ms", offered.size(), tools.size(), durationMs);
+            log.debug("Shortlist: {}", ranked.subList(0, topK).stream()
+                    .map(s -> String.format("%s=%.3f", s.name(), s.similarity()))
+                    .toList());
+
+            return new Shortlist(List.copyOf(offered), ranked.stream().map(ScoredTool::name).toList());
+        } catch (RuntimeException e) {
+            log.warn("Tool shortlisting failed, offering all {} tools: {}", tools.size(), e.getMessage());
+            return Shortlist.unchanged(tools);
+        }
+    }
+
+    /**
+     * Log where the LLM's pick ranked by similarity. Picks that keep landing
+     * near k mean k is too small.
+     */
+    public void recordSelection(Shortlist shortlist, String selectedTool) {
+        if (!shortlist.applied()) {
+            return;
+        }
+        if (selectedTool == null) {
+            log.info("Shortlist recall: no tool picked from {} of {} tools (k={})",
+                    shortlist.tools().size(), shortlist.ranking().size(), topK);
+            return;
+        }
+        int rank = shortlist.rankOf(selectedTool);
+        metrics.recordToolShortlistRank(rank);
+        log.info("Shortlist recall: picked {} at similarity rank {} of {} (k={})",
+                selectedTool, rank, shortlist.ranking().size(), topK);
+    }
+
+    /**
+     * For a sample of shortlisted requests, select again from the whole catalog
+     * in the background and log whether the shortlist contained that pick
+     *
+     * @param fullCatalogSelection selects a tool from the whole catalog
+     */
+    public void sampleRecall(Shortlist shortlist, String selectedTool, Supplier<String> fullCatalogSelection) {
+        if (!shortlist.applied() || ThreadLocalRandom.current().nextDouble() >= recallSampleRate) {
+            return;
+        }
+        recallExecutor.execute(() -> {
+            try {
+                String fullCatalogTool = fullCatalogSelection.get();
+                boolean hit = fullCatalogTool == null || shortlist.contains(fullCatalogTool);
+                metrics.recordToolShortlistRecall(hit);
+                log.info("Shortlist recall check: {} - whole catalog picked {} (rank {}), shortlist picked {} (k={})",
+                        hit ? "hit" : "miss", fullCatalogTool,
+                        fullCatalogTool != null ? shortlist.rankOf(fullCatalogTool) : 0, selectedTool, topK);
+            } catch (RuntimeException e) {
+                log.debug("Shortlist recall check failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Vectors for the tools, embedding the ones not seen before in one request
+     */
+    private List<float[]> vectorsFor(List<JsonNode> tools) {
+        List<String> texts = tools.stream().map(ToolShortlistService::embeddingText).toList();
+
+        List<String> missing = texts.stream()
+                .filter(text -> !toolVectors.containsKey(text))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            if (toolVectors.size() + missing.size() > MAX_CACHED_VECTORS) {
+                // Start over with just this catalog, embedded in the same request
+                toolVectors.clear();
+                missing = texts.stream().distinct().toList();
+            }
+            List<float[]> embedded = embeddingClient.embed(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                toolVectors.put(missing.get(i), normalize(embedded.get(i)));
+            }
+            log.info("Embedded {} new or changed tool descriptions", missing.size());
+        }
+
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            float[] vector = toolVectors.get(text);
+            if (vector == null) {
+                // Cleared by a concurrent request that overflowed the cache
+                vector = normalize(embeddingClient.embed(List.of(text)).get(0));
+                toolVectors.put(text, vector);
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    /**
+     * Name, human-readable description and parameter names of a tool
+     */
+    static String embeddingText(JsonNode tool) {
+        StringBuilder sb = new StringBuilder(toolName(tool));
+        JsonNode description = tool.hasNonNull("humanReadableDescription")
+                ? tool.get("humanReadableDescription")
+                : tool.get("description");
+        if (description != null && !description.isNull()) {
+            sb.append(": ").append(description.asText());
+        }
+        if (tool.has("parameters") && tool.get("parameters").isArray() && !tool.get("parameters").isEmpty()) {
+            List<String> params = new ArrayList<>();
+            for (JsonNode param : tool.get("parameters")) {
+                params.add(param.path("name").asText());
+            }
+            sb.append("\nParameters: ").append(String.join(", ", params));
+        }
+        return sb.toString();
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            return vector;
+        }
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        int length = Math.min(a.length, b.length);
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,223 @@
+package com.naagi.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naagi.orchestrator.metrics.OrchestratorMetrics;
+import com.naagi.orchestrator.model.ToolSelectionResult;
+import com.naagi.orchestrator.service.FastPathRouter.Lexical;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastPathRouterTest {
+
+    private static final float[] KNOWLEDGE = {1f, 0f};
+    private static final float[] ACTION = {0f, 1f};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SimpleMeterRegistry registry;
+    private FastPathRouter router;
+    private List<JsonNode> tools;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        router = new FastPathRouter(new OrchestratorMetrics(registry), true, 0.05, 2, 3, 0.0, 0.8);
+        tools = List.of(tool("rag_query"), tool("create_ticket"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.shutdown();
+    }
+
+    private JsonNode tool(String name) {
+        return objectMapper.createObjectNode().put("name", name);
+    }
+
+    private static ToolSelectionResult selection(String tool, double confidence) {
+        return new ToolSelectionResult(tool, confidence, Map.of(), "", List.of());
+    }
+
+    private void learnBoth(int samples) {
+        for (int i = 0; i < samples; i++) {
+            router.learn(KNOWLEDGE, selection("rag_query", 0.9));
+            router.learn(ACTION, selection("create_ticket", 0.9));
+        }
+    }
+
+    private double decisions(String result) {
+        return registry.counter("orchestrator.fast.path.decisions", "result", result).count();
+    }
+
+    private double samples(String centroid) {
+        return registry.get("orchestrator.fast.path.centroid.samples").tag("class", centroid).gauge().value();
+    }
+
+    @Nested
+    @DisplayName("Lexical Classification Tests")
+    class ClassifyTests {
+
+        @Test
+        @DisplayName("Should classify messages opening like a question as knowledge")
+        void testKnowledgeQuestions() {
+            assertThat(FastPathRouter.classify("What is a service mesh?")).isEqualTo(Lexical.KNOWLEDGE);
+            assertThat(FastPathRouter.classify("  Explain batch processing")).isEqualTo(Lexical.KNOWLEDGE);
+            assertThat(FastPathRouter.classify("What's the difference between REST and gRPC?"))
+                    .isEqualTo(Lexical.KNOWLEDGE);
+        }
+
+        @Test
+        @DisplayName("Should accept an opener at the start of a later clause")
+        void testOpenerAfterClause() {
+            assertThat(FastPathRouter.classify("Thanks. How do I rotate keys?")).isEqualTo(Lexical.KNOWLEDGE);
+            assertThat(FastPathRouter.classify("Hi, what are sidecars?")).isEqualTo(Lexical.KNOWLEDGE);
+            assertThat(FastPathRouter.classify("I read the guide but why does it retry twice?"))
+                    .isEqualTo(Lexical.KNOWLEDGE);
+        }
+
+        @Test
+        @DisplayName("Should ignore an opener in the middle of a clause")
+        void testOpenerMidClause() {
+            assertThat(FastPathRouter.classify("Summarize the page about what is new in release notes"))
+                    .isEqualTo(Lexical.UNCLEAR);
+            assertThat(FastPathRouter.classify("Nobody knows why the cache grows"))
+                    .isEqualTo(Lexical.UNCLEAR);
+        }
+
+        @Test
+        @DisplayName("Should classify imperative requests as actions")
+        void testActions() {
+            assertThat(FastPathRouter.classify("Create a ticket for the outage")).isEqualTo(Lexical.ACTION);
+            assertThat(FastPathRouter.classify("Please deploy the payment service")).isEqualTo(Lexical.ACTION);
+        }
+
+        @Test
+        @DisplayName("Should classify questions about a specific entity as actions")
+        void testSpecificEntities() {
+            assertThat(FastPathRouter.classify("What is the status of APP-123?")).isEqualTo(Lexical.ACTION);
+            assertThat(FastPathRouter.classify("What is my balance?")).isEqualTo(Lexical.ACTION);
+            assertThat(FastPathRouter.classify("How much is order #4521?")).isEqualTo(Lexical.ACTION);
+        }
+
+        @Test
+        @DisplayName("Should leave messages without an opener unclear")
+        void testUnclear() {
+            assertThat(FastPathRouter.classify("kubernetes networking")).isEqualTo(Lexical.UNCLEAR);
+        }
+    }
+
+    @Nested
+    @DisplayName("Routing Tests")
+    class RouteTests {
+
+        @Test
+        @DisplayName("Should route a knowledge question closer to the knowledge centroid to rag_query")
+        void testRouted() {
+            learnBoth(2);
+
+            Optional<ToolSelectionResult> result = router.route("What is a service mesh?",
+                    ToolShortlistService.normalize(new float[]{0.9f, 0.1f}), tools);
+
+            assertThat(result).hasValueSatisfying(selection -> {
+                assertThat(selection.getSelectedTool()).isEqualTo("rag_query");
+                assertThat(selection.getExtractedParameters()).containsEntry("question", "What is a service mesh?");
+            });
+            assertThat(decisions("routed")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should decline when the centroids are closer than the margin")
+        void testMargin() {
+            learnBoth(2);
+
+            Optional<ToolSelectionResult> result = router.route("What is a service mesh?",
+                    ToolShortlistService.normalize(new float[]{0.51f, 0.49f}), tools);
+
+            assertThat(result).isEmpty();
+            assertThat(decisions("centroid_unclear")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should decline until both centroids have min-samples messages")
+        void testColdStart() {
+            learnBoth(1);
+            router.learn(KNOWLEDGE, selection("rag_query", 0.9));
+
+            assertThat(router.route("What is a service mesh?", KNOWLEDGE, tools)).isEmpty();
+            assertThat(decisions("cold")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should decline actions before looking at the vector")
+        void testLexicalAction() {
+            learnBoth(2);
+
+            assertThat(router.route("Create a ticket for the outage", KNOWLEDGE, tools)).isEmpty();
+            assertThat(decisions("lexical_action")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should decline when the message could not be embedded")
+        void testMissingVector() {
+            learnBoth(2);
+
+            assertThat(router.route("What is a service mesh?", null, tools)).isEmpty();
+            assertThat(decisions("error")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should decline when rag_query is not available")
+        void testNoRagTool() {
+            learnBoth(2);
+
+            assertThat(router.route("What is a service mesh?", KNOWLEDGE, List.of(tool("create_ticket")))).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Learning Tests")
+    class LearnTests {
+
+        @Test
+        @DisplayName("Should learn only from confident selections")
+        void testConfidenceThreshold() {
+            router.learn(KNOWLEDGE, selection("rag_query", 0.5));
+            router.learn(ACTION, selection(null, 0.9));
+            router.learn(null, selection("rag_query", 0.9));
+
+            assertThat(samples("knowledge")).isZero();
+            assertThat(samples("action")).isZero();
+        }
+
+        @Test
+        @DisplayName("Should stop learning at max-samples")
+        void testMaxSamples() {
+            learnBoth(5);
+
+            assertThat(samples("knowledge")).isEqualTo(3);
+            assertThat(samples("action")).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should need the message vector only while learning or for possible fast paths")
+        void testUsesVector() {
+            assertThat(router.usesVector("Create a ticket for the outage")).isTrue();
+
+            learnBoth(3);
+
+            assertThat(router.usesVector("Create a ticket for the outage")).isFalse();
+            assertThat(router.usesVector("What is a service mesh?")).isTrue();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.naagi.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naagi.orchestrator.metrics.OrchestratorMetrics;
+import com.naagi.orchestrator.service.ToolRegistryClient.CatalogFetch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ToolCatalogCacheTest {
+
+    @Mock
+    private ToolRegistryClient toolRegistryClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SimpleMeterRegistry registry;
+    private ToolCatalogCache cache;
+    private List<JsonNode> v1;
+    private List<JsonNode> v2;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        v1 = List.of(objectMapper.createObjectNode().put("name", "create_ticket"));
+        v2 = List.of(objectMapper.createObjectNode().put("name", "create_ticket"),
+                objectMapper.createObjectNode().put("name", "close_ticket"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    private ToolCatalogCache cache(long maxAgeSeconds) {
+        cache = new ToolCatalogCache(toolRegistryClient, new OrchestratorMetrics(registry), maxAgeSeconds);
+        return cache;
+    }
+
+    private double refreshes(String result) {
+        return registry.counter("orchestrator.tool.catalog.refreshes", "result", result).count();
+    }
+
+    private void awaitTools(List<JsonNode> expected) throws InterruptedException {
+        for (int i = 0; i < 100 && !cache.getTools("cat-1").equals(expected); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(cache.getTools("cat-1")).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should fetch on the first request and serve later requests from memory")
+    void testFirstRequestFetches() {
+        when(toolRegistryClient.fetchToolsByCategory(eq("cat-1"), isNull())).thenReturn(new CatalogFetch(v1, "v1"));
+        cache(60);
+
+        assertThat(cache.getTools("cat-1")).isEqualTo(v1);
+        assertThat(cache.getTools("cat-1")).isEqualTo(v1);
+
+        verify(toolRegistryClient, times(1)).fetchToolsByCategory(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should serve a stale entry while the refresh runs")
+    void testStaleWhileRevalidate() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(toolRegistryClient.fetchToolsByCategory(eq("cat-1"), isNull())).thenReturn(new CatalogFetch(v1, "v1"));
+        when(toolRegistryClient.fetchToolsByCategory("cat-1", "v1")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new CatalogFetch(v2, "v2");
+        });
+        cache(0);
+        cache.getTools("cat-1");
+
+        // The refresh is blocked, yet requests get the cached tools without waiting
+        assertThat(cache.getTools("cat-1")).isEqualTo(v1);
+        assertThat(cache.getTools("cat-1")).isEqualTo(v1);
+        verify(toolRegistryClient, timeout(1000).times(1)).fetchToolsByCategory("cat-1", "v1");
+
+        release.countDown();
+        awaitTools(v2);
+    }
+
+    @Test
+    @DisplayName("Should keep the cached tools when the catalog is not modified")
+    void testNotModified() throws InterruptedException {
+        when(toolRegistryClient.fetchToolsByCategory(eq("cat-1"), isNull())).thenReturn(new CatalogFetch(v1, "v1"));
+        when(toolRegistryClient.fetchToolsByCategory("cat-1", "v1")).thenReturn(new CatalogFetch(null, "v1"));
+        cache(60);
+        cache.getTools("cat-1");
+
+        cache.invalidate("cat-1");
+
+        verify(toolRegistryClient, timeout(1000)).fetchToolsByCategory("cat-1", "v1");
+        for (int i = 0; i < 100 && refreshes("not_modified") == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(refreshes("not_modified")).isEqualTo(1);
+        assertThat(cache.getTools("cat-1")).isEqualTo(v1);
+    }
+
+    @Test
+    @DisplayName("Should keep the cached tools when a refresh fails")
+    void testFailedRefresh() {
+        when(toolRegistryClient.fetchToolsByCategory(eq("cat-1"), isNull())).thenReturn(new CatalogFetch(v1, "v1"));
+        when(toolRegistryClient.fetchToolsByCategory("cat-1", "v1")).thenThrow(new IllegalStateException("down"));
+        cache(60);
+        cache.getTools("cat-1");
+
+        cache.invalidate("cat-1");
+
+        verify(toolRegistryClient, timeout(1000)).fetchToolsByCategory("cat-1", "v1");
+        assertThat(cache.getTools("cat-1")).isEqualTo(v1);
+    }
+
+    @Test
+    @DisplayName("Should not refresh again once an invalidation is fetched")
+    void testInvalidationFetched() throws InterruptedException {
+        when(toolRegistryClient.fetchToolsByCategory(eq("cat-1"), isNull())).thenReturn(new CatalogFetch(v1, "v1"));
+        when(toolRegistryClient.fetchToolsByCategory("cat-1", "v1")).thenReturn(new CatalogFetch(v2, "v2"));
+        cache(60);
+        cache.getTools("cat-1");
+
+        assertThat(cache.invalidate("cat-1")).isEqualTo(1);
+
+        awaitTools(v2);
+        Thread.sleep(100);
+        verify(toolRegistryClient, times(2)).fetchToolsByCategory(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should stay stale when invalidated again while a fetch is running")
+    void testInvalidationDuringFetch() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(toolRegistryClient.fetchToolsByCategory(eq("cat-1"), isNull())).thenReturn(new CatalogFetch(v1, "v1"));
+        when(toolRegistryClient.fetchToolsByCategory("cat-1", "v1")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new CatalogFetch(v2, "v2");
+        });
+        when(toolRegistryClient.fetchToolsByCategory("cat-1", "v2")).thenReturn(new CatalogFetch(null, "v2"));
+        cache(60);
+        cache.getTools("cat-1");
+
+        cache.invalidate("cat-1");
+        verify(toolRegistryClient, timeout(1000)).fetchToolsByCategory("cat-1", "v1");
+        // This change may have been made after the running fetch read the catalog
+        cache.invalidate("cat-1");
+        release.countDown();
+
+        // The fetched tools are served but still count as stale, so they are revalidated
+        awaitTools(v2);
+        verify(toolRegistryClient, timeout(1000)).fetchToolsByCategory("cat-1", "v2");
+    }
+}
@@ -0,0 +1,175 @@
+package com.naagi.orchestrator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naagi.orchestrator.llm.EmbeddingClient;
+import com.naagi.orchestrator.metrics.OrchestratorMetrics;
+import com.naagi.orchestrator.service.ToolShortlistService.Shortlist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolShortlistServiceTest {
+
+    private static final List<String> AXES = List.of("weather", "stocks", "tickets", "deploy", "rag_query");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StubEmbeddingClient embeddingClient;
+    private SimpleMeterRegistry registry;
+    private ToolShortlistService service;
+    private List<JsonNode> catalog;
+
+    /**
+     * Embeds a text as the axis of the first known tool name it starts with;
+     * any other text gets a shared axis of its own
+     */
+    private static final class StubEmbeddingClient implements EmbeddingClient {
+        final List<List<String>> calls = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        public List<float[]> embed(List<String> texts) {
+            if (failing) {
+                throw new IllegalStateException("embedding service unavailable");
+            }
+            calls.add(List.copyOf(texts));
+            return texts.stream().map(StubEmbeddingClient::vector).toList();
+        }
+
+        static float[] vector(String text) {
+            float[] vector = new float[AXES.size() + 1];
+            int axis = IntStream.range(0, AXES.size())
+                    .filter(i -> text.startsWith(AXES.get(i)))
+                    .findFirst()
+                    .orElse(AXES.size());
+            vector[axis] = 1f;
+            return vector;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        embeddingClient = new StubEmbeddingClient();
+        registry = new SimpleMeterRegistry();
+        service = new ToolShortlistService(embeddingClient, new OrchestratorMetrics(registry), true, 2, 1.0);
+        catalog = AXES.stream().map(name -> tool(name, "Tool for " + name)).toList();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private JsonNode tool(String name, String description) {
+        return objectMapper.createObjectNode().put("name", name).put("description", description);
+    }
+
+    // Mostly weather, then stocks, a little tickets
+    private static float[] query() {
+        return ToolShortlistService.normalize(new float[]{0.9f, 0.4f, 0.1f, 0f, 0f, 0f});
+    }
+
+    private static List<String> names(List<JsonNode> tools) {
+        return tools.stream().map(ToolShortlistService::toolName).toList();
+    }
+
+    @Test
+    @DisplayName("Should offer the top-k tools by similarity plus rag_query")
+    void testShortlist() {
+        Shortlist shortlist = service.shortlist(query(), catalog);
+
+        assertThat(shortlist.applied()).isTrue();
+        assertThat(names(shortlist.tools())).containsExactly("weather", "stocks", "rag_query");
+        assertThat(shortlist.ranking()).hasSize(catalog.size()).startsWith("weather", "stocks", "tickets");
+        assertThat(shortlist.rankOf("tickets")).isEqualTo(3);
+        assertThat(shortlist.rankOf("unknown")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should offer the whole catalog when it has at most top-k tools")
+    void testSmallCatalog() {
+        List<JsonNode> small = catalog.subList(0, 2);
+
+        Shortlist shortlist = service.shortlist(query(), small);
+
+        assertThat(service.applies(small)).isFalse();
+        assertThat(shortlist.applied()).isFalse();
+        assertThat(shortlist.tools()).isSameAs(small);
+        assertThat(embeddingClient.calls).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should embed each tool text once until it changes")
+    void testToolVectorsCached() {
+        service.shortlist(query(), catalog);
+        service.shortlist(query(), catalog);
+
+        List<JsonNode> changed = new ArrayList<>(catalog);
+        changed.set(2, tool("tickets", "Open and close support tickets"));
+        service.shortlist(query(), changed);
+
+        assertThat(embeddingClient.calls).extracting(List::size).containsExactly(5, 1);
+    }
+
+    @Test
+    @DisplayName("Should clear the vector cache on overflow and embed the catalog in one request")
+    void testCacheOverflow() {
+        List<JsonNode> large = IntStream.range(0, ToolShortlistService.MAX_CACHED_VECTORS)
+                .mapToObj(i -> tool("tool_" + i, "Generated tool " + i))
+                .toList();
+        service.shortlist(query(), large);
+
+        List<JsonNode> next = new ArrayList<>(catalog);
+        next.add(large.get(0));
+        Shortlist shortlist = service.shortlist(query(), next);
+
+        assertThat(shortlist.applied()).isTrue();
+        assertThat(embeddingClient.calls).extracting(List::size)
+                .containsExactly(ToolShortlistService.MAX_CACHED_VECTORS, next.size());
+    }
+
+    @Test
+    @DisplayName("Should offer the whole catalog when embedding fails")
+    void testEmbeddingFailure() {
+        embeddingClient.failing = true;
+
+        Shortlist shortlist = service.shortlist(query(), catalog);
+
+        assertThat(shortlist.applied()).isFalse();
+        assertThat(shortlist.tools()).isSameAs(catalog);
+    }
+
+    @Test
+    @DisplayName("Should offer the whole catalog without a message vector")
+    void testMissingQuery() {
+        Shortlist shortlist = service.shortlist(null, catalog);
+
+        assertThat(shortlist.applied()).isFalse();
+        assertThat(shortlist.tools()).isSameAs(catalog);
+        assertThat(embeddingClient.calls).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should count a whole-catalog pick outside the shortlist as a recall miss")
+    void testRecallMiss() throws InterruptedException {
+        Shortlist shortlist = service.shortlist(query(), catalog);
+
+        service.sampleRecall(shortlist, "weather", () -> "deploy");
+
+        double misses = 0;
+        for (int i = 0; i < 100 && misses == 0; i++) {
+            Thread.sleep(20);
+            misses = registry.counter("orchestrator.tool.shortlist.recall.checks", "result", "miss").count();
+        }
+        assertThat(misses).isEqualTo(1);
+    }
+}
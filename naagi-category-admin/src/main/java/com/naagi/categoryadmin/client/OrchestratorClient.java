@@ -0,0 +1,59 @@
+package com.naagi.categoryadmin.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@Component
+@Slf4j
+public class OrchestratorClient {
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+
+    public OrchestratorClient(
+            @Value("${naagi.services.orchestrator.url:http://localhost:8086}") String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Tell the orchestrator that a category's tool catalog changed, or every
+     * category's if {@code categoryId} is null. Fire-and-forget: the
+     * orchestrator also revalidates its cache periodically, so a lost
+     * notification only delays the change.
+     */
+    public void notifyToolCatalogChanged(String categoryId) {
+        String url = baseUrl + "/api/tool-catalog/invalidate";
+        if (categoryId != null) {
+            url += "?categoryId=" + URLEncoder.encode(categoryId, StandardCharsets.UTF_8);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(5))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        log.debug("Failed to notify orchestrator of tool catalog change (category={}): {}",
+                                categoryId, e.getMessage());
+                    } else if (response.statusCode() != 200) {
+                        log.warn("Orchestrator returned HTTP {} for tool catalog change (category={})",
+                                response.statusCode(), categoryId);
+                    }
+                });
+    }
+}
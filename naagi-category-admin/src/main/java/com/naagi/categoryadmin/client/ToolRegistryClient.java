@@ -4,8 +4,10 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.naagi.categoryadmin.model.Tool;
+import com.naagi.categoryadmin.service.ToolCatalogChangedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.net.URI;
@@ -13,7 +15,9 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,12 +29,15 @@ public class ToolRegistryClient {
     private final String baseUrl;
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ToolRegistryClient(
             @Value("${naagi.services.tool-registry.url}") String baseUrl,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher) {
         this.baseUrl = baseUrl;
         this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
@@ -135,6 +142,7 @@ public class ToolRegistryClient {
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
             if (response.statusCode() == 200) {
+                toolCatalogChanged();
                 return objectMapper.readValue(response.body(), Tool.class);
             } else {
                 log.error("Failed to update tool {}: HTTP {}", toolId, response.statusCode());
@@ -160,12 +168,20 @@ public class ToolRegistryClient {
                 log.error("Failed to delete tool {}: HTTP {} - {}", toolId, response.statusCode(), response.body());
                 throw new RuntimeException("Failed to delete tool: " + response.body());
             }
+            toolCatalogChanged();
         } catch (Exception e) {
             log.error("Error deleting tool {} from registry", toolId, e);
             throw new RuntimeException("Error deleting tool", e);
         }
     }
 
+    /**
+     * Tool edits can change the merged tools of any category that uses the tool.
+     */
+    private void toolCatalogChanged() {
+        eventPublisher.publishEvent(new ToolCatalogChangedEvent(null));
+    }
+
     /**
      * Get full tool details including parameters and responses.
      */
@@ -193,6 +209,51 @@ public class ToolRegistryClient {
         }
     }
 
+    /**
+     * Get full tool details for several tools in one request.
+     * Falls back to one request per tool if the registry has no batch endpoint.
+     *
+     * @return details by toolId; unknown tools are absent
+     */
+    public Map<String, JsonNode> getToolDetailsBatch(Collection<String> toolIds) {
+        if (toolIds.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/api/tools/batch"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            objectMapper.writeValueAsString(Map.of("toolIds", List.copyOf(toolIds)))))
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() == 200) {
+                Map<String, JsonNode> details = new HashMap<>();
+                for (JsonNode tool : objectMapper.readTree(response.body())) {
+                    details.put(tool.path("toolId").asText(), tool);
+                }
+                return details;
+            } else if (response.statusCode() == 404 || response.statusCode() == 405) {
+                log.warn("Tool registry has no batch lookup (HTTP {}), fetching {} tools one by one",
+                        response.statusCode(), toolIds.size());
+                Map<String, JsonNode> details = new HashMap<>();
+                for (String toolId : toolIds) {
+                    getToolDetails(toolId).ifPresent(tool -> details.put(toolId, tool));
+                }
+                return details;
+            } else {
+                log.error("Failed to get details of {} tools: HTTP {}", toolIds.size(), response.statusCode());
+                return Map.of();
+            }
+        } catch (Exception e) {
+            log.error("Error fetching details of {} tools from registry", toolIds.size(), e);
+            return Map.of();
+        }
+    }
+
     /**
      * Update tool basic details (description, humanReadableDescription, categoryId).
      */
@@ -216,6 +277,7 @@ public class ToolRegistryClient {
                 log.error("Failed to update tool details {}: HTTP {} - {}", toolId, response.statusCode(), response.body());
                 throw new RuntimeException("Failed to update tool details: " + response.body());
             }
+            toolCatalogChanged();
         } catch (Exception e) {
             log.error("Error updating tool details {} in registry", toolId, e);
             throw new RuntimeException("Error updating tool details", e);
@@ -245,6 +307,7 @@ public class ToolRegistryClient {
                 log.error("Failed to update parameter {}: HTTP {} - {}", parameterId, response.statusCode(), response.body());
                 throw new RuntimeException("Failed to update parameter: " + response.body());
             }
+            toolCatalogChanged();
         } catch (Exception e) {
             log.error("Error updating parameter {} in registry", parameterId, e);
             throw new RuntimeException("Error updating parameter", e);
@@ -272,6 +335,7 @@ public class ToolRegistryClient {
                 log.error("Failed to update response {}: HTTP {} - {}", responseId, response.statusCode(), response.body());
                 throw new RuntimeException("Failed to update response: " + response.body());
             }
+            toolCatalogChanged();
         } catch (Exception e) {
             log.error("Error updating response {} in registry", responseId, e);
             throw new RuntimeException("Error updating response", e);
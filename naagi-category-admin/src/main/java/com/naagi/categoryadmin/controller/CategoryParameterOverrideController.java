@@ -1,5 +1,7 @@
 package com.naagi.categoryadmin.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.naagi.categoryadmin.dto.CategoryToolOverview;
 import com.naagi.categoryadmin.dto.MergedToolDefinition;
 import com.naagi.categoryadmin.model.CategoryParameterOverride;
@@ -7,6 +9,7 @@ import com.naagi.categoryadmin.service.CategoryParameterOverrideService;
 import com.naagi.categoryadmin.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,6 +26,7 @@ public class CategoryParameterOverrideController {
 
     private final CategoryParameterOverrideService overrideService;
     private final CategoryService categoryService;
+    private final ObjectMapper objectMapper;
 
     // ==================== Override CRUD ====================
 
@@ -127,19 +131,24 @@ public class CategoryParameterOverrideController {
 
     /**
      * Get all tools for a category with overrides applied.
+     * The ETag is a hash of the catalog; a matching If-None-Match gets 304 Not Modified.
      */
     @GetMapping("/merged")
     public ResponseEntity<List<MergedToolDefinition>> getAllMergedTools(
-            @PathVariable String categoryId) {
-        return categoryService.getCategory(categoryId)
-                .map(category -> {
-                    List<String> toolIds = category.getToolIds();
-                    if (toolIds == null || toolIds.isEmpty()) {
-                        return ResponseEntity.ok(List.<MergedToolDefinition>of());
-                    }
-                    return ResponseEntity.ok(overrideService.getMergedToolsForCategory(categoryId, toolIds));
-                })
-                .orElse(ResponseEntity.notFound().build());
+            @PathVariable String categoryId) throws JsonProcessingException {
+        var category = categoryService.getCategory(categoryId);
+        if (category.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        List<String> toolIds = category.get().getToolIds();
+        List<MergedToolDefinition> tools = toolIds == null || toolIds.isEmpty()
+                ? List.of()
+                : overrideService.getMergedToolsForCategory(categoryId, toolIds);
+
+        // Spring answers If-None-Match itself once the response carries an ETag
+        String etag = DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(tools));
+        return ResponseEntity.ok().eTag(etag).body(tools);
     }
 
     /**
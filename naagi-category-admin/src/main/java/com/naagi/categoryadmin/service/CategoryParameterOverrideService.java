@@ -10,15 +10,27 @@ import com.naagi.categoryadmin.repository.CategoryParameterOverrideRepository;
 import com.naagi.categoryadmin.repository.CategoryToolOverrideRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Service for managing category-level parameter and tool overrides.
  * Handles CRUD operations and merging of tool definitions with overrides.
+ * Every change publishes a {@link ToolCatalogChangedEvent} for its category.
+ *
+ * Merged definitions are memoized per (category, tool). Each event drops
+ * the affected entries after its transaction commits. Tool edits made
+ * through category-admin drop every entry. Entries also expire after
+ * {@link #MERGED_CACHE_TTL}, so edits made directly in tool-registry show
+ * up too. Missing tools are fetched from tool-registry in one batch request.
  */
 @Service
 @Slf4j
@@ -28,6 +40,18 @@ public class CategoryParameterOverrideService {
     private final CategoryParameterOverrideRepository overrideRepository;
     private final CategoryToolOverrideRepository toolOverrideRepository;
     private final ToolRegistryClient toolRegistryClient;
+    private final ApplicationEventPublisher eventPublisher;
+
+    static final Duration MERGED_CACHE_TTL = Duration.ofMinutes(5);
+
+    private record MergedKey(String categoryId, String toolId) {}
+
+    private record CachedMerge(MergedToolDefinition tool, long loadedAt) {}
+
+    private final Map<MergedKey, CachedMerge> mergedCache = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation so that a merge computed from older data is not cached
+    private final AtomicLong cacheGeneration = new AtomicLong();
 
     // ==================== Override CRUD Operations ====================
 
@@ -51,11 +75,13 @@ public class CategoryParameterOverrideService {
             existingOverride.setActive(override.isActive());
             log.info("Updated override for category={}, tool={}, param={}",
                     override.getCategoryId(), override.getToolId(), override.getParameterPath());
+            catalogChanged(override.getCategoryId());
             return overrideRepository.save(existingOverride);
         }
 
         log.info("Created override for category={}, tool={}, param={}",
                 override.getCategoryId(), override.getToolId(), override.getParameterPath());
+        catalogChanged(override.getCategoryId());
         return overrideRepository.save(override);
     }
 
@@ -71,8 +97,10 @@ public class CategoryParameterOverrideService {
      */
     @Transactional
     public void deleteOverride(Long id) {
+        Optional<String> categoryId = overrideRepository.findById(id).map(CategoryParameterOverride::getCategoryId);
         overrideRepository.deleteById(id);
         log.info("Deleted override id={}", id);
+        categoryId.ifPresent(this::catalogChanged);
     }
 
     /**
@@ -82,6 +110,7 @@ public class CategoryParameterOverrideService {
     public void deleteOverridesForTool(String categoryId, String toolId) {
         overrideRepository.deleteByCategoryIdAndToolId(categoryId, toolId);
         log.info("Deleted all overrides for category={}, tool={}", categoryId, toolId);
+        catalogChanged(categoryId);
     }
 
     /**
@@ -91,6 +120,7 @@ public class CategoryParameterOverrideService {
     public void deleteOverridesForCategory(String categoryId) {
         overrideRepository.deleteByCategoryId(categoryId);
         log.info("Deleted all overrides for category={}", categoryId);
+        catalogChanged(categoryId);
     }
 
     /**
@@ -126,10 +156,12 @@ public class CategoryParameterOverrideService {
             existingOverride.setPriorityScore(override.getPriorityScore());
             existingOverride.setActive(override.isActive());
             log.info("Updated tool override for category={}, tool={}", override.getCategoryId(), override.getToolId());
+            catalogChanged(override.getCategoryId());
             return toolOverrideRepository.save(existingOverride);
         }
 
         log.info("Created tool override for category={}, tool={}", override.getCategoryId(), override.getToolId());
+        catalogChanged(override.getCategoryId());
         return toolOverrideRepository.save(override);
     }
 
@@ -147,6 +179,25 @@ public class CategoryParameterOverrideService {
     public void deleteToolOverride(String categoryId, String toolId) {
         toolOverrideRepository.deleteByCategoryIdAndToolId(categoryId, toolId);
         log.info("Deleted tool override for category={}, tool={}", categoryId, toolId);
+        catalogChanged(categoryId);
+    }
+
+    private void catalogChanged(String categoryId) {
+        eventPublisher.publishEvent(new ToolCatalogChangedEvent(categoryId));
+    }
+
+    /**
+     * Drop memoized merged definitions once a change is committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToolCatalogChanged(ToolCatalogChangedEvent event) {
+        cacheGeneration.incrementAndGet();
+        if (event.categoryId() == null) {
+            mergedCache.clear();
+        } else {
+            mergedCache.keySet().removeIf(key -> key.categoryId().equals(event.categoryId()));
+        }
+        log.debug("Dropped merged tool cache for category={}", event.categoryId() != null ? event.categoryId() : "all");
     }
 
     // ==================== Merge Logic ====================
@@ -184,8 +235,44 @@ public class CategoryParameterOverrideService {
 
     /**
      * Get all tools for a category with overrides applied.
+     * Returned definitions are shared with the cache and must not be modified.
      */
     public List<MergedToolDefinition> getMergedToolsForCategory(String categoryId, List<String> toolIds) {
+        long generation = cacheGeneration.get();
+        long now = System.currentTimeMillis();
+
+        Map<String, MergedToolDefinition> mergedById = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String toolId : toolIds) {
+            CachedMerge cached = mergedCache.get(new MergedKey(categoryId, toolId));
+            if (cached != null && now - cached.loadedAt() < MERGED_CACHE_TTL.toMillis()) {
+                mergedById.put(toolId, cached.tool());
+            } else {
+                missing.add(toolId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            mergeTools(categoryId, missing).forEach((toolId, merged) -> {
+                mergedById.put(toolId, merged);
+                if (cacheGeneration.get() == generation) {
+                    mergedCache.put(new MergedKey(categoryId, toolId), new CachedMerge(merged, now));
+                }
+            });
+        }
+
+        return toolIds.stream()
+                .map(mergedById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Merge tools with the category's overrides, fetching their details in one batch
+     *
+     * @return merged definitions by toolId; tools unknown to the registry are absent
+     */
+    private Map<String, MergedToolDefinition> mergeTools(String categoryId, List<String> toolIds) {
         // Get all parameter-level overrides
         List<CategoryParameterOverride> allOverrides = overrideRepository
                 .findByCategoryIdAndActiveTrue(categoryId);
@@ -200,11 +287,12 @@ public class CategoryParameterOverrideService {
         Map<String, CategoryToolOverride> toolOverridesByTool = allToolOverrides.stream()
                 .collect(Collectors.toMap(CategoryToolOverride::getToolId, o -> o, (a, b) -> a));
 
-        List<MergedToolDefinition> mergedTools = new ArrayList<>();
+        Map<String, MergedToolDefinition> mergedTools = new HashMap<>();
+        Map<String, JsonNode> detailsById = toolRegistryClient.getToolDetailsBatch(toolIds);
 
         for (String toolId : toolIds) {
-            Optional<JsonNode> toolDetails = toolRegistryClient.getToolDetails(toolId);
-            if (toolDetails.isEmpty()) {
+            JsonNode toolDetails = detailsById.get(toolId);
+            if (toolDetails == null) {
                 log.warn("Tool not found in registry: {}", toolId);
                 continue;
             }
@@ -219,7 +307,7 @@ public class CategoryParameterOverrideService {
 
             CategoryToolOverride toolOverride = toolOverridesByTool.get(toolId);
 
-            mergedTools.add(mergeTool(toolDetails.get(), overrideMap, toolOverride, categoryId));
+            mergedTools.put(toolId, mergeTool(toolDetails, overrideMap, toolOverride, categoryId));
         }
 
         return mergedTools;
@@ -469,12 +557,12 @@ public class CategoryParameterOverrideService {
      */
     public List<CategoryToolOverview> getToolOverviewsForCategory(String categoryId, List<String> toolIds) {
         List<CategoryToolOverview> overviews = new ArrayList<>();
+        Map<String, JsonNode> detailsById = toolRegistryClient.getToolDetailsBatch(toolIds);
 
         for (String toolId : toolIds) {
-            Optional<JsonNode> toolDetails = toolRegistryClient.getToolDetails(toolId);
-            if (toolDetails.isEmpty()) continue;
+            JsonNode tool = detailsById.get(toolId);
+            if (tool == null) continue;
 
-            JsonNode tool = toolDetails.get();
             List<CategoryParameterOverride> overrides = overrideRepository
                     .findByCategoryIdAndToolIdAndActiveTrue(categoryId, toolId);
 
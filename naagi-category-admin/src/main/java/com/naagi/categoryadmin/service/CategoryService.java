@@ -8,6 +8,7 @@ import com.naagi.categoryadmin.repository.CategoryRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,17 +24,20 @@ public class CategoryService {
     private final ToolRegistryClient toolRegistryClient;
     private final CategorySequenceService categorySequenceService;
     private final String ragServiceUrl;
+    private final ApplicationEventPublisher eventPublisher;
 
     public CategoryService(CategoryRepository categoryRepository,
                           CategoryAdminMetrics metrics,
                           @Lazy ToolRegistryClient toolRegistryClient,
                           CategorySequenceService categorySequenceService,
-                          @Value("${naagi.services.rag.url:http://localhost:8080}") String ragServiceUrl) {
+                          @Value("${naagi.services.rag.url:http://localhost:8080}") String ragServiceUrl,
+                          ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
         this.metrics = metrics;
         this.toolRegistryClient = toolRegistryClient;
         this.categorySequenceService = categorySequenceService;
         this.ragServiceUrl = ragServiceUrl;
+        this.eventPublisher = eventPublisher;
     }
 
     // Constant category IDs for consistency across restarts and with vector DB
@@ -169,6 +173,7 @@ public class CategoryService {
         Category saved = categoryRepository.save(existing);
         metrics.recordCategoryUpdated();
         log.info("Updated category: {} ({})", saved.getName(), id);
+        catalogChanged(id);
         return saved;
     }
 
@@ -179,6 +184,7 @@ public class CategoryService {
             metrics.recordCategoryDeleted();
             updateCategoryCount();
             log.info("Deleted category: {} ({})", category.getName(), id);
+            catalogChanged(id);
         });
     }
 
@@ -192,6 +198,7 @@ public class CategoryService {
                 category.getToolIds().add(toolId);
                 categoryRepository.save(category);
                 log.info("Added tool {} to category {}", toolId, categoryId);
+                catalogChanged(categoryId);
             }
         });
     }
@@ -203,6 +210,7 @@ public class CategoryService {
                 category.getToolIds().remove(toolId);
                 categoryRepository.save(category);
                 log.info("Removed tool {} from category {}", toolId, categoryId);
+                catalogChanged(categoryId);
             }
         });
     }
@@ -220,6 +228,7 @@ public class CategoryService {
                 category.setToolIds(sorted);
                 categoryRepository.save(category);
                 log.info("Reset tool priorities for category {}", categoryId);
+                catalogChanged(categoryId);
             }
         });
     }
@@ -230,9 +239,14 @@ public class CategoryService {
             category.setToolIds(new ArrayList<>(newOrder));
             categoryRepository.save(category);
             log.info("Reordered tools for category {}", categoryId);
+            catalogChanged(categoryId);
         });
     }
 
+    private void catalogChanged(String categoryId) {
+        eventPublisher.publishEvent(new ToolCatalogChangedEvent(categoryId));
+    }
+
     private void updateCategoryCount() {
         metrics.setTotalCategoryCount((int) categoryRepository.count());
     }
@@ -0,0 +1,9 @@
+package com.naagi.categoryadmin.service;
+
+/**
+ * Published when the merged tools of a category may have changed.
+ *
+ * @param categoryId the category, or null when the change can affect every category (tool edits)
+ */
+public record ToolCatalogChangedEvent(String categoryId) {
+}
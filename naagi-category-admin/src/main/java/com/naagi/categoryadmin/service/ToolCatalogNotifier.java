@@ -0,0 +1,23 @@
+package com.naagi.categoryadmin.service;
+
+import com.naagi.categoryadmin.client.OrchestratorClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Forwards tool catalog changes to the orchestrator's catalog cache. Runs
+ * after the publishing transaction commits, so the orchestrator's refetch
+ * sees the change; events published outside a transaction are sent at once.
+ */
+@Component
+@RequiredArgsConstructor
+public class ToolCatalogNotifier {
+
+    private final OrchestratorClient orchestratorClient;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToolCatalogChanged(ToolCatalogChangedEvent event) {
+        orchestratorClient.notifyToolCatalogChanged(event.categoryId());
+    }
+}
@@ -16,8 +16,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -39,13 +41,16 @@ class CategoryParameterOverrideServiceTest {
     @Mock
     private ToolRegistryClient toolRegistryClient;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private CategoryParameterOverrideService service;
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        service = new CategoryParameterOverrideService(overrideRepository, toolOverrideRepository, toolRegistryClient);
+        service = new CategoryParameterOverrideService(overrideRepository, toolOverrideRepository, toolRegistryClient, eventPublisher);
 
         // Default: no tool-level overrides unless specifically mocked
         lenient().when(toolOverrideRepository.findByCategoryIdAndToolIdAndActiveTrue(any(), any()))
@@ -109,8 +114,13 @@ class CategoryParameterOverrideServiceTest {
         @Test
         @DisplayName("Should delete override by ID")
         void shouldDeleteOverrideById() {
+            when(overrideRepository.findById(1L)).thenReturn(Optional.of(
+                    CategoryParameterOverride.builder().id(1L).categoryId("cat-1").build()));
+
             service.deleteOverride(1L);
+
             verify(overrideRepository).deleteById(1L);
+            verify(eventPublisher).publishEvent(new ToolCatalogChangedEvent("cat-1"));
         }
 
         @Test
@@ -118,6 +128,7 @@ class CategoryParameterOverrideServiceTest {
         void shouldDeleteOverridesForTool() {
             service.deleteOverridesForTool("cat-1", "tool-1");
             verify(overrideRepository).deleteByCategoryIdAndToolId("cat-1", "tool-1");
+            verify(eventPublisher).publishEvent(new ToolCatalogChangedEvent("cat-1"));
         }
 
         @Test
@@ -389,7 +400,7 @@ class CategoryParameterOverrideServiceTest {
                 }
                 """;
             JsonNode toolNode = objectMapper.readTree(toolJson);
-            when(toolRegistryClient.getToolDetails("tool-1")).thenReturn(Optional.of(toolNode));
+            when(toolRegistryClient.getToolDetailsBatch(List.of("tool-1"))).thenReturn(Map.of("tool-1", toolNode));
 
             List<CategoryParameterOverride> overrides = List.of(
                     CategoryParameterOverride.builder()
@@ -719,8 +730,9 @@ class CategoryParameterOverrideServiceTest {
                     "parameters": []
                 }
                 """;
-            when(toolRegistryClient.getToolDetails("tool-1")).thenReturn(Optional.of(objectMapper.readTree(tool1Json)));
-            when(toolRegistryClient.getToolDetails("tool-2")).thenReturn(Optional.of(objectMapper.readTree(tool2Json)));
+            when(toolRegistryClient.getToolDetailsBatch(List.of("tool-1", "tool-2"))).thenReturn(Map.of(
+                    "tool-1", objectMapper.readTree(tool1Json),
+                    "tool-2", objectMapper.readTree(tool2Json)));
             when(overrideRepository.findByCategoryIdAndActiveTrue("cat-1")).thenReturn(List.of());
 
             List<CategoryToolOverride> toolOverrides = List.of(
@@ -786,4 +798,45 @@ class CategoryParameterOverrideServiceTest {
             assertThat(merged.getEffectiveToolDescription()).isEqualTo("Human readable desc");
         }
     }
+
+    @Nested
+    @DisplayName("Merged Tool Cache Tests")
+    class MergedToolCacheTests {
+
+        private JsonNode tool(String toolId) throws Exception {
+            return objectMapper.readTree("""
+                {"toolId": "%s", "name": "Tool", "httpMethod": "GET", "path": "/api/test", "parameters": []}
+                """.formatted(toolId));
+        }
+
+        @Test
+        @DisplayName("Should fetch only tools that are not cached yet")
+        void shouldFetchOnlyUncachedTools() throws Exception {
+            when(overrideRepository.findByCategoryIdAndActiveTrue("cat-1")).thenReturn(List.of());
+            when(toolRegistryClient.getToolDetailsBatch(List.of("tool-1"))).thenReturn(Map.of("tool-1", tool("tool-1")));
+            when(toolRegistryClient.getToolDetailsBatch(List.of("tool-2"))).thenReturn(Map.of("tool-2", tool("tool-2")));
+
+            service.getMergedToolsForCategory("cat-1", List.of("tool-1"));
+            List<MergedToolDefinition> results = service.getMergedToolsForCategory("cat-1", List.of("tool-2", "tool-1"));
+
+            assertThat(results).extracting(MergedToolDefinition::getToolId).containsExactly("tool-2", "tool-1");
+            verify(toolRegistryClient, times(1)).getToolDetailsBatch(List.of("tool-1"));
+            verify(toolRegistryClient, never()).getToolDetails(any());
+        }
+
+        @Test
+        @DisplayName("Should merge again after a change in the category")
+        void shouldMergeAgainAfterChange() throws Exception {
+            when(overrideRepository.findByCategoryIdAndActiveTrue(any())).thenReturn(List.of());
+            when(toolRegistryClient.getToolDetailsBatch(List.of("tool-1"))).thenReturn(Map.of("tool-1", tool("tool-1")));
+
+            service.getMergedToolsForCategory("cat-1", List.of("tool-1"));
+            service.getMergedToolsForCategory("cat-2", List.of("tool-1"));
+            service.onToolCatalogChanged(new ToolCatalogChangedEvent("cat-1"));
+            service.getMergedToolsForCategory("cat-1", List.of("tool-1"));
+            service.getMergedToolsForCategory("cat-2", List.of("tool-1"));
+
+            verify(toolRegistryClient, times(3)).getToolDetailsBatch(List.of("tool-1"));
+        }
+    }
 }
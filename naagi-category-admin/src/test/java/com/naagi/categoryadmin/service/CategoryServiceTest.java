@@ -12,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -41,11 +42,14 @@ class CategoryServiceTest {
     @Mock
     private CategorySequenceService categorySequenceService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private CategoryService categoryService;
 
     @BeforeEach
     void setUp() {
-        categoryService = new CategoryService(categoryRepository, metrics, toolRegistryClient, categorySequenceService, "http://localhost:8080");
+        categoryService = new CategoryService(categoryRepository, metrics, toolRegistryClient, categorySequenceService, "http://localhost:8080", eventPublisher);
     }
 
     @Nested
@@ -369,6 +373,7 @@ class CategoryServiceTest {
             ArgumentCaptor<Category> captor = ArgumentCaptor.forClass(Category.class);
             verify(categoryRepository).save(captor.capture());
             assertThat(captor.getValue().getToolIds()).contains("tool-1");
+            verify(eventPublisher).publishEvent(new ToolCatalogChangedEvent("cat-1"));
         }
 
         @Test
@@ -388,6 +393,7 @@ class CategoryServiceTest {
 
             // Then
             verify(categoryRepository, never()).save(any());
+            verifyNoInteractions(eventPublisher);
         }
 
         @Test
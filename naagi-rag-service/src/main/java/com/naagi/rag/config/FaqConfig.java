@@ -2,13 +2,22 @@ package com.naagi.rag.config;
 
 import com.naagi.rag.qdrant.FaqQdrantClient;
 import com.naagi.rag.qdrant.UserQuestionQdrantClient;
+import com.naagi.rag.vector.EmbeddedFaqStore;
+import com.naagi.rag.vector.EmbeddedUserQuestionStore;
+import com.naagi.rag.vector.EmbeddedVectorStore;
+import com.naagi.rag.vector.FaqStore;
+import com.naagi.rag.vector.UserQuestionStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+
 /**
- * Configuration for FAQ and User Questions Qdrant collections.
+ * Configuration for FAQ and User Questions collections. Like the RAG chunk
+ * collection they live in Qdrant or, with naagi.rag.vector-store.type=embedded,
+ * in embedded stores under naagi.rag.vector-store.embedded.dir.
  */
 @Configuration
 public class FaqConfig {
@@ -19,6 +28,27 @@ public class FaqConfig {
     @Value("${naagi.rag.qdrant.vectorSize:768}")
     private int vectorSize;
 
+    @Value("${naagi.rag.vector-store.type:qdrant}")
+    private String vectorStoreType;
+
+    @Value("${naagi.rag.vector-store.embedded.dir:}")
+    private String embeddedDir;
+
+    @Value("${naagi.rag.vector-store.embedded.max-connections:16}")
+    private int maxConnections;
+
+    @Value("${naagi.rag.vector-store.embedded.ef-construction:128}")
+    private int efConstruction;
+
+    @Value("${naagi.rag.vector-store.embedded.ef-search:64}")
+    private int efSearch;
+
+    @Value("${naagi.rag.vector-store.embedded.exact-search-threshold:2000}")
+    private int exactSearchThreshold;
+
+    @Value("${naagi.rag.vector-store.embedded.compaction-dead-ratio:0.3}")
+    private double compactionDeadRatio;
+
     @Value("${naagi.faq.collection:naagi_faq}")
     private String faqCollection;
 
@@ -39,14 +69,31 @@ public class FaqConfig {
 
     @Bean
     @ConditionalOnProperty(name = "naagi.faq.enabled", havingValue = "true", matchIfMissing = true)
-    public FaqQdrantClient faqQdrantClient() {
-        return new FaqQdrantClient(qdrantBaseUrl, faqCollection, vectorSize);
+    public FaqStore faqStore() {
+        return switch (vectorStoreType.toLowerCase()) {
+            case "qdrant" -> new FaqQdrantClient(qdrantBaseUrl, faqCollection, vectorSize);
+            case "embedded" -> new EmbeddedFaqStore(embeddedStore(faqCollection), faqCollection);
+            default -> throw new IllegalArgumentException("Unknown vector store type: " + vectorStoreType);
+        };
     }
 
     @Bean
     @ConditionalOnProperty(name = "naagi.user-questions.enabled", havingValue = "true", matchIfMissing = true)
-    public UserQuestionQdrantClient userQuestionQdrantClient() {
-        return new UserQuestionQdrantClient(qdrantBaseUrl, userQuestionsCollection, vectorSize);
+    public UserQuestionStore userQuestionStore() {
+        return switch (vectorStoreType.toLowerCase()) {
+            case "qdrant" -> new UserQuestionQdrantClient(qdrantBaseUrl, userQuestionsCollection, vectorSize);
+            case "embedded" -> new EmbeddedUserQuestionStore(embeddedStore(userQuestionsCollection),
+                    userQuestionsCollection);
+            default -> throw new IllegalArgumentException("Unknown vector store type: " + vectorStoreType);
+        };
+    }
+
+    // The Qdrant FAQ and user question collections always use Cosine distance
+    private EmbeddedVectorStore embeddedStore(String collection) {
+        return new EmbeddedVectorStore(
+                embeddedDir.isBlank() ? null : Path.of(embeddedDir).resolve(collection),
+                vectorSize, "Cosine", maxConnections, efConstruction, efSearch, exactSearchThreshold,
+                compactionDeadRatio);
     }
 
     // Getters for configuration values
@@ -1,17 +1,51 @@
 package com.naagi.rag.config;
 
+import com.naagi.rag.llm.CachingEmbeddingsClient;
 import com.naagi.rag.llm.ChatClient;
 import com.naagi.rag.llm.EmbeddingsClient;
 import com.naagi.rag.llm.llamacpp.LlamaCppOpenAIChatClient;
 import com.naagi.rag.llm.openai.OpenAIEmbeddingsClient;
+import com.naagi.rag.metrics.RagMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class LlmProviderConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(LlmProviderConfig.class);
+
+    // Cache defined in ehcache.xml; its heap size and TTL bound the cached embeddings
+    public static final String EMBEDDINGS_CACHE_NAME = "embeddings";
+
+    private final CacheManager cacheManager;
+    private final RagMetrics metrics;
+    private final boolean cacheEnabled;
+    private final int cacheMaxTextLength;
+    private final int embedBatchMaxItems;
+    private final int embedBatchMaxChars;
+
+    public LlmProviderConfig(
+            CacheManager cacheManager,
+            RagMetrics metrics,
+            @Value("${naagi.rag.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${naagi.rag.cache.embeddings-max-text-length:512}") int cacheMaxTextLength,
+            @Value("${naagi.rag.performance.embedBatchMaxItems:64}") int embedBatchMaxItems,
+            @Value("${naagi.rag.performance.embedBatchMaxChars:32000}") int embedBatchMaxChars
+    ) {
+        this.cacheManager = cacheManager;
+        this.metrics = metrics;
+        this.cacheEnabled = cacheEnabled;
+        this.cacheMaxTextLength = cacheMaxTextLength;
+        this.embedBatchMaxItems = embedBatchMaxItems;
+        this.embedBatchMaxChars = embedBatchMaxChars;
+    }
+
     // llama.cpp with OpenAI-compatible API (default)
     @Bean
     @ConditionalOnProperty(name = "naagi.rag.llm.provider", havingValue = "llamacpp-openai", matchIfMissing = true)
@@ -19,7 +53,7 @@ public class LlmProviderConfig {
             @Value("${naagi.rag.llama.baseUrl}") String baseUrl,
             @Value("${naagi.rag.llama.embedModel}") String model
     ) {
-        return new OpenAIEmbeddingsClient(baseUrl, model);
+        return withCache(new OpenAIEmbeddingsClient(baseUrl, model, embedBatchMaxItems, embedBatchMaxChars));
     }
 
     @Bean
@@ -38,7 +72,7 @@ public class LlmProviderConfig {
             @Value("${naagi.rag.ollama.baseUrl}") String baseUrl,
             @Value("${naagi.rag.ollama.embedModel}") String model
     ) {
-        return new OpenAIEmbeddingsClient(baseUrl, model);
+        return withCache(new OpenAIEmbeddingsClient(baseUrl, model, embedBatchMaxItems, embedBatchMaxChars));
     }
 
     @Bean
@@ -49,4 +83,20 @@ public class LlmProviderConfig {
     ) {
         return new LlamaCppOpenAIChatClient(baseUrl, model);
     }
+
+    /**
+     * Share query embeddings across the FAQ, retrieval and analytics paths
+     */
+    private EmbeddingsClient withCache(EmbeddingsClient client) {
+        if (!cacheEnabled) {
+            return client;
+        }
+        Cache cache = cacheManager.getCache(EMBEDDINGS_CACHE_NAME);
+        if (cache == null) {
+            log.warn("[EMBED CACHE] No '{}' cache configured, embeddings will not be cached", EMBEDDINGS_CACHE_NAME);
+            return client;
+        }
+        log.info("[EMBED CACHE] Caching embeddings of texts up to {} chars", cacheMaxTextLength);
+        return new CachingEmbeddingsClient(client, cache, metrics, cacheMaxTextLength);
+    }
 }
@@ -1,8 +1,10 @@
 package com.naagi.rag.config;
 
-import com.naagi.rag.qdrant.FaqQdrantClient;
 import com.naagi.rag.qdrant.QdrantClient;
-import com.naagi.rag.qdrant.UserQuestionQdrantClient;
+import com.naagi.rag.vector.EmbeddedVectorStore;
+import com.naagi.rag.vector.FaqStore;
+import com.naagi.rag.vector.UserQuestionStore;
+import com.naagi.rag.vector.VectorStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +14,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 
+import java.nio.file.Path;
+
 @Configuration
 public class QdrantConfig {
 
@@ -23,14 +27,32 @@ public class QdrantConfig {
         this.applicationContext = applicationContext;
     }
 
+    /**
+     * Store for the RAG chunk collection: Qdrant (default) or the embedded
+     * in-process store, selected by naagi.rag.vector-store.type
+     */
     @Bean
-    public QdrantClient qdrantClient(
+    public VectorStore vectorStore(
+            @Value("${naagi.rag.vector-store.type:qdrant}") String type,
             @Value("${naagi.rag.qdrant.baseUrl}") String baseUrl,
             @Value("${naagi.rag.qdrant.collection}") String collection,
             @Value("${naagi.rag.qdrant.vectorSize}") int vectorSize,
-            @Value("${naagi.rag.qdrant.distance}") String distance
+            @Value("${naagi.rag.qdrant.distance}") String distance,
+            @Value("${naagi.rag.vector-store.embedded.dir:}") String embeddedDir,
+            @Value("${naagi.rag.vector-store.embedded.max-connections:16}") int maxConnections,
+            @Value("${naagi.rag.vector-store.embedded.ef-construction:128}") int efConstruction,
+            @Value("${naagi.rag.vector-store.embedded.ef-search:64}") int efSearch,
+            @Value("${naagi.rag.vector-store.embedded.exact-search-threshold:2000}") int exactSearchThreshold,
+            @Value("${naagi.rag.vector-store.embedded.compaction-dead-ratio:0.3}") double compactionDeadRatio
     ) {
-        return new QdrantClient(baseUrl, collection, vectorSize, distance);
+        return switch (type.toLowerCase()) {
+            case "qdrant" -> new QdrantClient(baseUrl, collection, vectorSize, distance);
+            case "embedded" -> new EmbeddedVectorStore(
+                    embeddedDir.isBlank() ? null : Path.of(embeddedDir).resolve(collection),
+                    vectorSize, distance, maxConnections, efConstruction, efSearch, exactSearchThreshold,
+                    compactionDeadRatio);
+            default -> throw new IllegalArgumentException("Unknown vector store type: " + type);
+        };
     }
 
     /**
@@ -43,27 +65,27 @@ public class QdrantConfig {
 
         // Initialize main RAG chunks collection
         try {
-            QdrantClient qdrantClient = applicationContext.getBean(QdrantClient.class);
-            qdrantClient.ensureCollectionExists();
-            log.info("Qdrant RAG chunks collection ready");
+            VectorStore vectorStore = applicationContext.getBean(VectorStore.class);
+            vectorStore.ensureCollectionExists();
+            log.info("RAG chunks collection ready ({})", vectorStore.getClass().getSimpleName());
         } catch (Exception e) {
             log.warn("Failed to initialize RAG chunks collection (Qdrant may not be available): {}", e.getMessage());
         }
 
         // Initialize FAQ collection
         try {
-            FaqQdrantClient faqQdrantClient = applicationContext.getBean(FaqQdrantClient.class);
-            faqQdrantClient.ensureCollectionExists();
-            log.info("Qdrant FAQ collection ready");
+            FaqStore faqStore = applicationContext.getBean(FaqStore.class);
+            faqStore.ensureCollectionExists();
+            log.info("FAQ collection ready ({})", faqStore.getClass().getSimpleName());
         } catch (Exception e) {
             log.warn("Failed to initialize FAQ collection: {}", e.getMessage());
         }
 
         // Initialize User Questions collection
         try {
-            UserQuestionQdrantClient userQuestionQdrantClient = applicationContext.getBean(UserQuestionQdrantClient.class);
-            userQuestionQdrantClient.ensureCollectionExists();
-            log.info("Qdrant User Questions collection ready");
+            UserQuestionStore userQuestionStore = applicationContext.getBean(UserQuestionStore.class);
+            userQuestionStore.ensureCollectionExists();
+            log.info("User Questions collection ready ({})", userQuestionStore.getClass().getSimpleName());
         } catch (Exception e) {
             log.warn("Failed to initialize User Questions collection: {}", e.getMessage());
         }
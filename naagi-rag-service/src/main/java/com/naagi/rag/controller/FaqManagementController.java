@@ -4,11 +4,11 @@ import com.naagi.rag.entity.FaqEntry;
 import com.naagi.rag.entity.FaqSettings;
 import com.naagi.rag.entity.GeneratedQA;
 import com.naagi.rag.entity.GeneratedQA.AnswerSource;
-import com.naagi.rag.qdrant.FaqQdrantClient;
 import com.naagi.rag.qdrant.FaqQdrantClient.FaqSearchResult;
 import com.naagi.rag.service.FaqManagementService;
 import com.naagi.rag.service.FaqManagementService.FaqApprovalResult;
 import com.naagi.rag.service.FaqSettingsService;
+import com.naagi.rag.vector.FaqStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -31,7 +31,7 @@ public class FaqManagementController {
 
     private final FaqManagementService faqService;
     private final FaqSettingsService settingsService;
-    private final FaqQdrantClient faqQdrantClient;
+    private final FaqStore faqStore;
 
     // ========== Q&A Review Endpoints ==========
 
@@ -406,7 +406,7 @@ public class FaqManagementController {
      */
     @DeleteMapping("/qdrant/cleanup/{faqId}")
     public ResponseEntity<Map<String, Object>> cleanupQdrantFaq(@PathVariable String faqId) {
-        if (faqQdrantClient == null) {
+        if (faqStore == null) {
             return ResponseEntity.ok(Map.of(
                     "success", false,
                     "message", "Qdrant client not available"
@@ -414,7 +414,7 @@ public class FaqManagementController {
         }
 
         try {
-            faqQdrantClient.deleteFaqsByFaqId(faqId);
+            faqStore.deleteFaqsByFaqId(faqId);
             log.info("Cleaned up stale FAQ from Qdrant: {}", faqId);
             return ResponseEntity.ok(Map.of(
                     "success", true,
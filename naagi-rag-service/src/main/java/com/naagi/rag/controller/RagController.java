@@ -129,10 +129,15 @@ public class RagController {
                     ))
                     .collect(Collectors.toList());
 
+            List<RetrievalBranch> retrieval = result.retrieval().stream()
+                    .map(b -> new RetrievalBranch(b.branch(), b.status().name(), b.timeMs(), b.hits()))
+                    .collect(Collectors.toList());
+
             QueryResponse response = QueryResponse.success(
                     result.question(),
                     result.answer(),
-                    sources
+                    sources,
+                    retrieval
             );
 
             return ResponseEntity.ok(response);
@@ -363,6 +368,7 @@ public class RagController {
             stats.put("rerankerStats", ragService.getRerankerStats());
             stats.put("hybridSearchEnabled", ragService.isHybridSearchEnabled());
             stats.put("bm25Stats", ragService.getBM25Stats());
+            stats.put("answerCacheStats", ragService.getAnswerCacheStats());
 
             // Add CRAG status
             stats.put("cragEnabled", cragService.isEnabled());
@@ -625,29 +631,8 @@ public class RagController {
     @DeleteMapping("/documents")
     public ResponseEntity<java.util.Map<String, Object>> deleteAllDocuments() {
         try {
-            HttpClient client = HttpClient.newHttpClient();
-            var objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-
-            // Delete all points by using an empty filter
-            var deleteBody = objectMapper.createObjectNode();
-            var filter = objectMapper.createObjectNode();
-            deleteBody.set("filter", filter);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(qdrantBaseUrl + "/collections/" + qdrantCollection + "/points/delete?wait=true"))
-                    .timeout(Duration.ofSeconds(60))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(deleteBody)))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                return ResponseEntity.ok(java.util.Map.of("success", true, "message", "All documents deleted"));
-            } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(java.util.Map.of("success", false, "error", "Failed to delete all: " + response.body()));
-            }
+            ragService.deleteAllDocuments();
+            return ResponseEntity.ok(java.util.Map.of("success", true, "message", "All documents deleted"));
         } catch (Exception e) {
             System.err.println("[RAG API] Delete all documents failed: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -658,36 +643,8 @@ public class RagController {
     @DeleteMapping("/documents/{docId}")
     public ResponseEntity<java.util.Map<String, Object>> deleteDocument(@PathVariable String docId) {
         try {
-            HttpClient client = HttpClient.newHttpClient();
-            var objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            var deleteBody = objectMapper.createObjectNode();
-
-            var matchFilter = objectMapper.createObjectNode();
-            matchFilter.put("key", "docId");
-            var matchValue = objectMapper.createObjectNode();
-            matchValue.put("value", docId);
-            matchFilter.set("match", matchValue);
-
-            var filter = objectMapper.createObjectNode();
-            filter.set("must", objectMapper.createArrayNode().add(matchFilter));
-
-            deleteBody.set("filter", filter);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(qdrantBaseUrl + "/collections/" + qdrantCollection + "/points/delete?wait=true"))
-                    .timeout(Duration.ofSeconds(30))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(deleteBody)))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                return ResponseEntity.ok(java.util.Map.of("success", true, "docId", docId));
-            } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(java.util.Map.of("success", false, "error", "Failed to delete: " + response.body()));
-            }
+            ragService.deleteDocument(docId);
+            return ResponseEntity.ok(java.util.Map.of("success", true, "docId", docId));
         } catch (Exception e) {
             System.err.println("[RAG API] Document delete failed: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -745,8 +702,8 @@ public class RagController {
 
     private boolean checkLlmProviderConnection() {
         try {
-            List<Double> testEmbedding = embeddingsClient.embed("health check");
-            return testEmbedding != null && !testEmbedding.isEmpty();
+            float[] testEmbedding = embeddingsClient.embed("health check");
+            return testEmbedding != null && testEmbedding.length > 0;
         } catch (Exception e) {
             System.err.println("[RAG API] LLM provider connection check failed: " + e.getMessage());
             return false;
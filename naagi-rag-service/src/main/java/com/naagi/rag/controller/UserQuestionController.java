@@ -2,6 +2,7 @@ package com.naagi.rag.controller;
 
 import com.naagi.rag.entity.UserQuestion;
 import com.naagi.rag.qdrant.UserQuestionQdrantClient.SimilarQuestionResult;
+import com.naagi.rag.service.QuestionTrackingQueue;
 import com.naagi.rag.service.UserQuestionAnalyticsService;
 import com.naagi.rag.service.UserQuestionAnalyticsService.*;
 import lombok.RequiredArgsConstructor;
@@ -33,11 +34,13 @@ import java.util.Optional;
 public class UserQuestionController {
 
     private final UserQuestionAnalyticsService analyticsService;
+    private final QuestionTrackingQueue trackingQueue;
 
     /**
      * Track a user question for FAQ analytics (called from chat service).
      * This only stores minimal data for deduplication and frequency tracking.
      * Full audit data is stored separately in chat-app's audit system.
+     * The question is queued and tracked in the background.
      */
     @PostMapping("/track")
     public ResponseEntity<Map<String, Object>> trackQuestion(@RequestBody TrackQuestionRequestDTO request) {
@@ -46,18 +49,10 @@ public class UserQuestionController {
                 request.categoryId()
         );
 
-        UserQuestion tracked = analyticsService.trackQuestion(serviceRequest);
-
-        if (tracked != null) {
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "questionId", tracked.getId(),
-                    "frequency", tracked.getFrequency(),
-                    "isDuplicate", tracked.getFrequency() > 1,
-                    "matchedFaqId", tracked.getMatchedFaqId() != null ? tracked.getMatchedFaqId() : ""
-            ));
+        if (trackingQueue.submit(serviceRequest)) {
+            return ResponseEntity.ok(Map.of("success", true, "queued", true));
         }
-        return ResponseEntity.ok(Map.of("success", false, "message", "Question tracking disabled or failed"));
+        return ResponseEntity.ok(Map.of("success", false, "message", "Question tracking disabled or queue full"));
     }
 
     /**
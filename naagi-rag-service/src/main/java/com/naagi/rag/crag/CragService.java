@@ -114,8 +114,9 @@ public class CragService {
         List<String> expandedQueries = new ArrayList<>();
         int retries = 0;
 
-        // Initial retrieval
-        List<SourceChunk> sources = ragService.searchWithReranking(question, topK, category);
+        // Initial retrieval; the candidate pool is kept so expansion can merge into it
+        List<SourceChunk> initialPool = ragService.retrieveCandidates(question, topK, category);
+        List<SourceChunk> sources = ragService.rerankCandidates(question, initialPool, topK);
         EvaluationResult evaluation = evaluator.evaluate(question, sources);
 
         log.info("[CRAG] Initial evaluation: confidence={:.3f}, category={}",
@@ -144,39 +145,33 @@ public class CragService {
             case INCORRECT -> {
                 appliedStrategies.add("correction_triggered");
 
-                // Try query expansion
-                if (queryExpansionEnabled && retries < maxRetryAttempts) {
-                    List<String> expanded = expandQuery(question);
+                // Try query expansion: all expanded queries are retrieved in one batch,
+                // merged with the original pool and re-ranked once against the question
+                if (queryExpansionEnabled && maxRetryAttempts > 0) {
+                    List<String> expanded = expandQuery(question).stream()
+                            .limit(maxRetryAttempts)
+                            .toList();
                     expandedQueries.addAll(expanded);
+                    retries = expanded.size();
 
-                    for (String expandedQuery : expanded) {
-                        retries++;
-                        List<SourceChunk> newSources = ragService.searchWithReranking(expandedQuery, topK, category);
-                        EvaluationResult newEval = evaluator.evaluate(expandedQuery, newSources);
+                    if (!expanded.isEmpty()) {
+                        List<List<SourceChunk>> expandedPools =
+                                ragService.retrieveCandidatesBatch(expanded, topK, category);
+                        List<SourceChunk> merged = mergeAndDeduplicateSources(initialPool, expandedPools);
+                        List<SourceChunk> newSources = ragService.rerankCandidates(question, merged, topK);
+                        EvaluationResult newEval = evaluator.evaluate(question, newSources);
 
-                        log.info("[CRAG] Retry {} with expanded query '{}': confidence={:.3f}",
-                                retries, expandedQuery, newEval.confidenceScore());
+                        log.info("[CRAG] Expansion with {} queries: pool={}, confidence={:.3f}",
+                                expanded.size(), merged.size(), newEval.confidenceScore());
 
                         if (newEval.confidenceScore() > evaluation.confidenceScore()) {
                             sources = newSources;
                             evaluation = newEval;
                             appliedStrategies.add("query_expansion_success");
-
-                            if (evaluation.category() != ConfidenceCategory.INCORRECT) {
-                                break; // Good enough, stop retrying
-                            }
                         }
-
-                        if (retries >= maxRetryAttempts) break;
+                        appliedStrategies.add("source_merging");
                     }
                 }
-
-                // If still low confidence, try merging all results
-                if (evaluation.category() == ConfidenceCategory.INCORRECT && !expandedQueries.isEmpty()) {
-                    sources = mergeAndDeduplicateSources(question, sources, expandedQueries, topK, category);
-                    evaluation = evaluator.evaluate(question, sources);
-                    appliedStrategies.add("source_merging");
-                }
             }
         }
 
@@ -320,42 +315,27 @@ public class CragService {
     }
 
     /**
-     * Merge and deduplicate sources from multiple queries
+     * Merge candidate pools from the original and expanded queries, keeping the
+     * highest-scoring copy of each chunk
      */
-    private List<SourceChunk> mergeAndDeduplicateSources(String originalQuery,
-            List<SourceChunk> originalSources, List<String> expandedQueries,
-            int topK, String category) {
+    private List<SourceChunk> mergeAndDeduplicateSources(List<SourceChunk> originalPool,
+            List<List<SourceChunk>> expandedPools) {
 
         Map<String, SourceChunk> uniqueChunks = new LinkedHashMap<>();
 
-        // Add original sources
-        for (SourceChunk chunk : originalSources) {
-            String key = chunk.docId() + ":" + chunk.chunkIndex();
-            uniqueChunks.put(key, chunk);
-        }
-
-        // Add sources from expanded queries
-        for (String expandedQuery : expandedQueries) {
-            List<SourceChunk> expandedSources = ragService.searchWithReranking(expandedQuery, topK, category);
-            for (SourceChunk chunk : expandedSources) {
+        List<List<SourceChunk>> pools = new ArrayList<>();
+        pools.add(originalPool);
+        pools.addAll(expandedPools);
+        for (List<SourceChunk> pool : pools) {
+            for (SourceChunk chunk : pool) {
                 String key = chunk.docId() + ":" + chunk.chunkIndex();
-                if (!uniqueChunks.containsKey(key)) {
-                    uniqueChunks.put(key, chunk);
-                } else {
-                    // Update score if higher
-                    SourceChunk existing = uniqueChunks.get(key);
-                    if (chunk.relevanceScore() > existing.relevanceScore()) {
-                        uniqueChunks.put(key, chunk);
-                    }
-                }
+                uniqueChunks.merge(key, chunk,
+                        (existing, candidate) -> candidate.relevanceScore() > existing.relevanceScore()
+                                ? candidate : existing);
             }
         }
 
-        // Sort by score and limit
-        return uniqueChunks.values().stream()
-                .sorted((a, b) -> Double.compare(b.relevanceScore(), a.relevanceScore()))
-                .limit(topK)
-                .toList();
+        return new ArrayList<>(uniqueChunks.values());
     }
 
     /**
@@ -7,13 +7,19 @@ public record QueryResponse(
         String question,
         String answer,
         List<SourceMetadata> sources,
+        List<RetrievalBranch> retrieval,
         String errorMessage
 ) {
     public static QueryResponse success(String question, String answer, List<SourceMetadata> sources) {
-        return new QueryResponse(true, question, answer, sources, null);
+        return new QueryResponse(true, question, answer, sources, null, null);
+    }
+
+    public static QueryResponse success(String question, String answer, List<SourceMetadata> sources,
+                                        List<RetrievalBranch> retrieval) {
+        return new QueryResponse(true, question, answer, sources, retrieval.isEmpty() ? null : retrieval, null);
     }
 
     public static QueryResponse error(String question, String errorMessage) {
-        return new QueryResponse(false, question, null, null, errorMessage);
+        return new QueryResponse(false, question, null, null, null, errorMessage);
     }
 }
@@ -0,0 +1,12 @@
+package com.naagi.rag.dto;
+
+/**
+ * How one hybrid retrieval branch ("dense" or "sparse") did for a query.
+ * Status is CONTRIBUTED, EMPTY, TIMED_OUT or FAILED.
+ */
+public record RetrievalBranch(
+        String branch,
+        String status,
+        long timeMs,
+        int hits
+) {}
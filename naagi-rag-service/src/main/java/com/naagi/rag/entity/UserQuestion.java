@@ -26,7 +26,7 @@ import java.time.LocalDateTime;
     @Index(name = "idx_uq_first_asked", columnList = "firstAskedAt")
 })
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserQuestion {
@@ -0,0 +1,447 @@
+package com.naagi.rag.ingest;
+
+import com.naagi.rag.llm.EmbeddingsClient;
+import com.naagi.rag.metrics.RagMetrics;
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Staged ingestion pipeline shared by the main and temp collections.
+ *
+ * <pre>
+ * chunk ─▶ [embed queue] ─▶ embed (N workers) ─▶ [upsert queue] ─▶ upsert (M workers)
+ *       └▶ [sparse queue] ─▶ sparse index (1 worker)
+ * </pre>
+ *
+ * - Chunks travel in batches of {@code qdrantBatchSize}; one batch is one
+ *   embeddings call and one Qdrant upsert.
+ * - Queues are bounded (capacity in batches), so a slow stage blocks the
+ *   stage feeding it instead of the whole document piling up in memory.
+ * - Embedding calls are capped across all running jobs by
+ *   {@code maxConcurrentEmbeddings}, so parallel uploads share the server.
+ * - {@link #run} returns only after every stage has finished (the consistency
+ *   barrier). If a stage fails, the others stop doing work, a committed sparse
+ *   index is rolled back and the first failure is thrown. Points already
+ *   upserted stay in Qdrant, as before.
+ * - Every stage reports items, busy and blocked time and throughput
+ *   ({@link StageStats}), in the log and as {@code rag.ingest.stage.*} metrics.
+ */
+@Service
+public class IngestPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestPipeline.class);
+
+    public static final String CHUNK = "chunk";
+    public static final String EMBED = "embed";
+    public static final String UPSERT = "upsert";
+    public static final String SPARSE = "sparse";
+
+    /**
+     * Builds the Qdrant point for one chunk
+     */
+    @FunctionalInterface
+    public interface PointFactory {
+        Point create(int chunkIndex, String chunk, float[] vector);
+    }
+
+    /**
+     * Writes one batch of points. Called from several upsert workers at once.
+     */
+    @FunctionalInterface
+    public interface Upserter {
+        void upsert(List<Point> points);
+    }
+
+    /**
+     * Keyword indexing of a job's chunks. {@code add} is called on one thread
+     * with batches in chunk order, {@code commit} once after the last batch,
+     * and {@code rollback} if the job fails after the commit.
+     */
+    public interface SparseIndexer {
+        void add(int firstChunkIndex, List<String> chunks);
+
+        void commit();
+
+        void rollback();
+    }
+
+    /**
+     * One document to ingest; {@code sparse} may be null
+     */
+    public record Job(
+            String label,
+            Supplier<List<String>> chunking,
+            PointFactory points,
+            Upserter upserter,
+            SparseIndexer sparse
+    ) {}
+
+    /**
+     * What one stage did during a job. Busy time is summed over workers;
+     * blocked time is time spent waiting for room in the next stage's queue.
+     */
+    public record StageStats(
+            String stage,
+            int workers,
+            long items,
+            long batches,
+            long busyMs,
+            long blockedMs,
+            double itemsPerSecond
+    ) {}
+
+    public record Result(int chunks, long totalMs, List<StageStats> stages) {}
+
+    private record ChunkBatch(int start, List<String> chunks) {}
+
+    private static final ChunkBatch END_OF_CHUNKS = new ChunkBatch(-1, List.of());
+    private static final List<Point> END_OF_POINTS = List.of();
+
+    private final EmbeddingsClient embeddings;
+    private final RagMetrics metrics;
+    private final int batchSize;
+    private final int embedWorkers;
+    private final int embedQueueCapacity;
+    private final int upsertWorkers;
+    private final int upsertQueueCapacity;
+    private final int sparseQueueCapacity;
+    private final Semaphore embedPermits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean closed = false;
+
+    public IngestPipeline(
+            @Value("${naagi.rag.performance.qdrantBatchSize:64}") int batchSize,
+            @Value("${naagi.rag.performance.maxConcurrentEmbeddings:4}") int maxConcurrentEmbeddings,
+            @Value("${naagi.rag.ingest.embed-queue:4}") int embedQueueCapacity,
+            @Value("${naagi.rag.ingest.upsert-workers:2}") int upsertWorkers,
+            @Value("${naagi.rag.ingest.upsert-queue:4}") int upsertQueueCapacity,
+            @Value("${naagi.rag.ingest.sparse-queue:16}") int sparseQueueCapacity,
+            EmbeddingsClient embeddings,
+            RagMetrics metrics
+    ) {
+        this.embeddings = embeddings;
+        this.metrics = metrics;
+        this.batchSize = Math.max(1, batchSize);
+        this.embedWorkers = Math.max(1, maxConcurrentEmbeddings);
+        this.embedQueueCapacity = Math.max(1, embedQueueCapacity);
+        this.upsertWorkers = Math.max(1, upsertWorkers);
+        this.upsertQueueCapacity = Math.max(1, upsertQueueCapacity);
+        this.sparseQueueCapacity = Math.max(1, sparseQueueCapacity);
+        this.embedPermits = new Semaphore(embedWorkers);
+
+        log.info("[INGEST] Pipeline batch={} embedWorkers={} embedQueue={} upsertWorkers={} upsertQueue={} sparseQueue={}",
+                this.batchSize, embedWorkers, this.embedQueueCapacity, this.upsertWorkers,
+                this.upsertQueueCapacity, this.sparseQueueCapacity);
+    }
+
+    /**
+     * Run a job through all stages and wait for it to finish
+     */
+    public Result run(Job job) {
+        if (closed) {
+            throw new IllegalStateException("Ingest pipeline is shut down");
+        }
+        Result result = new Run(job).execute();
+        for (StageStats stage : result.stages()) {
+            metrics.recordIngestStage(stage.stage(), stage.items(), stage.busyMs(), stage.blockedMs());
+        }
+        if (result.chunks() > 0) {
+            log.info("[INGEST] {}: {} chunks in {}ms | {}", job.label(), result.chunks(), result.totalMs(),
+                    result.stages().stream()
+                            .map(s -> "%s %.0f/s (x%d, busy=%dms, blocked=%dms)".formatted(
+                                    s.stage(), s.itemsPerSecond(), s.workers(), s.busyMs(), s.blockedMs()))
+                            .collect(Collectors.joining(" | ")));
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Counters of one stage within one job
+     */
+    private static final class Stage {
+        final String name;
+        final int workers;
+        final LongAdder items = new LongAdder();
+        final LongAdder batches = new LongAdder();
+        final LongAdder busyNanos = new LongAdder();
+        final LongAdder blockedNanos = new LongAdder();
+        final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong lastEnd = new AtomicLong();
+
+        Stage(String name, int workers) {
+            this.name = name;
+            this.workers = workers;
+        }
+
+        void record(int count, long startNanos) {
+            long end = System.nanoTime();
+            items.add(count);
+            batches.increment();
+            busyNanos.add(end - startNanos);
+            firstStart.accumulateAndGet(startNanos, Math::min);
+            lastEnd.accumulateAndGet(end, Math::max);
+        }
+
+        StageStats stats() {
+            long wallNanos = lastEnd.get() - firstStart.get();
+            double perSecond = wallNanos > 0 ? items.sum() * 1e9 / wallNanos : 0.0;
+            return new StageStats(name, workers, items.sum(), batches.sum(),
+                    TimeUnit.NANOSECONDS.toMillis(busyNanos.sum()),
+                    TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()),
+                    Math.round(perSecond * 10) / 10.0);
+        }
+    }
+
+    /**
+     * State of one job: its queues, stage counters and first failure
+     */
+    private final class Run {
+        final Job job;
+        final BlockingQueue<ChunkBatch> embedQueue = new ArrayBlockingQueue<>(embedQueueCapacity);
+        final BlockingQueue<ChunkBatch> sparseQueue = new ArrayBlockingQueue<>(sparseQueueCapacity);
+        final BlockingQueue<List<Point>> upsertQueue = new ArrayBlockingQueue<>(upsertQueueCapacity);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicInteger embedWorkersLeft = new AtomicInteger(embedWorkers);
+        final Stage chunk = new Stage(CHUNK, 1);
+        final Stage embed = new Stage(EMBED, embedWorkers);
+        final Stage upsert = new Stage(UPSERT, upsertWorkers);
+        final Stage sparse = new Stage(SPARSE, 1);
+        volatile boolean sparseCommitted = false;
+
+        Run(Job job) {
+            this.job = job;
+        }
+
+        Result execute() {
+            long startNanos = System.nanoTime();
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < embedWorkers; i++) {
+                tasks.add(CompletableFuture.runAsync(this::embedWorker, executor));
+            }
+            for (int i = 0; i < upsertWorkers; i++) {
+                tasks.add(CompletableFuture.runAsync(this::upsertWorker, executor));
+            }
+            if (job.sparse() != null) {
+                tasks.add(CompletableFuture.runAsync(this::sparseWorker, executor));
+            }
+
+            int chunks = produce();
+
+            // Consistency barrier: every batch is upserted and indexed, or the job failed
+            for (CompletableFuture<Void> task : tasks) {
+                try {
+                    task.join();
+                } catch (RuntimeException e) {
+                    fail(e.getCause() != null ? e.getCause() : e);
+                }
+            }
+
+            Throwable error = failure.get();
+            if (error != null) {
+                if (sparseCommitted) {
+                    try {
+                        job.sparse().rollback();
+                    } catch (RuntimeException e) {
+                        error.addSuppressed(e);
+                    }
+                }
+                log.error("[INGEST] {} failed: {}", job.label(), error.getMessage());
+                if (error instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException("Ingest of " + job.label() + " failed", error);
+            }
+
+            List<StageStats> stages = new ArrayList<>(4);
+            stages.add(chunk.stats());
+            stages.add(embed.stats());
+            stages.add(upsert.stats());
+            if (job.sparse() != null) {
+                stages.add(sparse.stats());
+            }
+            return new Result(chunks, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), stages);
+        }
+
+        /**
+         * Chunking stage, on the caller's thread: split the text and feed the queues
+         */
+        int produce() {
+            List<String> chunks = List.of();
+            long start = System.nanoTime();
+            try {
+                chunks = job.chunking().get();
+                chunk.record(chunks.size(), start);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+
+            for (int from = 0; from < chunks.size() && !failed(); from += batchSize) {
+                ChunkBatch batch = new ChunkBatch(from, chunks.subList(from, Math.min(chunks.size(), from + batchSize)));
+                put(embedQueue, batch, chunk);
+                if (job.sparse() != null) {
+                    put(sparseQueue, batch, chunk);
+                }
+            }
+
+            for (int i = 0; i < embedWorkers; i++) {
+                put(embedQueue, END_OF_CHUNKS, null);
+            }
+            if (job.sparse() != null) {
+                put(sparseQueue, END_OF_CHUNKS, null);
+            }
+            return chunks.size();
+        }
+
+        void embedWorker() {
+            try {
+                for (ChunkBatch batch; (batch = take(embedQueue)) != END_OF_CHUNKS; ) {
+                    if (failed()) {
+                        continue;  // keep draining so the chunking stage never blocks
+                    }
+                    long start = System.nanoTime();
+                    List<Point> points;
+                    try {
+                        List<float[]> vectors;
+                        embedPermits.acquireUninterruptibly();
+                        try {
+                            vectors = embeddings.embedBatch(batch.chunks());
+                        } finally {
+                            embedPermits.release();
+                        }
+                        points = new ArrayList<>(vectors.size());
+                        for (int i = 0; i < batch.chunks().size(); i++) {
+                            points.add(job.points().create(batch.start() + i, batch.chunks().get(i), vectors.get(i)));
+                        }
+                        embed.record(points.size(), start);
+                    } catch (RuntimeException e) {
+                        fail(e);
+                        continue;
+                    }
+                    put(upsertQueue, points, embed);
+                }
+            } finally {
+                if (embedWorkersLeft.decrementAndGet() == 0) {
+                    for (int i = 0; i < upsertWorkers; i++) {
+                        put(upsertQueue, END_OF_POINTS, null);
+                    }
+                }
+            }
+        }
+
+        void upsertWorker() {
+            for (List<Point> points; (points = take(upsertQueue)) != END_OF_POINTS; ) {
+                if (failed()) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    job.upserter().upsert(points);
+                    upsert.record(points.size(), start);
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        void sparseWorker() {
+            for (ChunkBatch batch; (batch = take(sparseQueue)) != END_OF_CHUNKS; ) {
+                if (failed()) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    job.sparse().add(batch.start(), batch.chunks());
+                    sparse.record(batch.chunks().size(), start);
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+            }
+            if (failed() || sparse.items.sum() == 0) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                job.sparse().commit();
+                sparseCommitted = true;
+                sparse.record(0, start);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        boolean failed() {
+            return failure.get() != null;
+        }
+
+        void fail(Throwable error) {
+            failure.compareAndSet(null, error);
+        }
+
+        /**
+         * Enqueue, charging the wait to the producing stage (if any). An
+         * interrupt fails the job but the item is still delivered, so end
+         * markers always reach the workers.
+         */
+        <T> void put(BlockingQueue<T> queue, T item, Stage producer) {
+            long start = System.nanoTime();
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        if (queue.offer(item, 1, TimeUnit.SECONDS)) {
+                            return;
+                        }
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        fail(e);
+                    }
+                    if (closed) {
+                        throw new IllegalStateException("Ingest pipeline is shut down");
+                    }
+                }
+            } finally {
+                if (producer != null) {
+                    producer.blockedNanos.add(System.nanoTime() - start);
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        <T> T take(BlockingQueue<T> queue) {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ingesting " + job.label(), e);
+            }
+        }
+    }
+}
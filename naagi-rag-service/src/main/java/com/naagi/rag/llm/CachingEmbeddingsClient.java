@@ -0,0 +1,201 @@
+package com.naagi.rag.llm;
+
+import com.naagi.rag.metrics.RagMetrics;
+import org.springframework.cache.Cache;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embeddings client decorator that caches embeddings of short texts.
+ *
+ * One user question is embedded by the FAQ check, by retrieval and by
+ * question analytics; with this decorator only the first of those calls
+ * reaches the embedding server.
+ *
+ * - Keys are a SHA-256 hash of the normalized text (trimmed, whitespace
+ *   collapsed, lowercased), so "What is X?" and "what is  x?" share an entry.
+ *   The delegate still sees the caller's original text on a miss.
+ * - Vectors are stored in the given cache, whose size and TTL bounds come
+ *   from its configuration.
+ * - Concurrent misses for the same key make a single delegate call; the other
+ *   callers wait for its result.
+ * - Texts longer than {@code maxTextLength} (document chunks) bypass the cache
+ *   so ingestion does not evict query embeddings.
+ * - {@link #embedBatch} serves cached texts and sends the rest to the delegate
+ *   in one batch; batch misses are not coalesced with concurrent callers.
+ *
+ * Cached arrays are handed to every caller, which the {@link EmbeddingsClient}
+ * contract allows since callers must not modify them.
+ */
+public final class CachingEmbeddingsClient implements EmbeddingsClient {
+
+    /**
+     * 128 bits of the normalized text's SHA-256
+     */
+    record Key(long high, long low) implements Serializable {}
+
+    private final EmbeddingsClient delegate;
+    private final Cache cache;
+    private final RagMetrics metrics;
+    private final int maxTextLength;
+    private final ConcurrentHashMap<Key, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+    public CachingEmbeddingsClient(EmbeddingsClient delegate, Cache cache, RagMetrics metrics, int maxTextLength) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.maxTextLength = maxTextLength;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (text == null || text.length() > maxTextLength) {
+            return delegate.embed(text);
+        }
+
+        Key key = key(text);
+        float[] cached = cache.get(key, float[].class);
+        if (cached != null) {
+            metrics.recordEmbeddingCacheHit();
+            return cached;
+        }
+
+        CompletableFuture<float[]> mine = new CompletableFuture<>();
+        CompletableFuture<float[]> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            metrics.recordEmbeddingCacheCoalesced();
+            return await(existing);
+        }
+
+        try {
+            // Another caller may have finished between the lookup and claiming the key
+            float[] vector = cache.get(key, float[].class);
+            if (vector != null) {
+                metrics.recordEmbeddingCacheHit();
+            } else {
+                metrics.recordEmbeddingCacheMiss();
+                vector = delegate.embed(text);
+                cache.put(key, vector);
+            }
+            mine.complete(vector);
+            return vector;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        float[][] out = new float[texts.size()][];
+        List<String> misses = new ArrayList<>();
+        List<Key> missKeys = new ArrayList<>();
+        // Positions of each cacheable miss; repeated texts in one batch are embedded once
+        Map<Key, List<Integer>> positionsByKey = new HashMap<>();
+        List<Integer> bypassPositions = new ArrayList<>();
+
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.length() > maxTextLength) {
+                bypassPositions.add(i);
+                misses.add(text);
+                missKeys.add(null);
+                continue;
+            }
+            Key key = key(text);
+            List<Integer> positions = positionsByKey.get(key);
+            if (positions != null) {
+                metrics.recordEmbeddingCacheCoalesced();
+                positions.add(i);
+                continue;
+            }
+            float[] cached = cache.get(key, float[].class);
+            if (cached != null) {
+                metrics.recordEmbeddingCacheHit();
+                out[i] = cached;
+                continue;
+            }
+            metrics.recordEmbeddingCacheMiss();
+            positions = new ArrayList<>(1);
+            positions.add(i);
+            positionsByKey.put(key, positions);
+            misses.add(text);
+            missKeys.add(key);
+        }
+
+        if (!misses.isEmpty()) {
+            List<float[]> vectors = delegate.embedBatch(misses);
+            int bypassed = 0;
+            for (int m = 0; m < misses.size(); m++) {
+                float[] vector = vectors.get(m);
+                Key key = missKeys.get(m);
+                if (key == null) {
+                    out[bypassPositions.get(bypassed++)] = vector;
+                } else {
+                    cache.put(key, vector);
+                    for (int position : positionsByKey.get(key)) {
+                        out[position] = vector;
+                    }
+                }
+            }
+        }
+        return Arrays.asList(out);
+    }
+
+    private static float[] await(CompletableFuture<float[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    static Key key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(normalize(text).getBytes(StandardCharsets.UTF_8)));
+            return new Key(hash.getLong(), hash.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Trim, collapse whitespace runs to one space and lowercase
+     */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
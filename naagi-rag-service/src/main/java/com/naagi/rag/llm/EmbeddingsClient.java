@@ -1,7 +1,24 @@
 package com.naagi.rag.llm;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface EmbeddingsClient {
-    List<Double> embed(String text);
+    /**
+     * Embed a text. The returned array may be shared (e.g. by a cache), so callers must not modify it.
+     */
+    float[] embed(String text);
+
+    /**
+     * Embed several texts, returning their vectors in input order. Bulk callers
+     * (ingestion, validation) should prefer this: clients that support it send
+     * many texts per request. The default embeds one text at a time.
+     */
+    default List<float[]> embedBatch(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
 }
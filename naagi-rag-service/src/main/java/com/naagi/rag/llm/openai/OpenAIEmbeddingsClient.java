@@ -3,7 +3,8 @@ package com.naagi.rag.llm.openai;
 import com.naagi.rag.http.Http;
 import com.naagi.rag.json.Json;
 import com.naagi.rag.llm.EmbeddingsClient;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +14,10 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 public final class OpenAIEmbeddingsClient implements EmbeddingsClient {
     private static final Logger log = LoggerFactory.getLogger(OpenAIEmbeddingsClient.class);
@@ -21,63 +25,98 @@ public final class OpenAIEmbeddingsClient implements EmbeddingsClient {
     // Max characters to send to embedding model (2048 tokens * ~3.5 chars/token with safety margin)
     private static final int MAX_EMBED_CHARS = 6000;
 
+    public static final int DEFAULT_BATCH_MAX_ITEMS = 64;
+    public static final int DEFAULT_BATCH_MAX_CHARS = 32000;
+
+    /**
+     * Response shape; the embedding binds straight to float[] without a JSON tree of boxed numbers
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record EmbeddingResponse(List<EmbeddingItem> data) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record EmbeddingItem(int index, float[] embedding) {}
+
+    /**
+     * Non-2xx reply from the embedding server
+     */
+    static final class EmbedHttpException extends RuntimeException {
+
+        // llama.cpp's replies when a batch does not fit its physical batch or context size
+        private static final Pattern BATCH_OVERFLOW = Pattern.compile(
+                "too large to process|physical batch size|exceeds the available context size"
+                        + "|larger than the max context size|failed to decode the batch",
+                Pattern.CASE_INSENSITIVE);
+
+        final int status;
+        final String body;
+
+        EmbedHttpException(int status, String body) {
+            super("OpenAI-compatible embed HTTP " + status + ": " + body);
+            this.status = status;
+            this.body = body != null ? body : "";
+        }
+
+        /**
+         * Replies a smaller batch may avoid: 413, or the 400/500 llama.cpp gives when
+         * the batch overflows its batch or context size. Any other error, such as a
+         * 502/503 while the server restarts, would fail for every split as well.
+         */
+        boolean batchTooLarge() {
+            return status == 413
+                    || (status == 400 || status == 500) && BATCH_OVERFLOW.matcher(body).find();
+        }
+    }
+
     private final String baseUrl;
     private final String model;
+    private final int maxBatchItems;
+    private final int maxBatchChars;
+
+    // Items per request; halved when the server rejects a batch, raised by one after each full batch
+    private final AtomicInteger batchLimit;
 
     public OpenAIEmbeddingsClient(String baseUrl, String model) {
+        this(baseUrl, model, DEFAULT_BATCH_MAX_ITEMS, DEFAULT_BATCH_MAX_CHARS);
+    }
+
+    /**
+     * @param maxBatchItems most texts sent in one request
+     * @param maxBatchChars most characters sent in one request (a stand-in for the server's token budget);
+     *                      a single text longer than this is still sent on its own
+     */
+    public OpenAIEmbeddingsClient(String baseUrl, String model, int maxBatchItems, int maxBatchChars) {
         this.baseUrl = baseUrl;
         this.model = model;
+        this.maxBatchItems = Math.max(1, maxBatchItems);
+        this.maxBatchChars = Math.max(1, maxBatchChars);
+        this.batchLimit = new AtomicInteger(this.maxBatchItems);
     }
 
     @Override
-    public List<Double> embed(String text) {
+    public float[] embed(String text) {
         long startTime = System.currentTimeMillis();
         try {
-            // Safety truncation to avoid exceeding model's token limit
-            if (text != null && text.length() > MAX_EMBED_CHARS) {
-                log.warn("[EMBED] Truncating text from {} to {} chars to stay within token limit",
-                        text.length(), MAX_EMBED_CHARS);
-                text = text.substring(0, MAX_EMBED_CHARS);
-            }
+            text = truncate(text);
 
             long buildStart = System.currentTimeMillis();
             ObjectNode body = Json.MAPPER.createObjectNode()
                     .put("model", model)
                     .put("input", text);
-
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + "/v1/embeddings"))
-                    .timeout(Duration.ofSeconds(30))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
-                    .build();
+            HttpRequest req = request(body, Duration.ofSeconds(30));
             long buildTime = System.currentTimeMillis() - buildStart;
 
             long httpStart = System.currentTimeMillis();
             HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
             long httpTime = System.currentTimeMillis() - httpStart;
 
-            if (resp.statusCode() / 100 != 2) {
-                throw new RuntimeException("OpenAI-compatible embed HTTP " + resp.statusCode() + ": " + resp.body());
-            }
-
             long parseStart = System.currentTimeMillis();
-            JsonNode root = Json.MAPPER.readTree(resp.body());
-
-            JsonNode data = root.get("data");
-            if (data == null || !data.isArray() || data.size() == 0) {
-                throw new IllegalStateException("Bad OpenAI embed response: missing data array - " + resp.body());
-            }
+            List<EmbeddingItem> data = parse(resp);
+            float[] out = data.get(0).embedding();
 
-            JsonNode firstItem = data.get(0);
-            JsonNode vec = firstItem.get("embedding");
-
-            if (vec == null || !vec.isArray()) {
+            if (out == null) {
                 throw new IllegalStateException("Bad OpenAI embed response: missing embedding array - " + resp.body());
             }
-
-            List<Double> out = new ArrayList<>(vec.size());
-            for (JsonNode n : vec) out.add(n.asDouble());
             long parseTime = System.currentTimeMillis() - parseStart;
 
             long totalTime = System.currentTimeMillis() - startTime;
@@ -89,4 +128,151 @@ public final class OpenAIEmbeddingsClient implements EmbeddingsClient {
             throw new RuntimeException("OpenAI-compatible embedding failed", e);
         }
     }
+
+    /**
+     * Embed texts with as few requests as the limits allow.
+     *
+     * Texts are packed in order into requests of at most the current batch
+     * limit and {@code maxBatchChars}. If the server rejects a batch as too
+     * large, the limit is halved and the batch is retried in halves; each
+     * successful full batch then raises the limit by one, up to
+     * {@code maxBatchItems}. A single text that still fails is an error.
+     */
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        long startTime = System.currentTimeMillis();
+        List<String> inputs = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            inputs.add(truncate(text));
+        }
+
+        float[][] out = new float[inputs.size()][];
+        int requests = 0;
+        int start = 0;
+        while (start < inputs.size()) {
+            int end = batchEnd(inputs, start, batchLimit.get());
+            requests += embedRange(inputs, start, end, out);
+            start = end;
+        }
+
+        log.debug("[EMBED TIMING] batch of {} texts in {} requests, {}ms (limit now {})",
+                inputs.size(), requests, System.currentTimeMillis() - startTime, batchLimit.get());
+        return Arrays.asList(out);
+    }
+
+    /**
+     * End (exclusive) of the batch starting at {@code start}
+     */
+    private int batchEnd(List<String> inputs, int start, int maxItems) {
+        int end = start;
+        int chars = 0;
+        while (end < inputs.size() && end - start < maxItems) {
+            String text = inputs.get(end);
+            int length = text == null ? 0 : text.length();
+            if (end > start && chars + length > maxBatchChars) {
+                break;
+            }
+            chars += length;
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Embed inputs[from, to) into out, splitting on rejection.
+     *
+     * @return the number of successful requests made
+     */
+    private int embedRange(List<String> inputs, int from, int to, float[][] out) {
+        List<String> batch = inputs.subList(from, to);
+        try {
+            List<float[]> vectors = send(batch);
+            for (int i = 0; i < vectors.size(); i++) {
+                out[from + i] = vectors.get(i);
+            }
+            // Probe one item higher only after a batch that used the whole limit
+            batchLimit.updateAndGet(limit -> batch.size() >= limit ? Math.min(maxBatchItems, limit + 1) : limit);
+            return 1;
+        } catch (EmbedHttpException e) {
+            if (batch.size() == 1 || !e.batchTooLarge()) {
+                throw new RuntimeException("OpenAI-compatible embedding failed", e);
+            }
+            int half = batch.size() / 2;
+            batchLimit.updateAndGet(limit -> Math.max(1, Math.min(limit, half)));
+            log.warn("[EMBED] Batch of {} texts rejected (HTTP {}), retrying in batches of {}",
+                    batch.size(), e.status, half);
+            return embedRange(inputs, from, from + half, out) + embedRange(inputs, from + half, to, out);
+        }
+    }
+
+    private List<float[]> send(List<String> batch) {
+        try {
+            ObjectNode body = Json.MAPPER.createObjectNode().put("model", model);
+            ArrayNode input = body.putArray("input");
+            batch.forEach(input::add);
+
+            // Larger batches take longer to embed
+            HttpRequest req = request(body, Duration.ofSeconds(30 + batch.size()));
+            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
+            List<EmbeddingItem> data = parse(resp);
+
+            if (data.size() != batch.size()) {
+                throw new IllegalStateException("Bad OpenAI embed response: expected " + batch.size()
+                        + " embeddings, got " + data.size());
+            }
+            float[][] vectors = new float[batch.size()][];
+            for (EmbeddingItem item : data) {
+                int index = item.index();
+                if (index < 0 || index >= vectors.length || vectors[index] != null || item.embedding() == null) {
+                    throw new IllegalStateException("Bad OpenAI embed response: missing or duplicate embedding at index " + index);
+                }
+                vectors[index] = item.embedding();
+            }
+            return Arrays.asList(vectors);
+        } catch (EmbedHttpException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("OpenAI-compatible embedding interrupted", e);
+        } catch (Exception e) {
+            throw new RuntimeException("OpenAI-compatible embedding failed", e);
+        }
+    }
+
+    private HttpRequest request(ObjectNode body, Duration timeout) throws Exception {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/v1/embeddings"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                .build();
+    }
+
+    private static List<EmbeddingItem> parse(HttpResponse<String> resp) throws Exception {
+        if (resp.statusCode() / 100 != 2) {
+            throw new EmbedHttpException(resp.statusCode(), resp.body());
+        }
+        EmbeddingResponse parsed = Json.MAPPER.readValue(resp.body(), EmbeddingResponse.class);
+
+        List<EmbeddingItem> data = parsed.data();
+        if (data == null || data.isEmpty()) {
+            throw new IllegalStateException("Bad OpenAI embed response: missing data array - " + resp.body());
+        }
+        return data;
+    }
+
+    /**
+     * Safety truncation to avoid exceeding model's token limit
+     */
+    private static String truncate(String text) {
+        if (text != null && text.length() > MAX_EMBED_CHARS) {
+            log.warn("[EMBED] Truncating text from {} to {} chars to stay within token limit",
+                    text.length(), MAX_EMBED_CHARS);
+            return text.substring(0, MAX_EMBED_CHARS);
+        }
+        return text;
+    }
 }
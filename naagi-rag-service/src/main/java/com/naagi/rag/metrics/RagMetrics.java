@@ -3,6 +3,7 @@ package com.naagi.rag.metrics;
 import io.micrometer.core.instrument.*;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -24,8 +25,16 @@ public class RagMetrics {
     private final Counter ragQueryErrorCounter;
     private final Counter cacheHitCounter;
     private final Counter cacheMissCounter;
+    private final Counter cacheSemanticHitCounter;
+    private final Counter cacheInvalidationCounter;
+    private final Counter embeddingCacheHitCounter;
+    private final Counter embeddingCacheMissCounter;
+    private final Counter embeddingCacheCoalescedCounter;
     private final Counter documentIngestCounter;
     private final Counter chunkCreatedCounter;
+    private final Counter questionTrackedCounter;
+    private final Counter questionDroppedCounter;
+    private final Timer questionBatchTimer;
 
     // CRAG Metrics
     private final Timer cragQueryTimer;
@@ -35,6 +44,8 @@ public class RagMetrics {
     private final Counter cragQueryExpansionCounter;
     private final Counter cragRetryCounter;
 
+    private final MeterRegistry registry;
+
     // Gauges (tracked separately)
     private volatile long lastEmbeddingTimeMs = 0;
     private volatile long lastVectorSearchTimeMs = 0;
@@ -42,6 +53,8 @@ public class RagMetrics {
     private volatile long lastTotalQueryTimeMs = 0;
 
     public RagMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
         // Timers for operation durations
         this.embeddingTimer = Timer.builder("rag.embedding.duration")
                 .description("Time to generate embeddings")
@@ -89,6 +102,31 @@ public class RagMetrics {
                 .tags("cache", "query")
                 .register(registry);
 
+        this.cacheSemanticHitCounter = Counter.builder("rag.cache.semantic.hits")
+                .description("Number of cache hits served for a different but semantically close question")
+                .tags("cache", "query")
+                .register(registry);
+
+        this.cacheInvalidationCounter = Counter.builder("rag.cache.invalidations")
+                .description("Number of cache invalidations caused by knowledge base changes")
+                .tags("cache", "query")
+                .register(registry);
+
+        this.embeddingCacheHitCounter = Counter.builder("rag.cache.hits")
+                .description("Number of cache hits")
+                .tags("cache", "embeddings")
+                .register(registry);
+
+        this.embeddingCacheMissCounter = Counter.builder("rag.cache.misses")
+                .description("Number of cache misses")
+                .tags("cache", "embeddings")
+                .register(registry);
+
+        this.embeddingCacheCoalescedCounter = Counter.builder("rag.cache.coalesced")
+                .description("Number of cache misses that waited for an identical in-flight load")
+                .tags("cache", "embeddings")
+                .register(registry);
+
         this.documentIngestCounter = Counter.builder("rag.documents.ingested")
                 .description("Number of documents ingested")
                 .tags("operation", "ingest")
@@ -130,6 +168,19 @@ public class RagMetrics {
                 .tags("operation", "retry")
                 .register(registry);
 
+        // Question analytics queue
+        this.questionTrackedCounter = Counter.builder("rag.questions.tracked")
+                .description("Number of user questions tracked for FAQ analytics")
+                .register(registry);
+
+        this.questionDroppedCounter = Counter.builder("rag.questions.dropped")
+                .description("Number of user questions dropped because the tracking queue was full")
+                .register(registry);
+
+        this.questionBatchTimer = Timer.builder("rag.questions.batch.duration")
+                .description("Time to track one batch of user questions")
+                .register(registry);
+
         // Gauges for last operation times (for real-time monitoring)
         Gauge.builder("rag.last.embedding.time.ms", this, RagMetrics::getLastEmbeddingTimeMs)
                 .description("Last embedding generation time in milliseconds")
@@ -182,6 +233,26 @@ public class RagMetrics {
         cacheMissCounter.increment();
     }
 
+    public void recordCacheSemanticHit() {
+        cacheSemanticHitCounter.increment();
+    }
+
+    public void recordCacheInvalidation() {
+        cacheInvalidationCounter.increment();
+    }
+
+    public void recordEmbeddingCacheHit() {
+        embeddingCacheHitCounter.increment();
+    }
+
+    public void recordEmbeddingCacheMiss() {
+        embeddingCacheMissCounter.increment();
+    }
+
+    public void recordEmbeddingCacheCoalesced() {
+        embeddingCacheCoalescedCounter.increment();
+    }
+
     public void recordDocumentIngested(int chunkCount) {
         documentIngestCounter.increment();
         chunkCreatedCounter.increment(chunkCount);
@@ -191,6 +262,45 @@ public class RagMetrics {
         documentIngestTimer.record(durationMs, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Work done by one ingest pipeline stage for one document
+     */
+    public void recordIngestStage(String stage, long items, long busyMs, long blockedMs) {
+        Counter.builder("rag.ingest.stage.items")
+                .description("Items processed by an ingest pipeline stage")
+                .tags("stage", stage)
+                .register(registry)
+                .increment(items);
+        Timer.builder("rag.ingest.stage.busy")
+                .description("Time an ingest pipeline stage spent working, summed over workers")
+                .tags("stage", stage)
+                .register(registry)
+                .record(busyMs, TimeUnit.MILLISECONDS);
+        Timer.builder("rag.ingest.stage.blocked")
+                .description("Time an ingest pipeline stage waited for room in the next queue")
+                .tags("stage", stage)
+                .register(registry)
+                .record(blockedMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Expose the depth of the question tracking queue
+     */
+    public void registerQuestionQueue(Collection<?> queue) {
+        Gauge.builder("rag.questions.queue.depth", queue, Collection::size)
+                .description("User questions waiting to be tracked")
+                .register(registry);
+    }
+
+    public void recordQuestionBatch(int questions, long durationMs) {
+        questionTrackedCounter.increment(questions);
+        questionBatchTimer.record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordQuestionDropped() {
+        questionDroppedCounter.increment();
+    }
+
     // CRAG metrics recording
     public void recordCragQuery(long durationMs, String category, int retries, boolean usedExpansion) {
         cragQueryTimer.record(durationMs, TimeUnit.MILLISECONDS);
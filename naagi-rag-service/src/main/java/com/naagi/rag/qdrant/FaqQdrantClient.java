@@ -2,6 +2,7 @@ package com.naagi.rag.qdrant;
 
 import com.naagi.rag.http.Http;
 import com.naagi.rag.json.Json;
+import com.naagi.rag.vector.FaqStore;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -21,7 +22,7 @@ import java.util.Map;
  * Qdrant client for FAQ collection.
  * Stores FAQ questions as embeddings for semantic search.
  */
-public final class FaqQdrantClient {
+public final class FaqQdrantClient implements FaqStore {
     private static final Logger log = LoggerFactory.getLogger(FaqQdrantClient.class);
 
     private final String baseUrl;
@@ -38,7 +39,7 @@ public final class FaqQdrantClient {
 
     public record FaqPoint(
             String id,
-            List<Double> vector,
+            float[] vector,
             String faqId,
             String question,
             String answer,
@@ -63,6 +64,7 @@ public final class FaqQdrantClient {
             double score
     ) {}
 
+    @Override
     public void ensureCollectionExists() {
         if (ensured) return;
         synchronized (this) {
@@ -114,31 +116,25 @@ public final class FaqQdrantClient {
         }
     }
 
-    /**
-     * Upsert a single FAQ point
-     */
-    public void upsertFaq(FaqPoint point) {
-        upsertFaqs(List.of(point));
-    }
-
     /**
      * Upsert multiple FAQ points
      */
+    @Override
     public void upsertFaqs(List<FaqPoint> points) {
         ensureCollectionExists();
 
         try {
             ArrayNode arr = Json.MAPPER.createArrayNode();
             for (FaqPoint p : points) {
-                if (p.vector() == null || p.vector().size() != vectorSize) {
+                if (p.vector() == null || p.vector().length != vectorSize) {
                     throw new IllegalArgumentException("Vector dimension mismatch for faqId=" + p.faqId()
                             + " expected=" + vectorSize
-                            + " got=" + (p.vector() == null ? "null" : p.vector().size()));
+                            + " got=" + (p.vector() == null ? "null" : p.vector().length));
                 }
 
                 ObjectNode obj = Json.MAPPER.createObjectNode();
                 obj.put("id", p.id());
-                obj.set("vector", toArray(p.vector()));
+                obj.putPOJO("vector", p.vector());
 
                 ObjectNode payload = Json.MAPPER.createObjectNode();
                 payload.put("faqId", p.faqId());
@@ -181,29 +177,12 @@ public final class FaqQdrantClient {
     /**
      * Search FAQs by question embedding
      */
-    public List<FaqSearchResult> searchFaqs(List<Double> queryVector, int topK, String categoryFilter, double minScore) {
+    @Override
+    public List<FaqSearchResult> searchFaqs(float[] queryVector, int topK, String categoryFilter, double minScore) {
         ensureCollectionExists();
 
         try {
-            ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("vector", toArray(queryVector));
-            body.put("limit", topK);
-            body.put("with_payload", true);
-            body.put("score_threshold", minScore);
-
-            if (categoryFilter != null && !categoryFilter.isBlank()) {
-                ObjectNode matchVal = Json.MAPPER.createObjectNode();
-                matchVal.put("value", categoryFilter);
-
-                ObjectNode keyFilter = Json.MAPPER.createObjectNode();
-                keyFilter.put("key", "categoryId");
-                keyFilter.set("match", matchVal);
-
-                ObjectNode filter = Json.MAPPER.createObjectNode();
-                filter.set("must", Json.MAPPER.createArrayNode().add(keyFilter));
-
-                body.set("filter", filter);
-            }
+            ObjectNode body = searchBody(queryVector, topK, minScore, categoryFilter);
 
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/collections/" + collection + "/points/search"))
@@ -224,15 +203,77 @@ public final class FaqQdrantClient {
     }
 
     /**
-     * Delete a FAQ point by ID
+     * Search FAQs for several queries in one request
+     * @param queryVectors embeddings of the questions
+     * @param categoryFilters category filter per query (null entries for no filter)
+     * @return matching FAQs per query, in query order
      */
-    public void deleteFaq(String pointId) {
-        deleteFaqs(List.of(pointId));
+    @Override
+    public List<List<FaqSearchResult>> searchFaqsBatch(
+            List<float[]> queryVectors, List<String> categoryFilters, int topK, double minScore) {
+        if (queryVectors.isEmpty()) {
+            return List.of();
+        }
+        ensureCollectionExists();
+
+        try {
+            ArrayNode searches = Json.MAPPER.createArrayNode();
+            for (int i = 0; i < queryVectors.size(); i++) {
+                searches.add(searchBody(queryVectors.get(i), topK, minScore, categoryFilters.get(i)));
+            }
+            ObjectNode body = Json.MAPPER.createObjectNode();
+            body.set("searches", searches);
+
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/search/batch"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .build();
+
+            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
+            if (resp.statusCode() / 100 != 2) {
+                throw new RuntimeException("Qdrant FAQ batch search HTTP " + resp.statusCode() + ": " + resp.body());
+            }
+
+            JsonNode result = Json.MAPPER.readTree(resp.body()).get("result");
+            List<List<FaqSearchResult>> out = new ArrayList<>(queryVectors.size());
+            for (int i = 0; i < queryVectors.size(); i++) {
+                out.add(result != null && result.has(i) ? parseFaqHits(result.get(i)) : List.of());
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("Qdrant FAQ batch search failed", e);
+        }
+    }
+
+    private static ObjectNode searchBody(float[] queryVector, int topK, double minScore, String categoryFilter) {
+        ObjectNode body = Json.MAPPER.createObjectNode();
+        body.putPOJO("vector", queryVector);
+        body.put("limit", topK);
+        body.put("with_payload", true);
+        body.put("score_threshold", minScore);
+
+        if (categoryFilter != null && !categoryFilter.isBlank()) {
+            ObjectNode matchVal = Json.MAPPER.createObjectNode();
+            matchVal.put("value", categoryFilter);
+
+            ObjectNode keyFilter = Json.MAPPER.createObjectNode();
+            keyFilter.put("key", "categoryId");
+            keyFilter.set("match", matchVal);
+
+            ObjectNode filter = Json.MAPPER.createObjectNode();
+            filter.set("must", Json.MAPPER.createArrayNode().add(keyFilter));
+
+            body.set("filter", filter);
+        }
+        return body;
     }
 
     /**
      * Delete multiple FAQ points by IDs
      */
+    @Override
     public void deleteFaqs(List<String> pointIds) {
         ensureCollectionExists();
 
@@ -264,6 +305,7 @@ public final class FaqQdrantClient {
      * Delete FAQ points by faqId (from payload).
      * This is a fallback for FAQs that don't have qdrantPointId stored.
      */
+    @Override
     public void deleteFaqsByFaqId(String faqId) {
         ensureCollectionExists();
 
@@ -303,6 +345,7 @@ public final class FaqQdrantClient {
     /**
      * Get collection statistics
      */
+    @Override
     public Map<String, Object> getCollectionStats() {
         ensureCollectionExists();
 
@@ -340,43 +383,41 @@ public final class FaqQdrantClient {
         }
     }
 
-    private static ArrayNode toArray(List<Double> v) {
-        ArrayNode a = Json.MAPPER.createArrayNode();
-        for (Double d : v) a.add(d);
-        return a;
-    }
 
     private static List<FaqSearchResult> parseFaqResults(String json) {
         try {
             JsonNode root = Json.MAPPER.readTree(json);
-            JsonNode result = root.get("result");
-            if (result == null || !result.isArray()) return List.of();
-
-            List<FaqSearchResult> out = new ArrayList<>();
-            for (JsonNode hit : result) {
-                JsonNode payload = hit.get("payload");
-                if (payload == null) continue;
-
-                JsonNode scoreNode = hit.get("score");
-                double score = scoreNode != null ? scoreNode.asDouble() : 0.0;
-
-                out.add(new FaqSearchResult(
-                        getTextOrNull(payload, "faqId"),
-                        getTextOrNull(payload, "question"),
-                        getTextOrNull(payload, "answer"),
-                        getTextOrNull(payload, "categoryId"),
-                        getTextOrNull(payload, "categoryName"),
-                        getTextOrNull(payload, "docId"),
-                        getTextOrNull(payload, "docTitle"),
-                        score
-                ));
-            }
-            return out;
+            return parseFaqHits(root.get("result"));
         } catch (Exception e) {
             throw new RuntimeException("Bad Qdrant FAQ search JSON", e);
         }
     }
 
+    private static List<FaqSearchResult> parseFaqHits(JsonNode result) {
+        if (result == null || !result.isArray()) return List.of();
+
+        List<FaqSearchResult> out = new ArrayList<>();
+        for (JsonNode hit : result) {
+            JsonNode payload = hit.get("payload");
+            if (payload == null) continue;
+
+            JsonNode scoreNode = hit.get("score");
+            double score = scoreNode != null ? scoreNode.asDouble() : 0.0;
+
+            out.add(new FaqSearchResult(
+                    getTextOrNull(payload, "faqId"),
+                    getTextOrNull(payload, "question"),
+                    getTextOrNull(payload, "answer"),
+                    getTextOrNull(payload, "categoryId"),
+                    getTextOrNull(payload, "categoryName"),
+                    getTextOrNull(payload, "docId"),
+                    getTextOrNull(payload, "docTitle"),
+                    score
+            ));
+        }
+        return out;
+    }
+
     private static String getTextOrNull(JsonNode node, String field) {
         JsonNode f = node.get(field);
         return f != null && f.isTextual() ? f.asText() : null;
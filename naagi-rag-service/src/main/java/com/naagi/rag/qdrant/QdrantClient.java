@@ -2,21 +2,24 @@ package com.naagi.rag.qdrant;
 
 import com.naagi.rag.http.Http;
 import com.naagi.rag.json.Json;
+import com.naagi.rag.vector.VectorStore;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
-public final class QdrantClient {
+public final class QdrantClient implements VectorStore {
     private static final Logger log = LoggerFactory.getLogger(QdrantClient.class);
 
     private final String baseUrl;
@@ -33,7 +36,7 @@ public final class QdrantClient {
         this.distance = (distance == null || distance.isBlank()) ? "Cosine" : distance;
     }
 
-    public record Point(String id, List<Double> vector, Map<String, Object> payload) {}
+    public record Point(String id, float[] vector, Map<String, Object> payload) {}
 
     public record SearchResultWithScore(
             String docId,
@@ -43,6 +46,22 @@ public final class QdrantClient {
             double score
     ) {}
 
+    /**
+     * Chunk payload as stored in the collection, without its vector
+     */
+    public record StoredChunk(
+            String docId,
+            int chunkIndex,
+            String text,
+            List<String> categories
+    ) {}
+
+    /**
+     * One page of a scroll; a null nextOffset means there are no more pages
+     */
+    public record ScrollPage(List<StoredChunk> chunks, JsonNode nextOffset) {}
+
+    @Override
     public void ensureCollectionExists() {
         if (ensured) return;
         synchronized (this) {
@@ -91,33 +110,25 @@ public final class QdrantClient {
         }
     }
 
+    @Override
     public void upsertBatch(List<Point> points) {
         ensureCollectionExists();
 
         try {
-            ArrayNode arr = Json.MAPPER.createArrayNode();
             for (Point p : points) {
-                if (p.vector() == null || p.vector().size() != vectorSize) {
+                if (p.vector() == null || p.vector().length != vectorSize) {
                     throw new IllegalArgumentException("Vector dimension mismatch for id=" + p.id()
                             + " expected=" + vectorSize
-                            + " got=" + (p.vector() == null ? "null" : p.vector().size()));
+                            + " got=" + (p.vector() == null ? "null" : p.vector().length));
                 }
-
-                ObjectNode obj = Json.MAPPER.createObjectNode();
-                obj.put("id", p.id());
-                obj.set("vector", toArray(p.vector()));
-                obj.set("payload", Json.MAPPER.valueToTree(p.payload()));
-                arr.add(obj);
             }
-
-            ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("points", arr);
+            QdrantCodec.Body body = QdrantCodec.writePoints(points);
 
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/collections/" + collection + "/points?wait=true"))
                     .timeout(Duration.ofSeconds(60))
                     .header("Content-Type", "application/json")
-                    .PUT(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .PUT(body.publisher())
                     .build();
 
             HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
@@ -129,102 +140,75 @@ public final class QdrantClient {
         }
     }
 
-    public List<String> searchPayloadTexts(List<Double> queryVector, int topK) {
+    public List<String> searchPayloadTexts(float[] queryVector, int topK) {
         return searchPayloadTexts(queryVector, topK, null);
     }
 
-    public List<String> searchPayloadTexts(List<Double> queryVector, int topK, String categoryFilter) {
+    @Override
+    public List<String> searchPayloadTexts(float[] queryVector, int topK, String categoryFilter) {
         ensureCollectionExists();
 
         try {
-            ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("vector", toArray(queryVector));
-            body.put("limit", topK);
-            body.put("with_payload", true);
-
-            if (categoryFilter != null && !categoryFilter.isBlank()) {
-                ObjectNode matchAny = Json.MAPPER.createObjectNode();
-                matchAny.set("any", Json.MAPPER.createArrayNode().add(categoryFilter));
-
-                ObjectNode keyFilter = Json.MAPPER.createObjectNode();
-                keyFilter.put("key", "categories");
-                keyFilter.set("match", matchAny);
-
-                ObjectNode filter = Json.MAPPER.createObjectNode();
-                filter.set("must", Json.MAPPER.createArrayNode().add(keyFilter));
-
-                body.set("filter", filter);
-            }
+            QdrantCodec.Body body = QdrantCodec.writeSearch(queryVector, topK, categoryFilter, List.of("text"));
 
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/collections/" + collection + "/points/search"))
                     .timeout(Duration.ofSeconds(30))
                     .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .POST(body.publisher())
                     .build();
 
-            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<byte[]> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofByteArray());
             if (resp.statusCode() / 100 != 2) {
-                throw new RuntimeException("Qdrant search HTTP " + resp.statusCode() + ": " + resp.body());
+                throw new RuntimeException("Qdrant search HTTP " + resp.statusCode() + ": " + text(resp));
             }
-            return parseTexts(resp.body());
+            return QdrantCodec.readSearchTexts(resp.body());
         } catch (Exception e) {
             throw new RuntimeException("Qdrant search failed", e);
         }
     }
 
-    public List<SearchResultWithScore> searchWithScores(List<Double> queryVector, int topK) {
+    public List<SearchResultWithScore> searchWithScores(float[] queryVector, int topK) {
         return searchWithScores(queryVector, topK, null);
     }
 
-    public List<SearchResultWithScore> searchWithScores(List<Double> queryVector, int topK, String categoryFilter) {
+    @Override
+    public List<SearchResultWithScore> searchWithScores(float[] queryVector, int topK, String categoryFilter) {
         long startTime = System.currentTimeMillis();
+        long startAlloc = log.isDebugEnabled() ? allocatedBytes() : 0;
         ensureCollectionExists();
 
         try {
             long buildStart = System.currentTimeMillis();
-            ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("vector", toArray(queryVector));
-            body.put("limit", topK);
-            body.put("with_payload", true);
-
-            if (categoryFilter != null && !categoryFilter.isBlank()) {
-                ObjectNode matchAny = Json.MAPPER.createObjectNode();
-                matchAny.set("any", Json.MAPPER.createArrayNode().add(categoryFilter));
-
-                ObjectNode keyFilter = Json.MAPPER.createObjectNode();
-                keyFilter.put("key", "categories");
-                keyFilter.set("match", matchAny);
-
-                ObjectNode filter = Json.MAPPER.createObjectNode();
-                filter.set("must", Json.MAPPER.createArrayNode().add(keyFilter));
-
-                body.set("filter", filter);
-            }
+            QdrantCodec.Body body = QdrantCodec.writeSearch(queryVector, topK, categoryFilter,
+                    QdrantCodec.SEARCH_PAYLOAD_FIELDS);
 
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/collections/" + collection + "/points/search"))
                     .timeout(Duration.ofSeconds(30))
                     .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .POST(body.publisher())
                     .build();
             long buildTime = System.currentTimeMillis() - buildStart;
 
             long httpStart = System.currentTimeMillis();
-            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<byte[]> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofByteArray());
             long httpTime = System.currentTimeMillis() - httpStart;
 
             if (resp.statusCode() / 100 != 2) {
-                throw new RuntimeException("Qdrant search HTTP " + resp.statusCode() + ": " + resp.body());
+                throw new RuntimeException("Qdrant search HTTP " + resp.statusCode() + ": " + text(resp));
             }
 
             long parseStart = System.currentTimeMillis();
-            List<SearchResultWithScore> results = parseResultsWithScores(resp.body());
+            List<SearchResultWithScore> results = QdrantCodec.readSearchHits(resp.body());
             long parseTime = System.currentTimeMillis() - parseStart;
 
-            long totalTime = System.currentTimeMillis() - startTime;
-            log.debug("[QDRANT TIMING] total={}ms (build={}ms, http={}ms, parse={}ms) topK={} filter={}",
-                    totalTime, buildTime, httpTime, parseTime, topK, categoryFilter);
+            if (log.isDebugEnabled()) {
+                long totalTime = System.currentTimeMillis() - startTime;
+                log.debug("[QDRANT TIMING] total={}ms (build={}ms, http={}ms, parse={}ms) alloc={}KB responseBytes={} topK={} filter={}",
+                        totalTime, buildTime, httpTime, parseTime, (allocatedBytes() - startAlloc) / 1024,
+                        resp.body().length, topK, categoryFilter);
+            }
 
             return results;
         } catch (Exception e) {
@@ -232,61 +216,215 @@ public final class QdrantClient {
         }
     }
 
-    private static ArrayNode toArray(List<Double> v) {
-        ArrayNode a = Json.MAPPER.createArrayNode();
-        for (Double d : v) a.add(d);
-        return a;
+    /**
+     * Run several searches in one request (Qdrant's search batch API).
+     *
+     * @return hits per query vector, in the order of {@code queryVectors}
+     */
+    @Override
+    public List<List<SearchResultWithScore>> searchBatchWithScores(List<float[]> queryVectors, int topK,
+                                                                   String categoryFilter) {
+        if (queryVectors.isEmpty()) {
+            return List.of();
+        }
+        long startTime = System.currentTimeMillis();
+        ensureCollectionExists();
+
+        try {
+            QdrantCodec.Body body = QdrantCodec.writeSearchBatch(queryVectors, topK, categoryFilter,
+                    QdrantCodec.SEARCH_PAYLOAD_FIELDS);
+
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/search/batch"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(body.publisher())
+                    .build();
+
+            HttpResponse<byte[]> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofByteArray());
+            if (resp.statusCode() / 100 != 2) {
+                throw new RuntimeException("Qdrant batch search HTTP " + resp.statusCode() + ": " + text(resp));
+            }
+
+            List<List<SearchResultWithScore>> results = QdrantCodec.readSearchBatchHits(resp.body());
+            if (results.size() != queryVectors.size()) {
+                throw new IllegalStateException("Qdrant batch search returned " + results.size()
+                        + " result lists for " + queryVectors.size() + " searches");
+            }
+            log.debug("[QDRANT TIMING] batch of {} searches in {}ms topK={} filter={}",
+                    queryVectors.size(), System.currentTimeMillis() - startTime, topK, categoryFilter);
+            return results;
+        } catch (Exception e) {
+            throw new RuntimeException("Qdrant batch search failed", e);
+        }
     }
 
-    private static List<String> parseTexts(String json) {
+    /**
+     * Exact number of points in the collection
+     */
+    @Override
+    public long countPoints() {
+        ensureCollectionExists();
+
         try {
-            JsonNode root = Json.MAPPER.readTree(json);
-            JsonNode result = root.get("result");
-            if (result == null || !result.isArray()) return List.of();
-
-            List<String> out = new ArrayList<>();
-            for (JsonNode hit : result) {
-                JsonNode payload = hit.get("payload");
-                if (payload == null) continue;
-                JsonNode text = payload.get("text");
-                if (text != null && text.isTextual()) out.add(text.asText());
+            ObjectNode body = Json.MAPPER.createObjectNode().put("exact", true);
+
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/count"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .build();
+
+            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
+            if (resp.statusCode() / 100 != 2) {
+                throw new RuntimeException("Qdrant count HTTP " + resp.statusCode() + ": " + resp.body());
             }
-            return out;
+            return Json.MAPPER.readTree(resp.body()).path("result").path("count").asLong();
         } catch (Exception e) {
-            throw new RuntimeException("Bad Qdrant search JSON", e);
+            throw new RuntimeException("Qdrant count failed", e);
         }
     }
 
-    private static List<SearchResultWithScore> parseResultsWithScores(String json) {
+    /**
+     * Page through all chunks in the collection without their vectors.
+     *
+     * @param offset nextOffset of the previous page, or null to start from the beginning
+     * @param limit  maximum chunks per page
+     */
+    @Override
+    public ScrollPage scrollChunks(JsonNode offset, int limit) {
+        ensureCollectionExists();
+
         try {
-            JsonNode root = Json.MAPPER.readTree(json);
-            JsonNode result = root.get("result");
-            if (result == null || !result.isArray()) return List.of();
-
-            List<SearchResultWithScore> out = new ArrayList<>();
-            for (JsonNode hit : result) {
-                JsonNode payload = hit.get("payload");
-                if (payload == null) continue;
-
-                JsonNode docIdNode = payload.get("docId");
-                JsonNode chunkIndexNode = payload.get("chunkIndex");
-                JsonNode textNode = payload.get("text");
-                JsonNode titleNode = payload.get("title");
-                JsonNode scoreNode = hit.get("score");
-
-                if (docIdNode != null && chunkIndexNode != null && textNode != null && scoreNode != null) {
-                    out.add(new SearchResultWithScore(
-                            docIdNode.asText(),
-                            chunkIndexNode.asInt(),
-                            textNode.asText(),
-                            titleNode != null ? titleNode.asText() : null,
-                            scoreNode.asDouble()
-                    ));
+            QdrantCodec.Body body = QdrantCodec.writeScroll(offset, limit);
+
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/scroll"))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(body.publisher())
+                    .build();
+
+            HttpResponse<byte[]> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofByteArray());
+            if (resp.statusCode() / 100 != 2) {
+                throw new RuntimeException("Qdrant scroll HTTP " + resp.statusCode() + ": " + text(resp));
+            }
+            return QdrantCodec.readScrollPage(resp.body());
+        } catch (Exception e) {
+            throw new RuntimeException("Qdrant scroll failed", e);
+        }
+    }
+
+    @Override
+    public List<StoredChunk> chunksByDocId(String docId) {
+        ensureCollectionExists();
+
+        try {
+            List<StoredChunk> chunks = new ArrayList<>();
+            JsonNode offset = null;
+            do {
+                QdrantCodec.Body body = QdrantCodec.writeScroll(offset, 1000, docId);
+
+                HttpRequest req = HttpRequest.newBuilder()
+                        .uri(URI.create(baseUrl + "/collections/" + collection + "/points/scroll"))
+                        .timeout(Duration.ofSeconds(60))
+                        .header("Content-Type", "application/json")
+                        .POST(body.publisher())
+                        .build();
+
+                HttpResponse<byte[]> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofByteArray());
+                if (resp.statusCode() / 100 != 2) {
+                    throw new RuntimeException("Qdrant scroll HTTP " + resp.statusCode() + ": " + text(resp));
                 }
+                ScrollPage page = QdrantCodec.readScrollPage(resp.body());
+                chunks.addAll(page.chunks());
+                offset = page.nextOffset();
+            } while (offset != null);
+
+            chunks.sort(Comparator.comparingInt(StoredChunk::chunkIndex));
+            return chunks;
+        } catch (Exception e) {
+            throw new RuntimeException("Qdrant scroll of docId " + docId + " failed", e);
+        }
+    }
+
+    @Override
+    public void setPayloadByDocId(String docId, Map<String, Object> fields) {
+        ensureCollectionExists();
+
+        try {
+            ObjectNode body = Json.MAPPER.createObjectNode();
+            body.set("payload", Json.MAPPER.valueToTree(fields));
+            body.set("filter", docIdFilter(docId));
+
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/payload?wait=true"))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .build();
+
+            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
+            if (resp.statusCode() / 100 != 2) {
+                throw new RuntimeException("Qdrant set payload HTTP " + resp.statusCode() + ": " + resp.body());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Qdrant set payload failed", e);
+        }
+    }
+
+    @Override
+    public void deleteByDocId(String docId) {
+        delete(docIdFilter(docId));
+    }
+
+    private static ObjectNode docIdFilter(String docId) {
+        ObjectNode match = Json.MAPPER.createObjectNode().put("key", "docId");
+        match.putObject("match").put("value", docId);
+        ObjectNode filter = Json.MAPPER.createObjectNode();
+        filter.putArray("must").add(match);
+        return filter;
+    }
+
+    @Override
+    public void deleteAll() {
+        delete(Json.MAPPER.createObjectNode());
+    }
+
+    private void delete(ObjectNode filter) {
+        ensureCollectionExists();
+
+        try {
+            ObjectNode body = Json.MAPPER.createObjectNode();
+            body.set("filter", filter);
+
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/delete?wait=true"))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .build();
+
+            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
+            if (resp.statusCode() / 100 != 2) {
+                throw new RuntimeException("Qdrant delete HTTP " + resp.statusCode() + ": " + resp.body());
             }
-            return out;
         } catch (Exception e) {
-            throw new RuntimeException("Bad Qdrant search JSON (with scores)", e);
+            throw new RuntimeException("Qdrant delete failed", e);
         }
     }
+
+    private static String text(HttpResponse<byte[]> resp) {
+        return new String(resp.body(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, for the timing log
+     */
+    private static long allocatedBytes() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                ? threads.getCurrentThreadAllocatedBytes()
+                : 0;
+    }
 }
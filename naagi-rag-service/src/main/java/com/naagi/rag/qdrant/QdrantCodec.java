@@ -0,0 +1,387 @@
+package com.naagi.rag.qdrant;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.naagi.rag.json.Json;
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.QdrantClient.ScrollPage;
+import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import com.naagi.rag.qdrant.QdrantClient.StoredChunk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streaming JSON codec for Qdrant point requests and responses.
+ *
+ * Request bodies are written with a {@link JsonGenerator} into a byte buffer
+ * that backs the request body publisher, without an ObjectNode tree or an
+ * intermediate String. Responses are read from the raw bytes with a
+ * {@link JsonParser}, token by token, straight into result records; payload
+ * fields the records do not need are skipped without being materialized.
+ */
+public final class QdrantCodec {
+
+    /**
+     * Payload fields a chunk search needs; everything else stays on the server
+     */
+    static final List<String> SEARCH_PAYLOAD_FIELDS = List.of("docId", "chunkIndex", "text", "title");
+
+    static final List<String> SCROLL_PAYLOAD_FIELDS = List.of("docId", "chunkIndex", "text", "categories");
+
+    /**
+     * Request body buffer, published without copying
+     */
+    public static final class Body extends ByteArrayOutputStream {
+        Body(int size) {
+            super(size);
+        }
+
+        public HttpRequest.BodyPublisher publisher() {
+            return HttpRequest.BodyPublishers.ofByteArray(buf, 0, count);
+        }
+    }
+
+    private QdrantCodec() {}
+
+    // ========== Requests ==========
+
+    /**
+     * {@code {"points":[{"id":..,"vector":[..],"payload":{..}}, ..]}}
+     */
+    public static Body writePoints(List<Point> points) throws IOException {
+        int vectorSize = points.isEmpty() || points.get(0).vector() == null ? 0 : points.get(0).vector().length;
+        Body body = new Body(Math.max(256, points.size() * (vectorSize * 12 + 2048)));
+        try (JsonGenerator gen = Json.MAPPER.createGenerator(body)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("points");
+            for (Point point : points) {
+                gen.writeStartObject();
+                gen.writeStringField("id", point.id());
+                gen.writeFieldName("vector");
+                writeVector(gen, point.vector());
+                gen.writeFieldName("payload");
+                gen.writeObject(point.payload());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        return body;
+    }
+
+    /**
+     * Search request returning only {@code payloadFields} of each hit,
+     * optionally restricted to chunks in a category
+     */
+    static Body writeSearch(float[] vector, int limit, String categoryFilter, List<String> payloadFields) throws IOException {
+        Body body = new Body(vector.length * 12 + 256);
+        try (JsonGenerator gen = Json.MAPPER.createGenerator(body)) {
+            writeSearchFields(gen, vector, limit, categoryFilter, payloadFields);
+        }
+        return body;
+    }
+
+    private static void writeSearchFields(JsonGenerator gen, float[] vector, int limit, String categoryFilter,
+                                          List<String> payloadFields) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("vector");
+        writeVector(gen, vector);
+        gen.writeNumberField("limit", limit);
+        writeStringArray(gen, "with_payload", payloadFields);
+
+        if (categoryFilter != null && !categoryFilter.isBlank()) {
+            gen.writeObjectFieldStart("filter");
+            gen.writeArrayFieldStart("must");
+            gen.writeStartObject();
+            gen.writeStringField("key", "categories");
+            gen.writeObjectFieldStart("match");
+            writeStringArray(gen, "any", List.of(categoryFilter));
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * {@code {"searches":[..]}} with one search per vector, all with the same limit, payload fields and filter
+     */
+    static Body writeSearchBatch(List<float[]> vectors, int limit, String categoryFilter, List<String> payloadFields)
+            throws IOException {
+        int vectorSize = vectors.isEmpty() ? 0 : vectors.get(0).length;
+        Body body = new Body(vectors.size() * (vectorSize * 12 + 256) + 32);
+        try (JsonGenerator gen = Json.MAPPER.createGenerator(body)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("searches");
+            for (float[] vector : vectors) {
+                writeSearchFields(gen, vector, limit, categoryFilter, payloadFields);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        return body;
+    }
+
+    static Body writeScroll(JsonNode offset, int limit) throws IOException {
+        return writeScroll(offset, limit, null);
+    }
+
+    /**
+     * A scroll request, limited to the chunks of {@code docId} if it is not null
+     */
+    static Body writeScroll(JsonNode offset, int limit, String docId) throws IOException {
+        Body body = new Body(256);
+        try (JsonGenerator gen = Json.MAPPER.createGenerator(body)) {
+            gen.writeStartObject();
+            gen.writeNumberField("limit", limit);
+            writeStringArray(gen, "with_payload", SCROLL_PAYLOAD_FIELDS);
+            gen.writeBooleanField("with_vector", false);
+            if (offset != null && !offset.isNull()) {
+                gen.writeFieldName("offset");
+                gen.writeTree(offset);
+            }
+            if (docId != null) {
+                gen.writeObjectFieldStart("filter");
+                gen.writeArrayFieldStart("must");
+                gen.writeStartObject();
+                gen.writeStringField("key", "docId");
+                gen.writeObjectFieldStart("match");
+                gen.writeStringField("value", docId);
+                gen.writeEndObject();
+                gen.writeEndObject();
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+        return body;
+    }
+
+    private static void writeVector(JsonGenerator gen, float[] vector) throws IOException {
+        if (vector == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartArray(vector, vector.length);
+        for (float v : vector) {
+            gen.writeNumber(v);
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeStringArray(JsonGenerator gen, String field, List<String> values) throws IOException {
+        gen.writeArrayFieldStart(field);
+        for (String value : values) {
+            gen.writeString(value);
+        }
+        gen.writeEndArray();
+    }
+
+    // ========== Responses ==========
+
+    /**
+     * Fields of one search hit or scrolled point that the callers use
+     */
+    private static final class PointFields {
+        String docId;
+        Integer chunkIndex;
+        String text;
+        String title;
+        Double score;
+        List<String> categories;
+    }
+
+    /**
+     * Search hits that carry docId, chunkIndex, text and a score
+     */
+    static List<SearchResultWithScore> readSearchHits(byte[] json) throws IOException {
+        List<SearchResultWithScore> out = new ArrayList<>();
+        readSearch(json, hit -> addSearchHit(out, hit));
+        return out;
+    }
+
+    /**
+     * Payload texts of search hits
+     */
+    static List<String> readSearchTexts(byte[] json) throws IOException {
+        List<String> out = new ArrayList<>();
+        readSearch(json, hit -> {
+            if (hit.text != null) {
+                out.add(hit.text);
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Hits of a batch search, one list per search in request order
+     */
+    static List<List<SearchResultWithScore>> readSearchBatchHits(byte[] json) throws IOException {
+        List<List<SearchResultWithScore>> out = new ArrayList<>();
+        try (JsonParser parser = Json.MAPPER.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return out;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("result".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_ARRAY) {
+                        List<SearchResultWithScore> hits = new ArrayList<>();
+                        readHits(parser, hit -> addSearchHit(hits, hit));
+                        out.add(hits);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void addSearchHit(List<SearchResultWithScore> out, PointFields hit) {
+        if (hit.docId != null && hit.chunkIndex != null && hit.text != null && hit.score != null) {
+            out.add(new SearchResultWithScore(hit.docId, hit.chunkIndex, hit.text, hit.title, hit.score));
+        }
+    }
+
+    /**
+     * Read the hits of one result array; the parser is on its START_ARRAY
+     */
+    private static void readHits(JsonParser parser, Consumer<PointFields> sink) throws IOException {
+        for (JsonToken token; (token = parser.nextToken()) != JsonToken.END_ARRAY; ) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            PointFields hit = readPoint(parser);
+            if (hit != null) {
+                sink.accept(hit);
+            }
+        }
+    }
+
+    private static void readSearch(byte[] json, Consumer<PointFields> sink) throws IOException {
+        try (JsonParser parser = Json.MAPPER.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("result".equals(field) && value == JsonToken.START_ARRAY) {
+                    readHits(parser, sink);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * A scroll page of chunks that carry docId and text
+     */
+    static ScrollPage readScrollPage(byte[] json) throws IOException {
+        List<StoredChunk> chunks = new ArrayList<>();
+        JsonNode next = null;
+        try (JsonParser parser = Json.MAPPER.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new ScrollPage(chunks, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"result".equals(field) || value != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String resultField = parser.currentName();
+                    JsonToken resultValue = parser.nextToken();
+                    if ("points".equals(resultField) && resultValue == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            PointFields point = readPoint(parser);
+                            if (point != null && point.docId != null && point.text != null) {
+                                chunks.add(new StoredChunk(point.docId,
+                                        point.chunkIndex != null ? point.chunkIndex : 0,
+                                        point.text,
+                                        point.categories != null ? point.categories : new ArrayList<>()));
+                            }
+                        }
+                    } else if ("next_page_offset".equals(resultField) && resultValue != JsonToken.VALUE_NULL) {
+                        next = parser.readValueAsTree();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return new ScrollPage(chunks, next);
+    }
+
+    /**
+     * Read one point object; the parser is on its START_OBJECT.
+     *
+     * @return its fields, or null if it has no payload
+     */
+    private static PointFields readPoint(JsonParser parser) throws IOException {
+        PointFields point = null;
+        Double score = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("score".equals(field) && value.isNumeric()) {
+                score = parser.getDoubleValue();
+            } else if ("payload".equals(field) && value == JsonToken.START_OBJECT) {
+                point = readPayload(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (point != null) {
+            point.score = score;
+        }
+        return point;
+    }
+
+    private static PointFields readPayload(JsonParser parser) throws IOException {
+        PointFields point = new PointFields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "docId" -> point.docId = parser.getValueAsString();
+                case "chunkIndex" -> point.chunkIndex = value == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                case "text" -> point.text = parser.getValueAsString();
+                case "title" -> point.title = parser.getValueAsString();
+                case "categories" -> point.categories = readStrings(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+        return point;
+    }
+
+    private static List<String> readStrings(JsonParser parser, JsonToken value) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String s = parser.getValueAsString();
+            if (s != null) {
+                values.add(s);
+            }
+            parser.skipChildren();
+        }
+        return values;
+    }
+}
@@ -2,6 +2,7 @@ package com.naagi.rag.qdrant;
 
 import com.naagi.rag.http.Http;
 import com.naagi.rag.json.Json;
+import com.naagi.rag.vector.UserQuestionStore;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -21,7 +22,7 @@ import java.util.Map;
  * Qdrant client for User Questions collection.
  * Used for deduplication and finding similar questions.
  */
-public final class UserQuestionQdrantClient {
+public final class UserQuestionQdrantClient implements UserQuestionStore {
     private static final Logger log = LoggerFactory.getLogger(UserQuestionQdrantClient.class);
 
     private final String baseUrl;
@@ -38,7 +39,7 @@ public final class UserQuestionQdrantClient {
 
     public record QuestionPoint(
             String id,
-            List<Double> vector,
+            float[] vector,
             String questionId,
             String question,
             String categoryId,
@@ -59,6 +60,7 @@ public final class UserQuestionQdrantClient {
             double score
     ) {}
 
+    @Override
     public void ensureCollectionExists() {
         if (ensured) return;
         synchronized (this) {
@@ -110,31 +112,25 @@ public final class UserQuestionQdrantClient {
         }
     }
 
-    /**
-     * Upsert a question point
-     */
-    public void upsertQuestion(QuestionPoint point) {
-        upsertQuestions(List.of(point));
-    }
-
     /**
      * Upsert multiple question points
      */
+    @Override
     public void upsertQuestions(List<QuestionPoint> points) {
         ensureCollectionExists();
 
         try {
             ArrayNode arr = Json.MAPPER.createArrayNode();
             for (QuestionPoint p : points) {
-                if (p.vector() == null || p.vector().size() != vectorSize) {
+                if (p.vector() == null || p.vector().length != vectorSize) {
                     throw new IllegalArgumentException("Vector dimension mismatch for questionId=" + p.questionId()
                             + " expected=" + vectorSize
-                            + " got=" + (p.vector() == null ? "null" : p.vector().size()));
+                            + " got=" + (p.vector() == null ? "null" : p.vector().length));
                 }
 
                 ObjectNode obj = Json.MAPPER.createObjectNode();
                 obj.put("id", p.id());
-                obj.set("vector", toArray(p.vector()));
+                obj.putPOJO("vector", p.vector());
 
                 ObjectNode payload = Json.MAPPER.createObjectNode();
                 payload.put("questionId", p.questionId());
@@ -171,43 +167,15 @@ public final class UserQuestionQdrantClient {
         }
     }
 
-    /**
-     * Find similar questions (for deduplication)
-     * @param queryVector embedding of the question
-     * @param topK max results
-     * @param minScore minimum similarity score (e.g., 0.95 for deduplication)
-     * @return list of similar questions
-     */
-    public List<SimilarQuestionResult> findSimilarQuestions(List<Double> queryVector, int topK, double minScore) {
-        return findSimilarQuestions(queryVector, topK, minScore, null);
-    }
-
     /**
      * Find similar questions with optional category filter
      */
-    public List<SimilarQuestionResult> findSimilarQuestions(List<Double> queryVector, int topK, double minScore, String categoryFilter) {
+    @Override
+    public List<SimilarQuestionResult> findSimilarQuestions(float[] queryVector, int topK, double minScore, String categoryFilter) {
         ensureCollectionExists();
 
         try {
-            ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("vector", toArray(queryVector));
-            body.put("limit", topK);
-            body.put("with_payload", true);
-            body.put("score_threshold", minScore);
-
-            if (categoryFilter != null && !categoryFilter.isBlank()) {
-                ObjectNode matchVal = Json.MAPPER.createObjectNode();
-                matchVal.put("value", categoryFilter);
-
-                ObjectNode keyFilter = Json.MAPPER.createObjectNode();
-                keyFilter.put("key", "categoryId");
-                keyFilter.set("match", matchVal);
-
-                ObjectNode filter = Json.MAPPER.createObjectNode();
-                filter.set("must", Json.MAPPER.createArrayNode().add(keyFilter));
-
-                body.set("filter", filter);
-            }
+            ObjectNode body = searchBody(queryVector, topK, minScore, categoryFilter);
 
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/collections/" + collection + "/points/search"))
@@ -228,24 +196,96 @@ public final class UserQuestionQdrantClient {
     }
 
     /**
-     * Update frequency in Qdrant payload
+     * Find similar questions for several queries in one request
+     * @param queryVectors embeddings of the questions
+     * @param categoryFilters category filter per query (null entries for no filter)
+     * @return similar questions per query, in query order
      */
-    public void updateFrequency(String pointId, int newFrequency) {
+    @Override
+    public List<List<SimilarQuestionResult>> findSimilarQuestionsBatch(
+            List<float[]> queryVectors, List<String> categoryFilters, int topK, double minScore) {
+        if (queryVectors.isEmpty()) {
+            return List.of();
+        }
         ensureCollectionExists();
 
         try {
-            ObjectNode payload = Json.MAPPER.createObjectNode();
-            payload.put("frequency", newFrequency);
-
+            ArrayNode searches = Json.MAPPER.createArrayNode();
+            for (int i = 0; i < queryVectors.size(); i++) {
+                searches.add(searchBody(queryVectors.get(i), topK, minScore, categoryFilters.get(i)));
+            }
             ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("payload", payload);
+            body.set("searches", searches);
 
-            ObjectNode pointsSelector = Json.MAPPER.createObjectNode();
-            pointsSelector.set("points", Json.MAPPER.createArrayNode().add(pointId));
-            body.set("points", Json.MAPPER.createArrayNode().add(pointId));
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/search/batch"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .build();
+
+            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
+            if (resp.statusCode() / 100 != 2) {
+                throw new RuntimeException("Qdrant similar questions batch search HTTP " + resp.statusCode() + ": " + resp.body());
+            }
+
+            JsonNode result = Json.MAPPER.readTree(resp.body()).get("result");
+            List<List<SimilarQuestionResult>> out = new ArrayList<>(queryVectors.size());
+            for (int i = 0; i < queryVectors.size(); i++) {
+                out.add(result != null && result.has(i) ? parseHits(result.get(i)) : List.of());
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("Qdrant similar questions batch search failed", e);
+        }
+    }
+
+    private static ObjectNode searchBody(float[] queryVector, int topK, double minScore, String categoryFilter) {
+        ObjectNode body = Json.MAPPER.createObjectNode();
+        body.putPOJO("vector", queryVector);
+        body.put("limit", topK);
+        body.put("with_payload", true);
+        body.put("score_threshold", minScore);
+
+        if (categoryFilter != null && !categoryFilter.isBlank()) {
+            ObjectNode matchVal = Json.MAPPER.createObjectNode();
+            matchVal.put("value", categoryFilter);
+
+            ObjectNode keyFilter = Json.MAPPER.createObjectNode();
+            keyFilter.put("key", "categoryId");
+            keyFilter.set("match", matchVal);
+
+            ObjectNode filter = Json.MAPPER.createObjectNode();
+            filter.set("must", Json.MAPPER.createArrayNode().add(keyFilter));
+
+            body.set("filter", filter);
+        }
+        return body;
+    }
+
+    /**
+     * Update frequencies in Qdrant payloads, one set_payload operation per
+     * point in a single batch request
+     */
+    @Override
+    public void updateFrequencies(Map<String, Integer> frequencyByPointId) {
+        if (frequencyByPointId.isEmpty()) {
+            return;
+        }
+        ensureCollectionExists();
+
+        try {
+            ArrayNode operations = Json.MAPPER.createArrayNode();
+            frequencyByPointId.forEach((pointId, frequency) -> {
+                ObjectNode setPayload = operations.addObject().putObject("set_payload");
+                setPayload.putObject("payload").put("frequency", frequency);
+                setPayload.putArray("points").add(pointId);
+            });
+            ObjectNode body = Json.MAPPER.createObjectNode();
+            body.set("operations", operations);
 
             HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/payload?wait=true"))
+                    .uri(URI.create(baseUrl + "/collections/" + collection + "/points/batch?wait=true"))
                     .timeout(Duration.ofSeconds(30))
                     .header("Content-Type", "application/json")
                     .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
@@ -253,16 +293,17 @@ public final class UserQuestionQdrantClient {
 
             HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
             if (resp.statusCode() / 100 != 2) {
-                log.warn("Failed to update frequency in Qdrant: HTTP {}", resp.statusCode());
+                log.warn("Failed to update {} frequencies in Qdrant: HTTP {}", frequencyByPointId.size(), resp.statusCode());
             }
         } catch (Exception e) {
-            log.warn("Failed to update frequency in Qdrant", e);
+            log.warn("Failed to update frequencies in Qdrant", e);
         }
     }
 
     /**
      * Delete a question point
      */
+    @Override
     public void deleteQuestion(String pointId) {
         ensureCollectionExists();
 
@@ -289,6 +330,7 @@ public final class UserQuestionQdrantClient {
     /**
      * Get collection statistics
      */
+    @Override
     public Map<String, Object> getCollectionStats() {
         ensureCollectionExists();
 
@@ -324,42 +366,40 @@ public final class UserQuestionQdrantClient {
         }
     }
 
-    private static ArrayNode toArray(List<Double> v) {
-        ArrayNode a = Json.MAPPER.createArrayNode();
-        for (Double d : v) a.add(d);
-        return a;
-    }
 
     private static List<SimilarQuestionResult> parseResults(String json) {
         try {
             JsonNode root = Json.MAPPER.readTree(json);
-            JsonNode result = root.get("result");
-            if (result == null || !result.isArray()) return List.of();
-
-            List<SimilarQuestionResult> out = new ArrayList<>();
-            for (JsonNode hit : result) {
-                JsonNode payload = hit.get("payload");
-                if (payload == null) continue;
-
-                JsonNode scoreNode = hit.get("score");
-                double score = scoreNode != null ? scoreNode.asDouble() : 0.0;
-
-                out.add(new SimilarQuestionResult(
-                        getTextOrNull(payload, "questionId"),
-                        getTextOrNull(payload, "question"),
-                        getTextOrNull(payload, "categoryId"),
-                        getTextOrNull(payload, "categoryName"),
-                        payload.path("frequency").asInt(1),
-                        getTextOrNull(payload, "matchedFaqId"),
-                        score
-                ));
-            }
-            return out;
+            return parseHits(root.get("result"));
         } catch (Exception e) {
             throw new RuntimeException("Bad Qdrant search JSON", e);
         }
     }
 
+    private static List<SimilarQuestionResult> parseHits(JsonNode result) {
+        if (result == null || !result.isArray()) return List.of();
+
+        List<SimilarQuestionResult> out = new ArrayList<>();
+        for (JsonNode hit : result) {
+            JsonNode payload = hit.get("payload");
+            if (payload == null) continue;
+
+            JsonNode scoreNode = hit.get("score");
+            double score = scoreNode != null ? scoreNode.asDouble() : 0.0;
+
+            out.add(new SimilarQuestionResult(
+                    getTextOrNull(payload, "questionId"),
+                    getTextOrNull(payload, "question"),
+                    getTextOrNull(payload, "categoryId"),
+                    getTextOrNull(payload, "categoryName"),
+                    payload.path("frequency").asInt(1),
+                    getTextOrNull(payload, "matchedFaqId"),
+                    score
+            ));
+        }
+        return out;
+    }
+
     private static String getTextOrNull(JsonNode node, String field) {
         JsonNode f = node.get(field);
         return f != null && f.isTextual() ? f.asText() : null;
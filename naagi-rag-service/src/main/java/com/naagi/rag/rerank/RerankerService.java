@@ -6,7 +6,10 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
@@ -15,7 +18,9 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Re-ranking service to improve retrieval precision.
@@ -30,6 +35,12 @@ import java.util.stream.Collectors;
  * 1. Initial retrieval returns top-N candidates (e.g., 50)
  * 2. Cross-encoder scores each (query, document) pair
  * 3. Return top-K re-ranked results (e.g., 5)
+ *
+ * Scores are cached per (provider, model, query, chunk id, chunk text) in the
+ * rerankScores cache, so only candidates not scored for the query before are
+ * sent to the provider. The llm provider scores candidates concurrently, at
+ * most llm-concurrency requests in flight, and stops once the top K hold the
+ * maximum score.
  */
 @Service
 public class RerankerService {
@@ -47,6 +58,22 @@ public class RerankerService {
     private final String apiKey;
     private final int candidateCount;
     private final double minScore;
+    private final int llmConcurrency;
+    private final CacheManager cacheManager;
+    private final ExecutorService llmExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public static final String SCORE_CACHE_NAME = "rerankScores";
+
+    // LLM scores are 0-10 normalized to 0-1; nothing can outrank a document at the maximum
+    private static final double MAX_LLM_SCORE = 1.0;
+    private static final double DEFAULT_LLM_SCORE = 0.5;
+
+    /**
+     * Score cache key. Scores from different providers or models are not
+     * comparable; the text hash keeps a re-ingested chunk from reusing the
+     * score of its old content.
+     */
+    private record ScoreKey(String scorer, String query, String documentId, int textHash) {}
 
     public RerankerService(
             @Value("${naagi.rag.rerank.enabled:false}") boolean enabled,
@@ -55,7 +82,9 @@ public class RerankerService {
             @Value("${naagi.rag.rerank.model:bge-reranker-base}") String model,
             @Value("${naagi.rag.rerank.api-key:}") String apiKey,
             @Value("${naagi.rag.rerank.candidate-count:50}") int candidateCount,
-            @Value("${naagi.rag.rerank.min-score:0.0}") double minScore
+            @Value("${naagi.rag.rerank.min-score:0.0}") double minScore,
+            @Value("${naagi.rag.rerank.llm-concurrency:8}") int llmConcurrency,
+            CacheManager cacheManager
     ) {
         this.enabled = enabled;
         this.provider = provider;
@@ -64,11 +93,18 @@ public class RerankerService {
         this.apiKey = apiKey;
         this.candidateCount = candidateCount;
         this.minScore = minScore;
+        this.llmConcurrency = Math.max(1, llmConcurrency);
+        this.cacheManager = cacheManager;
 
         log.info("[RERANK] Initialized: enabled={}, provider={}, model={}, candidateCount={}",
                 enabled, provider, model, candidateCount);
     }
 
+    @PreDestroy
+    void shutdown() {
+        llmExecutor.shutdownNow();
+    }
+
     /**
      * Document with text and optional metadata
      */
@@ -113,16 +149,40 @@ public class RerankerService {
         long startTime = System.currentTimeMillis();
 
         try {
-            List<RerankResult> results = switch (provider.toLowerCase()) {
-                case "cohere" -> rerankWithCohere(query, documents, topK);
-                case "jina" -> rerankWithJina(query, documents, topK);
-                case "llm" -> rerankWithLLM(query, documents, topK);
-                default -> rerankWithLocal(query, documents, topK);
-            };
+            // NaN marks a document without a score
+            double[] scores = new double[documents.size()];
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < documents.size(); i++) {
+                Double cached = scoreCache().get(scoreKey(query, documents.get(i)), Double.class);
+                scores[i] = cached != null ? cached : Double.NaN;
+                if (cached == null) {
+                    missing.add(i);
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                if (provider.equalsIgnoreCase("llm")) {
+                    scoreWithLLM(query, documents, missing, scores, topK);
+                } else {
+                    List<Document> pending = missing.stream().map(documents::get).toList();
+                    Map<Integer, Double> fresh = switch (provider.toLowerCase()) {
+                        case "cohere" -> scoreWithCohere(query, pending);
+                        case "jina" -> scoreWithJina(query, pending);
+                        default -> scoreWithLocal(query, pending);
+                    };
+                    fresh.forEach((j, score) -> {
+                        int i = missing.get(j);
+                        scores[i] = score;
+                        scoreCache().put(scoreKey(query, documents.get(i)), score);
+                    });
+                }
+            }
+
+            List<RerankResult> results = toResults(documents, scores, topK);
 
             long elapsed = System.currentTimeMillis() - startTime;
-            log.info("[RERANK TIMING] {}ms for {} documents -> {} results (provider={})",
-                    elapsed, documents.size(), results.size(), provider);
+            log.info("[RERANK TIMING] {}ms for {} documents ({} cached) -> {} results (provider={})",
+                    elapsed, documents.size(), documents.size() - missing.size(), results.size(), provider);
 
             return results;
         } catch (Exception e) {
@@ -132,16 +192,18 @@ public class RerankerService {
     }
 
     /**
-     * Re-rank using local cross-encoder (OpenAI-compatible API)
+     * Score using local cross-encoder (OpenAI-compatible API)
      *
      * Expected endpoint: POST /v1/rerank or POST /rerank
      * Request format: { "query": "...", "documents": ["...", "..."], "model": "..." }
+     *
+     * @return score by index into {@code documents}
      */
-    private List<RerankResult> rerankWithLocal(String query, List<Document> documents, int topK) throws Exception {
+    private Map<Integer, Double> scoreWithLocal(String query, List<Document> documents) throws Exception {
         ObjectNode requestBody = mapper.createObjectNode();
         requestBody.put("query", query);
         requestBody.put("model", model);
-        requestBody.put("top_n", topK);
+        requestBody.put("top_n", documents.size());
 
         ArrayNode docsArray = mapper.createArrayNode();
         for (Document doc : documents) {
@@ -175,18 +237,18 @@ public class RerankerService {
             throw new RuntimeException("Local reranker request failed");
         }
 
-        return parseRerankResponse(response.body(), documents, topK);
+        return parseScores(response.body(), documents.size());
     }
 
     /**
-     * Re-rank using Cohere Rerank API
+     * Score using Cohere Rerank API
      * https://docs.cohere.com/reference/rerank
      */
-    private List<RerankResult> rerankWithCohere(String query, List<Document> documents, int topK) throws Exception {
+    private Map<Integer, Double> scoreWithCohere(String query, List<Document> documents) throws Exception {
         ObjectNode requestBody = mapper.createObjectNode();
         requestBody.put("query", query);
         requestBody.put("model", model.isBlank() ? "rerank-english-v3.0" : model);
-        requestBody.put("top_n", topK);
+        requestBody.put("top_n", documents.size());
         requestBody.put("return_documents", false);
 
         ArrayNode docsArray = mapper.createArrayNode();
@@ -209,18 +271,18 @@ public class RerankerService {
             throw new RuntimeException("Cohere rerank failed: " + response.statusCode() + " - " + response.body());
         }
 
-        return parseCohereResponse(response.body(), documents, topK);
+        return parseScores(response.body(), documents.size());
     }
 
     /**
-     * Re-rank using Jina Reranker API
+     * Score using Jina Reranker API
      * https://jina.ai/reranker/
      */
-    private List<RerankResult> rerankWithJina(String query, List<Document> documents, int topK) throws Exception {
+    private Map<Integer, Double> scoreWithJina(String query, List<Document> documents) throws Exception {
         ObjectNode requestBody = mapper.createObjectNode();
         requestBody.put("query", query);
         requestBody.put("model", model.isBlank() ? "jina-reranker-v2-base-multilingual" : model);
-        requestBody.put("top_n", topK);
+        requestBody.put("top_n", documents.size());
 
         ArrayNode docsArray = mapper.createArrayNode();
         for (Document doc : documents) {
@@ -242,54 +304,58 @@ public class RerankerService {
             throw new RuntimeException("Jina rerank failed: " + response.statusCode() + " - " + response.body());
         }
 
-        return parseJinaResponse(response.body(), documents, topK);
+        return parseScores(response.body(), documents.size());
     }
 
     /**
-     * Re-rank using LLM scoring (slower but flexible)
+     * Score using LLM (slower but flexible)
      *
      * Uses the LLM to score relevance of each document to the query.
-     * Best for small candidate sets or when no dedicated reranker is available.
+     * Candidates are scored in initial-rank order, llmConcurrency at a time,
+     * until the top K already hold the maximum score and no later candidate
+     * could displace them. Candidates left unscored are not returned.
      */
-    private List<RerankResult> rerankWithLLM(String query, List<Document> documents, int topK) throws Exception {
-        List<ScoredDoc> scoredDocs = new ArrayList<>();
-
-        // Score each document
-        for (int i = 0; i < documents.size(); i++) {
-            Document doc = documents.get(i);
-            double score = scoreSingleDocumentWithLLM(query, doc.text());
-            scoredDocs.add(new ScoredDoc(i, doc, score));
+    private void scoreWithLLM(String query, List<Document> documents, List<Integer> missing,
+                              double[] scores, int topK) throws Exception {
+        for (int start = 0; start < missing.size() && !settled(scores, topK); start += llmConcurrency) {
+            List<Integer> wave = missing.subList(start, Math.min(missing.size(), start + llmConcurrency));
+            List<Future<OptionalDouble>> futures = new ArrayList<>(wave.size());
+            for (int i : wave) {
+                String text = documents.get(i).text();
+                futures.add(llmExecutor.submit(() -> scoreSingleDocumentWithLLM(query, text)));
+            }
+            for (int k = 0; k < wave.size(); k++) {
+                int i = wave.get(k);
+                OptionalDouble score = futures.get(k).get();
+                if (score.isPresent()) {
+                    scores[i] = score.getAsDouble();
+                    scoreCache().put(scoreKey(query, documents.get(i)), scores[i]);
+                } else {
+                    scores[i] = DEFAULT_LLM_SCORE; // Default score on failure, not cached
+                }
+            }
         }
+    }
 
-        // Sort by score descending
-        scoredDocs.sort((a, b) -> Double.compare(b.score, a.score));
-
-        // Convert to results
-        List<RerankResult> results = new ArrayList<>();
-        for (int newRank = 0; newRank < Math.min(topK, scoredDocs.size()); newRank++) {
-            ScoredDoc sd = scoredDocs.get(newRank);
-            if (sd.score >= minScore) {
-                results.add(new RerankResult(
-                        sd.doc.id(),
-                        sd.doc.text(),
-                        sd.score,
-                        sd.doc.initialScore(),
-                        sd.originalRank,
-                        newRank,
-                        sd.doc.metadata()
-                ));
+    /**
+     * Whether at least topK documents already have the maximum LLM score
+     */
+    private static boolean settled(double[] scores, int topK) {
+        int perfect = 0;
+        for (double score : scores) {
+            if (score >= MAX_LLM_SCORE) {
+                perfect++;
             }
         }
-
-        return results;
+        return perfect >= Math.min(topK, scores.length);
     }
 
-    private record ScoredDoc(int originalRank, Document doc, double score) {}
-
     /**
      * Score a single document using LLM
+     *
+     * @return the normalized score, or empty if the LLM call failed
      */
-    private double scoreSingleDocumentWithLLM(String query, String document) {
+    private OptionalDouble scoreSingleDocumentWithLLM(String query, String document) {
         try {
             String prompt = """
                     Rate the relevance of the following document to the query on a scale of 0 to 10.
@@ -319,116 +385,64 @@ public class RerankerService {
             if (response.statusCode() == 200) {
                 JsonNode root = mapper.readTree(response.body());
                 String text = root.path("choices").path(0).path("text").asText().trim();
-                return Double.parseDouble(text) / 10.0; // Normalize to 0-1
+                return OptionalDouble.of(Double.parseDouble(text) / 10.0); // Normalize to 0-1
             }
         } catch (Exception e) {
             log.warn("[RERANK] LLM scoring failed: {}", e.getMessage());
         }
-        return 0.5; // Default score on failure
+        return OptionalDouble.empty();
     }
 
     /**
-     * Parse standard rerank response format
-     * { "results": [{ "index": 0, "relevance_score": 0.95 }, ...] }
+     * Parse rerank response scores. Local, Cohere and Jina all answer with
+     * { "results": [{ "index": 0, "relevance_score": 0.95 }, ...] }; local
+     * servers may also return the bare array or use "score".
+     *
+     * @return score by document index
      */
-    private List<RerankResult> parseRerankResponse(String json, List<Document> documents, int topK) throws Exception {
+    private Map<Integer, Double> parseScores(String json, int documentCount) throws Exception {
         JsonNode root = mapper.readTree(json);
         JsonNode results = root.has("results") ? root.get("results") : root;
 
-        List<RerankResult> output = new ArrayList<>();
-        int newRank = 0;
-
+        Map<Integer, Double> scores = new HashMap<>();
         for (JsonNode result : results) {
-            if (newRank >= topK) break;
-
             int index = result.path("index").asInt();
             double score = result.has("relevance_score")
                     ? result.path("relevance_score").asDouble()
                     : result.path("score").asDouble();
-
-            if (index < documents.size() && score >= minScore) {
-                Document doc = documents.get(index);
-                output.add(new RerankResult(
-                        doc.id(),
-                        doc.text(),
-                        score,
-                        doc.initialScore(),
-                        index,
-                        newRank,
-                        doc.metadata()
-                ));
-                newRank++;
+            if (index < documentCount) {
+                scores.put(index, score);
             }
         }
-
-        return output;
+        return scores;
     }
 
     /**
-     * Parse Cohere response format
+     * Top K scored documents at or above minScore, best first; ties keep the initial order
      */
-    private List<RerankResult> parseCohereResponse(String json, List<Document> documents, int topK) throws Exception {
-        JsonNode root = mapper.readTree(json);
-        JsonNode results = root.get("results");
-
-        List<RerankResult> output = new ArrayList<>();
-        int newRank = 0;
-
-        for (JsonNode result : results) {
-            if (newRank >= topK) break;
-
-            int index = result.path("index").asInt();
-            double score = result.path("relevance_score").asDouble();
-
-            if (index < documents.size() && score >= minScore) {
-                Document doc = documents.get(index);
-                output.add(new RerankResult(
-                        doc.id(),
-                        doc.text(),
-                        score,
-                        doc.initialScore(),
-                        index,
-                        newRank,
-                        doc.metadata()
-                ));
-                newRank++;
+    private List<RerankResult> toResults(List<Document> documents, double[] scores, int topK) {
+        List<Integer> ranked = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            if (!Double.isNaN(scores[i]) && scores[i] >= minScore) {
+                ranked.add(i);
             }
         }
-
-        return output;
-    }
-
-    /**
-     * Parse Jina response format
-     */
-    private List<RerankResult> parseJinaResponse(String json, List<Document> documents, int topK) throws Exception {
-        JsonNode root = mapper.readTree(json);
-        JsonNode results = root.get("results");
+        ranked.sort((a, b) -> Double.compare(scores[b], scores[a]));
 
         List<RerankResult> output = new ArrayList<>();
-        int newRank = 0;
-
-        for (JsonNode result : results) {
-            if (newRank >= topK) break;
-
-            int index = result.path("index").asInt();
-            double score = result.path("relevance_score").asDouble();
-
-            if (index < documents.size() && score >= minScore) {
-                Document doc = documents.get(index);
-                output.add(new RerankResult(
-                        doc.id(),
-                        doc.text(),
-                        score,
-                        doc.initialScore(),
-                        index,
-                        newRank,
-                        doc.metadata()
-                ));
-                newRank++;
-            }
+        for (int newRank = 0; newRank < Math.min(topK, ranked.size()); newRank++) {
+            int index = ranked.get(newRank);
+            Document doc = documents.get(index);
+            output.add(new RerankResult(
+                    doc.id(),
+                    doc.text(),
+                    scores[index],
+                    doc.initialScore(),
+                    index,
+                    newRank,
+                    doc.metadata()
+            ));
         }
-
         return output;
     }
 
@@ -452,6 +466,14 @@ public class RerankerService {
         return results;
     }
 
+    private ScoreKey scoreKey(String query, Document doc) {
+        return new ScoreKey(provider.toLowerCase() + ":" + model, query.trim(), doc.id(), Objects.hashCode(doc.text()));
+    }
+
+    private Cache scoreCache() {
+        return Objects.requireNonNull(cacheManager.getCache(SCORE_CACHE_NAME), SCORE_CACHE_NAME + " cache is not configured");
+    }
+
     private String truncate(String text, int maxLength) {
         if (text == null) return "";
         return text.length() <= maxLength ? text : text.substring(0, maxLength) + "...";
@@ -475,7 +497,8 @@ public class RerankerService {
                 "provider", provider,
                 "model", model,
                 "candidateCount", candidateCount,
-                "minScore", minScore
+                "minScore", minScore,
+                "llmConcurrency", llmConcurrency
         );
     }
 }
@@ -0,0 +1,204 @@
+package com.naagi.rag.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns text into index terms for the BM25 index.
+ *
+ * A single pass over the text lowercases ASCII letters and digits into a
+ * reusable char buffer; every other character ends the current token. Each
+ * token then runs through the analyzer's {@link TokenFilter} chain in place
+ * and, if it survives, is handed to a {@link TokenSink} as a slice of that
+ * buffer. No String or array is created per token.
+ *
+ * Built-in chains:
+ * - {@code standard}: tokens of at least 3 characters that are not English stopwords
+ * - {@code stemming}: standard plus a light plural stemmer ("caches" and "cache" match)
+ *
+ * Segments only match queries analyzed the same way, so the analyzer name is
+ * stored in the index manifest.
+ */
+public final class Analyzer {
+
+    /**
+     * Receives the terms of a text in order. The array is reused for the next
+     * term, so it must not be kept.
+     */
+    @FunctionalInterface
+    interface TokenSink {
+        void accept(char[] term, int length);
+    }
+
+    /**
+     * One stage of the chain. Works on the token in place.
+     */
+    @FunctionalInterface
+    public interface TokenFilter {
+        /**
+         * @return the new token length, or 0 to drop the token
+         */
+        int filter(char[] term, int length);
+    }
+
+    /**
+     * Common English stopwords to filter out
+     */
+    static final Set<String> STOPWORDS = Set.of(
+            "the", "and", "for", "are", "but", "not", "you", "all",
+            "can", "had", "her", "was", "one", "our", "out", "has",
+            "have", "been", "were", "they", "this", "that", "with",
+            "from", "will", "would", "there", "their", "what", "about",
+            "which", "when", "make", "like", "time", "just", "know",
+            "take", "into", "year", "your", "some", "could", "them",
+            "than", "then", "now", "look", "only", "come", "its",
+            "over", "also", "back", "after", "use", "two", "how",
+            "first", "well", "way", "even", "new", "want", "because",
+            "any", "these", "give", "most", "being"
+    );
+
+    private static final CharArraySet STOPWORD_SET = new CharArraySet(STOPWORDS);
+
+    /** Drops tokens shorter than 3 characters */
+    public static final TokenFilter MIN_LENGTH = (term, length) -> length > 2 ? length : 0;
+
+    /** Drops English stopwords */
+    public static final TokenFilter STOPWORD = (term, length) -> STOPWORD_SET.contains(term, length) ? 0 : length;
+
+    /**
+     * Harman's S-stemmer: "-ies" becomes "-y" (not after "a" or "e"), "-es"
+     * becomes "-e" (not after "a", "e" or "o") and a final "s" is dropped
+     * (not after "u" or "s")
+     */
+    public static final TokenFilter LIGHT_STEMMER = (term, length) -> {
+        if (length < 4 || term[length - 1] != 's') {
+            return length;
+        }
+        char before = term[length - 2];
+        if (before == 'e' && term[length - 3] == 'i') {
+            char first = term[length - 4];
+            if (first != 'a' && first != 'e') {
+                term[length - 3] = 'y';
+                return length - 2;
+            }
+            return length - 1;
+        }
+        if (before == 'e') {
+            char first = term[length - 3];
+            return first == 'a' || first == 'e' || first == 'o' ? length : length - 1;
+        }
+        return before == 'u' || before == 's' ? length : length - 1;
+    };
+
+    private static final Analyzer STANDARD = new Analyzer("standard", List.of(MIN_LENGTH, STOPWORD));
+    private static final Analyzer STEMMING = new Analyzer("stemming", List.of(MIN_LENGTH, STOPWORD, LIGHT_STEMMER));
+
+    private final String name;
+    private final TokenFilter[] filters;
+
+    /**
+     * @param name    identifies the chain in the index manifest; change it whenever the filters change
+     * @param filters applied in order to every token
+     */
+    public Analyzer(String name, List<TokenFilter> filters) {
+        this.name = name;
+        this.filters = filters.toArray(new TokenFilter[0]);
+    }
+
+    public static Analyzer standard() {
+        return STANDARD;
+    }
+
+    public static Analyzer stemming() {
+        return STEMMING;
+    }
+
+    /**
+     * Look up a built-in analyzer by name
+     */
+    public static Analyzer forName(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "standard" -> STANDARD;
+            case "stemming" -> STEMMING;
+            default -> throw new IllegalArgumentException("Unknown BM25 analyzer: " + name);
+        };
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Feed the terms of {@code text} to the sink.
+     *
+     * @return the number of terms emitted
+     */
+    int analyze(CharSequence text, TokenSink sink) {
+        if (text == null) {
+            return 0;
+        }
+        char[] buffer = new char[32];
+        int length = 0;
+        int count = 0;
+        int end = text.length();
+        for (int i = 0; i <= end; i++) {
+            char c = i < end ? fold(text.charAt(i)) : 0;
+            if (c != 0) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, length << 1);
+                }
+                buffer[length++] = c;
+            } else if (length > 0) {
+                length = applyFilters(buffer, length);
+                if (length > 0) {
+                    sink.accept(buffer, length);
+                    count++;
+                }
+                length = 0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The terms of {@code text} as Strings, for short inputs such as queries
+     */
+    public List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        analyze(text, (term, length) -> terms.add(new String(term, 0, length)));
+        return terms;
+    }
+
+    private int applyFilters(char[] term, int length) {
+        for (TokenFilter filter : filters) {
+            length = filter.filter(term, length);
+            if (length == 0) {
+                return 0;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Lowercase a term character, or 0 if it separates terms.
+     * Only a-z and 0-9 (after lowercasing) are term characters.
+     */
+    private static char fold(char c) {
+        if (c < 128) {
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                return c;
+            }
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : 0;
+        }
+        char lower = Character.toLowerCase(c);  // e.g. the Kelvin sign folds to 'k'
+        return lower >= 'a' && lower <= 'z' ? lower : 0;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -1,17 +1,68 @@
 package com.naagi.rag.search;
 
+import com.naagi.rag.search.SegmentManifest.Entry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * In-memory BM25 index for sparse/lexical retrieval.
- * Thread-safe implementation supporting concurrent reads and writes.
+ * BM25 index for sparse/lexical retrieval.
+ * Thread-safe; searches take no locks and never wait for writers.
+ *
+ * Text is turned into terms by a pluggable {@link Analyzer}.
+ *
+ * Log-structured layout:
+ * - Each write call analyzes its chunks into a private {@link MemorySegment}
+ *   (interned terms, dense int ordinals, delta/varint packed postings) outside
+ *   any lock. Sealed segments never change; they are published in an
+ *   immutable {@link Snapshot} that searches read with a single volatile load
+ * - Deletes set tombstones on a copy-on-write {@link SegmentState}; each
+ *   segment's docId -> ordinals table makes whole-document deletes cheap
+ * - A background thread merges runs of {@value #MERGE_FACTOR} adjacent
+ *   segments of a similar size and rewrites segments that are mostly deleted
+ * - When opened on a directory, {@link #commit()} flushes the in-memory
+ *   segments into a memory-mapped {@link DiskSegment}, writes the tombstones
+ *   of older disk segments and switches the manifest, so a restart reopens
+ *   the index without re-ingesting anything
+ * - Chunks without a single term are not searchable but are remembered, so
+ *   {@link #size()} plus {@link #skippedCount()} matches the chunks written
+ * - {@link #startRebuild()} fills a separate in-memory index, which also
+ *   receives every write made meanwhile, and {@link #finishRebuild} swaps it
+ *   in at once; searches keep using the old contents until then
+ *
+ * Corpus statistics travel with the snapshot and are updated incrementally.
+ *
+ * Queries are evaluated with MaxScore pruning into a bounded top-k heap
+ * (see {@link QueryEvaluator}); {@link Evaluation} switches to exhaustive
+ * scoring or cross-checks the two.
+ *
+ * Each segment keeps a compressed bitmap of chunk ordinals per category, so
+ * a {@link CategoryFilter} is resolved with bitmap OR/AND and intersected
+ * with the postings before any chunk is scored.
  */
-public class BM25Index {
+public class BM25Index implements Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(BM25Index.class);
 
@@ -19,22 +70,53 @@ public class BM25Index {
     private static final double K1 = 1.5;  // Term frequency saturation (1.2-2.0 typical)
     private static final double B = 0.75;  // Length normalization (0.75 typical)
 
-    private final Map<String, Document> documents = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, Integer>> invertedIndex = new ConcurrentHashMap<>();
-    private volatile double avgDocLength = 0;
-    private volatile int totalDocs = 0;
+    // Adjacent segments of the same size tier are merged this many at a time
+    private static final int MERGE_FACTOR = 10;
+    // Beyond this many segments writers merge inline instead of leaving it to the merge thread
+    private static final int MAX_SEGMENTS = 64;
+
+    private final Path directory;  // null for a purely in-memory index
+    private final Analyzer analyzer;
+
+    // Serializes writers and snapshot swaps; searches never take it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Serializes merges and commits, which do their heavy work outside the write lock
+    private final ReentrantLock mergeLock = new ReentrantLock();
+    private final ThreadPoolExecutor merger;
+    private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+    private final AtomicLong merges = new AtomicLong();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // Chunks with no terms, by id -> docId; changed under the write lock
+    private final Map<String, String> skipped = new ConcurrentHashMap<>();
+    // Index being rebuilt, which receives a copy of every write; guarded by the write lock
+    private BM25Index rebuildTarget;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile boolean restored = false;
+    private volatile boolean closed = false;
+
+    // Commit state, guarded by mergeLock
+    private volatile long generation = 0;
+    private long nextSegmentNumber = 1;
+    private Map<SegmentReader, String> committedDeletes = new IdentityHashMap<>();
+    private Map<SegmentReader, Integer> committedDeleteCounts = new IdentityHashMap<>();
+    // Disk segments no longer searched; their files go once the manifest stops listing them
+    private final Queue<DiskSegment> retired = new ConcurrentLinkedQueue<>();
 
     /**
-     * Indexed document record
+     * How {@link #search} scores candidates
      */
-    public record Document(
-            String id,
-            String docId,
-            int chunkIndex,
-            String text,
-            Map<String, Integer> termFrequencies,
-            int length
-    ) {}
+    public enum Evaluation {
+        /** Skip chunks that cannot reach the top k (default) */
+        MAX_SCORE,
+        /** Score every posting of every query term */
+        EXHAUSTIVE,
+        /** Run both, log any difference and return the exhaustive results */
+        VERIFY
+    }
+
+    private volatile Evaluation evaluation = Evaluation.MAX_SCORE;
+    private final AtomicLong verifyMismatches = new AtomicLong();
 
     /**
      * BM25 search result
@@ -49,92 +131,240 @@ public class BM25Index {
     ) {}
 
     /**
-     * Tokenize text into terms.
-     * - Lowercase
-     * - Remove punctuation
-     * - Split on whitespace
-     * - Filter short tokens and stopwords
+     * Restricts a search to chunks in any (or all) of the given categories
      */
-    private List<String> tokenize(String text) {
-        if (text == null || text.isBlank()) {
-            return List.of();
+    public record CategoryFilter(Set<String> categories, boolean matchAll) {
+
+        public CategoryFilter {
+            categories = Set.copyOf(categories);
+            if (categories.isEmpty()) {
+                throw new IllegalArgumentException("Category filter needs at least one category");
+            }
+        }
+
+        public static CategoryFilter of(String category) {
+            return new CategoryFilter(Set.of(category), false);
+        }
+
+        public static CategoryFilter anyOf(Collection<String> categories) {
+            return new CategoryFilter(Set.copyOf(categories), false);
+        }
+
+        public static CategoryFilter allOf(Collection<String> categories) {
+            return new CategoryFilter(Set.copyOf(categories), true);
         }
 
-        return Arrays.stream(text.toLowerCase()
-                        .replaceAll("[^a-z0-9\\s]", " ")
-                        .split("\\s+"))
-                .filter(t -> !t.isBlank() && t.length() > 2)
-                .filter(t -> !isStopword(t))
-                .collect(Collectors.toList());
+        /**
+         * Combine the segment's category bitmaps into the chunks that pass.
+         *
+         * @return the matching chunk ordinals, or null if none match
+         */
+        DocIdBitmap resolve(SegmentReader reader) {
+            DocIdBitmap result = null;
+            for (String category : categories) {
+                DocIdBitmap docs = reader.categoryDocs(category);
+                if (docs == null) {
+                    if (matchAll) {
+                        return null;
+                    }
+                    continue;
+                }
+                result = result == null ? docs : matchAll ? result.and(docs) : result.or(docs);
+            }
+            return result == null || result.isEmpty() ? null : result;
+        }
     }
 
     /**
-     * Common English stopwords to filter out
+     * Immutable view of the index: the segments in order, with their
+     * deletions, and the corpus statistics that match them
      */
-    private static final Set<String> STOPWORDS = Set.of(
-            "the", "and", "for", "are", "but", "not", "you", "all",
-            "can", "had", "her", "was", "one", "our", "out", "has",
-            "have", "been", "were", "they", "this", "that", "with",
-            "from", "will", "would", "there", "their", "what", "about",
-            "which", "when", "make", "like", "time", "just", "know",
-            "take", "into", "year", "your", "some", "could", "them",
-            "than", "then", "now", "look", "only", "come", "its",
-            "over", "also", "back", "after", "use", "two", "how",
-            "first", "well", "way", "even", "new", "want", "because",
-            "any", "these", "give", "most", "being"
-    );
+    private record Snapshot(List<SegmentState> segments, int totalDocs, long totalLength) {
+
+        static final Snapshot EMPTY = new Snapshot(List.of(), 0, 0);
 
-    private boolean isStopword(String term) {
-        return STOPWORDS.contains(term);
+        double avgDocLength() {
+            return totalDocs == 0 ? 0 : (double) totalLength / totalDocs;
+        }
     }
 
     /**
-     * Index a document chunk
+     * Create an in-memory index that is lost on restart
      */
-    public synchronized void index(String id, String docId, int chunkIndex, String text) {
-        // Remove existing document if re-indexing
-        if (documents.containsKey(id)) {
-            remove(id);
-        }
+    public BM25Index() {
+        this(Analyzer.standard());
+    }
 
-        List<String> tokens = tokenize(text);
-        if (tokens.isEmpty()) {
-            return;
+    /**
+     * Create an in-memory index that is lost on restart
+     */
+    public BM25Index(Analyzer analyzer) {
+        this(null, analyzer);
+    }
+
+    private BM25Index(Path directory, Analyzer analyzer) {
+        this.directory = directory;
+        this.analyzer = Objects.requireNonNull(analyzer);
+        this.merger = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "bm25-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.merger.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Open a persistent index with the standard analyzer, see {@link #open(Path, Analyzer)}
+     */
+    public static BM25Index open(Path directory) {
+        return open(directory, Analyzer.standard());
+    }
+
+    /**
+     * Open a persistent index stored in {@code directory}, creating it if needed.
+     * If the committed segments cannot be read, or were built with a different
+     * analyzer, the index starts empty and {@link #isRestored()} returns false,
+     * so the caller can rebuild it.
+     */
+    public static BM25Index open(Path directory, Analyzer analyzer) {
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create BM25 index directory " + directory, e);
         }
 
-        // Count term frequencies
-        Map<String, Integer> termFreq = new HashMap<>();
-        for (String token : tokens) {
-            termFreq.merge(token, 1, Integer::sum);
+        BM25Index index = new BM25Index(directory, analyzer);
+        Set<String> committed = Set.of();
+        try {
+            SegmentManifest manifest = SegmentManifest.read(directory);
+            if (manifest != null && manifest.formatVersion() == DiskSegment.VERSION
+                    && analyzer.name().equals(manifest.analyzer())) {
+                index.load(manifest);
+                committed = manifest.files();
+                log.info("Opened BM25 index {} generation {} with {} chunks in {} segments in {}ms",
+                        directory, manifest.generation(), index.size(), manifest.segments().size(),
+                        System.currentTimeMillis() - start);
+            } else if (manifest != null) {
+                log.warn("Ignoring BM25 index {} with format version {} and analyzer {} (expected {} and {})",
+                        directory, manifest.formatVersion(), manifest.analyzer(), DiskSegment.VERSION, analyzer);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not open BM25 index in {}, starting empty: {}", directory, e.getMessage());
         }
 
-        Document doc = new Document(id, docId, chunkIndex, text, termFreq, tokens.size());
-        documents.put(id, doc);
+        index.deleteUncommittedFiles(committed);
+        return index;
+    }
 
-        // Update inverted index
-        for (String term : termFreq.keySet()) {
-            invertedIndex.computeIfAbsent(term, k -> new ConcurrentHashMap<>())
-                    .put(id, termFreq.get(term));
-        }
+    /**
+     * Whether committed segments were loaded from disk when the index was opened
+     */
+    public boolean isRestored() {
+        return restored;
+    }
 
-        // Update statistics
-        totalDocs++;
-        recalculateAvgLength();
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    /**
+     * Index a document chunk
+     */
+    public void index(String id, String docId, int chunkIndex, String text) {
+        index(id, docId, chunkIndex, text, List.of());
+    }
 
-        log.debug("Indexed document {} with {} tokens", id, tokens.size());
+    /**
+     * Index a document chunk with the categories it can be filtered by
+     */
+    public void index(String id, String docId, int chunkIndex, String text, List<String> categories) {
+        write(List.of(new DocumentToIndex(id, docId, chunkIndex, text, categories)));
+        log.debug("Indexed document {}", id);
     }
 
     /**
-     * Batch index multiple documents
+     * Batch index multiple documents. The batch becomes visible to searches
+     * at once, as a single new segment.
      */
     public void indexBatch(List<DocumentToIndex> docs) {
+        write(docs);
+        log.info("Batch indexed {} documents, total index size: {}", docs.size(), size());
+    }
+
+    public record DocumentToIndex(String id, String docId, int chunkIndex, String text, List<String> categories) {
+        public DocumentToIndex(String id, String docId, int chunkIndex, String text) {
+            this(id, docId, chunkIndex, text, List.of());
+        }
+    }
+
+    private void write(List<DocumentToIndex> docs) {
+        if (docs.isEmpty()) {
+            return;
+        }
+
+        // Build the new segment outside the lock; nobody else can see it yet
+        MemorySegment segment = new MemorySegment(docs.size());
+        BitSet replaced = new BitSet();
+        Map<String, String> termless = new HashMap<>();
         for (DocumentToIndex doc : docs) {
-            index(doc.id(), doc.docId(), doc.chunkIndex(), doc.text());
+            // A chunk repeated within the batch keeps its last version
+            int previous = segment.ordinalOf(doc.id());
+            if (previous != SegmentReader.MISSING) {
+                replaced.set(previous);
+            }
+            List<String> categories = doc.categories() == null
+                    ? List.of()
+                    : List.copyOf(new LinkedHashSet<>(doc.categories()));
+            if (segment.add(doc.id(), doc.docId(), doc.chunkIndex(), doc.text(), analyzer, categories)
+                    == SegmentReader.MISSING) {
+                termless.put(doc.id(), doc.docId());
+            } else {
+                termless.remove(doc.id());
+            }
+        }
+
+        BM25Index target;
+        writeLock.lock();
+        try {
+            publishWrite(docs, segment, replaced, termless);
+            // Sealed segments never change, so the rebuild can share this one
+            target = rebuildTarget;
+            if (target != null) {
+                target.writeLock.lock();
+                try {
+                    target.publishWrite(docs, segment, replaced, termless);
+                } finally {
+                    target.writeLock.unlock();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        afterWrite();
+        if (target != null) {
+            target.afterWrite();
         }
-        log.info("Batch indexed {} documents, total index size: {}", docs.size(), totalDocs);
     }
 
-    public record DocumentToIndex(String id, String docId, int chunkIndex, String text) {}
+    /**
+     * Swap in a written segment, replacing earlier versions of its chunks. Must hold the write lock.
+     */
+    private void publishWrite(List<DocumentToIndex> docs, MemorySegment segment, BitSet replaced,
+                              Map<String, String> termless) {
+        Update update = new Update();
+        for (DocumentToIndex doc : docs) {
+            // Remove existing chunk if re-indexing
+            update.delete(doc.id());
+            skipped.remove(doc.id());
+        }
+        update.append(segment, replaced);
+        update.publish();
+        if (!termless.isEmpty()) {
+            skipped.putAll(termless);
+            dirty.set(true);
+        }
+    }
 
     /**
      * Search using BM25 scoring algorithm
@@ -149,206 +379,904 @@ public class BM25Index {
      * - avgdl = average document length
      */
     public List<BM25Result> search(String query, int topK) {
-        List<String> queryTerms = tokenize(query);
-        if (queryTerms.isEmpty() || totalDocs == 0) {
+        return search(query, topK, null);
+    }
+
+    /**
+     * Search with category filter; null matches every chunk
+     */
+    public List<BM25Result> search(String query, int topK, CategoryFilter categoryFilter) {
+        List<String> tokens = analyzer.terms(query);
+        if (tokens.isEmpty() || topK <= 0) {
             return List.of();
         }
 
-        Map<String, Double> scores = new HashMap<>();
+        // Distinct query terms in first-occurrence order; repeats raise the term's weight
+        Map<String, Integer> queryTerms = new LinkedHashMap<>();
+        for (String token : tokens) {
+            queryTerms.merge(token, 1, Integer::sum);
+        }
 
-        for (String term : queryTerms) {
-            Map<String, Integer> postings = invertedIndex.get(term);
-            if (postings == null || postings.isEmpty()) {
-                continue;
-            }
+        Snapshot snap = snapshot;
+        if (snap.totalDocs() == 0) {
+            return List.of();
+        }
+        List<SegmentState> segments = snap.segments();
 
+        // Resolve query terms in every segment; document frequency is corpus-wide
+        int segmentCount = segments.size();
+        int[][] termOrdinals = new int[segmentCount][queryTerms.size()];
+        double[] weights = new double[queryTerms.size()];
+        int t = 0;
+        for (Map.Entry<String, Integer> term : queryTerms.entrySet()) {
+            int df = 0;
+            for (int s = 0; s < segmentCount; s++) {
+                SegmentState state = segments.get(s);
+                int ordinal = state.reader.termOrdinal(term.getKey());
+                termOrdinals[s][t] = ordinal;
+                if (ordinal != SegmentReader.MISSING) {
+                    df += state.liveDocFreq(ordinal);
+                }
+            }
             // IDF calculation: log((N - df + 0.5) / (df + 0.5) + 1)
-            int df = postings.size();
-            double idf = Math.log((totalDocs - df + 0.5) / (df + 0.5) + 1);
+            double idf = df == 0 ? 0 : Math.log((snap.totalDocs() - df + 0.5) / (df + 0.5) + 1);
+            weights[t++] = idf * term.getValue();
+        }
 
-            for (Map.Entry<String, Integer> entry : postings.entrySet()) {
-                String docId = entry.getKey();
-                int tf = entry.getValue();
-                Document doc = documents.get(docId);
+        QueryEvaluator evaluator = new QueryEvaluator(K1, B, snap.avgDocLength(), weights);
+        Evaluation mode = evaluation;
+        DocIdBitmap[] filters = new DocIdBitmap[segmentCount];
+        if (categoryFilter != null) {
+            for (int s = 0; s < segmentCount; s++) {
+                filters[s] = categoryFilter.resolve(segments.get(s).reader);
+            }
+        }
 
-                if (doc == null) continue;
+        TopKCollector top = collect(segments, evaluator, termOrdinals, filters, categoryFilter != null, topK,
+                mode != Evaluation.EXHAUSTIVE);
+        if (mode == Evaluation.VERIFY) {
+            TopKCollector exhaustive = collect(segments, evaluator, termOrdinals, filters, categoryFilter != null,
+                    topK, false);
+            if (!top.sameHits(exhaustive)) {
+                verifyMismatches.incrementAndGet();
+                log.warn("BM25 MaxScore results differ from exhaustive scoring for query '{}' (topK={})",
+                        query, topK);
+            }
+            top = exhaustive;
+        }
 
-                // BM25 term score calculation
-                double docLength = doc.length();
-                double lengthNorm = 1 - B + B * (docLength / avgDocLength);
-                double tfNorm = (tf * (K1 + 1)) / (tf + K1 * lengthNorm);
-                double termScore = idf * tfNorm;
+        List<BM25Result> results = new ArrayList<>(top.size());
+        for (int rank = 0; rank < top.size(); rank++) {
+            SegmentReader reader = segments.get(top.segment(rank)).reader;
+            int doc = top.doc(rank);
+            results.add(new BM25Result(
+                    reader.chunkId(doc),
+                    reader.docId(doc),
+                    reader.chunkIndex(doc),
+                    reader.text(doc),
+                    null, // BM25 index doesn't store titles
+                    top.score(rank)
+            ));
+        }
+        return results;
+    }
 
-                scores.merge(docId, termScore, Double::sum);
+    private static TopKCollector collect(List<SegmentState> segments, QueryEvaluator evaluator, int[][] termOrdinals,
+                                         DocIdBitmap[] filters, boolean filtered, int topK, boolean pruned) {
+        TopKCollector top = new TopKCollector(topK);
+        for (int s = 0; s < segments.size(); s++) {
+            if (filtered && filters[s] == null) {
+                continue;  // no chunk of this segment passes the filter
+            }
+            SegmentState state = segments.get(s);
+            if (pruned) {
+                evaluator.maxScore(s, state.reader, state.deleted(), termOrdinals[s], filters[s], top);
+            } else {
+                evaluator.exhaustive(s, state.reader, state.deleted(), termOrdinals[s], filters[s], top);
             }
         }
+        top.sort();
+        return top;
+    }
 
-        // Sort by score descending and return top K
-        return scores.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(topK)
-                .map(e -> {
-                    Document doc = documents.get(e.getKey());
-                    return new BM25Result(
-                            doc.id(),
-                            doc.docId(),
-                            doc.chunkIndex(),
-                            doc.text(),
-                            null, // BM25 index doesn't store titles
-                            e.getValue()
-                    );
-                })
-                .collect(Collectors.toList());
+    /**
+     * Choose how queries are evaluated; see {@link Evaluation}
+     */
+    public void setEvaluation(Evaluation evaluation) {
+        this.evaluation = Objects.requireNonNull(evaluation);
+    }
+
+    public Evaluation getEvaluation() {
+        return evaluation;
     }
 
     /**
-     * Search with category filter
+     * Remove a document from the index
      */
-    public List<BM25Result> search(String query, int topK, String categoryFilter,
-                                    Map<String, List<String>> docCategories) {
-        if (categoryFilter == null || categoryFilter.isBlank()) {
-            return search(query, topK);
+    public void remove(String id) {
+        boolean removed;
+        writeLock.lock();
+        try {
+            removed = removeLocked(id);
+            if (rebuildTarget != null) {
+                rebuildTarget.writeLock.lock();
+                try {
+                    rebuildTarget.removeLocked(id);
+                } finally {
+                    rebuildTarget.writeLock.unlock();
+                }
+            }
+        } finally {
+            writeLock.unlock();
         }
 
-        List<String> queryTerms = tokenize(query);
-        if (queryTerms.isEmpty() || totalDocs == 0) {
-            return List.of();
+        if (removed) {
+            afterWrite();
+            log.debug("Removed document {} from index", id);
         }
+    }
 
-        Map<String, Double> scores = new HashMap<>();
+    /**
+     * Remove all documents for a given docId
+     */
+    public void removeByDocId(String docId) {
+        int removed;
+        writeLock.lock();
+        try {
+            removed = removeDocumentLocked(docId);
+            if (rebuildTarget != null) {
+                rebuildTarget.writeLock.lock();
+                try {
+                    rebuildTarget.removeDocumentLocked(docId);
+                } finally {
+                    rebuildTarget.writeLock.unlock();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
 
-        for (String term : queryTerms) {
-            Map<String, Integer> postings = invertedIndex.get(term);
-            if (postings == null || postings.isEmpty()) {
-                continue;
+        if (removed > 0) {
+            afterWrite();
+        }
+        log.info("Removed {} chunks for docId {}", removed, docId);
+    }
+
+    /**
+     * Clear the entire index
+     */
+    public void clear() {
+        writeLock.lock();
+        try {
+            clearLocked();
+            if (rebuildTarget != null) {
+                rebuildTarget.writeLock.lock();
+                try {
+                    rebuildTarget.clearLocked();
+                } finally {
+                    rebuildTarget.writeLock.unlock();
+                }
             }
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Cleared BM25 index");
+    }
 
-            int df = postings.size();
-            double idf = Math.log((totalDocs - df + 0.5) / (df + 0.5) + 1);
+    private boolean removeLocked(String id) {
+        Update update = new Update();
+        boolean removed = update.delete(id);
+        update.publish();
+        if (skipped.remove(id) != null) {
+            dirty.set(true);
+            removed = true;
+        }
+        return removed;
+    }
 
-            for (Map.Entry<String, Integer> entry : postings.entrySet()) {
-                String docId = entry.getKey();
-                Document doc = documents.get(docId);
+    private int removeDocumentLocked(String docId) {
+        Update update = new Update();
+        int removed = update.deleteDocument(docId);
+        update.publish();
+        int skippedBefore = skipped.size();
+        skipped.values().removeIf(docId::equals);
+        if (skipped.size() != skippedBefore) {
+            dirty.set(true);
+            removed += skippedBefore - skipped.size();
+        }
+        return removed;
+    }
 
-                if (doc == null) continue;
+    private void clearLocked() {
+        for (SegmentState state : snapshot.segments()) {
+            retire(state);
+        }
+        snapshot = Snapshot.EMPTY;
+        skipped.clear();
+        dirty.set(directory != null);
+    }
 
-                // Check category filter
-                List<String> categories = docCategories.get(docId);
-                if (categories == null || !categories.contains(categoryFilter)) {
-                    continue;
+    /**
+     * Start rebuilding the index from scratch. Add every chunk to the returned
+     * in-memory index, then call {@link #finishRebuild} to swap it in, or
+     * {@link #abandonRebuild} to drop it. Until then searches use the current
+     * contents, and writes go to both indexes.
+     */
+    public BM25Index startRebuild() {
+        BM25Index target = new BM25Index(analyzer);
+        target.setEvaluation(evaluation);
+        writeLock.lock();
+        try {
+            if (rebuildTarget != null) {
+                throw new IllegalStateException("A BM25 index rebuild is already running");
+            }
+            rebuildTarget = target;
+        } finally {
+            writeLock.unlock();
+        }
+        return target;
+    }
+
+    /**
+     * Replace the contents of this index with those of the rebuilt index in one
+     * step. A persistent index writes them to disk on the next {@link #commit()}.
+     */
+    public void finishRebuild(BM25Index target) {
+        writeLock.lock();
+        try {
+            if (rebuildTarget != target) {
+                throw new IllegalStateException("Not the running BM25 index rebuild");
+            }
+            rebuildTarget = null;
+            for (SegmentState state : snapshot.segments()) {
+                retire(state);
+            }
+            // The rebuilt index is discarded, so its segment states can be taken over as they are
+            snapshot = target.snapshot;
+            skipped.clear();
+            skipped.putAll(target.skipped);
+            dirty.set(directory != null);
+        } finally {
+            writeLock.unlock();
+        }
+        target.close();
+        afterWrite();
+        log.info("Swapped in rebuilt BM25 index with {} chunks", size());
+    }
+
+    /**
+     * Drop a rebuild that did not complete; this index is left as it was
+     */
+    public void abandonRebuild(BM25Index target) {
+        writeLock.lock();
+        try {
+            if (rebuildTarget == target) {
+                rebuildTarget = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        target.close();
+    }
+
+    /**
+     * Persist all changes since the last commit. The in-memory segments are
+     * flushed into one new disk segment, deletions on older disk segments are
+     * written next to them, the manifest is atomically switched, and files it
+     * no longer lists are removed. Searches and writes continue meanwhile.
+     *
+     * @return true if a new manifest was written
+     * @throws UncheckedIOException if a segment or the manifest could not be written;
+     *         the index keeps serving from memory and the next commit retries
+     */
+    public boolean commit() {
+        if (directory == null) {
+            return false;
+        }
+
+        mergeLock.lock();
+        try {
+            if (!dirty.getAndSet(false)) {
+                return false;
+            }
+
+            long start = System.currentTimeMillis();
+            try {
+                List<SegmentState> memory = snapshot.segments().stream()
+                        .filter(state -> state.reader instanceof MemorySegment)
+                        .toList();
+                if (!memory.isEmpty()) {
+                    merge(memory, true);
                 }
+                writeManifest();
+            } catch (IOException e) {
+                dirty.set(true);
+                throw new UncheckedIOException("Failed to commit BM25 index to " + directory, e);
+            }
+
+            log.info("Committed BM25 index generation {} ({} chunks, {} segments) in {}ms",
+                    generation, size(), snapshot.segments().size(), System.currentTimeMillis() - start);
+            return true;
+        } finally {
+            mergeLock.unlock();
+        }
+    }
 
-                int tf = entry.getValue();
-                double docLength = doc.length();
-                double lengthNorm = 1 - B + B * (docLength / avgDocLength);
-                double tfNorm = (tf * (K1 + 1)) / (tf + K1 * lengthNorm);
-                double termScore = idf * tfNorm;
+    /**
+     * Stop merging and release the memory-mapped segments. Uncommitted changes are not written.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        merger.shutdown();
+        try {
+            merger.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-                scores.merge(docId, termScore, Double::sum);
+        mergeLock.lock();
+        try {
+            for (SegmentState state : snapshot.segments()) {
+                if (state.reader instanceof DiskSegment disk) {
+                    closeQuietly(disk);
+                }
+            }
+            for (DiskSegment disk : retired) {
+                closeQuietly(disk);
             }
+        } finally {
+            mergeLock.unlock();
         }
+    }
 
-        return scores.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(topK)
-                .map(e -> {
-                    Document doc = documents.get(e.getKey());
-                    return new BM25Result(
-                            doc.id(),
-                            doc.docId(),
-                            doc.chunkIndex(),
-                            doc.text(),
-                            null, // BM25 index doesn't store titles
-                            e.getValue()
-                    );
-                })
-                .collect(Collectors.toList());
+    public int size() {
+        return snapshot.totalDocs();
     }
 
     /**
-     * Remove a document from the index
+     * Chunks that were written but have no terms to search by
+     */
+    public int skippedCount() {
+        return skipped.size();
+    }
+
+    /**
+     * Number of distinct live terms. Terms that occur in several segments are
+     * counted once per segment until a merge combines them.
      */
-    public synchronized void remove(String id) {
-        Document doc = documents.remove(id);
-        if (doc == null) {
+    public int getVocabularySize() {
+        int vocabulary = 0;
+        for (SegmentState state : snapshot.segments()) {
+            vocabulary += state.liveTerms();
+        }
+        return vocabulary;
+    }
+
+    public double getAverageDocumentLength() {
+        return snapshot.avgDocLength();
+    }
+
+    /**
+     * Get index statistics
+     */
+    public Map<String, Object> getStats() {
+        Snapshot snap = snapshot;
+        int deletedDocuments = 0;
+        int vocabulary = 0;
+        int bufferedDocuments = 0;
+        long postingsBytes = 0;
+        long segmentBytes = 0;
+        Set<String> categories = new HashSet<>();
+        for (SegmentState state : snap.segments()) {
+            deletedDocuments += state.deletedCount();
+            vocabulary += state.liveTerms();
+            categories.addAll(state.reader.categories());
+            if (state.reader instanceof DiskSegment) {
+                segmentBytes += state.reader.sizeInBytes();
+            } else {
+                bufferedDocuments += state.liveDocs();
+                postingsBytes += state.reader.sizeInBytes();
+            }
+        }
+        return Map.ofEntries(
+                Map.entry("totalDocuments", snap.totalDocs()),
+                Map.entry("skippedDocuments", skipped.size()),
+                Map.entry("vocabularySize", vocabulary),
+                Map.entry("averageDocumentLength", snap.avgDocLength()),
+                Map.entry("deletedDocuments", deletedDocuments),
+                Map.entry("bufferedDocuments", bufferedDocuments),
+                Map.entry("postingsBytes", postingsBytes),
+                Map.entry("segmentBytes", segmentBytes),
+                Map.entry("categories", categories.size()),
+                Map.entry("segments", snap.segments().size()),
+                Map.entry("merges", merges.get()),
+                Map.entry("generation", generation),
+                Map.entry("persistent", directory != null),
+                Map.entry("evaluation", evaluation.name()),
+                Map.entry("verifyMismatches", verifyMismatches.get())
+        );
+    }
+
+    /**
+     * Changes made by one write call. Deletions go to copies of the current
+     * segment states; {@link #publish()} swaps them in together with the new
+     * segment, if any, as one snapshot. Must hold the write lock.
+     */
+    private final class Update {
+        private final List<SegmentState> segments;
+        private final boolean[] copied;
+        private int totalDocs;
+        private long totalLength;
+        private boolean changed = false;
+
+        Update() {
+            Snapshot base = snapshot;
+            this.segments = new ArrayList<>(base.segments());
+            this.copied = new boolean[segments.size()];
+            this.totalDocs = base.totalDocs();
+            this.totalLength = base.totalLength();
+        }
+
+        /**
+         * Add a new segment, minus the given chunks
+         */
+        void append(MemorySegment segment, BitSet deleted) {
+            SegmentState state = new SegmentState(segment);
+            for (int doc = deleted.nextSetBit(0); doc >= 0; doc = deleted.nextSetBit(doc + 1)) {
+                state.delete(doc);
+            }
+            if (state.liveDocs() == 0) {
+                return;
+            }
+            for (int doc = 0; doc < segment.maxDoc(); doc++) {
+                if (!deleted.get(doc)) {
+                    totalLength += segment.docLength(doc);
+                }
+            }
+            totalDocs += state.liveDocs();
+            segments.add(state);
+            changed = true;
+        }
+
+        boolean delete(String id) {
+            // A chunk id is live in at most one segment, most likely a recent one
+            for (int s = segments.size() - 1; s >= 0; s--) {
+                int ordinal = segments.get(s).reader.ordinalOf(id);
+                if (ordinal != SegmentReader.MISSING && !segments.get(s).isDeleted(ordinal)) {
+                    deleteAt(s, ordinal);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int deleteDocument(String docId) {
+            int removed = 0;
+            for (int s = 0; s < segments.size(); s++) {
+                for (int ordinal : segments.get(s).reader.ordinalsOfDoc(docId)) {
+                    if (!segments.get(s).isDeleted(ordinal)) {
+                        deleteAt(s, ordinal);
+                        removed++;
+                    }
+                }
+            }
+            return removed;
+        }
+
+        private void deleteAt(int s, int ordinal) {
+            if (!copied[s]) {
+                segments.set(s, segments.get(s).copy());
+                copied[s] = true;
+            }
+            SegmentState state = segments.get(s);
+            state.delete(ordinal);
+            totalDocs--;
+            totalLength -= state.reader.docLength(ordinal);
+            changed = true;
+        }
+
+        /**
+         * Drop segments without live chunks and publish the result
+         */
+        void publish() {
+            if (!changed) {
+                return;
+            }
+            segments.removeIf(state -> {
+                if (state.liveDocs() > 0) {
+                    return false;
+                }
+                retire(state);
+                return true;
+            });
+            snapshot = new Snapshot(List.copyOf(segments), totalDocs, totalLength);
+            dirty.set(true);
+        }
+    }
+
+    private void afterWrite() {
+        if (snapshot.segments().size() > MAX_SEGMENTS) {
+            // Merges are falling behind: the writer helps instead of piling up more segments
+            runMerges();
+        } else {
+            scheduleMerges();
+        }
+    }
+
+    private void scheduleMerges() {
+        if (closed || !mergeScheduled.compareAndSet(false, true)) {
             return;
         }
+        try {
+            merger.execute(() -> {
+                mergeScheduled.set(false);
+                runMerges();
+            });
+        } catch (RejectedExecutionException e) {
+            mergeScheduled.set(false);  // closed meanwhile
+        }
+    }
 
-        // Remove from inverted index
-        for (String term : doc.termFrequencies().keySet()) {
-            Map<String, Integer> postings = invertedIndex.get(term);
-            if (postings != null) {
-                postings.remove(id);
-                if (postings.isEmpty()) {
-                    invertedIndex.remove(term);
+    private void runMerges() {
+        mergeLock.lock();
+        try {
+            List<SegmentState> inputs;
+            while (!closed && (inputs = findMerge(snapshot.segments())) != null) {
+                boolean toDisk = inputs.get(0).reader instanceof DiskSegment;
+                merge(inputs, toDisk);
+                if (toDisk) {
+                    dirty.set(true);  // the manifest still lists the inputs
                 }
             }
+        } catch (IOException | RuntimeException e) {
+            log.warn("BM25 segment merge failed: {}", e.getMessage());
+        } finally {
+            mergeLock.unlock();
         }
+    }
 
-        totalDocs--;
-        recalculateAvgLength();
+    /**
+     * Merge policy. A segment that is at least half deleted is rewritten on its
+     * own. Otherwise the first run of {@value #MERGE_FACTOR} adjacent segments of
+     * the same kind in the lowest size tier (powers of {@value #MERGE_FACTOR} live
+     * chunks) is merged, and past {@value #MAX_SEGMENTS} segments the smallest run
+     * regardless of tiers. Only adjacent segments are merged, so chunks keep their
+     * relative order and tied scores rank the same before and after a merge.
+     *
+     * @return the segments to merge, or null if none need to be
+     */
+    private static List<SegmentState> findMerge(List<SegmentState> segments) {
+        for (SegmentState state : segments) {
+            if (state.deletedCount() > 0 && state.deletedCount() * 2 >= state.reader.maxDoc()) {
+                return List.of(state);
+            }
+        }
 
-        log.debug("Removed document {} from index", id);
+        int best = -1;
+        int bestTier = Integer.MAX_VALUE;
+        int smallest = -1;
+        long smallestDocs = Long.MAX_VALUE;
+        for (int start = 0; start + MERGE_FACTOR <= segments.size(); start++) {
+            boolean disk = segments.get(start).reader instanceof DiskSegment;
+            int tier = tier(segments.get(start));
+            boolean sameTier = true;
+            long docs = 0;
+            int end = start;
+            for (; end < start + MERGE_FACTOR; end++) {
+                SegmentState state = segments.get(end);
+                if ((state.reader instanceof DiskSegment) != disk) {
+                    break;
+                }
+                sameTier &= tier(state) == tier;
+                docs += state.liveDocs();
+            }
+            if (end < start + MERGE_FACTOR) {
+                continue;  // run mixes memory and disk segments
+            }
+            if (sameTier && tier < bestTier) {
+                best = start;
+                bestTier = tier;
+            }
+            if (docs < smallestDocs) {
+                smallest = start;
+                smallestDocs = docs;
+            }
+        }
+
+        if (best >= 0) {
+            return segments.subList(best, best + MERGE_FACTOR);
+        }
+        if (segments.size() > MAX_SEGMENTS && smallest >= 0) {
+            return segments.subList(smallest, smallest + MERGE_FACTOR);
+        }
+        return null;
+    }
+
+    private static int tier(SegmentState state) {
+        int tier = 0;
+        for (long docs = state.liveDocs(); docs >= MERGE_FACTOR; docs /= MERGE_FACTOR) {
+            tier++;
+        }
+        return tier;
     }
 
     /**
-     * Remove all documents for a given docId
+     * Merge the live chunks of the inputs into one segment, on disk or in
+     * memory, and swap it in. Must hold the merge lock.
      */
-    public synchronized void removeByDocId(String docId) {
-        List<String> toRemove = documents.values().stream()
-                .filter(d -> d.docId().equals(docId))
-                .map(Document::id)
-                .toList();
+    private void merge(List<SegmentState> inputs, boolean toDisk) throws IOException {
+        long start = System.currentTimeMillis();
+        List<SegmentWriter.Input> sources = new ArrayList<>(inputs.size());
+        for (SegmentState state : inputs) {
+            sources.add(new SegmentWriter.Input(state.reader, state.deleted()));
+        }
+
+        SegmentReader merged;
+        if (toDisk) {
+            Path file = directory.resolve(segmentName(nextSegmentNumber++));
+            try {
+                SegmentWriter.write(file, sources);
+                merged = DiskSegment.open(file);
+            } catch (IOException | RuntimeException e) {
+                deleteQuietly(file);
+                throw e;
+            }
+        } else {
+            merged = MemorySegment.merge(sources);
+        }
 
-        for (String id : toRemove) {
-            remove(id);
+        if (!install(inputs, merged)) {
+            // An input was cleared or emptied by a writer meanwhile
+            if (merged instanceof DiskSegment disk) {
+                closeQuietly(disk);
+                deleteQuietly(disk.file());
+            }
+            return;
         }
 
-        log.info("Removed {} chunks for docId {}", toRemove.size(), docId);
+        merges.incrementAndGet();
+        for (SegmentState state : inputs) {
+            retire(state);
+        }
+        log.debug("Merged {} BM25 segments into one with {} chunks in {}ms",
+                inputs.size(), merged.maxDoc(), System.currentTimeMillis() - start);
     }
 
     /**
-     * Clear the entire index
+     * Replace the inputs of a merge with its result, carrying over chunks
+     * deleted while the merge ran.
+     *
+     * @return false if an input is no longer part of the index
      */
-    public synchronized void clear() {
-        documents.clear();
-        invertedIndex.clear();
-        totalDocs = 0;
-        avgDocLength = 0;
-        log.info("Cleared BM25 index");
+    private boolean install(List<SegmentState> inputs, SegmentReader merged) {
+        writeLock.lock();
+        try {
+            Snapshot snap = snapshot;
+            List<SegmentState> current = new ArrayList<>(snap.segments());
+            int[] positions = new int[inputs.size()];
+            for (int k = 0; k < inputs.size(); k++) {
+                positions[k] = indexOf(current, inputs.get(k).reader);
+                if (positions[k] < 0) {
+                    return false;
+                }
+            }
+
+            SegmentState result = new SegmentState(merged);
+            int base = 0;
+            for (int k = 0; k < inputs.size(); k++) {
+                SegmentState before = inputs.get(k);
+                SegmentState now = current.get(positions[k]);
+                if (now.deletedCount() != before.deletedCount()) {
+                    BitSet added = (BitSet) now.deleted().clone();
+                    added.andNot(before.deleted());
+                    for (int doc = added.nextSetBit(0); doc >= 0; doc = added.nextSetBit(doc + 1)) {
+                        // Merged ordinal: live chunks of earlier inputs, then live chunks before it in this one
+                        result.delete(base + doc - before.deleted().get(0, doc).cardinality());
+                    }
+                }
+                base += before.liveDocs();
+            }
+
+            Arrays.sort(positions);
+            for (int k = positions.length - 1; k >= 0; k--) {
+                current.remove(positions[k]);
+            }
+            if (result.liveDocs() > 0) {
+                current.add(positions[0], result);
+            } else {
+                retire(result);
+            }
+            snapshot = new Snapshot(List.copyOf(current), snap.totalDocs(), snap.totalLength());
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
     }
 
-    private void recalculateAvgLength() {
-        if (documents.isEmpty()) {
-            avgDocLength = 0;
-        } else {
-            avgDocLength = documents.values().stream()
-                    .mapToInt(Document::length)
-                    .average()
-                    .orElse(0);
+    /**
+     * Write tombstones of disk segments whose deletions changed, switch the
+     * manifest to the current disk segments and remove files it no longer
+     * lists. Must hold the merge lock.
+     */
+    private void writeManifest() throws IOException {
+        long nextGeneration = generation + 1;
+        List<Entry> entries = new ArrayList<>();
+        Map<SegmentReader, String> deletes = new IdentityHashMap<>();
+        Map<SegmentReader, Integer> deleteCounts = new IdentityHashMap<>();
+        List<Path> written = new ArrayList<>();
+        int chunks = 0;
+
+        SegmentManifest manifest;
+        try {
+            for (SegmentState state : snapshot.segments()) {
+                if (!(state.reader instanceof DiskSegment disk)) {
+                    continue;  // indexed after the flush; goes into the next commit
+                }
+                String name = disk.file().getFileName().toString();
+                String deletesName = null;
+                if (state.deletedCount() > 0) {
+                    deletesName = committedDeletes.get(disk);
+                    if (committedDeleteCounts.getOrDefault(disk, 0) != state.deletedCount()) {
+                        deletesName = name.replace(".bm25", "_" + nextGeneration + ".del");
+                        Path file = directory.resolve(deletesName);
+                        written.add(file);
+                        writeDeletes(file, state.deleted());
+                    }
+                    deletes.put(disk, deletesName);
+                    deleteCounts.put(disk, state.deletedCount());
+                }
+                entries.add(new Entry(name, deletesName));
+                chunks += state.liveDocs();
+            }
+
+            manifest = new SegmentManifest(DiskSegment.VERSION, analyzer.name(), nextGeneration, entries, chunks,
+                    Instant.now().toString(), Map.copyOf(skipped));
+            manifest.write(directory);
+        } catch (IOException e) {
+            written.forEach(BM25Index::deleteQuietly);
+            throw e;
         }
+
+        Set<String> listed = manifest.files();
+        for (String old : committedDeletes.values()) {
+            if (!listed.contains(old)) {
+                deleteQuietly(directory.resolve(old));
+            }
+        }
+        List<DiskSegment> stillListed = new ArrayList<>();
+        for (DiskSegment disk; (disk = retired.poll()) != null; ) {
+            if (listed.contains(disk.file().getFileName().toString())) {
+                stillListed.add(disk);
+            } else {
+                // Searches still holding an older snapshot keep the mapping alive
+                closeQuietly(disk);
+                deleteQuietly(disk.file());
+            }
+        }
+        retired.addAll(stillListed);
+
+        committedDeletes = deletes;
+        committedDeleteCounts = deleteCounts;
+        generation = nextGeneration;
     }
 
-    public int size() {
-        return documents.size();
+    private void load(SegmentManifest manifest) throws IOException {
+        List<SegmentState> states = new ArrayList<>();
+        int totalDocs = 0;
+        long totalLength = 0;
+        try {
+            for (Entry entry : manifest.segments()) {
+                DiskSegment segment = DiskSegment.open(directory.resolve(entry.name()));
+                SegmentState state = new SegmentState(segment);
+                states.add(state);
+                long length = segment.totalLength();
+                if (entry.deletes() != null) {
+                    BitSet deleted = readDeletes(directory.resolve(entry.deletes()));
+                    for (int doc = deleted.nextSetBit(0); doc >= 0; doc = deleted.nextSetBit(doc + 1)) {
+                        state.delete(doc);
+                        length -= segment.docLength(doc);
+                    }
+                    committedDeletes.put(segment, entry.deletes());
+                    committedDeleteCounts.put(segment, state.deletedCount());
+                }
+                totalDocs += state.liveDocs();
+                totalLength += length;
+                nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(entry.name()) + 1);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (SegmentState state : states) {
+                closeQuietly((DiskSegment) state.reader);
+            }
+            committedDeletes.clear();
+            committedDeleteCounts.clear();
+            throw e;
+        }
+
+        snapshot = new Snapshot(List.copyOf(states), totalDocs, totalLength);
+        if (manifest.skipped() != null) {
+            skipped.putAll(manifest.skipped());
+        }
+        generation = manifest.generation();
+        restored = true;
     }
 
-    public int getVocabularySize() {
-        return invertedIndex.size();
+    private void retire(SegmentState state) {
+        if (state.reader instanceof DiskSegment disk) {
+            retired.add(disk);
+        }
     }
 
-    public double getAverageDocumentLength() {
-        return avgDocLength;
+    private static int indexOf(List<SegmentState> segments, SegmentReader reader) {
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).reader == reader) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void deleteUncommittedFiles(Set<String> committed) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.{bm25,del}")) {
+            for (Path file : files) {
+                if (!committed.contains(file.getFileName().toString())) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Could not list BM25 segments in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static String segmentName(long number) {
+        return String.format("segment-%08d.bm25", number);
+    }
+
+    private static long segmentNumber(String name) {
+        return Long.parseLong(name.substring("segment-".length(), name.indexOf('.')));
     }
 
     /**
-     * Get index statistics
+     * Tombstone file: word count, then the deleted-ordinal bitset as big-endian longs
      */
-    public Map<String, Object> getStats() {
-        return Map.of(
-                "totalDocuments", totalDocs,
-                "vocabularySize", invertedIndex.size(),
-                "averageDocumentLength", avgDocLength
-        );
+    private static void writeDeletes(Path file, BitSet deleted) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            long[] words = deleted.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private static BitSet readDeletes(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            return BitSet.valueOf(words);
+        }
+    }
+
+    private static void closeQuietly(DiskSegment segment) {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.debug("Could not close BM25 segment {}: {}", segment.file(), e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Still mapped on some platforms; removed on the next open instead
+            log.debug("Could not delete BM25 file {}: {}", file, e.getMessage());
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.naagi.rag.search;
+
+import java.util.Collection;
+
+/**
+ * Immutable open-addressed set of words that is probed with a slice of a
+ * {@code char[]}, so the analyzer can test a token without creating a String.
+ */
+final class CharArraySet {
+
+    private final char[][] keys;
+    private final int mask;
+
+    CharArraySet(Collection<String> words) {
+        int capacity = Integer.highestOneBit(Math.max(4, words.size() * 2 - 1)) << 1;
+        keys = new char[capacity][];
+        mask = capacity - 1;
+        for (String word : words) {
+            char[] key = word.toCharArray();
+            int slot = StringIntHashMap.mix(hash(key, key.length)) & mask;
+            while (keys[slot] != null && !equals(keys[slot], key, key.length)) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+        }
+    }
+
+    boolean contains(char[] term, int length) {
+        int slot = StringIntHashMap.mix(hash(term, length)) & mask;
+        char[] key;
+        while ((key = keys[slot]) != null) {
+            if (equals(key, term, length)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Same value as {@link String#hashCode()} of the slice
+     */
+    static int hash(char[] term, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + term[i];
+        }
+        return h;
+    }
+
+    private static boolean equals(char[] key, char[] term, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != term[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
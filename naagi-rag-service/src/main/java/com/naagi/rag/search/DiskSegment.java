@@ -0,0 +1,325 @@
+package com.naagi.rag.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, memory-mapped BM25 segment written by {@link SegmentWriter}.
+ *
+ * Opening a segment maps the file, validates the header and loads the small
+ * per-category bitmaps; terms and chunk ids are found by binary search over
+ * sorted tables, and postings are decoded straight from the mapping.
+ *
+ * File layout (all offsets absolute, big-endian):
+ * <pre>
+ * header   magic, version, maxDoc, termCount, totalLength, docsOffset, termsOffset, idsOffset, fileLength,
+ *          categoriesOffset, categoryCount, byDocOffset
+ * strings  [int length][utf-8 bytes] for chunk ids, doc ids and texts
+ * postings per term: utf-8 term bytes, its {@link PostingsList} encoding, then one
+ *          (lastDoc, endOffset) skip entry per full block of {@link PostingsList#SKIP_INTERVAL}
+ * forward  per chunk: varint pair count, then varint (termOrdinal, tf) pairs
+ * bitmaps  per category: its {@link DocIdBitmap} serialization
+ * docs     per chunk: length, chunkIndex, chunkIdRef, docIdRef, textRef, forwardRef
+ * terms    per term, sorted by utf-8 bytes: termRef, termLength, postingsLength, postingsCount,
+ *          maxTermFreq, minDocLength
+ * ids      per chunk, sorted by utf-8 chunk id: chunkIdRef, ordinal
+ * categories per category: nameRef, bitmapRef
+ * byDoc    per chunk, sorted by utf-8 doc id then ordinal: docIdRef, ordinal
+ * </pre>
+ */
+final class DiskSegment implements SegmentReader, Closeable {
+
+    static final int MAGIC = 0x424D3235; // "BM25"
+    static final int VERSION = 4;
+    static final int HEADER_SIZE = 64;
+    static final int DOC_ROW = 24;
+    static final int TERM_ROW = 24;
+    static final int ID_ROW = 8;
+    static final int CATEGORY_ROW = 8;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buf;
+    private final int maxDoc;
+    private final int termCount;
+    private final long totalLength;
+    private final int docsOffset;
+    private final int termsOffset;
+    private final int idsOffset;
+    private final int byDocOffset;
+    private final Map<String, DocIdBitmap> categoryDocs = new HashMap<>();
+
+    private DiskSegment(Path file, FileChannel channel, ByteBuffer buf) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.buf = buf;
+
+        if (buf.capacity() < HEADER_SIZE || buf.getInt(0) != MAGIC) {
+            throw new IOException("Not a BM25 segment: " + file);
+        }
+        int version = buf.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported BM25 segment version " + version + " in " + file);
+        }
+        this.maxDoc = buf.getInt(8);
+        this.termCount = buf.getInt(12);
+        this.totalLength = buf.getLong(16);
+        this.docsOffset = buf.getInt(24);
+        this.termsOffset = buf.getInt(28);
+        this.idsOffset = buf.getInt(32);
+        int fileLength = buf.getInt(36);
+        if (fileLength != buf.capacity()) {
+            throw new IOException("Truncated BM25 segment " + file + ": expected " + fileLength
+                    + " bytes, found " + buf.capacity());
+        }
+
+        this.byDocOffset = buf.getInt(48);
+        int categoriesOffset = buf.getInt(40);
+        int categoryCount = buf.getInt(44);
+        for (int c = 0; c < categoryCount; c++) {
+            int row = categoriesOffset + c * CATEGORY_ROW;
+            categoryDocs.put(readString(buf.getInt(row)), DocIdBitmap.read(buf, buf.getInt(row + 4)));
+        }
+    }
+
+    static DiskSegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("BM25 segment too large to map: " + file);
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new DiskSegment(file, channel, mapped);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long totalLength() {
+        return totalLength;
+    }
+
+    @Override
+    public int maxDoc() {
+        return maxDoc;
+    }
+
+    @Override
+    public int termCount() {
+        return termCount;
+    }
+
+    @Override
+    public int termOrdinal(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = termCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int row = termsOffset + mid * TERM_ROW;
+            int cmp = compare(buf.getInt(row), buf.getInt(row + 4), key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return MISSING;
+    }
+
+    @Override
+    public int[] sortedTermOrdinals() {
+        int[] ordinals = new int[termCount];
+        for (int i = 0; i < termCount; i++) {
+            ordinals[i] = i;
+        }
+        return ordinals;
+    }
+
+    @Override
+    public byte[] termBytes(int termOrdinal) {
+        int row = termsOffset + termOrdinal * TERM_ROW;
+        byte[] bytes = new byte[buf.getInt(row + 4)];
+        buf.get(buf.getInt(row), bytes);
+        return bytes;
+    }
+
+    @Override
+    public int postingsCount(int termOrdinal) {
+        return buf.getInt(termsOffset + termOrdinal * TERM_ROW + 12);
+    }
+
+    @Override
+    public PostingsCursor postings(int termOrdinal) {
+        int row = termsOffset + termOrdinal * TERM_ROW;
+        int start = buf.getInt(row) + buf.getInt(row + 4);
+        int end = start + buf.getInt(row + 8);
+        int skipCount = buf.getInt(row + 12) / PostingsList.SKIP_INTERVAL;
+        IntBuffer skips = buf.slice(end, skipCount * 8).asIntBuffer();
+        return new PostingsCursor(buf, start, end, skips, skipCount);
+    }
+
+    @Override
+    public int maxTermFreq(int termOrdinal) {
+        return buf.getInt(termsOffset + termOrdinal * TERM_ROW + 16);
+    }
+
+    @Override
+    public int minDocLength(int termOrdinal) {
+        return buf.getInt(termsOffset + termOrdinal * TERM_ROW + 20);
+    }
+
+    @Override
+    public int docLength(int doc) {
+        return buf.getInt(docsOffset + doc * DOC_ROW);
+    }
+
+    @Override
+    public int chunkIndex(int doc) {
+        return buf.getInt(docsOffset + doc * DOC_ROW + 4);
+    }
+
+    @Override
+    public String chunkId(int doc) {
+        return readString(buf.getInt(docsOffset + doc * DOC_ROW + 8));
+    }
+
+    @Override
+    public String docId(int doc) {
+        return readString(buf.getInt(docsOffset + doc * DOC_ROW + 12));
+    }
+
+    @Override
+    public String text(int doc) {
+        return readString(buf.getInt(docsOffset + doc * DOC_ROW + 16));
+    }
+
+    @Override
+    public int[] chunkTerms(int doc) {
+        int[] pos = {buf.getInt(docsOffset + doc * DOC_ROW + 20)};
+        int[] pairs = new int[readVInt(pos) * 2];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = readVInt(pos);
+        }
+        return pairs;
+    }
+
+    @Override
+    public Collection<String> categories() {
+        return categoryDocs.keySet();
+    }
+
+    @Override
+    public DocIdBitmap categoryDocs(String category) {
+        return categoryDocs.get(category);
+    }
+
+    @Override
+    public int[] ordinalsOfDoc(String docId) {
+        byte[] key = docId.getBytes(StandardCharsets.UTF_8);
+        // Lower bound: first row whose doc id is not less than the key
+        int lo = 0, hi = maxDoc;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int ref = buf.getInt(byDocOffset + mid * ID_ROW);
+            if (compare(ref + 4, buf.getInt(ref), key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int end = lo;
+        while (end < maxDoc) {
+            int ref = buf.getInt(byDocOffset + end * ID_ROW);
+            if (compare(ref + 4, buf.getInt(ref), key) != 0) {
+                break;
+            }
+            end++;
+        }
+        int[] ordinals = new int[end - lo];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = buf.getInt(byDocOffset + (lo + i) * ID_ROW + 4);
+        }
+        return ordinals;
+    }
+
+    @Override
+    public int ordinalOf(String chunkId) {
+        byte[] key = chunkId.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = maxDoc - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int row = idsOffset + mid * ID_ROW;
+            int ref = buf.getInt(row);
+            int cmp = compare(ref + 4, buf.getInt(ref), key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return buf.getInt(row + 4);
+            }
+        }
+        return MISSING;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return buf.capacity();
+    }
+
+    /**
+     * Closes the channel. The mapping itself is released by the GC once no
+     * search holds a reference to this segment.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String readString(int ref) {
+        byte[] bytes = new byte[buf.getInt(ref)];
+        buf.get(ref + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Unsigned lexicographic comparison of {@code length} mapped bytes at {@code offset} against {@code key}
+     */
+    private int compare(int offset, int length, byte[] key) {
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Byte.toUnsignedInt(buf.get(offset + i)) - Byte.toUnsignedInt(key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    private int readVInt(int[] pos) {
+        byte b = buf.get(pos[0]++);
+        int v = b & 0x7F;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = buf.get(pos[0]++);
+            v |= (b & 0x7F) << shift;
+        }
+        return v;
+    }
+}
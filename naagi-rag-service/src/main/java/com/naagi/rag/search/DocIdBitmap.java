@@ -0,0 +1,330 @@
+package com.naagi.rag.search;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compressed set of chunk ordinals in the style of a roaring bitmap.
+ *
+ * Ordinals are split by their high 16 bits into containers. A container with
+ * at most {@link #ARRAY_MAX} members is a sorted {@code char[]}, a denser one
+ * a 65536-bit {@code long[]}, so a sparse category costs about two bytes per
+ * chunk and a dense one about one bit.
+ */
+final class DocIdBitmap {
+
+    static final int NO_MORE_DOCS = PostingsCursor.NO_MORE_DOCS;
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private char[][] arrays = new char[4][];   // array container, or null
+    private long[][] bitmaps = new long[4][];  // bitmap container, or null
+    private int[] cardinalities = new int[4];
+    private int size = 0;
+
+    void add(int doc) {
+        char key = (char) (doc >>> 16);
+        char low = (char) doc;
+        int c = containerIndex(key);
+        if (c < 0) {
+            c = -c - 1;
+            insertContainer(c, key);
+            arrays[c] = new char[4];
+        }
+
+        if (bitmaps[c] != null) {
+            long[] words = bitmaps[c];
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cardinalities[c]++;
+            }
+            return;
+        }
+
+        char[] values = arrays[c];
+        int cardinality = cardinalities[c];
+        // Fast path for ordinals added in increasing order
+        int pos = cardinality > 0 && values[cardinality - 1] < low
+                ? -cardinality - 1
+                : Arrays.binarySearch(values, 0, cardinality, low);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (cardinality == ARRAY_MAX) {
+            bitmaps[c] = toBitmap(values, cardinality);
+            arrays[c] = null;
+            bitmaps[c][low >>> 6] |= 1L << low;
+            cardinalities[c]++;
+            return;
+        }
+        if (cardinality == values.length) {
+            values = arrays[c] = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality << 1));
+        }
+        System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+        values[pos] = low;
+        cardinalities[c]++;
+    }
+
+    boolean contains(int doc) {
+        int c = containerIndex((char) (doc >>> 16));
+        if (c < 0) {
+            return false;
+        }
+        char low = (char) doc;
+        if (bitmaps[c] != null) {
+            return (bitmaps[c][low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(arrays[c], 0, cardinalities[c], low) >= 0;
+    }
+
+    /**
+     * @return the smallest member at or after {@code from}, or {@link #NO_MORE_DOCS}
+     */
+    int nextDoc(int from) {
+        char key = (char) (from >>> 16);
+        int c = containerIndex(key);
+        int low = from & 0xFFFF;
+        if (c < 0) {
+            c = -c - 1;
+            low = 0;
+        }
+        for (; c < size; c++) {
+            if (keys[c] != key) {
+                low = 0;
+            }
+            int found = nextInContainer(c, low);
+            if (found >= 0) {
+                return (keys[c] << 16) | found;
+            }
+        }
+        return NO_MORE_DOCS;
+    }
+
+    int cardinality() {
+        int total = 0;
+        for (int c = 0; c < size; c++) {
+            total += cardinalities[c];
+        }
+        return total;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long sizeInBytes() {
+        long bytes = 0;
+        for (int c = 0; c < size; c++) {
+            bytes += bitmaps[c] != null ? BITMAP_WORDS * 8L : cardinalities[c] * 2L;
+        }
+        return bytes;
+    }
+
+    /**
+     * Members of either set, as a new bitmap
+     */
+    DocIdBitmap or(DocIdBitmap other) {
+        DocIdBitmap result = new DocIdBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            int cmp = i == size ? 1 : j == other.size ? -1 : Character.compare(keys[i], other.keys[j]);
+            if (cmp < 0) {
+                result.appendCopy(this, i++);
+            } else if (cmp > 0) {
+                result.appendCopy(other, j++);
+            } else {
+                long[] words = new long[BITMAP_WORDS];
+                orInto(words, this, i++);
+                orInto(words, other, j++);
+                result.appendWords(keys[i - 1], words);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Members of both sets, as a new bitmap
+     */
+    DocIdBitmap and(DocIdBitmap other) {
+        DocIdBitmap result = new DocIdBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            int cmp = Character.compare(keys[i], other.keys[j]);
+            if (cmp < 0) {
+                i++;
+            } else if (cmp > 0) {
+                j++;
+            } else {
+                long[] words = new long[BITMAP_WORDS];
+                orInto(words, this, i++);
+                long[] mask = new long[BITMAP_WORDS];
+                orInto(mask, other, j++);
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] &= mask[w];
+                }
+                result.appendWords(keys[i - 1], words);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Serialize as: container count, then per container key, cardinality and
+     * either the sorted low bits or the 1024 bitmap words
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int c = 0; c < size; c++) {
+            out.writeChar(keys[c]);
+            out.writeInt(cardinalities[c]);
+            if (bitmaps[c] != null) {
+                for (long word : bitmaps[c]) {
+                    out.writeLong(word);
+                }
+            } else {
+                for (int v = 0; v < cardinalities[c]; v++) {
+                    out.writeChar(arrays[c][v]);
+                }
+            }
+        }
+    }
+
+    static DocIdBitmap read(ByteBuffer buf, int offset) {
+        DocIdBitmap bitmap = new DocIdBitmap();
+        int count = buf.getInt(offset);
+        int pos = offset + 4;
+        for (int c = 0; c < count; c++) {
+            char key = buf.getChar(pos);
+            int cardinality = buf.getInt(pos + 2);
+            pos += 6;
+            bitmap.insertContainer(c, key);
+            bitmap.cardinalities[c] = cardinality;
+            if (cardinality > ARRAY_MAX) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int w = 0; w < BITMAP_WORDS; w++, pos += 8) {
+                    words[w] = buf.getLong(pos);
+                }
+                bitmap.bitmaps[c] = words;
+            } else {
+                char[] values = new char[cardinality];
+                for (int v = 0; v < cardinality; v++, pos += 2) {
+                    values[v] = buf.getChar(pos);
+                }
+                bitmap.arrays[c] = values;
+            }
+        }
+        return bitmap;
+    }
+
+    private int nextInContainer(int c, int low) {
+        if (bitmaps[c] != null) {
+            long[] words = bitmaps[c];
+            int w = low >>> 6;
+            long word = words[w] & (-1L << low);
+            while (true) {
+                if (word != 0) {
+                    return (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+                if (++w == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = words[w];
+            }
+        }
+        int pos = Arrays.binarySearch(arrays[c], 0, cardinalities[c], (char) low);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        return pos < cardinalities[c] ? arrays[c][pos] : -1;
+    }
+
+    private int containerIndex(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int c, char key) {
+        if (size == keys.length) {
+            int capacity = size << 1;
+            keys = Arrays.copyOf(keys, capacity);
+            arrays = Arrays.copyOf(arrays, capacity);
+            bitmaps = Arrays.copyOf(bitmaps, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, c, keys, c + 1, size - c);
+        System.arraycopy(arrays, c, arrays, c + 1, size - c);
+        System.arraycopy(bitmaps, c, bitmaps, c + 1, size - c);
+        System.arraycopy(cardinalities, c, cardinalities, c + 1, size - c);
+        keys[c] = key;
+        arrays[c] = null;
+        bitmaps[c] = null;
+        cardinalities[c] = 0;
+        size++;
+    }
+
+    private void appendCopy(DocIdBitmap source, int c) {
+        insertContainer(size, source.keys[c]);
+        int last = size - 1;
+        cardinalities[last] = source.cardinalities[c];
+        if (source.bitmaps[c] != null) {
+            bitmaps[last] = source.bitmaps[c].clone();
+        } else {
+            arrays[last] = Arrays.copyOf(source.arrays[c], source.cardinalities[c]);
+        }
+    }
+
+    /**
+     * Append a container from bitmap words, choosing the array form when sparse
+     */
+    private void appendWords(char key, long[] words) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        if (cardinality == 0) {
+            return;
+        }
+        insertContainer(size, key);
+        int last = size - 1;
+        cardinalities[last] = cardinality;
+        if (cardinality > ARRAY_MAX) {
+            bitmaps[last] = words;
+            return;
+        }
+        char[] values = new char[cardinality];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            for (long word = words[w]; word != 0; word &= word - 1) {
+                values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+            }
+        }
+        arrays[last] = values;
+    }
+
+    private static void orInto(long[] words, DocIdBitmap source, int c) {
+        if (source.bitmaps[c] != null) {
+            long[] other = source.bitmaps[c];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] |= other[w];
+            }
+        } else {
+            char[] values = source.arrays[c];
+            for (int v = 0; v < source.cardinalities[c]; v++) {
+                words[values[v] >>> 6] |= 1L << values[v];
+            }
+        }
+    }
+
+    private static long[] toBitmap(char[] values, int cardinality) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int v = 0; v < cardinality; v++) {
+            words[values[v] >>> 6] |= 1L << values[v];
+        }
+        return words;
+    }
+}
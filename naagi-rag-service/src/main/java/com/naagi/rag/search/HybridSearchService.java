@@ -3,12 +3,14 @@ package com.naagi.rag.search;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Hybrid Search Service combining dense (semantic) and sparse (BM25) retrieval
- * using Reciprocal Rank Fusion (RRF).
+ * using Reciprocal Rank Fusion (RRF). {@link #fuse} takes any number of ranked
+ * lists, so FAQ or question-index hits can be fused in the same way.
  *
  * RRF is a rank-based fusion method that combines results from multiple retrieval
  * systems without requiring score normalization. It works by:
@@ -66,6 +68,166 @@ public class HybridSearchService {
             boolean inSparse      // Was found in sparse results
     ) {}
 
+    /**
+     * How {@link #fuse} combines ranked lists
+     */
+    public enum Fusion {
+        /** Σ weight / (k + rank), rank 1-based */
+        RRF,
+        /** Σ weight * min-max normalized score */
+        LINEAR
+    }
+
+    /**
+     * One ranked input to {@link #fuse}, e.g. dense, sparse, FAQ or question-index hits
+     */
+    public record RankedList(String name, List<SearchHit> hits, double weight) {}
+
+    /**
+     * Fused hit from {@link #fuse}. {@code listScores[i]} is the original score
+     * in input list i (0 if absent) and bit i of {@code listMask} is set if the
+     * hit was in list i.
+     */
+    public record FusedHit(
+            String id,
+            String docId,
+            int chunkIndex,
+            String text,
+            String title,
+            double score,
+            double[] listScores,
+            int listMask
+    ) {
+        public boolean inList(int list) {
+            return (listMask & (1 << list)) != 0;
+        }
+
+        public double listScore(int list) {
+            return listScores[list];
+        }
+    }
+
+    /** Lists are tracked as bits of an int */
+    public static final int MAX_LISTS = Integer.SIZE;
+
+    private static final int DENSE = 0;
+    private static final int SPARSE = 1;
+
+    /**
+     * Fuse any number of ranked lists into the best {@code topK} hits.
+     *
+     * Hits are accumulated by id into one open-addressed table whose
+     * accumulators are parallel arrays indexed by first appearance, so the only
+     * per-hit work is a table probe and a few array writes. The top hits are
+     * then picked with a bounded heap instead of sorting every candidate; ties
+     * go to the hit that appeared first. Only the first occurrence of an id
+     * within a list counts.
+     *
+     * @param lists  ranked inputs, at most {@link #MAX_LISTS}
+     * @param fusion how scores are combined
+     * @param topK   number of results to return
+     * @return fused hits, best first
+     */
+    public List<FusedHit> fuse(List<RankedList> lists, Fusion fusion, int topK) {
+        int listCount = lists.size();
+        if (listCount > MAX_LISTS) {
+            throw new IllegalArgumentException("Cannot fuse more than " + MAX_LISTS + " lists: " + listCount);
+        }
+        int capacity = 0;
+        for (RankedList list : lists) {
+            capacity += list.hits().size();
+        }
+        if (capacity == 0 || topK <= 0) {
+            return List.of();
+        }
+
+        StringIntHashMap slots = new StringIntHashMap(capacity);
+        SearchHit[] hits = new SearchHit[capacity];
+        double[] scores = new double[capacity];
+        double[] listScores = new double[capacity * listCount];
+        int[] masks = new int[capacity];
+        int count = 0;
+
+        for (int list = 0; list < listCount; list++) {
+            RankedList input = lists.get(list);
+            List<SearchHit> ranked = input.hits();
+            int bit = 1 << list;
+
+            // Min-max bounds for LINEAR; a list of equal scores normalizes to 1.0
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            if (fusion == Fusion.LINEAR) {
+                for (SearchHit hit : ranked) {
+                    min = Math.min(min, hit.score());
+                    max = Math.max(max, hit.score());
+                }
+            }
+            double range = max - min;
+
+            for (int rank = 0; rank < ranked.size(); rank++) {
+                SearchHit hit = ranked.get(rank);
+                int slot = slots.get(hit.id());
+                if (slot == StringIntHashMap.MISSING) {
+                    slot = count++;
+                    slots.put(hit.id(), slot);
+                    hits[slot] = hit;
+                } else if ((masks[slot] & bit) != 0) {
+                    continue;
+                }
+                masks[slot] |= bit;
+                listScores[slot * listCount + list] = hit.score();
+                scores[slot] += switch (fusion) {
+                    case RRF -> input.weight() / (rrfK + rank + 1);
+                    case LINEAR -> input.weight() * (range == 0 ? 1.0 : (hit.score() - min) / range);
+                };
+            }
+        }
+
+        TopKCollector top = new TopKCollector(Math.min(topK, count));
+        for (int slot = 0; slot < count; slot++) {
+            top.offer(0, slot, scores[slot]);
+        }
+        top.sort();
+
+        List<FusedHit> results = new ArrayList<>(top.size());
+        for (int rank = 0; rank < top.size(); rank++) {
+            int slot = top.doc(rank);
+            SearchHit hit = hits[slot];
+            results.add(new FusedHit(hit.id(), hit.docId(), hit.chunkIndex(), hit.text(), hit.title(),
+                    top.score(rank),
+                    Arrays.copyOfRange(listScores, slot * listCount, (slot + 1) * listCount),
+                    masks[slot]));
+        }
+
+        if (log.isDebugEnabled()) {
+            logFusionStats(lists, fusion, count, results);
+        }
+        return results;
+    }
+
+    private static void logFusionStats(List<RankedList> lists, Fusion fusion, int candidates, List<FusedHit> results) {
+        int[] perList = new int[lists.size()];
+        int multiList = 0;
+        for (FusedHit hit : results) {
+            if (Integer.bitCount(hit.listMask()) > 1) {
+                multiList++;
+            }
+            for (int list = 0; list < perList.length; list++) {
+                if (hit.inList(list)) {
+                    perList[list]++;
+                }
+            }
+        }
+        StringBuilder breakdown = new StringBuilder();
+        for (int list = 0; list < perList.length; list++) {
+            RankedList input = lists.get(list);
+            breakdown.append(list == 0 ? "" : ", ")
+                    .append(input.name()).append('(').append(input.weight()).append(")=").append(perList[list]);
+        }
+        log.debug("{} fusion: {} candidates, {} results, {} in several lists [{}]",
+                fusion, candidates, results.size(), multiList, breakdown);
+    }
+
     /**
      * Reciprocal Rank Fusion (RRF)
      *
@@ -83,64 +245,7 @@ public class HybridSearchService {
             List<SearchHit> denseResults,
             List<SearchHit> sparseResults,
             int topK) {
-
-        Map<String, Double> rrfScores = new HashMap<>();
-        Map<String, SearchHit> hitMap = new HashMap<>();
-        Map<String, Double> denseScoreMap = new HashMap<>();
-        Map<String, Double> sparseScoreMap = new HashMap<>();
-        Set<String> inDenseSet = new HashSet<>();
-        Set<String> inSparseSet = new HashSet<>();
-
-        // Process dense results (rank is 1-based)
-        for (int rank = 0; rank < denseResults.size(); rank++) {
-            SearchHit hit = denseResults.get(rank);
-            double rrfContribution = 1.0 / (rrfK + rank + 1);
-            rrfScores.merge(hit.id(), rrfContribution, Double::sum);
-            hitMap.putIfAbsent(hit.id(), hit);
-            denseScoreMap.put(hit.id(), hit.score());
-            inDenseSet.add(hit.id());
-        }
-
-        // Process sparse results
-        for (int rank = 0; rank < sparseResults.size(); rank++) {
-            SearchHit hit = sparseResults.get(rank);
-            double rrfContribution = 1.0 / (rrfK + rank + 1);
-            rrfScores.merge(hit.id(), rrfContribution, Double::sum);
-            hitMap.putIfAbsent(hit.id(), hit);
-            sparseScoreMap.put(hit.id(), hit.score());
-            inSparseSet.add(hit.id());
-        }
-
-        // Sort by RRF score and take top K
-        List<HybridResult> results = rrfScores.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(topK)
-                .map(entry -> {
-                    String id = entry.getKey();
-                    SearchHit hit = hitMap.get(id);
-                    return new HybridResult(
-                            id,
-                            hit.docId(),
-                            hit.chunkIndex(),
-                            hit.text(),
-                            hit.title(),
-                            entry.getValue(),
-                            denseScoreMap.getOrDefault(id, 0.0),
-                            sparseScoreMap.getOrDefault(id, 0.0),
-                            inDenseSet.contains(id),
-                            inSparseSet.contains(id)
-                    );
-                })
-                .collect(Collectors.toList());
-
-        // Log fusion statistics
-        long bothCount = results.stream().filter(r -> r.inDense() && r.inSparse()).count();
-        long denseOnlyCount = results.stream().filter(r -> r.inDense() && !r.inSparse()).count();
-        long sparseOnlyCount = results.stream().filter(r -> !r.inDense() && r.inSparse()).count();
-        log.debug("RRF fusion: {} results (both={}, denseOnly={}, sparseOnly={})",
-                results.size(), bothCount, denseOnlyCount, sparseOnlyCount);
-
-        return results;
+        return fuseDenseSparse(denseResults, 1.0, sparseResults, 1.0, Fusion.RRF, topK);
     }
 
     /**
@@ -162,62 +267,8 @@ public class HybridSearchService {
 
         // Normalize weights
         double totalWeight = denseWeight + sparseWeight;
-        double normDenseWeight = denseWeight / totalWeight;
-        double normSparseWeight = sparseWeight / totalWeight;
-
-        Map<String, Double> rrfScores = new HashMap<>();
-        Map<String, SearchHit> hitMap = new HashMap<>();
-        Map<String, Double> denseScoreMap = new HashMap<>();
-        Map<String, Double> sparseScoreMap = new HashMap<>();
-        Set<String> inDenseSet = new HashSet<>();
-        Set<String> inSparseSet = new HashSet<>();
-
-        // Weighted dense contribution
-        for (int rank = 0; rank < denseResults.size(); rank++) {
-            SearchHit hit = denseResults.get(rank);
-            double rrfContribution = normDenseWeight / (rrfK + rank + 1);
-            rrfScores.merge(hit.id(), rrfContribution, Double::sum);
-            hitMap.putIfAbsent(hit.id(), hit);
-            denseScoreMap.put(hit.id(), hit.score());
-            inDenseSet.add(hit.id());
-        }
-
-        // Weighted sparse contribution
-        for (int rank = 0; rank < sparseResults.size(); rank++) {
-            SearchHit hit = sparseResults.get(rank);
-            double rrfContribution = normSparseWeight / (rrfK + rank + 1);
-            rrfScores.merge(hit.id(), rrfContribution, Double::sum);
-            hitMap.putIfAbsent(hit.id(), hit);
-            sparseScoreMap.put(hit.id(), hit.score());
-            inSparseSet.add(hit.id());
-        }
-
-        List<HybridResult> results = rrfScores.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(topK)
-                .map(entry -> {
-                    String id = entry.getKey();
-                    SearchHit hit = hitMap.get(id);
-                    return new HybridResult(
-                            id,
-                            hit.docId(),
-                            hit.chunkIndex(),
-                            hit.text(),
-                            hit.title(),
-                            entry.getValue(),
-                            denseScoreMap.getOrDefault(id, 0.0),
-                            sparseScoreMap.getOrDefault(id, 0.0),
-                            inDenseSet.contains(id),
-                            inSparseSet.contains(id)
-                    );
-                })
-                .collect(Collectors.toList());
-
-        long bothCount = results.stream().filter(r -> r.inDense() && r.inSparse()).count();
-        log.debug("Weighted RRF (dense={}, sparse={}): {} results, {} in both lists",
-                normDenseWeight, normSparseWeight, results.size(), bothCount);
-
-        return results;
+        return fuseDenseSparse(denseResults, denseWeight / totalWeight,
+                sparseResults, sparseWeight / totalWeight, Fusion.RRF, topK);
     }
 
     /**
@@ -239,87 +290,32 @@ public class HybridSearchService {
             List<SearchHit> sparseResults,
             double alpha,
             int topK) {
-
-        // Normalize scores to 0-1 range using min-max normalization
-        Map<String, Double> normalizedDense = normalizeScores(denseResults);
-        Map<String, Double> normalizedSparse = normalizeScores(sparseResults);
-
-        Map<String, SearchHit> hitMap = new HashMap<>();
-        Map<String, Double> denseScoreMap = new HashMap<>();
-        Map<String, Double> sparseScoreMap = new HashMap<>();
-        Set<String> inDenseSet = new HashSet<>();
-        Set<String> inSparseSet = new HashSet<>();
-
-        for (SearchHit hit : denseResults) {
-            hitMap.putIfAbsent(hit.id(), hit);
-            denseScoreMap.put(hit.id(), hit.score());
-            inDenseSet.add(hit.id());
-        }
-        for (SearchHit hit : sparseResults) {
-            hitMap.putIfAbsent(hit.id(), hit);
-            sparseScoreMap.put(hit.id(), hit.score());
-            inSparseSet.add(hit.id());
-        }
-
-        // Combine all document IDs
-        Set<String> allIds = new HashSet<>();
-        allIds.addAll(normalizedDense.keySet());
-        allIds.addAll(normalizedSparse.keySet());
-
-        // Calculate combined scores
-        Map<String, Double> combinedScores = new HashMap<>();
-        for (String id : allIds) {
-            double denseNorm = normalizedDense.getOrDefault(id, 0.0);
-            double sparseNorm = normalizedSparse.getOrDefault(id, 0.0);
-            double combined = alpha * denseNorm + (1 - alpha) * sparseNorm;
-            combinedScores.put(id, combined);
-        }
-
-        return combinedScores.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(topK)
-                .map(entry -> {
-                    String id = entry.getKey();
-                    SearchHit hit = hitMap.get(id);
-                    return new HybridResult(
-                            id,
-                            hit.docId(),
-                            hit.chunkIndex(),
-                            hit.text(),
-                            hit.title(),
-                            entry.getValue(),
-                            denseScoreMap.getOrDefault(id, 0.0),
-                            sparseScoreMap.getOrDefault(id, 0.0),
-                            inDenseSet.contains(id),
-                            inSparseSet.contains(id)
-                    );
-                })
-                .collect(Collectors.toList());
+        return fuseDenseSparse(denseResults, alpha, sparseResults, 1 - alpha, Fusion.LINEAR, topK);
     }
 
-    /**
-     * Min-max normalize scores to 0-1 range
-     */
-    private Map<String, Double> normalizeScores(List<SearchHit> results) {
-        if (results.isEmpty()) {
-            return Map.of();
+    private List<HybridResult> fuseDenseSparse(List<SearchHit> denseResults, double denseWeight,
+                                               List<SearchHit> sparseResults, double sparseWeight,
+                                               Fusion fusion, int topK) {
+        List<FusedHit> fused = fuse(List.of(
+                new RankedList("dense", denseResults, denseWeight),
+                new RankedList("sparse", sparseResults, sparseWeight)), fusion, topK);
+
+        List<HybridResult> results = new ArrayList<>(fused.size());
+        for (FusedHit hit : fused) {
+            results.add(new HybridResult(
+                    hit.id(),
+                    hit.docId(),
+                    hit.chunkIndex(),
+                    hit.text(),
+                    hit.title(),
+                    hit.score(),
+                    hit.listScore(DENSE),
+                    hit.listScore(SPARSE),
+                    hit.inList(DENSE),
+                    hit.inList(SPARSE)
+            ));
         }
-
-        double minScore = results.stream().mapToDouble(SearchHit::score).min().orElse(0);
-        double maxScore = results.stream().mapToDouble(SearchHit::score).max().orElse(1);
-        double range = maxScore - minScore;
-
-        if (range == 0) {
-            // All scores are the same, normalize to 1.0
-            return results.stream()
-                    .collect(Collectors.toMap(SearchHit::id, h -> 1.0));
-        }
-
-        return results.stream()
-                .collect(Collectors.toMap(
-                        SearchHit::id,
-                        h -> (h.score() - minScore) / range
-                ));
+        return results;
     }
 
     public double getRrfK() {
@@ -0,0 +1,323 @@
+package com.naagi.rag.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory segment that receives newly indexed chunks.
+ *
+ * Chunks get dense ordinals in insertion order, so every postings list is
+ * appended in increasing ordinal order and can stay delta encoded.
+ * A segment is filled by a single writer and then sealed: once the owning
+ * index publishes it to readers it is never modified again.
+ */
+final class MemorySegment implements SegmentReader {
+
+    private final TermDictionary terms;
+    private PostingsList[] postings;
+
+    // Per-chunk columns, indexed by ordinal
+    private String[] chunkIds;
+    private String[] docIds;
+    private int[] chunkIndexes;
+    private String[] texts;
+    private int[] lengths;
+    private int[][] chunkTerms;
+    private final StringIntHashMap ordinalsById;
+    private final Map<String, int[]> ordinalsByDocId = new HashMap<>();
+    private final Map<String, DocIdBitmap> categoryDocs = new HashMap<>();
+    private int maxDoc = 0;
+
+    // Term ids of the chunk being analyzed
+    private int[] scratch = new int[256];
+    private int scratchCount;
+    private final Analyzer.TokenSink termSink = this::collectTerm;
+
+    MemorySegment() {
+        this(1024);
+    }
+
+    MemorySegment(int expectedChunks) {
+        int chunks = Math.max(8, expectedChunks);
+        int expectedTerms = Math.max(64, Math.min(chunks * 32, 1 << 16));
+        terms = new TermDictionary(expectedTerms);
+        postings = new PostingsList[expectedTerms];
+        chunkIds = new String[chunks];
+        docIds = new String[chunks];
+        chunkIndexes = new int[chunks];
+        texts = new String[chunks];
+        lengths = new int[chunks];
+        chunkTerms = new int[chunks][];
+        ordinalsById = new StringIntHashMap(chunks);
+    }
+
+    /**
+     * Copy the live chunks of the inputs into a new segment, in input order.
+     * Terms are remapped once per input term, so no text is re-tokenized.
+     */
+    static MemorySegment merge(List<SegmentWriter.Input> inputs) {
+        int live = 0;
+        for (SegmentWriter.Input input : inputs) {
+            live += input.reader().maxDoc() - input.deleted().cardinality();
+        }
+        MemorySegment merged = new MemorySegment(live);
+
+        for (SegmentWriter.Input input : inputs) {
+            SegmentReader reader = input.reader();
+            int[] termMap = new int[reader.termCount()];
+            Arrays.fill(termMap, -1);
+            int[] docMap = new int[reader.maxDoc()];
+            for (int doc = 0; doc < reader.maxDoc(); doc++) {
+                if (input.deleted().get(doc)) {
+                    docMap[doc] = -1;
+                    continue;
+                }
+                int[] pairs = reader.chunkTerms(doc).clone();
+                for (int i = 0; i < pairs.length; i += 2) {
+                    int term = pairs[i];
+                    if (termMap[term] < 0) {
+                        termMap[term] = merged.terms.getOrAdd(new String(reader.termBytes(term), StandardCharsets.UTF_8));
+                    }
+                    pairs[i] = termMap[term];
+                }
+                docMap[doc] = merged.add(reader.chunkId(doc), reader.docId(doc), reader.chunkIndex(doc),
+                        reader.text(doc), reader.docLength(doc), pairs, List.of());
+            }
+            for (String category : reader.categories()) {
+                DocIdBitmap docs = reader.categoryDocs(category);
+                for (int doc = docs.nextDoc(0); doc != DocIdBitmap.NO_MORE_DOCS; doc = docs.nextDoc(doc + 1)) {
+                    if (docMap[doc] >= 0) {
+                        merged.categoryDocs.computeIfAbsent(category, c -> new DocIdBitmap()).add(docMap[doc]);
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Analyze a chunk's text and add it. Terms go straight from the analyzer's
+     * buffer into the dictionary, so only unseen terms allocate a String.
+     *
+     * @return the ordinal assigned to the chunk, or {@link #MISSING} if the text has no terms
+     */
+    int add(String id, String docId, int chunkIndex, String text, Analyzer analyzer, List<String> categories) {
+        scratchCount = 0;
+        int length = analyzer.analyze(text, termSink);
+        if (length == 0) {
+            return MISSING;
+        }
+
+        // Count frequencies by sorting the term ids
+        int[] termIds = scratch;
+        Arrays.sort(termIds, 0, length);
+        int distinct = 1;
+        for (int i = 1; i < length; i++) {
+            if (termIds[i] != termIds[i - 1]) {
+                distinct++;
+            }
+        }
+
+        int[] pairs = new int[distinct * 2];
+        int pairCount = 0;
+        for (int i = 0; i < length; ) {
+            int runEnd = i + 1;
+            while (runEnd < length && termIds[runEnd] == termIds[i]) {
+                runEnd++;
+            }
+            pairs[pairCount++] = termIds[i];
+            pairs[pairCount++] = runEnd - i;
+            i = runEnd;
+        }
+
+        return add(id, docId, chunkIndex, text, length, pairs, categories);
+    }
+
+    private void collectTerm(char[] term, int length) {
+        if (scratchCount == scratch.length) {
+            scratch = Arrays.copyOf(scratch, scratchCount << 1);
+        }
+        scratch[scratchCount++] = terms.getOrAdd(term, length);
+    }
+
+    /**
+     * Add a chunk from an already inverted forward index of (termId, tf) pairs.
+     */
+    int add(String id, String docId, int chunkIndex, String text, int length, int[] termPairs,
+            List<String> categories) {
+        int ordinal = maxDoc++;
+        ensureChunkCapacity(maxDoc);
+        ensureTermCapacity(terms.size());
+
+        for (int i = 0; i < termPairs.length; i += 2) {
+            int termId = termPairs[i];
+            PostingsList list = postings[termId];
+            if (list == null) {
+                list = postings[termId] = new PostingsList();
+            }
+            list.add(ordinal, termPairs[i + 1], length);
+        }
+
+        chunkIds[ordinal] = id;
+        docIds[ordinal] = docId;
+        chunkIndexes[ordinal] = chunkIndex;
+        texts[ordinal] = text;
+        lengths[ordinal] = length;
+        chunkTerms[ordinal] = termPairs;
+        ordinalsById.put(id, ordinal);
+        int[] siblings = ordinalsByDocId.get(docId);
+        if (siblings == null) {
+            ordinalsByDocId.put(docId, new int[]{ordinal});
+        } else {
+            int[] grown = Arrays.copyOf(siblings, siblings.length + 1);
+            grown[siblings.length] = ordinal;
+            ordinalsByDocId.put(docId, grown);
+        }
+        for (String category : categories) {
+            categoryDocs.computeIfAbsent(category, c -> new DocIdBitmap()).add(ordinal);
+        }
+        return ordinal;
+    }
+
+    @Override
+    public int maxDoc() {
+        return maxDoc;
+    }
+
+    @Override
+    public int termCount() {
+        return terms.size();
+    }
+
+    @Override
+    public int termOrdinal(String term) {
+        return terms.id(term);
+    }
+
+    @Override
+    public int[] sortedTermOrdinals() {
+        int count = terms.size();
+        byte[][] keys = new byte[count][];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = termBytes(i);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(keys[a], keys[b]));
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = order[i];
+        }
+        return sorted;
+    }
+
+    @Override
+    public byte[] termBytes(int termOrdinal) {
+        return terms.term(termOrdinal).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int postingsCount(int termOrdinal) {
+        PostingsList list = postings[termOrdinal];
+        return list == null ? 0 : list.count();
+    }
+
+    @Override
+    public PostingsCursor postings(int termOrdinal) {
+        return postings[termOrdinal].cursor();
+    }
+
+    @Override
+    public int maxTermFreq(int termOrdinal) {
+        return postings[termOrdinal].maxTf();
+    }
+
+    @Override
+    public int minDocLength(int termOrdinal) {
+        return postings[termOrdinal].minLength();
+    }
+
+    @Override
+    public int docLength(int doc) {
+        return lengths[doc];
+    }
+
+    @Override
+    public String chunkId(int doc) {
+        return chunkIds[doc];
+    }
+
+    @Override
+    public String docId(int doc) {
+        return docIds[doc];
+    }
+
+    @Override
+    public int chunkIndex(int doc) {
+        return chunkIndexes[doc];
+    }
+
+    @Override
+    public String text(int doc) {
+        return texts[doc];
+    }
+
+    @Override
+    public int[] chunkTerms(int doc) {
+        return chunkTerms[doc];
+    }
+
+    @Override
+    public Collection<String> categories() {
+        return categoryDocs.keySet();
+    }
+
+    @Override
+    public DocIdBitmap categoryDocs(String category) {
+        return categoryDocs.get(category);
+    }
+
+    @Override
+    public int ordinalOf(String chunkId) {
+        return ordinalsById.get(chunkId);
+    }
+
+    @Override
+    public int[] ordinalsOfDoc(String docId) {
+        int[] ordinals = ordinalsByDocId.get(docId);
+        return ordinals == null ? new int[0] : ordinals;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (int termId = 0; termId < terms.size(); termId++) {
+            if (postings[termId] != null) {
+                bytes += postings[termId].sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private void ensureChunkCapacity(int capacity) {
+        if (capacity > chunkIds.length) {
+            int newLength = Math.max(capacity, chunkIds.length + (chunkIds.length >> 1));
+            chunkIds = Arrays.copyOf(chunkIds, newLength);
+            docIds = Arrays.copyOf(docIds, newLength);
+            chunkIndexes = Arrays.copyOf(chunkIndexes, newLength);
+            texts = Arrays.copyOf(texts, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            chunkTerms = Arrays.copyOf(chunkTerms, newLength);
+        }
+    }
+
+    private void ensureTermCapacity(int capacity) {
+        if (capacity > postings.length) {
+            postings = Arrays.copyOf(postings, Math.max(capacity, postings.length + (postings.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.naagi.rag.search;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Forward-only decoder over postings encoded by {@link PostingsList}.
+ * Works on a heap array or on a slice of a memory-mapped segment file,
+ * and reads a snapshot of the bytes visible when the cursor was created.
+ */
+final class PostingsCursor {
+
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    private final ByteBuffer bytes;
+    private final int start;
+    private final int end;
+    private final IntBuffer skips;
+    private final int skipCount;
+    private int nextSkip;
+    private int pos;
+    private int doc = -1;
+    private int freq;
+
+    PostingsCursor(ByteBuffer bytes, int start, int end, IntBuffer skips, int skipCount) {
+        this.bytes = bytes;
+        this.start = start;
+        this.pos = start;
+        this.end = end;
+        this.skips = skips;
+        this.skipCount = skipCount;
+    }
+
+    int docID() {
+        return doc;
+    }
+
+    int freq() {
+        return freq;
+    }
+
+    int nextDoc() {
+        if (pos >= end) {
+            return doc = NO_MORE_DOCS;
+        }
+        int code = readVInt();
+        doc += code >>> 1;
+        freq = (code & 1) != 0 ? 1 : readVInt();
+        return doc;
+    }
+
+    /**
+     * Move to the first doc at or after {@code target}, jumping over
+     * whole skip blocks that end before it.
+     */
+    int advance(int target) {
+        while (nextSkip < skipCount) {
+            int blockLastDoc = skips.get(nextSkip * 2);
+            if (blockLastDoc >= target) {
+                break;
+            }
+            int blockEnd = start + skips.get(nextSkip * 2 + 1);
+            if (blockEnd > pos) {
+                pos = blockEnd;
+                doc = blockLastDoc;
+            }
+            nextSkip++;
+        }
+        while (doc < target) {
+            nextDoc();
+        }
+        return doc;
+    }
+
+    private int readVInt() {
+        byte b = bytes.get(pos++);
+        int v = b & 0x7F;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = bytes.get(pos++);
+            v |= (b & 0x7F) << shift;
+        }
+        return v;
+    }
+}
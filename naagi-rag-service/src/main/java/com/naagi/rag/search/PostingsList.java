@@ -0,0 +1,120 @@
+package com.naagi.rag.search;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Append-only postings for a single term: doc ordinals in increasing order
+ * with their term frequencies, packed into a byte array.
+ *
+ * Each posting is encoded as a varint of {@code (docDelta << 1) | (tf == 1 ? 1 : 0)},
+ * followed by a varint tf when tf is not 1. Most chunk/term pairs have tf == 1,
+ * so a typical posting costs a single byte.
+ *
+ * Every {@link #SKIP_INTERVAL} postings a skip entry (last doc, end offset) is
+ * recorded so cursors can jump over whole blocks, and the largest tf and
+ * shortest chunk length seen give an upper bound on the term's BM25 score.
+ */
+final class PostingsList {
+
+    static final int SKIP_INTERVAL = 128;
+
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int count;
+    private int lastDoc = -1;
+    private int[] skips = new int[0];  // (lastDoc, endOffset) pairs
+    private int skipCount;
+    private int maxTf;
+    private int minLength = Integer.MAX_VALUE;
+
+    void add(int doc, int tf, int docLength) {
+        if (doc <= lastDoc) {
+            throw new IllegalArgumentException("Postings must be added in increasing doc order: " + doc + " <= " + lastDoc);
+        }
+        int delta = doc - lastDoc;
+        ensureCapacity(10);
+        if (tf == 1) {
+            writeVInt((delta << 1) | 1);
+        } else {
+            writeVInt(delta << 1);
+            writeVInt(tf);
+        }
+        lastDoc = doc;
+        maxTf = Math.max(maxTf, tf);
+        minLength = Math.min(minLength, docLength);
+
+        if (++count % SKIP_INTERVAL == 0) {
+            if (skips.length < (skipCount + 1) * 2) {
+                skips = Arrays.copyOf(skips, Math.max(8, skips.length * 2));
+            }
+            skips[skipCount * 2] = doc;
+            skips[skipCount * 2 + 1] = length;
+            skipCount++;
+        }
+    }
+
+    /**
+     * Number of postings, including ones for chunks that were since deleted
+     */
+    int count() {
+        return count;
+    }
+
+    int sizeInBytes() {
+        return length;
+    }
+
+    int maxTf() {
+        return maxTf;
+    }
+
+    int minLength() {
+        return minLength;
+    }
+
+    int skipCount() {
+        return skipCount;
+    }
+
+    /**
+     * Skip entries as (lastDoc, endOffset) pairs; only the first {@link #skipCount()} pairs are valid
+     */
+    int[] skips() {
+        return skips;
+    }
+
+    PostingsCursor cursor() {
+        return new PostingsCursor(ByteBuffer.wrap(bytes), 0, length, IntBuffer.wrap(skips), skipCount);
+    }
+
+    /**
+     * The encoded postings; only the first {@link #sizeInBytes()} bytes are valid
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    private void writeVInt(int v) {
+        length = writeVInt(bytes, length, v);
+    }
+
+    /**
+     * Write a varint into {@code buf} at {@code pos}, returning the position after it
+     */
+    static int writeVInt(byte[] buf, int pos, int v) {
+        while ((v & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return pos;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length + (bytes.length >> 1), length + extra));
+        }
+    }
+}
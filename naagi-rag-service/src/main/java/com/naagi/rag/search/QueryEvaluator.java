@@ -0,0 +1,225 @@
+package com.naagi.rag.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Scores one query against segments into a shared {@link TopKCollector}.
+ *
+ * Two strategies produce identical hits and scores:
+ * - {@link #exhaustive}: term-at-a-time accumulation over every posting
+ * - {@link #maxScore}: document-at-a-time MaxScore. Each term has an upper
+ *   bound on its contribution (weight at its largest tf and shortest chunk).
+ *   Terms whose bounds together cannot beat the current k-th score are
+ *   "non-essential": they never produce candidates and are only probed, via
+ *   skip data, for chunks that some essential term already matched
+ *
+ * A category filter is intersected with the postings before scoring: cursors
+ * leapfrog to the next chunk in the filter bitmap, so chunks outside it are
+ * never scored.
+ *
+ * A chunk's final score always sums term contributions in query order, so
+ * both strategies agree bit for bit and can be cross-checked.
+ */
+final class QueryEvaluator {
+
+    // Guards the upper bounds against rounding in the score formula
+    private static final double BOUND_SLACK = 1e-9;
+
+    private final double k1;
+    private final double b;
+    private final double avgDocLength;
+    private final double[] weights;
+
+    /**
+     * @param weights per distinct query term: idf times the term's count in the query
+     */
+    QueryEvaluator(double k1, double b, double avgDocLength, double[] weights) {
+        this.k1 = k1;
+        this.b = b;
+        this.avgDocLength = avgDocLength;
+        this.weights = weights;
+    }
+
+    /**
+     * Score every posting of every query term in the segment.
+     *
+     * @param ordinals segment term ordinal per query term, or {@link SegmentReader#MISSING}
+     * @param filter   chunks allowed by the category filter, or null for all
+     */
+    void exhaustive(int segment, SegmentReader reader, BitSet deleted, int[] ordinals,
+                    DocIdBitmap filter, TopKCollector top) {
+        double[] scores = new double[reader.maxDoc()];
+        int[] touched = new int[64];
+        int touchedCount = 0;
+
+        for (int t = 0; t < weights.length; t++) {
+            if (ordinals[t] == SegmentReader.MISSING || weights[t] == 0) {
+                continue;
+            }
+            PostingsCursor cursor = reader.postings(ordinals[t]);
+            int doc = cursor.nextDoc();
+            while (doc != PostingsCursor.NO_MORE_DOCS) {
+                if (filter != null) {
+                    int allowed = filter.nextDoc(doc);
+                    if (allowed != doc) {
+                        doc = cursor.advance(allowed);
+                        continue;
+                    }
+                }
+                if (!deleted.get(doc)) {
+                    if (scores[doc] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount << 1);
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    scores[doc] += termScore(weights[t], cursor.freq(), reader.docLength(doc));
+                }
+                doc = cursor.nextDoc();
+            }
+        }
+
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            top.offer(segment, doc, scores[doc]);
+        }
+    }
+
+    /**
+     * Score only chunks that can still enter the top k, see the class comment.
+     */
+    void maxScore(int segment, SegmentReader reader, BitSet deleted, int[] ordinals,
+                  DocIdBitmap filter, TopKCollector top) {
+        int n = 0;
+        int[] terms = new int[weights.length];
+        double[] bounds = new double[weights.length];
+        PostingsCursor[] cursors = new PostingsCursor[weights.length];
+        for (int t = 0; t < weights.length; t++) {
+            if (ordinals[t] == SegmentReader.MISSING || weights[t] == 0) {
+                continue;
+            }
+            int ordinal = ordinals[t];
+            double bound = termScore(weights[t], reader.maxTermFreq(ordinal), reader.minDocLength(ordinal))
+                    * (1 + BOUND_SLACK);
+            PostingsCursor cursor = reader.postings(ordinal);
+            cursor.nextDoc();
+
+            // Insertion sort by ascending bound
+            int i = n++;
+            while (i > 0 && bounds[i - 1] > bound) {
+                terms[i] = terms[i - 1];
+                bounds[i] = bounds[i - 1];
+                cursors[i] = cursors[i - 1];
+                i--;
+            }
+            terms[i] = t;
+            bounds[i] = bound;
+            cursors[i] = cursor;
+        }
+        if (n == 0) {
+            return;
+        }
+
+        // cumulative[i]: best possible score from terms 0..i alone
+        double[] cumulative = new double[n];
+        cumulative[0] = bounds[0];
+        for (int i = 1; i < n; i++) {
+            cumulative[i] = cumulative[i - 1] + bounds[i];
+        }
+
+        double[] contributions = new double[weights.length];
+        int essential = firstEssential(cumulative, top.threshold());
+        while (essential < n) {
+            int doc = PostingsCursor.NO_MORE_DOCS;
+            for (int i = essential; i < n; i++) {
+                doc = Math.min(doc, cursors[i].docID());
+            }
+            if (doc == PostingsCursor.NO_MORE_DOCS) {
+                break;
+            }
+
+            if (filter != null) {
+                int allowed = filter.nextDoc(doc);
+                if (allowed != doc) {
+                    for (int i = essential; i < n; i++) {
+                        if (cursors[i].docID() < allowed) {
+                            cursors[i].advance(allowed);
+                        }
+                    }
+                    continue;
+                }
+            }
+
+            if (deleted.get(doc)) {
+                for (int i = essential; i < n; i++) {
+                    if (cursors[i].docID() == doc) {
+                        cursors[i].nextDoc();
+                    }
+                }
+                continue;
+            }
+
+            int length = reader.docLength(doc);
+            double partial = 0;
+            for (int i = essential; i < n; i++) {
+                if (cursors[i].docID() == doc) {
+                    double contribution = termScore(weights[terms[i]], cursors[i].freq(), length);
+                    contributions[terms[i]] = contribution;
+                    partial += contribution;
+                    cursors[i].nextDoc();
+                }
+            }
+
+            // Probe non-essential terms, strongest first, while the chunk can still compete
+            boolean competitive = true;
+            double threshold = top.threshold();
+            for (int i = essential - 1; i >= 0; i--) {
+                if (partial + cumulative[i] < threshold) {
+                    competitive = false;
+                    break;
+                }
+                if (cursors[i].docID() < doc) {
+                    cursors[i].advance(doc);
+                }
+                if (cursors[i].docID() == doc) {
+                    double contribution = termScore(weights[terms[i]], cursors[i].freq(), length);
+                    contributions[terms[i]] = contribution;
+                    partial += contribution;
+                }
+            }
+
+            if (competitive) {
+                double score = 0;
+                for (double contribution : contributions) {
+                    score += contribution;
+                }
+                if (top.offer(segment, doc, score)) {
+                    essential = firstEssential(cumulative, top.threshold());
+                }
+            }
+            Arrays.fill(contributions, 0);
+        }
+    }
+
+    /**
+     * BM25 contribution of one term:
+     * weight * (tf * (k1 + 1)) / (tf + k1 * (1 - b + b * |D|/avgdl))
+     */
+    private double termScore(double weight, int tf, int docLength) {
+        double lengthNorm = 1 - b + b * (docLength / avgDocLength);
+        double tfNorm = (tf * (k1 + 1)) / (tf + k1 * lengthNorm);
+        return weight * tfNorm;
+    }
+
+    /**
+     * Number of weakest terms that together cannot reach the threshold
+     */
+    private static int firstEssential(double[] cumulative, double threshold) {
+        int i = 0;
+        while (i < cumulative.length && cumulative[i] < threshold) {
+            i++;
+        }
+        return i;
+    }
+}
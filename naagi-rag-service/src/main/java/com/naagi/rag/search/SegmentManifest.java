@@ -0,0 +1,72 @@
+package com.naagi.rag.search;
+
+import com.naagi.rag.json.Json;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Small JSON file naming the committed segments of a {@link BM25Index} directory,
+ * each with the tombstone file holding its deletions, if any, and the
+ * {@link Analyzer} that produced their terms, and the chunks that had no terms
+ * (id -> docId; null in manifests written before they were recorded).
+ * Files not listed in the manifest are leftovers of an interrupted commit.
+ */
+record SegmentManifest(
+        int formatVersion,
+        String analyzer,
+        long generation,
+        List<Entry> segments,
+        int chunks,
+        String committedAt,
+        Map<String, String> skipped
+) {
+
+    static final String FILE_NAME = "manifest.json";
+
+    /**
+     * A committed segment file and its deleted chunk ordinals file (null if none are deleted)
+     */
+    record Entry(String name, String deletes) {}
+
+    /**
+     * @return the manifest, or null if the directory has none
+     */
+    static SegmentManifest read(Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return Json.MAPPER.readValue(file.toFile(), SegmentManifest.class);
+    }
+
+    /**
+     * Names of all segment and tombstone files the manifest references
+     */
+    Set<String> files() {
+        Set<String> files = new HashSet<>();
+        for (Entry entry : segments) {
+            files.add(entry.name());
+            if (entry.deletes() != null) {
+                files.add(entry.deletes());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Atomically replace the manifest, so a crash leaves either the old or the new one
+     */
+    void write(Path directory) throws IOException {
+        Path tmp = directory.resolve(FILE_NAME + ".tmp");
+        Files.write(tmp, Json.MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(this));
+        Files.move(tmp, directory.resolve(FILE_NAME),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
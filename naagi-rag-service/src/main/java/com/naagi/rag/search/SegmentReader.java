@@ -0,0 +1,87 @@
+package com.naagi.rag.search;
+
+import java.util.Collection;
+
+/**
+ * Read access to one batch of indexed chunks, either the in-memory write
+ * buffer ({@link MemorySegment}) or an immutable on-disk segment
+ * ({@link DiskSegment}).
+ *
+ * Chunks are addressed by ordinals in {@code [0, maxDoc())} and terms by
+ * segment-local term ordinals. Deletions are tracked by the owning index,
+ * not by the segment, so a reader never changes underneath a search.
+ */
+interface SegmentReader {
+
+    int MISSING = -1;
+
+    int maxDoc();
+
+    int termCount();
+
+    /**
+     * @return the term ordinal, or {@link #MISSING} if the term does not occur
+     */
+    int termOrdinal(String term);
+
+    /**
+     * Term ordinals in ascending UTF-8 byte order of their terms, for merging
+     */
+    int[] sortedTermOrdinals();
+
+    byte[] termBytes(int termOrdinal);
+
+    /**
+     * Number of postings for the term, including postings of deleted chunks
+     */
+    int postingsCount(int termOrdinal);
+
+    PostingsCursor postings(int termOrdinal);
+
+    /**
+     * Largest tf in the term's postings, for bounding its BM25 contribution
+     */
+    int maxTermFreq(int termOrdinal);
+
+    /**
+     * Shortest chunk length in the term's postings, for bounding its BM25 contribution
+     */
+    int minDocLength(int termOrdinal);
+
+    int docLength(int doc);
+
+    String chunkId(int doc);
+
+    String docId(int doc);
+
+    int chunkIndex(int doc);
+
+    String text(int doc);
+
+    /**
+     * Forward index of a chunk as alternating (termOrdinal, tf) pairs
+     */
+    int[] chunkTerms(int doc);
+
+    /**
+     * Names of the categories assigned to at least one chunk of this segment
+     */
+    Collection<String> categories();
+
+    /**
+     * @return ordinals of the chunks (possibly deleted) in the category, or null if there are none
+     */
+    DocIdBitmap categoryDocs(String category);
+
+    /**
+     * Ordinals of all chunks (including deleted ones) of a document, ascending
+     */
+    int[] ordinalsOfDoc(String docId);
+
+    /**
+     * @return the ordinal of the chunk id (possibly deleted), or {@link #MISSING}
+     */
+    int ordinalOf(String chunkId);
+
+    long sizeInBytes();
+}
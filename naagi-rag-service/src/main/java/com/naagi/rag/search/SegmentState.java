@@ -0,0 +1,113 @@
+package com.naagi.rag.search;
+
+import java.util.BitSet;
+
+/**
+ * A segment together with the deletions applied to it.
+ *
+ * States reachable from a published snapshot are never modified. A writer
+ * takes a {@link #copy()}, marks deletions on it and publishes the copy;
+ * the deletion bitset and the per-term deleted counts are shared with the
+ * original until written, a page of 1024 terms at a time.
+ */
+final class SegmentState {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    final SegmentReader reader;
+    private BitSet deleted;
+    private boolean ownsDeleted;
+    private int[][] deletedDocFreq;  // deleted postings per term ordinal, in pages; null page = all zero
+    private boolean[] ownedPages;
+    private int deletedCount;
+    private int liveTerms;
+
+    SegmentState(SegmentReader reader) {
+        this.reader = reader;
+        this.deleted = new BitSet();
+        this.ownsDeleted = true;
+        this.deletedDocFreq = new int[(reader.termCount() + PAGE_SIZE - 1) >> PAGE_SHIFT][];
+        this.ownedPages = new boolean[deletedDocFreq.length];
+        this.liveTerms = reader.termCount();
+    }
+
+    private SegmentState(SegmentState source) {
+        this.reader = source.reader;
+        this.deleted = source.deleted;
+        this.ownsDeleted = false;
+        this.deletedDocFreq = source.deletedDocFreq.clone();
+        this.ownedPages = new boolean[deletedDocFreq.length];
+        this.deletedCount = source.deletedCount;
+        this.liveTerms = source.liveTerms;
+    }
+
+    /**
+     * A private copy that can take further deletions without affecting this state
+     */
+    SegmentState copy() {
+        return new SegmentState(this);
+    }
+
+    boolean isDeleted(int doc) {
+        return deleted.get(doc);
+    }
+
+    /**
+     * The deleted ordinals; callers must not modify the returned set
+     */
+    BitSet deleted() {
+        return deleted;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    int liveDocs() {
+        return reader.maxDoc() - deletedCount;
+    }
+
+    int liveTerms() {
+        return liveTerms;
+    }
+
+    int liveDocFreq(int termOrdinal) {
+        int[] page = deletedDocFreq[termOrdinal >> PAGE_SHIFT];
+        int deletedPostings = page == null ? 0 : page[termOrdinal & (PAGE_SIZE - 1)];
+        return reader.postingsCount(termOrdinal) - deletedPostings;
+    }
+
+    /**
+     * Mark a chunk deleted. Only valid on a state that has not been published yet.
+     *
+     * @return false if the chunk was already deleted
+     */
+    boolean delete(int doc) {
+        if (deleted.get(doc)) {
+            return false;
+        }
+        if (!ownsDeleted) {
+            deleted = (BitSet) deleted.clone();
+            ownsDeleted = true;
+        }
+        deleted.set(doc);
+        deletedCount++;
+
+        int[] pairs = reader.chunkTerms(doc);
+        for (int i = 0; i < pairs.length; i += 2) {
+            int term = pairs[i];
+            int p = term >> PAGE_SHIFT;
+            if (!ownedPages[p]) {
+                int[] page = deletedDocFreq[p];
+                deletedDocFreq[p] = page == null ? new int[PAGE_SIZE] : page.clone();
+                ownedPages[p] = true;
+            }
+            deletedDocFreq[p][term & (PAGE_SIZE - 1)]++;
+            if (liveDocFreq(term) == 0) {
+                liveTerms--;
+            }
+        }
+        return true;
+    }
+}
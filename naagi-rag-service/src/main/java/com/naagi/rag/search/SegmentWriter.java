@@ -0,0 +1,304 @@
+package com.naagi.rag.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static com.naagi.rag.search.DiskSegment.HEADER_SIZE;
+
+/**
+ * Merges the live chunks of one or more segments into a new {@link DiskSegment} file.
+ *
+ * Chunks keep their relative order, inputs are concatenated in list order, and
+ * deleted chunks are dropped. Terms are merged in UTF-8 byte order so their
+ * postings can be copied sequentially without re-tokenizing any text.
+ */
+final class SegmentWriter {
+
+    /**
+     * A segment to merge, with the chunks that must be left out
+     */
+    record Input(SegmentReader reader, BitSet deleted) {}
+
+    private static final int TERM_FIELDS = DiskSegment.TERM_ROW / 4;
+
+    private SegmentWriter() {}
+
+    /**
+     * Write the merged segment and fsync it.
+     *
+     * @return number of chunks written
+     */
+    static int write(Path file, List<Input> inputs) throws IOException {
+        // New ordinals: live chunks numbered consecutively across inputs
+        int[][] docMaps = new int[inputs.size()][];
+        int live = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            Input input = inputs.get(i);
+            int[] map = new int[input.reader().maxDoc()];
+            for (int doc = 0; doc < map.length; doc++) {
+                map[doc] = input.deleted().get(doc) ? -1 : live++;
+            }
+            docMaps[i] = map;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.write(new byte[HEADER_SIZE]);
+
+            // Strings: chunk ids, doc ids and texts
+            int[] docRows = new int[live * 6];
+            byte[][] idBytes = new byte[live][];
+            int[] idRefs = new int[live];
+            byte[][] docIdBytes = new byte[live][];
+            long totalLength = 0;
+            for (int i = 0; i < inputs.size(); i++) {
+                SegmentReader reader = inputs.get(i).reader();
+                for (int doc = 0; doc < docMaps[i].length; doc++) {
+                    int target = docMaps[i][doc];
+                    if (target < 0) continue;
+                    int row = target * 6;
+                    docRows[row] = reader.docLength(doc);
+                    docRows[row + 1] = reader.chunkIndex(doc);
+                    idBytes[target] = reader.chunkId(doc).getBytes(StandardCharsets.UTF_8);
+                    idRefs[target] = docRows[row + 2] = writeString(out, idBytes[target]);
+                    docIdBytes[target] = reader.docId(doc).getBytes(StandardCharsets.UTF_8);
+                    docRows[row + 3] = writeString(out, docIdBytes[target]);
+                    docRows[row + 4] = writeString(out, reader.text(doc).getBytes(StandardCharsets.UTF_8));
+                    totalLength += docRows[row];
+                }
+            }
+            checkSize(out, file);
+
+            // Postings: k-way merge of the inputs' sorted term dictionaries
+            int[][] termMaps = new int[inputs.size()][];
+            PriorityQueue<TermHead> heads = new PriorityQueue<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                SegmentReader reader = inputs.get(i).reader();
+                termMaps[i] = new int[reader.termCount()];
+                Arrays.fill(termMaps[i], -1);
+                TermHead head = new TermHead(i, reader.sortedTermOrdinals());
+                if (head.advance(reader)) {
+                    heads.add(head);
+                }
+            }
+
+            int[] termRows = new int[TERM_FIELDS * 256];
+            int termCount = 0;
+            TermHead[] group = new TermHead[inputs.size()];
+            while (!heads.isEmpty()) {
+                int groupSize = 0;
+                group[groupSize++] = heads.poll();
+                while (!heads.isEmpty() && Arrays.equals(heads.peek().bytes, group[0].bytes)) {
+                    group[groupSize++] = heads.poll();
+                }
+
+                PostingsList merged = new PostingsList();
+                for (int g = 0; g < groupSize; g++) {
+                    TermHead head = group[g];
+                    int[] map = docMaps[head.input];
+                    SegmentReader reader = inputs.get(head.input).reader();
+                    PostingsCursor cursor = reader.postings(head.termOrdinal());
+                    for (int doc = cursor.nextDoc(); doc != PostingsCursor.NO_MORE_DOCS; doc = cursor.nextDoc()) {
+                        if (map[doc] >= 0) {
+                            merged.add(map[doc], cursor.freq(), reader.docLength(doc));
+                        }
+                    }
+                }
+
+                if (merged.count() > 0) {
+                    if ((termCount + 1) * TERM_FIELDS > termRows.length) {
+                        termRows = Arrays.copyOf(termRows, termRows.length << 1);
+                    }
+                    int row = termCount * TERM_FIELDS;
+                    termRows[row] = out.size();
+                    termRows[row + 1] = group[0].bytes.length;
+                    termRows[row + 2] = merged.sizeInBytes();
+                    termRows[row + 3] = merged.count();
+                    termRows[row + 4] = merged.maxTf();
+                    termRows[row + 5] = merged.minLength();
+                    out.write(group[0].bytes);
+                    out.write(merged.bytes(), 0, merged.sizeInBytes());
+                    int[] skips = merged.skips();
+                    for (int k = 0; k < merged.skipCount() * 2; k++) {
+                        out.writeInt(skips[k]);
+                    }
+                    for (int g = 0; g < groupSize; g++) {
+                        termMaps[group[g].input][group[g].termOrdinal()] = termCount;
+                    }
+                    termCount++;
+                }
+
+                for (int g = 0; g < groupSize; g++) {
+                    if (group[g].advance(inputs.get(group[g].input).reader())) {
+                        heads.add(group[g]);
+                    }
+                }
+            }
+            checkSize(out, file);
+
+            // Forward index, remapped to the merged term ordinals
+            byte[] scratch = new byte[64];
+            for (int i = 0; i < inputs.size(); i++) {
+                SegmentReader reader = inputs.get(i).reader();
+                for (int doc = 0; doc < docMaps[i].length; doc++) {
+                    int target = docMaps[i][doc];
+                    if (target < 0) continue;
+                    int[] pairs = reader.chunkTerms(doc);
+                    if (scratch.length < (pairs.length + 1) * 5) {
+                        scratch = new byte[(pairs.length + 1) * 5];
+                    }
+                    int len = PostingsList.writeVInt(scratch, 0, pairs.length / 2);
+                    for (int p = 0; p < pairs.length; p += 2) {
+                        len = PostingsList.writeVInt(scratch, len, termMaps[i][pairs[p]]);
+                        len = PostingsList.writeVInt(scratch, len, pairs[p + 1]);
+                    }
+                    docRows[target * 6 + 5] = out.size();
+                    out.write(scratch, 0, len);
+                }
+            }
+
+            // Category bitmaps, remapped to the new ordinals
+            SortedSet<String> categoryNames = new TreeSet<>();
+            for (Input input : inputs) {
+                categoryNames.addAll(input.reader().categories());
+            }
+            List<Integer> categoryRows = new ArrayList<>();
+            for (String category : categoryNames) {
+                DocIdBitmap merged = new DocIdBitmap();
+                for (int i = 0; i < inputs.size(); i++) {
+                    DocIdBitmap docs = inputs.get(i).reader().categoryDocs(category);
+                    if (docs == null) continue;
+                    for (int doc = docs.nextDoc(0); doc != DocIdBitmap.NO_MORE_DOCS; doc = docs.nextDoc(doc + 1)) {
+                        if (docMaps[i][doc] >= 0) {
+                            merged.add(docMaps[i][doc]);
+                        }
+                    }
+                }
+                if (!merged.isEmpty()) {
+                    categoryRows.add(writeString(out, category.getBytes(StandardCharsets.UTF_8)));
+                    categoryRows.add(out.size());
+                    merged.writeTo(out);
+                }
+            }
+            checkSize(out, file);
+
+            // Fixed-width tables
+            int docsOffset = out.size();
+            for (int value : docRows) {
+                out.writeInt(value);
+            }
+            int termsOffset = out.size();
+            for (int t = 0; t < termCount * TERM_FIELDS; t++) {
+                out.writeInt(termRows[t]);
+            }
+            int idsOffset = out.size();
+            Integer[] byId = new Integer[live];
+            for (int n = 0; n < live; n++) {
+                byId[n] = n;
+            }
+            Arrays.sort(byId, (a, b) -> Arrays.compareUnsigned(idBytes[a], idBytes[b]));
+            for (int n : byId) {
+                out.writeInt(idRefs[n]);
+                out.writeInt(n);
+            }
+            int categoriesOffset = out.size();
+            for (int value : categoryRows) {
+                out.writeInt(value);
+            }
+            int byDocOffset = out.size();
+            Integer[] byDoc = new Integer[live];
+            for (int n = 0; n < live; n++) {
+                byDoc[n] = n;
+            }
+            // Stable sort keeps ordinals ascending within a document
+            Arrays.sort(byDoc, (a, b) -> Arrays.compareUnsigned(docIdBytes[a], docIdBytes[b]));
+            for (int n : byDoc) {
+                out.writeInt(docRows[n * 6 + 3]);
+                out.writeInt(n);
+            }
+            out.flush();
+            checkSize(out, file);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(DiskSegment.MAGIC)
+                    .putInt(DiskSegment.VERSION)
+                    .putInt(live)
+                    .putInt(termCount)
+                    .putLong(totalLength)
+                    .putInt(docsOffset)
+                    .putInt(termsOffset)
+                    .putInt(idsOffset)
+                    .putInt(out.size())
+                    .putInt(categoriesOffset)
+                    .putInt(categoryRows.size() / 2)
+                    .putInt(byDocOffset)
+                    .rewind();
+            channel.write(header, 0);
+            channel.force(true);
+            return live;
+        }
+    }
+
+    private static int writeString(DataOutputStream out, byte[] bytes) throws IOException {
+        int ref = out.size();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return ref;
+    }
+
+    private static void checkSize(DataOutputStream out, Path file) throws IOException {
+        // DataOutputStream.size() saturates at Integer.MAX_VALUE, beyond what a single mapping can address
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IOException("BM25 segment exceeds 2GB: " + file);
+        }
+    }
+
+    /**
+     * Current position in one input's sorted term dictionary
+     */
+    private static final class TermHead implements Comparable<TermHead> {
+        final int input;
+        final int[] sortedOrdinals;
+        int position = -1;
+        byte[] bytes;
+
+        TermHead(int input, int[] sortedOrdinals) {
+            this.input = input;
+            this.sortedOrdinals = sortedOrdinals;
+        }
+
+        int termOrdinal() {
+            return sortedOrdinals[position];
+        }
+
+        boolean advance(SegmentReader reader) {
+            if (++position >= sortedOrdinals.length) {
+                return false;
+            }
+            bytes = reader.termBytes(sortedOrdinals[position]);
+            return true;
+        }
+
+        @Override
+        public int compareTo(TermHead other) {
+            int cmp = Arrays.compareUnsigned(bytes, other.bytes);
+            return cmp != 0 ? cmp : Integer.compare(input, other.input);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.naagi.rag.search;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressed String -> int map used by the sparse index.
+ * Avoids the Integer boxing and per-entry node objects of a HashMap.
+ * Not thread-safe; callers guard it with the index lock.
+ */
+final class StringIntHashMap {
+
+    static final int MISSING = -1;
+
+    private String[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    StringIntHashMap() {
+        this(16);
+    }
+
+    StringIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new String[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(String key) {
+        int slot = mix(key.hashCode()) & mask;
+        String k;
+        while ((k = keys[slot]) != null) {
+            if (k.equals(key)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Look up the key spelled by {@code term[0, length)} without creating a String
+     *
+     * @param hash the {@link String#hashCode()} of the key
+     */
+    int get(char[] term, int length, int hash) {
+        int slot = mix(hash) & mask;
+        String k;
+        while ((k = keys[slot]) != null) {
+            if (k.length() == length && matches(k, term)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    void put(String key, int value) {
+        int slot = mix(key.hashCode()) & mask;
+        String k;
+        while ((k = keys[slot]) != null) {
+            if (k.equals(key)) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove a key, returning its value or {@link #MISSING}.
+     * Uses backward-shift deletion so lookups never need tombstones.
+     */
+    int remove(String key) {
+        int slot = mix(key.hashCode()) & mask;
+        String k;
+        while ((k = keys[slot]) != null) {
+            if (k.equals(key)) {
+                int value = values[slot];
+                shiftBack(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            String k = keys[slot];
+            if (k == null) {
+                break;
+            }
+            int home = mix(k.hashCode()) & mask;
+            // Move the entry into the gap if its home slot is not in (gap, slot]
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new String[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            String k = oldKeys[i];
+            if (k != null) {
+                int slot = mix(k.hashCode()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = k;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static boolean matches(String key, char[] term) {
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != term[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
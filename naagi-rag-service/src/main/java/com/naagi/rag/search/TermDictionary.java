@@ -0,0 +1,61 @@
+package com.naagi.rag.search;
+
+import java.util.Arrays;
+
+/**
+ * Interns index terms into dense int ids so postings and per-chunk
+ * term lists can be stored as primitive arrays.
+ */
+final class TermDictionary {
+
+    private final StringIntHashMap ids;
+    private String[] terms;
+    private int size;
+
+    TermDictionary() {
+        this(1024);
+    }
+
+    TermDictionary(int expectedTerms) {
+        ids = new StringIntHashMap(expectedTerms);
+        terms = new String[Math.max(16, expectedTerms)];
+    }
+
+    /**
+     * @return the term id, or {@link StringIntHashMap#MISSING} if the term is unknown
+     */
+    int id(String term) {
+        return ids.get(term);
+    }
+
+    int getOrAdd(String term) {
+        int id = ids.get(term);
+        if (id != StringIntHashMap.MISSING) {
+            return id;
+        }
+        id = size++;
+        if (id == terms.length) {
+            terms = Arrays.copyOf(terms, id << 1);
+        }
+        terms[id] = term;
+        ids.put(term, id);
+        return id;
+    }
+
+    /**
+     * Intern the term spelled by {@code term[0, length)}; a String is only
+     * created the first time the term is seen
+     */
+    int getOrAdd(char[] term, int length) {
+        int id = ids.get(term, length, CharArraySet.hash(term, length));
+        return id != StringIntHashMap.MISSING ? id : getOrAdd(new String(term, 0, length));
+    }
+
+    String term(int id) {
+        return terms[id];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,151 @@
+package com.naagi.rag.search;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size min-heap of the best (segment, doc, score) hits seen so far.
+ *
+ * The weakest hit sits at the root, so a candidate is compared against one
+ * entry and the heap never holds more than {@code k} hits. Ranking is by
+ * descending score, ties broken by ascending (segment, doc).
+ */
+final class TopKCollector {
+
+    private final int k;
+    private long[] keys;
+    private double[] scores;
+    private int size = 0;
+    private boolean sorted = false;
+
+    TopKCollector(int k) {
+        this.k = k;
+        int initial = Math.min(k, 256);
+        this.keys = new long[initial];
+        this.scores = new double[initial];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Score a new hit must beat to enter the heap; negative infinity until the heap is full
+     */
+    double threshold() {
+        return size < k ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * @return true if the hit was kept
+     */
+    boolean offer(int segment, int doc, double score) {
+        long key = key(segment, doc);
+        if (size < k) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, Math.min(k, size << 1));
+                scores = Arrays.copyOf(scores, keys.length);
+            }
+            keys[size] = key;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (!ranksBefore(score, key, scores[0], keys[0])) {
+            return false;
+        }
+        keys[0] = key;
+        scores[0] = score;
+        siftDown(0, size);
+        return true;
+    }
+
+    /**
+     * Heap-sort the hits into rank order; the collector accepts no more hits afterwards
+     */
+    void sort() {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        sorted = true;
+    }
+
+    int segment(int rank) {
+        checkSorted();
+        return (int) (keys[rank] >>> 32);
+    }
+
+    int doc(int rank) {
+        checkSorted();
+        return (int) keys[rank];
+    }
+
+    double score(int rank) {
+        checkSorted();
+        return scores[rank];
+    }
+
+    /**
+     * Whether two sorted collectors hold the same hits with the same scores in the same order
+     */
+    boolean sameHits(TopKCollector other) {
+        checkSorted();
+        other.checkSorted();
+        return size == other.size
+                && Arrays.equals(keys, 0, size, other.keys, 0, size)
+                && Arrays.equals(scores, 0, size, other.scores, 0, size);
+    }
+
+    private void checkSorted() {
+        if (!sorted) {
+            throw new IllegalStateException("Hits are only addressable by rank after sort()");
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksBefore(scores[parent], keys[parent], scores[i], keys[i])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int end) {
+        while (true) {
+            int weakest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < end && ranksBefore(scores[weakest], keys[weakest], scores[left], keys[left])) {
+                weakest = left;
+            }
+            if (right < end && ranksBefore(scores[weakest], keys[weakest], scores[right], keys[right])) {
+                weakest = right;
+            }
+            if (weakest == i) {
+                return;
+            }
+            swap(i, weakest);
+            i = weakest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    private static long key(int segment, int doc) {
+        return ((long) segment << 32) | doc;
+    }
+
+    private static boolean ranksBefore(double scoreA, long keyA, double scoreB, long keyB) {
+        return scoreA > scoreB || (scoreA == scoreB && keyA < keyB);
+    }
+}
@@ -0,0 +1,194 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.entity.UserQuestion;
+import com.naagi.rag.repository.UserQuestionRepository;
+import com.naagi.rag.vector.UserQuestionStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind counters for FAQ accesses and repeated user questions.
+ *
+ * The request path only bumps a LongAdder keyed by entity id. A scheduled
+ * flush folds the pending increments into the database with one JDBC batch
+ * per table, then pushes the new question frequencies to Qdrant in one batch
+ * request. Increments are also flushed on shutdown; a flush that fails puts
+ * its increments back for the next attempt.
+ */
+@Service
+@Slf4j
+public class AccessCounters {
+
+    private static final String FAQ_UPDATE =
+            "UPDATE faq_entries SET access_count = access_count + ?, last_accessed_at = ? WHERE id = ?";
+    private static final String QUESTION_UPDATE =
+            "UPDATE user_questions SET frequency = frequency + ?, last_asked_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserQuestionRepository questionRepository;
+    private final UserQuestionStore questionStore;
+
+    private final PendingCounts<Long> faqAccesses = new PendingCounts<>();
+    private final PendingCounts<String> questionAsks = new PendingCounts<>();
+
+    @Autowired
+    public AccessCounters(
+            JdbcTemplate jdbcTemplate,
+            UserQuestionRepository questionRepository,
+            @Autowired(required = false) UserQuestionStore questionStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.questionRepository = questionRepository;
+        this.questionStore = questionStore;
+    }
+
+    /**
+     * Count one access of an FAQ
+     */
+    public void recordFaqAccess(Long faqId) {
+        faqAccesses.increment(faqId);
+    }
+
+    /**
+     * Count one more ask of a tracked question
+     *
+     * @return increments for this question not yet written to the database, including this one
+     */
+    public long recordQuestionAsked(String questionId) {
+        return recordQuestionAsked(questionId, 1);
+    }
+
+    /**
+     * Count {@code times} more asks of a tracked question
+     *
+     * @return increments for this question not yet written to the database, including these
+     */
+    public long recordQuestionAsked(String questionId, long times) {
+        return questionAsks.add(questionId, times);
+    }
+
+    @Scheduled(fixedDelayString = "${naagi.counters.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        LocalDateTime now = LocalDateTime.now();
+        flushFaqAccesses(now);
+        flushQuestionAsks(now);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        log.info("[COUNTERS] Flushing pending counters before shutdown");
+        flush();
+    }
+
+    private void flushFaqAccesses(LocalDateTime now) {
+        Map<Long, Long> drained = faqAccesses.drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(FAQ_UPDATE, batchArgs(drained, now));
+            log.debug("[COUNTERS] Flushed access counts of {} FAQs", drained.size());
+        } catch (DataAccessException e) {
+            log.warn("[COUNTERS] Failed to flush access counts of {} FAQs, retrying next flush: {}",
+                    drained.size(), e.getMessage());
+            faqAccesses.restore(drained);
+        }
+    }
+
+    private void flushQuestionAsks(LocalDateTime now) {
+        Map<String, Long> drained = questionAsks.drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(QUESTION_UPDATE, batchArgs(drained, now));
+            log.debug("[COUNTERS] Flushed frequencies of {} questions", drained.size());
+        } catch (DataAccessException e) {
+            log.warn("[COUNTERS] Failed to flush frequencies of {} questions, retrying next flush: {}",
+                    drained.size(), e.getMessage());
+            questionAsks.restore(drained);
+            return;
+        }
+
+        if (questionStore != null) {
+            Map<String, Integer> frequencyByPointId = new HashMap<>();
+            for (UserQuestion question : questionRepository.findAllById(drained.keySet())) {
+                if (question.getQdrantPointId() != null) {
+                    frequencyByPointId.put(question.getQdrantPointId(), question.getFrequency());
+                }
+            }
+            questionStore.updateFrequencies(frequencyByPointId);
+        }
+    }
+
+    private static <K> List<Object[]> batchArgs(Map<K, Long> drained, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        return drained.entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), timestamp, e.getKey()})
+                .toList();
+    }
+
+    /**
+     * Pending increments per key. Keys that stay idle for a flush are dropped so
+     * the map only holds recently active entities; their adder is drained once
+     * more on the next flush to catch an increment that raced the removal.
+     */
+    static final class PendingCounts<K> {
+
+        private final ConcurrentHashMap<K, LongAdder> counts = new ConcurrentHashMap<>();
+        private final Map<K, LongAdder> retired = new HashMap<>();
+
+        long increment(K key) {
+            return add(key, 1);
+        }
+
+        long add(K key, long delta) {
+            LongAdder adder = counts.computeIfAbsent(key, k -> new LongAdder());
+            adder.add(delta);
+            return adder.sum();
+        }
+
+        /**
+         * Take all pending increments; callers serialize drains
+         */
+        Map<K, Long> drain() {
+            Map<K, Long> drained = new HashMap<>();
+            retired.forEach((key, adder) -> {
+                long late = adder.sumThenReset();
+                if (late > 0) {
+                    drained.merge(key, late, Long::sum);
+                }
+            });
+            retired.clear();
+
+            counts.forEach((key, adder) -> {
+                long pending = adder.sumThenReset();
+                if (pending > 0) {
+                    drained.merge(key, pending, Long::sum);
+                } else if (counts.remove(key, adder)) {
+                    retired.put(key, adder);
+                }
+            });
+            return drained;
+        }
+
+        /**
+         * Put back increments whose flush failed
+         */
+        void restore(Map<K, Long> drained) {
+            drained.forEach((key, count) -> counts.computeIfAbsent(key, k -> new LongAdder()).add(count));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.llm.EmbeddingsClient;
+import com.naagi.rag.metrics.RagMetrics;
+import com.naagi.rag.service.RagService.QueryResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of generated RAG answers.
+ *
+ * - Entries live in the {@value #CACHE_NAME} cache, whose heap size and TTL
+ *   come from ehcache.xml.
+ * - Keys are the answering mode, normalized question, topK and category, so
+ *   standard, hybrid and re-ranked answers are cached separately.
+ * - Each category has a generation counter that is bumped when documents in
+ *   it are ingested or deleted. Callers take {@link #generation} before
+ *   retrieval and pass it to {@link #put}; an entry whose generation is no
+ *   longer current is never served. Unfiltered queries ({@code null}
+ *   category) see every document, so any change bumps their counter too.
+ * - When no entry matches the question exactly, the most similar recent
+ *   question with the same mode, topK and category is served if its embedding
+ *   is within {@code maxDistance} cosine distance. Question embeddings come
+ *   from the embeddings client, which caches them for the retrieval that
+ *   follows a miss.
+ */
+@Service
+public class AnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AnswerCache.class);
+
+    public static final String CACHE_NAME = "ragQueryResults";
+
+    // Generation key for queries without a category filter
+    private static final String ALL_CATEGORIES = "";
+
+    record Key(String mode, String question, int topK, String category) {}
+
+    private record Entry(QueryResult result, long generation, float[] embedding) {}
+
+    private record Scope(String mode, int topK, String category) {}
+
+    private final Cache cache;
+    private final EmbeddingsClient embed;
+    private final RagMetrics metrics;
+    private final double maxDistance;
+    private final int semanticCandidates;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    // Most recent keys per scope, newest first; checked for semantic matches
+    private final ConcurrentHashMap<Scope, Deque<Key>> recentKeys = new ConcurrentHashMap<>();
+
+    public AnswerCache(
+            CacheManager cacheManager,
+            EmbeddingsClient embed,
+            RagMetrics metrics,
+            @Value("${naagi.rag.cache.enabled:true}") boolean enabled,
+            @Value("${naagi.rag.cache.answer-max-distance:0.05}") double maxDistance,
+            @Value("${naagi.rag.cache.answer-semantic-candidates:256}") int semanticCandidates
+    ) {
+        this.cache = enabled ? cacheManager.getCache(CACHE_NAME) : null;
+        this.embed = embed;
+        this.metrics = metrics;
+        this.maxDistance = maxDistance;
+        this.semanticCandidates = semanticCandidates;
+
+        if (enabled && cache == null) {
+            log.warn("[ANSWER CACHE] No '{}' cache configured, answers will not be cached", CACHE_NAME);
+        } else {
+            log.info("[ANSWER CACHE] enabled={}, maxDistance={}, semanticCandidates={}",
+                    cache != null, maxDistance, semanticCandidates);
+        }
+    }
+
+    /**
+     * Current generation of a category; take it before retrieval and hand it to {@link #put}
+     */
+    public long generation(String category) {
+        return epoch.get() + counter(category).get();
+    }
+
+    /**
+     * Cached answer for the question, or for a semantically close one
+     */
+    public Optional<QueryResult> get(String mode, String question, int topK, String category) {
+        if (cache == null) {
+            return Optional.empty();
+        }
+        long generation = generation(category);
+        Key key = key(mode, question, topK, category);
+
+        Entry exact = cache.get(key, Entry.class);
+        if (exact != null && exact.generation() == generation) {
+            metrics.recordCacheHit();
+            return Optional.of(exact.result());
+        }
+
+        if (maxDistance > 0) {
+            Entry close = closest(key, embed.embed(question), generation);
+            if (close != null) {
+                metrics.recordCacheHit();
+                metrics.recordCacheSemanticHit();
+                QueryResult result = close.result();
+                return Optional.of(new QueryResult(question, result.answer(), result.sources(), result.retrieval()));
+            }
+        }
+
+        metrics.recordCacheMiss();
+        return Optional.empty();
+    }
+
+    /**
+     * Cache an answer computed from a retrieval that started at {@code generation}.
+     * Answers whose category changed since then are dropped.
+     */
+    public void put(String mode, String question, int topK, String category, long generation, QueryResult result) {
+        if (cache == null || generation != generation(category)) {
+            return;
+        }
+        Key key = key(mode, question, topK, category);
+        float[] embedding = maxDistance > 0 ? embed.embed(question) : null;
+        cache.put(key, new Entry(result, generation, embedding));
+
+        if (embedding != null) {
+            Deque<Key> keys = recentKeys.computeIfAbsent(new Scope(mode, topK, key.category()), s -> new ArrayDeque<>());
+            synchronized (keys) {
+                keys.remove(key);
+                keys.addFirst(key);
+                while (keys.size() > semanticCandidates) {
+                    keys.removeLast();
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidate answers that may draw on documents in the given categories
+     */
+    public void invalidate(Collection<String> categories) {
+        counter(null).incrementAndGet();
+        if (categories != null) {
+            for (String category : categories) {
+                counter(category).incrementAndGet();
+            }
+        }
+        metrics.recordCacheInvalidation();
+        log.debug("[ANSWER CACHE] Invalidated categories {}", categories);
+    }
+
+    /**
+     * Invalidate every cached answer, e.g. when a document of unknown category is deleted
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        recentKeys.clear();
+        metrics.recordCacheInvalidation();
+        log.debug("[ANSWER CACHE] Invalidated all answers");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", cache != null);
+        stats.put("maxDistance", maxDistance);
+        stats.put("semanticCandidates", semanticCandidates);
+        stats.put("epoch", epoch.get());
+        stats.put("semanticScopes", recentKeys.size());
+        return stats;
+    }
+
+    private Entry closest(Key key, float[] query, long generation) {
+        Deque<Key> keys = recentKeys.get(new Scope(key.mode(), key.topK(), key.category()));
+        if (keys == null) {
+            return null;
+        }
+        Key[] candidates;
+        synchronized (keys) {
+            candidates = keys.toArray(Key[]::new);
+        }
+
+        Entry best = null;
+        double bestDistance = maxDistance;
+        for (Key candidate : candidates) {
+            Entry entry = cache.get(candidate, Entry.class);
+            if (entry == null || entry.generation() != generation || entry.embedding() == null) {
+                continue;
+            }
+            double distance = 1.0 - cosineSimilarity(query, entry.embedding());
+            if (distance <= bestDistance) {
+                best = entry;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private AtomicLong counter(String category) {
+        return generations.computeIfAbsent(category == null ? ALL_CATEGORIES : category, c -> new AtomicLong());
+    }
+
+    private static Key key(String mode, String question, int topK, String category) {
+        String normalized = question.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return new Key(mode, normalized, topK, category == null ? ALL_CATEGORIES : category);
+    }
+
+    private static double cosineSimilarity(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0.0;
+        }
+
+        double dotProduct = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+
+        if (normA == 0 || normB == 0) {
+            return 0.0;
+        }
+        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
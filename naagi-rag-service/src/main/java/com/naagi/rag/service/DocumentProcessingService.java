@@ -399,36 +399,26 @@ public class DocumentProcessingService {
     }
 
     private void validateQAPairs(DocumentUpload upload, List<GeneratedQA> qaList) {
-        String tempCollection = tempCollectionService.getTempCollectionName(upload.getId());
+        // Embed all questions in one batch; on failure each query embeds its own question
+        List<float[]> questionVectors = null;
+        try {
+            questionVectors = embeddingsClient.embedBatch(qaList.stream().map(GeneratedQA::getQuestion).toList());
+        } catch (Exception e) {
+            log.warn("Failed to batch-embed questions for upload {}: {}", upload.getId(), e.getMessage());
+        }
 
+        List<GeneratedQA> answered = new ArrayList<>(qaList.size());
         for (int i = 0; i < qaList.size(); i++) {
             GeneratedQA qa = qaList.get(i);
 
             try {
                 // Query the temp collection with the question
-                String ragAnswer = tempCollectionService.queryTemp(
-                        upload.getId(),
-                        qa.getQuestion(),
-                        5  // topK
-                );
+                String ragAnswer = questionVectors != null
+                        ? tempCollectionService.queryTemp(upload.getId(), qa.getQuestion(), questionVectors.get(i), 5)
+                        : tempCollectionService.queryTemp(upload.getId(), qa.getQuestion(), 5);
 
                 qa.setRagAnswer(ragAnswer);
-
-                // Calculate similarity score between expected and RAG answer
-                double similarity = calculateAnswerSimilarity(qa.getExpectedAnswer(), ragAnswer);
-                qa.setSimilarityScore(similarity);
-
-                // Determine validation status based on similarity
-                if (similarity >= 0.7) {
-                    qa.setValidationStatus(ValidationStatus.PASSED);
-                } else if (similarity >= 0.4) {
-                    qa.setValidationStatus(ValidationStatus.PENDING);  // Needs review
-                } else {
-                    qa.setValidationStatus(ValidationStatus.FAILED);
-                }
-
-                qa.setValidatedAt(LocalDateTime.now());
-                qaRepository.save(qa);
+                answered.add(qa);
 
                 // Update progress
                 int progress = 50 + (int) ((i + 1.0) / qaList.size() * 40);
@@ -444,27 +434,76 @@ public class DocumentProcessingService {
                 qaRepository.save(qa);
             }
         }
+
+        scoreAnswers(answered);
     }
 
-    private double calculateAnswerSimilarity(String expected, String actual) {
-        if (expected == null || actual == null) {
-            return 0.0;
+    /**
+     * Score answered Q&A pairs against their expected answers, set their
+     * validation status and save them
+     */
+    private void scoreAnswers(List<GeneratedQA> answered) {
+        double[] similarities = answerSimilarities(answered);
+
+        for (int i = 0; i < answered.size(); i++) {
+            GeneratedQA qa = answered.get(i);
+            double similarity = similarities[i];
+            qa.setSimilarityScore(similarity);
+
+            // Determine validation status based on similarity
+            if (similarity >= 0.7) {
+                qa.setValidationStatus(ValidationStatus.PASSED);
+            } else if (similarity >= 0.4) {
+                qa.setValidationStatus(ValidationStatus.PENDING);  // Needs review
+            } else {
+                qa.setValidationStatus(ValidationStatus.FAILED);
+            }
+
+            qa.setValidatedAt(LocalDateTime.now());
+            qaRepository.save(qa);
+
+            log.debug("Validated Q&A {}: score={}, status={}", qa.getId(), similarity, qa.getValidationStatus());
+        }
+    }
+
+    /**
+     * Similarity of each RAG answer to its expected answer. All answers are
+     * embedded in one batch; if that fails, word overlap is used instead.
+     */
+    private double[] answerSimilarities(List<GeneratedQA> answered) {
+        double[] similarities = new double[answered.size()];
+        List<Integer> comparable = new ArrayList<>(answered.size());
+        List<String> texts = new ArrayList<>(answered.size() * 2);
+        for (int i = 0; i < answered.size(); i++) {
+            GeneratedQA qa = answered.get(i);
+            if (qa.getExpectedAnswer() != null && qa.getRagAnswer() != null) {
+                comparable.add(i);
+                texts.add(qa.getExpectedAnswer());
+                texts.add(qa.getRagAnswer());
+            }
+        }
+        if (texts.isEmpty()) {
+            return similarities;
         }
 
         // Use embedding similarity for semantic comparison
         try {
-            List<Double> expectedVec = embeddingsClient.embed(expected);
-            List<Double> actualVec = embeddingsClient.embed(actual);
-
-            return cosineSimilarity(expectedVec, actualVec);
+            List<float[]> vectors = embeddingsClient.embedBatch(texts);
+            for (int c = 0; c < comparable.size(); c++) {
+                similarities[comparable.get(c)] = cosineSimilarity(vectors.get(2 * c), vectors.get(2 * c + 1));
+            }
         } catch (Exception e) {
             log.warn("Failed to calculate embedding similarity, falling back to word overlap");
-            return wordOverlapSimilarity(expected, actual);
+            for (int i : comparable) {
+                GeneratedQA qa = answered.get(i);
+                similarities[i] = wordOverlapSimilarity(qa.getExpectedAnswer(), qa.getRagAnswer());
+            }
         }
+        return similarities;
     }
 
-    private double cosineSimilarity(List<Double> a, List<Double> b) {
-        if (a.size() != b.size()) {
+    private double cosineSimilarity(float[] a, float[] b) {
+        if (a.length != b.length) {
             return 0.0;
         }
 
@@ -472,10 +511,10 @@ public class DocumentProcessingService {
         double normA = 0.0;
         double normB = 0.0;
 
-        for (int i = 0; i < a.size(); i++) {
-            dotProduct += a.get(i) * b.get(i);
-            normA += a.get(i) * a.get(i);
-            normB += b.get(i) * b.get(i);
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
         }
 
         if (normA == 0 || normB == 0) {
@@ -515,6 +554,8 @@ public class DocumentProcessingService {
         try {
             // Move from temp to actual RAG collection
             tempCollectionService.moveToMainCollection(upload);
+            ragService.invalidateAnswers(upload.getCategoryId() != null
+                    ? List.of(upload.getCategoryId()) : List.of());
 
             upload.setStatus(ProcessingStatus.MOVED_TO_RAG);
             upload.setMovedToRagAt(LocalDateTime.now());
@@ -668,31 +709,13 @@ public class DocumentProcessingService {
      * Used when generating additional Q&A for documents already moved to RAG.
      */
     private void validateQAPairsAgainstRag(List<GeneratedQA> qaList, String categoryId) {
+        List<GeneratedQA> answered = new ArrayList<>(qaList.size());
         for (GeneratedQA qa : qaList) {
             try {
                 // Query the main RAG collection
                 String ragAnswer = ragService.ask(qa.getQuestion(), categoryId);
                 qa.setRagAnswer(ragAnswer);
-
-                // Calculate similarity score
-                double similarity = calculateAnswerSimilarity(qa.getExpectedAnswer(), ragAnswer);
-                qa.setSimilarityScore(similarity);
-
-                // Determine validation status
-                if (similarity >= 0.7) {
-                    qa.setValidationStatus(ValidationStatus.PASSED);
-                } else if (similarity >= 0.4) {
-                    qa.setValidationStatus(ValidationStatus.PENDING);
-                } else {
-                    qa.setValidationStatus(ValidationStatus.FAILED);
-                }
-
-                qa.setValidatedAt(LocalDateTime.now());
-                qaRepository.save(qa);
-
-                log.debug("Validated additional Q&A {}: score={}, status={}",
-                        qa.getId(), similarity, qa.getValidationStatus());
-
+                answered.add(qa);
             } catch (Exception e) {
                 log.error("Failed to validate additional Q&A {}: {}", qa.getId(), e.getMessage());
                 qa.setValidationStatus(ValidationStatus.FAILED);
@@ -700,6 +723,8 @@ public class DocumentProcessingService {
                 qaRepository.save(qa);
             }
         }
+
+        scoreAnswers(answered);
     }
 
     /**
@@ -6,12 +6,11 @@ import com.naagi.rag.entity.GeneratedQA;
 import com.naagi.rag.repository.FaqCacheConfigRepository;
 import com.naagi.rag.repository.FaqEntryRepository;
 import com.naagi.rag.repository.GeneratedQARepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,6 +18,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,47 +31,55 @@ public class FaqCacheService {
     private final FaqCacheConfigRepository configRepository;
     private final GeneratedQARepository generatedQARepository;
     private final CacheManager cacheManager;
+    private final AccessCounters accessCounters;
 
     // Cache name for FAQ entries
     public static final String FAQ_CACHE_NAME = "faqCache";
 
-    // Track last refresh times per category
-    private final Map<String, LocalDateTime> categoryRefreshTimes = new ConcurrentHashMap<>();
-
     // Default cache expiry in minutes
     private static final int DEFAULT_CACHE_EXPIRY_MINUTES = 5;
 
+    // Word-overlap similarity a question needs to be answered from an FAQ
+    private static final double MATCH_THRESHOLD = 0.8;
+
+    // The scheduler reloads a category once this fraction of its expiry has passed
+    private static final double REFRESH_AHEAD_FACTOR = 0.8;
+
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Categories with a background reload in flight
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    // Bumped on every eviction; a reload that started before one is not cached
+    private final Object evictionLock = new Object();
+    private long evictions;
+
+    /**
+     * A category's FAQs and matcher index, as held in the FAQ cache
+     */
+    private record CategoryFaqs(FaqMatcher matcher, LocalDateTime loadedAt, int expiryMinutes) {
+
+        boolean isOlderThan(double fractionOfExpiry, LocalDateTime now) {
+            long seconds = (long) (expiryMinutes * 60 * fractionOfExpiry);
+            return now.isAfter(loadedAt.plusSeconds(seconds));
+        }
+    }
+
     /**
      * Get FAQs for a category - uses EhCache with configurable expiration
      */
-    @Cacheable(value = FAQ_CACHE_NAME, key = "#categoryId", unless = "#result == null || #result.isEmpty()")
     public List<FaqEntry> getFaqsForCategory(String categoryId) {
-        log.debug("Cache miss for category {}, loading from database", categoryId);
-        List<FaqEntry> faqs = faqRepository.findByCategoryIdAndActiveTrueOrderByAccessCountDesc(categoryId);
-        categoryRefreshTimes.put(categoryId, LocalDateTime.now());
-        return faqs;
+        return categoryFaqs(categoryId).matcher().faqs();
     }
 
     /**
      * Get a specific FAQ answer - checks cache first
      */
     public Optional<FaqEntry> findAnswer(String categoryId, String question) {
-        // Normalize the question for matching
-        String normalizedQuestion = normalizeQuestion(question);
-
-        // Try to find in cached FAQs
-        List<FaqEntry> faqs = getFaqsForCategory(categoryId);
+        Optional<FaqEntry> match = categoryFaqs(categoryId).matcher().match(question);
 
-        // Find best match
-        Optional<FaqEntry> match = faqs.stream()
-                .filter(faq -> calculateSimilarity(normalizedQuestion, normalizeQuestion(faq.getQuestion())) > 0.8)
-                .max(Comparator.comparingDouble(faq -> calculateSimilarity(normalizedQuestion, normalizeQuestion(faq.getQuestion()))));
-
-        // Update access stats if found
-        match.ifPresent(faq -> {
-            faq.incrementAccessCount();
-            faqRepository.save(faq);
-        });
+        // Update access stats if found (written behind, off the request path)
+        match.ifPresent(faq -> accessCounters.recordFaqAccess(faq.getId()));
 
         return match;
     }
@@ -110,10 +119,12 @@ public class FaqCacheService {
     /**
      * Manually refresh cache for a category
      */
-    @CacheEvict(value = FAQ_CACHE_NAME, key = "#categoryId")
     public void evictCategoryCache(String categoryId) {
         log.info("Evicting FAQ cache for category {}", categoryId);
-        categoryRefreshTimes.remove(categoryId);
+        synchronized (evictionLock) {
+            evictions++;
+            cache().evict(categoryId);
+        }
 
         // Update last refreshed time in config
         configRepository.findByCategoryId(categoryId).ifPresent(config -> {
@@ -127,11 +138,10 @@ public class FaqCacheService {
      */
     public void refreshAllCaches() {
         log.info("Refreshing all FAQ caches");
-        Cache cache = cacheManager.getCache(FAQ_CACHE_NAME);
-        if (cache != null) {
-            cache.clear();
+        synchronized (evictionLock) {
+            evictions++;
+            cache().clear();
         }
-        categoryRefreshTimes.clear();
 
         // Update refresh times
         configRepository.findAll().forEach(config -> {
@@ -141,8 +151,9 @@ public class FaqCacheService {
     }
 
     /**
-     * Scheduled task to check and refresh expired caches
-     * Runs every minute to check for expired category caches
+     * Scheduled task to refresh category caches ahead of expiry
+     * Runs every minute; a category nearing expiry is reloaded in the background
+     * while lookups keep using the loaded FAQs, so the swap never causes a cold load
      */
     @Scheduled(fixedRate = 60000) // Every minute
     public void checkAndRefreshExpiredCaches() {
@@ -157,15 +168,15 @@ public class FaqCacheService {
                 continue;
             }
 
-            LocalDateTime lastRefresh = categoryRefreshTimes.get(categoryId);
-            if (lastRefresh == null) {
+            CategoryFaqs cached = cache().get(categoryId, CategoryFaqs.class);
+            if (cached == null) {
                 continue; // Cache not loaded yet, will load on first access
             }
 
-            LocalDateTime expiryTime = lastRefresh.plusMinutes(config.getCacheExpiryMinutes());
-            if (now.isAfter(expiryTime)) {
-                log.info("Cache expired for category {}, refreshing (expiry was {}min)", categoryId, config.getCacheExpiryMinutes());
-                evictCategoryCache(categoryId);
+            if (cached.isOlderThan(REFRESH_AHEAD_FACTOR, now)) {
+                log.info("Refreshing FAQ cache for category {} ahead of expiry (expiry is {}min)",
+                        categoryId, cached.expiryMinutes());
+                refreshAsync(categoryId);
             }
         }
     }
@@ -220,11 +231,12 @@ public class FaqCacheService {
             catStat.put("lastRefreshed", config.getLastRefreshedAt());
             catStat.put("faqCount", faqRepository.countByCategoryId(config.getCategoryId()));
 
-            LocalDateTime lastRefresh = categoryRefreshTimes.get(config.getCategoryId());
-            catStat.put("cacheLoaded", lastRefresh != null);
-            if (lastRefresh != null) {
-                catStat.put("cacheAge", java.time.Duration.between(lastRefresh, LocalDateTime.now()).toSeconds() + "s");
+            CategoryFaqs cached = cache().get(config.getCategoryId(), CategoryFaqs.class);
+            catStat.put("cacheLoaded", cached != null);
+            if (cached != null) {
+                catStat.put("cacheAge", java.time.Duration.between(cached.loadedAt(), LocalDateTime.now()).toSeconds() + "s");
             }
+            catStat.put("refreshing", refreshing.contains(config.getCategoryId()));
 
             categoryStats.add(catStat);
         }
@@ -268,29 +280,75 @@ public class FaqCacheService {
         return faqRepository.searchByQuestion(categoryId, query);
     }
 
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
     // Helper methods
 
-    private String normalizeQuestion(String question) {
-        if (question == null) return "";
-        return question.toLowerCase()
-                .replaceAll("[^a-z0-9\\s]", "")
-                .replaceAll("\\s+", " ")
-                .trim();
+    /**
+     * Cached FAQs for a category. A category that is not cached is loaded
+     * inline; an expired one is served as-is while a background reload
+     * replaces it (stale-while-revalidate).
+     */
+    private CategoryFaqs categoryFaqs(String categoryId) {
+        CategoryFaqs cached = cache().get(categoryId, CategoryFaqs.class);
+        if (cached == null) {
+            log.debug("Cache miss for category {}, loading from database", categoryId);
+            return load(categoryId);
+        }
+        if (cached.isOlderThan(1.0, LocalDateTime.now())) {
+            refreshAsync(categoryId);
+        }
+        return cached;
     }
 
-    private double calculateSimilarity(String s1, String s2) {
-        if (s1 == null || s2 == null) return 0.0;
-        if (s1.equals(s2)) return 1.0;
-
-        Set<String> words1 = new HashSet<>(Arrays.asList(s1.split("\\s+")));
-        Set<String> words2 = new HashSet<>(Arrays.asList(s2.split("\\s+")));
+    /**
+     * Load a category's FAQs, build its matcher and cache it unless the
+     * category is empty, has caching disabled, or was evicted meanwhile
+     */
+    private CategoryFaqs load(String categoryId) {
+        long seenEvictions;
+        synchronized (evictionLock) {
+            seenEvictions = evictions;
+        }
 
-        Set<String> intersection = new HashSet<>(words1);
-        intersection.retainAll(words2);
+        Optional<FaqCacheConfig> config = configRepository.findByCategoryId(categoryId);
+        List<FaqEntry> faqs = faqRepository.findByCategoryIdAndActiveTrueOrderByAccessCountDesc(categoryId);
+        CategoryFaqs loaded = new CategoryFaqs(new FaqMatcher(faqs, MATCH_THRESHOLD), LocalDateTime.now(),
+                config.map(FaqCacheConfig::getCacheExpiryMinutes).orElse(DEFAULT_CACHE_EXPIRY_MINUTES));
+        boolean cacheable = !faqs.isEmpty() && config.map(FaqCacheConfig::isCacheEnabled).orElse(true);
+
+        synchronized (evictionLock) {
+            if (evictions == seenEvictions) {
+                if (cacheable) {
+                    cache().put(categoryId, loaded);
+                } else {
+                    cache().evict(categoryId);
+                }
+            }
+        }
+        return loaded;
+    }
 
-        Set<String> union = new HashSet<>(words1);
-        union.addAll(words2);
+    private void refreshAsync(String categoryId) {
+        if (!refreshing.add(categoryId)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                load(categoryId);
+                log.debug("Refreshed FAQ cache for category {}", categoryId);
+            } catch (Exception e) {
+                log.warn("Failed to refresh FAQ cache for category {}, keeping loaded FAQs: {}", categoryId, e.getMessage());
+            } finally {
+                refreshing.remove(categoryId);
+            }
+        });
+    }
 
-        return union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
+    private Cache cache() {
+        return Objects.requireNonNull(cacheManager.getCache(FAQ_CACHE_NAME), FAQ_CACHE_NAME + " cache is not configured");
     }
 }
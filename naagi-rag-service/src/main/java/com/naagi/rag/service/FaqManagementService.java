@@ -8,13 +8,13 @@ import com.naagi.rag.entity.GeneratedQA;
 import com.naagi.rag.entity.GeneratedQA.AnswerSource;
 import com.naagi.rag.entity.GeneratedQA.FaqStatus;
 import com.naagi.rag.llm.EmbeddingsClient;
-import com.naagi.rag.qdrant.FaqQdrantClient;
 import com.naagi.rag.qdrant.FaqQdrantClient.FaqPoint;
 import com.naagi.rag.qdrant.FaqQdrantClient.FaqSearchResult;
 import com.naagi.rag.repository.DocumentUploadRepository;
 import com.naagi.rag.repository.FaqEntryRepository;
 import com.naagi.rag.repository.FaqSettingsRepository;
 import com.naagi.rag.repository.GeneratedQARepository;
+import com.naagi.rag.vector.FaqStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -38,9 +38,10 @@ public class FaqManagementService {
     private final DocumentUploadRepository uploadRepository;
     private final FaqEntryRepository faqEntryRepository;
     private final FaqSettingsRepository settingsRepository;
-    private final FaqQdrantClient faqQdrantClient;
+    private final FaqStore faqStore;
     private final EmbeddingsClient embeddingsClient;
     private final FaqConfig faqConfig;
+    private final AccessCounters accessCounters;
 
     @Autowired
     public FaqManagementService(
@@ -48,18 +49,20 @@ public class FaqManagementService {
             DocumentUploadRepository uploadRepository,
             FaqEntryRepository faqEntryRepository,
             FaqSettingsRepository settingsRepository,
-            @Autowired(required = false) FaqQdrantClient faqQdrantClient,
+            @Autowired(required = false) FaqStore faqStore,
             EmbeddingsClient embeddingsClient,
-            FaqConfig faqConfig) {
+            FaqConfig faqConfig,
+            AccessCounters accessCounters) {
         this.qaRepository = qaRepository;
         this.uploadRepository = uploadRepository;
         this.faqEntryRepository = faqEntryRepository;
         this.settingsRepository = settingsRepository;
-        this.faqQdrantClient = faqQdrantClient;
+        this.faqStore = faqStore;
         this.embeddingsClient = embeddingsClient;
         this.faqConfig = faqConfig;
+        this.accessCounters = accessCounters;
 
-        if (faqQdrantClient == null) {
+        if (faqStore == null) {
             log.warn("FAQ Qdrant client not available - FAQ features will be limited");
         }
     }
@@ -145,7 +148,7 @@ public class FaqManagementService {
      */
     @Transactional
     public FaqApprovalResult approveSelectedFaqs(String uploadId, String approvedBy) {
-        if (faqQdrantClient == null) {
+        if (faqStore == null) {
             return new FaqApprovalResult(0, List.of("FAQ Qdrant client not available"));
         }
 
@@ -165,13 +168,22 @@ public class FaqManagementService {
         List<FaqPoint> faqPoints = new ArrayList<>();
         List<FaqEntry> faqEntries = new ArrayList<>();
 
-        for (GeneratedQA qa : selectedQas) {
+        // Embed all questions in one batch; on failure each Q&A embeds its own question
+        List<float[]> embeddings = null;
+        try {
+            embeddings = embeddingsClient.embedBatch(selectedQas.stream().map(GeneratedQA::getQuestion).toList());
+        } catch (Exception e) {
+            log.warn("Failed to batch-embed {} FAQ questions for upload {}: {}", selectedQas.size(), uploadId, e.getMessage());
+        }
+
+        for (int i = 0; i < selectedQas.size(); i++) {
+            GeneratedQA qa = selectedQas.get(i);
             try {
                 String question = qa.getQuestion();
                 String answer = qa.getFinalAnswer();
 
                 // Generate embedding for the question
-                List<Double> embedding = embeddingsClient.embed(question);
+                float[] embedding = embeddings != null ? embeddings.get(i) : embeddingsClient.embed(question);
 
                 // Create unique point ID
                 String pointId = UUID.randomUUID().toString();
@@ -223,7 +235,7 @@ public class FaqManagementService {
         // Batch upsert to Qdrant
         if (!faqPoints.isEmpty()) {
             try {
-                faqQdrantClient.upsertFaqs(faqPoints);
+                faqStore.upsertFaqs(faqPoints);
                 log.info("Upserted {} FAQs to Qdrant for upload {}", faqPoints.size(), uploadId);
             } catch (Exception e) {
                 log.error("Failed to upsert FAQs to Qdrant", e);
@@ -291,12 +303,12 @@ public class FaqManagementService {
         faq.setAnswer(answer);
 
         // If question changed, update embedding in Qdrant
-        if (questionChanged && faqQdrantClient != null) {
+        if (questionChanged && faqStore != null) {
             try {
                 // Find the Qdrant point ID from GeneratedQA
                 GeneratedQA qa = qaRepository.findById(faqId).orElse(null);
                 if (qa != null && qa.getFaqQdrantPointId() != null) {
-                    List<Double> embedding = embeddingsClient.embed(question);
+                    float[] embedding = embeddingsClient.embed(question);
                     FaqPoint point = new FaqPoint(
                             qa.getFaqQdrantPointId(),
                             embedding,
@@ -312,7 +324,7 @@ public class FaqManagementService {
                             null,
                             faq.getCreatedAt()
                     );
-                    faqQdrantClient.upsertFaq(point);
+                    faqStore.upsertFaq(point);
                 }
             } catch (Exception e) {
                 log.error("Failed to update FAQ in Qdrant", e);
@@ -334,21 +346,21 @@ public class FaqManagementService {
         faqEntryRepository.save(faq);
 
         // Delete from Qdrant using the FaqEntry's qdrantPointId
-        if (faqQdrantClient != null) {
+        if (faqStore != null) {
             try {
                 String pointId = faq.getQdrantPointId();
                 if (pointId != null && !pointId.isEmpty()) {
-                    faqQdrantClient.deleteFaq(pointId);
+                    faqStore.deleteFaq(pointId);
                     log.info("Deleted FAQ {} from Qdrant (pointId: {})", faqId, pointId);
                 } else {
                     // Fallback: try to find via GeneratedQA (for backward compatibility)
                     GeneratedQA qa = qaRepository.findById(faqId).orElse(null);
                     if (qa != null && qa.getFaqQdrantPointId() != null) {
-                        faqQdrantClient.deleteFaq(qa.getFaqQdrantPointId());
+                        faqStore.deleteFaq(qa.getFaqQdrantPointId());
                         log.info("Deleted FAQ {} from Qdrant via GeneratedQA fallback", faqId);
                     } else {
                         // Last resort: delete by faqId payload filter
-                        faqQdrantClient.deleteFaqsByFaqId(String.valueOf(faqId));
+                        faqStore.deleteFaqsByFaqId(String.valueOf(faqId));
                         log.info("Deleted FAQ {} from Qdrant via faqId filter fallback", faqId);
                     }
                 }
@@ -370,9 +382,9 @@ public class FaqManagementService {
         faqEntryRepository.save(faq);
 
         // Re-add to Qdrant
-        if (faqQdrantClient != null) {
+        if (faqStore != null) {
             try {
-                List<Double> embedding = embeddingsClient.embed(faq.getQuestion());
+                float[] embedding = embeddingsClient.embed(faq.getQuestion());
                 String pointId = UUID.randomUUID().toString();
 
                 FaqPoint point = new FaqPoint(
@@ -390,7 +402,7 @@ public class FaqManagementService {
                         null,
                         faq.getCreatedAt()
                 );
-                faqQdrantClient.upsertFaq(point);
+                faqStore.upsertFaq(point);
 
                 // Update point ID in FaqEntry
                 faq.setQdrantPointId(pointId);
@@ -415,16 +427,16 @@ public class FaqManagementService {
      * This method always queries regardless of settings - use queryFaqsIfEnabled() for setting-aware query.
      */
     public List<FaqSearchResult> queryFaqs(String question, String categoryId, int limit) {
-        if (faqQdrantClient == null) {
+        if (faqStore == null) {
             log.warn("FAQ Qdrant client not available");
             return List.of();
         }
 
         try {
-            List<Double> embedding = embeddingsClient.embed(question);
+            float[] embedding = embeddingsClient.embed(question);
             FaqSettings settings = settingsRepository.getSettings();
             double minScore = settings.getMinSimilarityScore();
-            return faqQdrantClient.searchFaqs(embedding, limit, categoryId, minScore);
+            return faqStore.searchFaqs(embedding, limit, categoryId, minScore);
         } catch (Exception e) {
             log.error("Failed to query FAQs", e);
             return List.of();
@@ -472,14 +484,10 @@ public class FaqManagementService {
     }
 
     /**
-     * Record FAQ access (increment counter)
+     * Record FAQ access (increment counter, written behind)
      */
-    @Transactional
     public void recordFaqAccess(Long faqId) {
-        faqEntryRepository.findById(faqId).ifPresent(faq -> {
-            faq.incrementAccessCount();
-            faqEntryRepository.save(faq);
-        });
+        accessCounters.recordFaqAccess(faqId);
     }
 
     /**
@@ -492,7 +500,7 @@ public class FaqManagementService {
      * @return List of similar FAQs with their details and similarity scores
      */
     public List<Map<String, Object>> findSimilarFaqs(Long faqId, double minScore, int limit) {
-        if (faqQdrantClient == null) {
+        if (faqStore == null) {
             log.warn("FAQ Qdrant client not available - cannot find similar FAQs");
             return List.of();
         }
@@ -503,10 +511,10 @@ public class FaqManagementService {
 
         try {
             // Generate embedding for the source question
-            List<Double> embedding = embeddingsClient.embed(sourceFaq.getQuestion());
+            float[] embedding = embeddingsClient.embed(sourceFaq.getQuestion());
 
             // Search for similar FAQs (get more than limit to filter out self)
-            List<FaqSearchResult> results = faqQdrantClient.searchFaqs(
+            List<FaqSearchResult> results = faqStore.searchFaqs(
                     embedding,
                     limit + 5, // Get extra to account for filtering out self
                     null, // No category filter - search across all
@@ -601,13 +609,13 @@ public class FaqManagementService {
                 faqEntryRepository.save(targetFaq);
 
                 // Update in Qdrant if available
-                if (faqQdrantClient != null) {
+                if (faqStore != null) {
                     try {
                         // Find the Qdrant point for this FAQ
                         GeneratedQA qa = qaRepository.findById(targetFaqId).orElse(null);
                         if (qa != null && qa.getFaqQdrantPointId() != null) {
                             // Re-generate embedding (question unchanged, answer updated)
-                            List<Double> embedding = embeddingsClient.embed(targetFaq.getQuestion());
+                            float[] embedding = embeddingsClient.embed(targetFaq.getQuestion());
                             FaqPoint point = new FaqPoint(
                                     qa.getFaqQdrantPointId(),
                                     embedding,
@@ -623,7 +631,7 @@ public class FaqManagementService {
                                     null,
                                     targetFaq.getCreatedAt()
                             );
-                            faqQdrantClient.upsertFaq(point);
+                            faqStore.upsertFaq(point);
                         }
                     } catch (Exception e) {
                         log.error("Failed to update FAQ {} in Qdrant during merge", targetFaqId, e);
@@ -650,8 +658,8 @@ public class FaqManagementService {
         stats.put("totalFaqs", faqEntryRepository.countByActiveTrue());
         stats.put("totalAccess", faqEntryRepository.sumAccessCount());
 
-        if (faqQdrantClient != null) {
-            stats.putAll(faqQdrantClient.getCollectionStats());
+        if (faqStore != null) {
+            stats.putAll(faqStore.getCollectionStats());
         }
 
         return stats;
@@ -671,14 +679,14 @@ public class FaqManagementService {
      */
     @Transactional
     public FaqEntry createFaqFromUserQuestion(String question, String answer, String categoryId, String createdBy) {
-        if (faqQdrantClient == null) {
+        if (faqStore == null) {
             log.error("FAQ Qdrant client not available - cannot create FAQ");
             return null;
         }
 
         try {
             // Generate embedding for the question
-            List<Double> embedding = embeddingsClient.embed(question);
+            float[] embedding = embeddingsClient.embed(question);
 
             // Create unique point ID
             String pointId = UUID.randomUUID().toString();
@@ -701,7 +709,7 @@ public class FaqManagementService {
             );
 
             // Upsert to Qdrant
-            faqQdrantClient.upsertFaq(point);
+            faqStore.upsertFaq(point);
             log.info("Created FAQ in Qdrant from user question: {}", pointId);
 
             // Create FAQ entry in database
@@ -0,0 +1,150 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.entity.FaqEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable question index over one category's FAQs, built once per cache load.
+ *
+ * Matches by word-set Jaccard similarity above a threshold. Each FAQ question is
+ * normalized and tokenized once up front; lookups use an inverted token index
+ * with prefix filtering: any match must share at least one of the query's
+ * rarest {@code |q| - floor(threshold * |q|)} tokens, so postings of common
+ * words like "what" or "the" are never walked. Only the surviving candidates
+ * are scored exactly.
+ */
+final class FaqMatcher {
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9\\s]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final double EPSILON = 1e-9;
+
+    private final List<FaqEntry> faqs;
+    private final double threshold;
+    private final String[] normalized;
+    private final Set<String>[] tokens;
+    private final Map<String, Integer> byNormalized = new HashMap<>();
+    private final Map<String, int[]> postings = new HashMap<>();
+
+    /**
+     * @param faqs      FAQs in priority order; ties in similarity go to the earlier entry
+     * @param threshold minimum Jaccard similarity, exclusive
+     */
+    @SuppressWarnings("unchecked")
+    FaqMatcher(List<FaqEntry> faqs, double threshold) {
+        this.faqs = List.copyOf(faqs);
+        this.threshold = threshold;
+        this.normalized = new String[this.faqs.size()];
+        this.tokens = new Set[this.faqs.size()];
+
+        Map<String, List<Integer>> lists = new HashMap<>();
+        for (int i = 0; i < this.faqs.size(); i++) {
+            normalized[i] = normalize(this.faqs.get(i).getQuestion());
+            tokens[i] = tokenize(normalized[i]);
+            byNormalized.putIfAbsent(normalized[i], i);
+            for (String token : tokens[i]) {
+                lists.computeIfAbsent(token, t -> new ArrayList<>()).add(i);
+            }
+        }
+        lists.forEach((token, list) -> postings.put(token, list.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    List<FaqEntry> faqs() {
+        return faqs;
+    }
+
+    /**
+     * The FAQ whose question is most similar to {@code question}, if any scores
+     * above the threshold
+     */
+    Optional<FaqEntry> match(String question) {
+        String query = normalize(question);
+        Set<String> queryTokens = tokenize(query);
+
+        int best = -1;
+        double bestScore = threshold;
+        Integer identical = byNormalized.get(query);
+        if (identical != null) {
+            best = identical;
+            bestScore = 1.0;
+        }
+
+        for (int candidate : candidates(queryTokens)) {
+            if (candidate == best) {
+                continue;
+            }
+            double score = query.equals(normalized[candidate]) ? 1.0 : jaccard(queryTokens, tokens[candidate]);
+            if (score > bestScore || (score == bestScore && best >= 0 && candidate < best)) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best < 0 ? Optional.empty() : Optional.of(faqs.get(best));
+    }
+
+    /**
+     * FAQ ordinals that share a prefix token with the query and pass the size
+     * filter, in ascending order
+     */
+    private int[] candidates(Set<String> queryTokens) {
+        String[] byRarity = queryTokens.toArray(String[]::new);
+        Arrays.sort(byRarity, Comparator.comparingInt(this::documentFrequency));
+        // Bounds are loosened by EPSILON so rounding can only admit extra candidates, never drop one
+        int minOverlap = (int) Math.floor(threshold * byRarity.length - EPSILON) + 1;
+        int prefix = Math.max(0, byRarity.length - minOverlap + 1);
+
+        Set<Integer> found = new HashSet<>();
+        for (int i = 0; i < prefix; i++) {
+            int[] posting = postings.get(byRarity[i]);
+            if (posting == null) {
+                continue;
+            }
+            for (int candidate : posting) {
+                int size = tokens[candidate].size();
+                // J > t needs t * |q| < |c| < |q| / t
+                if (size > threshold * byRarity.length - EPSILON && threshold * size - EPSILON < byRarity.length) {
+                    found.add(candidate);
+                }
+            }
+        }
+        return found.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private int documentFrequency(String token) {
+        int[] posting = postings.get(token);
+        return posting == null ? 0 : posting.length;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int overlap = 0;
+        for (String token : smaller) {
+            if (larger.contains(token)) {
+                overlap++;
+            }
+        }
+        int union = a.size() + b.size() - overlap;
+        return union == 0 ? 0.0 : (double) overlap / union;
+    }
+
+    static String normalize(String question) {
+        if (question == null) return "";
+        String stripped = NON_ALPHANUMERIC.matcher(question.toLowerCase()).replaceAll("");
+        return WHITESPACE.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    private static Set<String> tokenize(String normalized) {
+        return new HashSet<>(Arrays.asList(WHITESPACE.split(normalized)));
+    }
+}
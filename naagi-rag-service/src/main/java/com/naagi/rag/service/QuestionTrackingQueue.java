@@ -0,0 +1,141 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.config.FaqConfig;
+import com.naagi.rag.metrics.RagMetrics;
+import com.naagi.rag.service.UserQuestionAnalyticsService.TrackQuestionRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue between request threads and question analytics.
+ *
+ * Request threads only enqueue. A single worker drains micro-batches: after
+ * the first question arrives it waits up to {@code batch-wait-ms} for more, up
+ * to {@code batch-size}, and hands the batch to
+ * {@link UserQuestionAnalyticsService#trackQuestions}. That method dedupes
+ * within the batch before querying Qdrant, so near-identical questions that
+ * arrive together are counted against one entry. When the queue is full new
+ * questions are dropped and counted (rag.questions.dropped); queue depth is
+ * exposed as rag.questions.queue.depth. The queue is drained on shutdown.
+ */
+@Service
+@Slf4j
+public class QuestionTrackingQueue {
+
+    private final UserQuestionAnalyticsService analyticsService;
+    private final FaqConfig faqConfig;
+    private final RagMetrics metrics;
+    private final BlockingQueue<TrackQuestionRequest> queue;
+    private final int batchSize;
+    private final long batchWaitMs;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    public QuestionTrackingQueue(
+            UserQuestionAnalyticsService analyticsService,
+            FaqConfig faqConfig,
+            RagMetrics metrics,
+            @Value("${naagi.user-questions.queue-capacity:10000}") int capacity,
+            @Value("${naagi.user-questions.batch-size:64}") int batchSize,
+            @Value("${naagi.user-questions.batch-wait-ms:200}") long batchWaitMs) {
+        this.analyticsService = analyticsService;
+        this.faqConfig = faqConfig;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.batchWaitMs = batchWaitMs;
+        this.worker = Thread.ofPlatform().name("question-tracking").daemon().unstarted(this::drainLoop);
+        metrics.registerQuestionQueue(queue);
+    }
+
+    @PostConstruct
+    void start() {
+        worker.start();
+        log.info("[QUESTION QUEUE] Started: capacity={}, batchSize={}, batchWaitMs={}",
+                queue.remainingCapacity(), batchSize, batchWaitMs);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty()) {
+            log.warn("[QUESTION QUEUE] Stopped with {} questions not tracked", queue.size());
+        }
+    }
+
+    /**
+     * Queue a question for tracking without waiting for it
+     *
+     * @return false if tracking is disabled or the question was dropped because the queue is full
+     */
+    public boolean submit(TrackQuestionRequest request) {
+        if (!faqConfig.isStoreAllQuestions()) {
+            return false;
+        }
+        if (queue.offer(request)) {
+            return true;
+        }
+        metrics.recordQuestionDropped();
+        log.debug("[QUESTION QUEUE] Queue full, dropped question");
+        return false;
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<TrackQuestionRequest> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TrackQuestionRequest first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+
+                long start = System.currentTimeMillis();
+                analyticsService.trackQuestions(List.copyOf(batch));
+                metrics.recordQuestionBatch(batch.size(), System.currentTimeMillis() - start);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("[QUESTION QUEUE] Failed to track batch of {} questions", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Take further questions until the batch is full or the linger time runs out
+     */
+    private void fillBatch(List<TrackQuestionRequest> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWaitMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            TrackQuestionRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+}
@@ -2,33 +2,52 @@ package com.naagi.rag.service;
 
 import com.naagi.rag.chunk.HybridChunker;
 import com.naagi.rag.entity.DocumentUpload;
+import com.naagi.rag.ingest.IngestPipeline;
 import com.naagi.rag.llm.ChatClient;
 import com.naagi.rag.llm.EmbeddingsClient;
 import com.naagi.rag.metrics.RagMetrics;
-import com.naagi.rag.qdrant.QdrantClient;
 import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.QdrantClient.ScrollPage;
 import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import com.naagi.rag.qdrant.QdrantClient.StoredChunk;
 import com.naagi.rag.rerank.RerankerService;
 import com.naagi.rag.rerank.RerankerService.Document;
 import com.naagi.rag.rerank.RerankerService.RerankResult;
 import com.naagi.rag.repository.DocumentUploadRepository;
+import com.naagi.rag.search.Analyzer;
 import com.naagi.rag.search.BM25Index;
 import com.naagi.rag.search.HybridSearchService;
 import com.naagi.rag.search.HybridSearchService.HybridResult;
 import com.naagi.rag.search.HybridSearchService.SearchHit;
+import com.naagi.rag.vector.VectorStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,8 +58,13 @@ public class RagService {
     public record QueryResult(
             String question,
             String answer,
-            List<SourceChunk> sources
-    ) {}
+            List<SourceChunk> sources,
+            List<BranchReport> retrieval
+    ) {
+        public QueryResult(String question, String answer, List<SourceChunk> sources) {
+            this(question, answer, sources, List.of());
+        }
+    }
 
     public record SourceChunk(
             String docId,
@@ -50,20 +74,42 @@ public class RagService {
             String title
     ) {}
 
+    /**
+     * Outcome of one hybrid retrieval branch
+     */
+    public enum BranchStatus { CONTRIBUTED, EMPTY, TIMED_OUT, FAILED }
+
+    /**
+     * How one hybrid retrieval branch ("dense" or "sparse") did for a query
+     */
+    public record BranchReport(String branch, BranchStatus status, long timeMs, int hits) {}
+
+    /**
+     * Retrieved sources along with the per-branch report (empty when hybrid search is off)
+     */
+    public record Retrieval(List<SourceChunk> sources, List<BranchReport> branches) {}
+
+    private record TimedHits(List<SearchHit> hits, long timeMs) {}
+
+    private record BranchOutcome(List<SearchHit> hits, BranchReport report, Throwable failure) {}
+
     private final HybridChunker chunker;
     private final EmbeddingsClient embed;
     private final ChatClient chat;
-    private final QdrantClient qdrant;
+    private final VectorStore vectorStore;
     private final RagMetrics metrics;
 
     private final int topK;
-    private final int batchSize;
-    private final Semaphore embedPermits;
+    private final IngestPipeline ingestPipeline;
 
     private volatile boolean loggedEmbeddingDim = false;
 
-    private final Map<String, QueryResult> queryCache = new ConcurrentHashMap<>();
-    private static final int MAX_CACHE_SIZE = 500;
+    // Answer cache modes; each answering path caches its own answers
+    private static final String MODE_STANDARD = "standard";
+    private static final String MODE_HYBRID = "hybrid";
+    private static final String MODE_RERANK = "rerank";
+
+    private final AnswerCache answerCache;
 
     private final double minRelevanceScore;
 
@@ -74,8 +120,19 @@ public class RagService {
     private final double hybridDenseWeight;
     private final double hybridSparseWeight;
 
-    // Category mappings for BM25 filtering
-    private final Map<String, List<String>> documentCategories = new ConcurrentHashMap<>();
+    // Dense and sparse branches run side by side on virtual threads, each with its own deadline
+    private final ExecutorService retrievalExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long denseTimeoutMs;
+    private final long sparseTimeoutMs;
+    private final AtomicLong denseBranchMisses = new AtomicLong();
+    private final AtomicLong sparseBranchMisses = new AtomicLong();
+
+    // Warm rebuild of the BM25 index from Qdrant when no committed segments exist
+    private final int bm25RebuildPageSize;
+    private volatile String bm25BuildState;
+    private final AtomicLong bm25BuildIndexed = new AtomicLong();
+    private volatile long bm25BuildTotal = 0;
+    private volatile long bm25BuildTimeMs = 0;
 
     // Reranking service
     private final RerankerService rerankerService;
@@ -89,34 +146,48 @@ public class RagService {
             @Value("${naagi.rag.chunking.minChars}") int minChars,
             @Value("${naagi.rag.retrieval.topK}") int topK,
             @Value("${naagi.rag.retrieval.minRelevanceScore:0.75}") double minRelevanceScore,
-            @Value("${naagi.rag.performance.qdrantBatchSize}") int batchSize,
-            @Value("${naagi.rag.performance.maxConcurrentEmbeddings}") int maxEmbed,
             @Value("${naagi.rag.hybrid.enabled:false}") boolean hybridSearchEnabled,
             @Value("${naagi.rag.hybrid.dense-weight:0.7}") double hybridDenseWeight,
             @Value("${naagi.rag.hybrid.sparse-weight:0.3}") double hybridSparseWeight,
             @Value("${naagi.rag.hybrid.rrf-k:60}") double rrfK,
+            @Value("${naagi.rag.hybrid.index-dir:}") String bm25IndexDir,
+            @Value("${naagi.rag.hybrid.rebuild-page-size:256}") int bm25RebuildPageSize,
+            @Value("${naagi.rag.hybrid.bm25-evaluation:MAX_SCORE}") BM25Index.Evaluation bm25Evaluation,
+            @Value("${naagi.rag.hybrid.bm25-analyzer:standard}") String bm25Analyzer,
+            @Value("${naagi.rag.hybrid.dense-timeout-ms:3000}") long denseTimeoutMs,
+            @Value("${naagi.rag.hybrid.sparse-timeout-ms:500}") long sparseTimeoutMs,
             EmbeddingsClient embed,
             ChatClient chat,
-            QdrantClient qdrant,
+            VectorStore vectorStore,
             RagMetrics metrics,
+            IngestPipeline ingestPipeline,
+            AnswerCache answerCache,
             RerankerService rerankerService,
             DocumentUploadRepository documentUploadRepository
     ) {
         this.chunker = new HybridChunker(maxChars, overlap, minChars);
         this.embed = embed;
         this.chat = chat;
-        this.qdrant = qdrant;
+        this.vectorStore = vectorStore;
         this.metrics = metrics;
         this.topK = topK;
         this.minRelevanceScore = minRelevanceScore;
-        this.batchSize = batchSize;
-        this.embedPermits = new Semaphore(Math.max(1, maxEmbed));
+        this.ingestPipeline = ingestPipeline;
+        this.answerCache = answerCache;
 
         // Initialize hybrid search
         this.hybridSearchEnabled = hybridSearchEnabled;
         this.hybridDenseWeight = hybridDenseWeight;
         this.hybridSparseWeight = hybridSparseWeight;
-        this.bm25Index = new BM25Index();
+        this.denseTimeoutMs = denseTimeoutMs;
+        this.sparseTimeoutMs = sparseTimeoutMs;
+        Analyzer analyzer = Analyzer.forName(bm25Analyzer);
+        this.bm25Index = hybridSearchEnabled && !bm25IndexDir.isBlank()
+                ? BM25Index.open(Path.of(bm25IndexDir), analyzer)
+                : new BM25Index(analyzer);
+        this.bm25Index.setEvaluation(bm25Evaluation);
+        this.bm25RebuildPageSize = bm25RebuildPageSize;
+        this.bm25BuildState = !hybridSearchEnabled ? "DISABLED" : bm25Index.isRestored() ? "RESTORED" : "PENDING";
         this.hybridSearchService = new HybridSearchService(rrfK);
 
         // Initialize reranker
@@ -134,67 +205,70 @@ public class RagService {
     }
 
     public int ingest(String docId, String text, List<String> categories) {
-        long ingestStart = System.currentTimeMillis();
-        List<String> chunks = chunker.chunk(text);
-        if (chunks.isEmpty()) return 0;
-
-        List<Point> batch = new ArrayList<>(batchSize);
-
-        for (int i = 0; i < chunks.size(); i++) {
-            embedPermits.acquireUninterruptibly();
-            try {
-                String chunk = chunks.get(i);
-                List<Double> vec = embed.embed(chunk);
-
-                if (!loggedEmbeddingDim) {
-                    loggedEmbeddingDim = true;
-                    log.info("[RAG] Detected embedding dimension={}", vec.size());
-                }
-                if (vec.size() <= 1) {
-                    throw new IllegalStateException("Embedding vector looks wrong (dim=" + vec.size() + "). Check embedding server response parsing.");
-                }
+        IngestPipeline.Result result = ingestPipeline.run(new IngestPipeline.Job(
+                docId,
+                () -> chunker.chunk(text),
+                (i, chunk, vec) -> chunkPoint(docId, i, chunk, vec, categories),
+                vectorStore::upsertBatch,
+                hybridSearchEnabled ? bm25Indexer(docId, categories) : null));
+        if (result.chunks() == 0) return 0;
+        answerCache.invalidate(categories);
+
+        metrics.recordIngestTime(result.totalMs());
+        metrics.recordDocumentIngested(result.chunks());
+        log.info("[TIMING] Document ingest: {}ms for {} chunks (hybridIndex={})",
+                result.totalMs(), result.chunks(), hybridSearchEnabled);
 
-                String chunkId = stableId(docId + ":" + i + ":" + chunk);
+        return result.chunks();
+    }
 
-                Map<String, Object> payload = new java.util.HashMap<>();
-                payload.put("docId", docId);
-                payload.put("chunkIndex", i);
-                payload.put("text", chunk);
-                if (categories != null && !categories.isEmpty()) {
-                    payload.put("categories", categories);
-                }
+    private Point chunkPoint(String docId, int i, String chunk, float[] vec, List<String> categories) {
+        if (!loggedEmbeddingDim) {
+            loggedEmbeddingDim = true;
+            log.info("[RAG] Detected embedding dimension={}", vec.length);
+        }
+        if (vec.length <= 1) {
+            throw new IllegalStateException("Embedding vector looks wrong (dim=" + vec.length + "). Check embedding server response parsing.");
+        }
 
-                Point p = new Point(chunkId, vec, payload);
+        Map<String, Object> payload = new java.util.HashMap<>();
+        payload.put("docId", docId);
+        payload.put("chunkIndex", i);
+        payload.put("text", chunk);
+        if (categories != null && !categories.isEmpty()) {
+            payload.put("categories", categories);
+        }
 
-                batch.add(p);
-                if (batch.size() >= batchSize) {
-                    qdrant.upsertBatch(batch);
-                    batch.clear();
-                }
+        return new Point(stableId(docId + ":" + i + ":" + chunk), vec, payload);
+    }
 
-                // Index in BM25 for hybrid search
-                if (hybridSearchEnabled) {
-                    bm25Index.index(chunkId, docId, i, chunk);
-                    if (categories != null && !categories.isEmpty()) {
-                        documentCategories.put(chunkId, new ArrayList<>(categories));
-                    }
+    /**
+     * Sparse stage of ingest: collects the document's chunks and commits them
+     * as one BM25 segment, visible to searches all at once
+     */
+    private IngestPipeline.SparseIndexer bm25Indexer(String docId, List<String> categories) {
+        List<BM25Index.DocumentToIndex> docs = new ArrayList<>();
+        return new IngestPipeline.SparseIndexer() {
+            @Override
+            public void add(int firstChunkIndex, List<String> chunks) {
+                for (int i = 0; i < chunks.size(); i++) {
+                    int chunkIndex = firstChunkIndex + i;
+                    String chunk = chunks.get(i);
+                    docs.add(new BM25Index.DocumentToIndex(
+                            stableId(docId + ":" + chunkIndex + ":" + chunk), docId, chunkIndex, chunk, categories));
                 }
-            } finally {
-                embedPermits.release();
             }
-        }
-
-        if (!batch.isEmpty()) {
-            qdrant.upsertBatch(batch);
-        }
 
-        long ingestTime = System.currentTimeMillis() - ingestStart;
-        metrics.recordIngestTime(ingestTime);
-        metrics.recordDocumentIngested(chunks.size());
-        log.info("[TIMING] Document ingest: {}ms for {} chunks (hybridIndex={})",
-                ingestTime, chunks.size(), hybridSearchEnabled);
+            @Override
+            public void commit() {
+                bm25Index.indexBatch(docs);
+            }
 
-        return chunks.size();
+            @Override
+            public void rollback() {
+                docs.forEach(doc -> bm25Index.remove(doc.id()));
+            }
+        };
     }
 
     public String ask(String question) {
@@ -202,8 +276,8 @@ public class RagService {
     }
 
     public String ask(String question, String category) {
-        List<Double> qVec = embed.embed(question);
-        List<String> ctx = qdrant.searchPayloadTexts(qVec, topK, category);
+        float[] qVec = embed.embed(question);
+        List<String> ctx = vectorStore.searchPayloadTexts(qVec, topK, category);
 
         String contextBlock = String.join("\n\n---\n\n", ctx);
 
@@ -235,25 +309,22 @@ public class RagService {
     public QueryResult askWithSources(String question, int topK, String category) {
         long totalStart = System.currentTimeMillis();
 
-        String cacheKey = buildCacheKey(question, topK, category);
-
-        QueryResult cached = queryCache.get(cacheKey);
-        if (cached != null) {
+        long generation = answerCache.generation(category);
+        Optional<QueryResult> cached = answerCache.get(MODE_STANDARD, question, topK, category);
+        if (cached.isPresent()) {
             long cacheTime = System.currentTimeMillis() - totalStart;
             log.info("[TIMING] Cache HIT - returning cached result in {}ms", cacheTime);
-            metrics.recordCacheHit();
-            return cached;
+            return cached.get();
         }
-        metrics.recordCacheMiss();
 
         long embedStart = System.currentTimeMillis();
-        List<Double> qVec = embed.embed(question);
+        float[] qVec = embed.embed(question);
         long embedTime = System.currentTimeMillis() - embedStart;
         log.info("[TIMING] Embedding generation: {}ms", embedTime);
         metrics.recordEmbeddingTime(embedTime);
 
         long searchStart = System.currentTimeMillis();
-        List<SearchResultWithScore> results = qdrant.searchWithScores(qVec, topK, category);
+        List<SearchResultWithScore> results = vectorStore.searchWithScores(qVec, topK, category);
         long searchTime = System.currentTimeMillis() - searchStart;
         log.info("[TIMING] Vector search (topK={}): {}ms, found {} results", topK, searchTime, results.size());
         metrics.recordVectorSearchTime(searchTime);
@@ -300,20 +371,7 @@ public class RagService {
         metrics.recordLlmChatTime(llmTime);
 
         QueryResult result = new QueryResult(question, answer, sources);
-
-        boolean shouldCache = !sources.isEmpty()
-                && sources.get(0).relevanceScore() >= 0.65
-                && !isNoInformationAnswer(answer);
-
-        if (shouldCache && queryCache.size() < MAX_CACHE_SIZE) {
-            queryCache.put(cacheKey, result);
-            log.info("[CACHE] Cached result for question: {} (score: {})", question, sources.get(0).relevanceScore());
-        } else if (!shouldCache) {
-            log.info("[CACHE] Skipped caching low-quality result - score: {}, isNoInfo: {}, question: {}",
-                    sources.isEmpty() ? 0.0 : sources.get(0).relevanceScore(),
-                    isNoInformationAnswer(answer),
-                    question);
-        }
+        cacheAnswer(MODE_STANDARD, topK, category, generation, result, 0.65);
 
         long totalTime = System.currentTimeMillis() - totalStart;
         log.info("[TIMING] Total RAG query time: {}ms (embed={}ms, search={}ms, llm={}ms)",
@@ -323,10 +381,34 @@ public class RagService {
         return result;
     }
 
-    private String buildCacheKey(String question, int topK, String category) {
-        String normalized = question.toLowerCase().trim();
-        String cat = category == null ? "" : category;
-        return normalized + "|" + topK + "|" + cat;
+    /**
+     * Cache an answer unless it is a no-information answer or its top source
+     * scores below {@code minTopScore}
+     */
+    private void cacheAnswer(String mode, int topK, String category, long generation, QueryResult result,
+                             double minTopScore) {
+        List<SourceChunk> sources = result.sources();
+        boolean shouldCache = !sources.isEmpty()
+                && sources.get(0).relevanceScore() >= minTopScore
+                && !isNoInformationAnswer(result.answer());
+
+        if (shouldCache) {
+            answerCache.put(mode, result.question(), topK, category, generation, result);
+            log.info("[CACHE] Cached {} result for question: {} (score: {})",
+                    mode, result.question(), sources.get(0).relevanceScore());
+        } else {
+            log.info("[CACHE] Skipped caching low-quality result - score: {}, isNoInfo: {}, question: {}",
+                    sources.isEmpty() ? 0.0 : sources.get(0).relevanceScore(),
+                    isNoInformationAnswer(result.answer()),
+                    result.question());
+        }
+    }
+
+    /**
+     * Drop cached answers after documents in the given categories changed outside {@link #ingest}
+     */
+    public void invalidateAnswers(Collection<String> categories) {
+        answerCache.invalidate(categories);
     }
 
     private boolean isNoInformationAnswer(String answer) {
@@ -355,16 +437,28 @@ public class RagService {
                                       java.util.function.Consumer<StreamEvent> onEvent) {
         long totalStart = System.currentTimeMillis();
 
+        // Replay a cached answer as sources plus a single token
+        long generation = answerCache.generation(category);
+        Optional<QueryResult> cached = answerCache.get(MODE_STANDARD, question, topK, category);
+        if (cached.isPresent()) {
+            onEvent.accept(new StreamEvent("sources", null, cached.get().sources()));
+            onEvent.accept(new StreamEvent("prompt", null, null, "Cached answer"));
+            onEvent.accept(new StreamEvent("token", cached.get().answer(), null));
+            onEvent.accept(new StreamEvent("done", null, null));
+            log.info("[TIMING] Cache HIT - replayed cached answer in {}ms", System.currentTimeMillis() - totalStart);
+            return;
+        }
+
         // Embedding
         long embedStart = System.currentTimeMillis();
-        List<Double> qVec = embed.embed(question);
+        float[] qVec = embed.embed(question);
         long embedTime = System.currentTimeMillis() - embedStart;
         log.info("[TIMING] Embedding generation: {}ms", embedTime);
         metrics.recordEmbeddingTime(embedTime);
 
         // Vector search
         long searchStart = System.currentTimeMillis();
-        List<SearchResultWithScore> results = qdrant.searchWithScores(qVec, topK, category);
+        List<SearchResultWithScore> results = vectorStore.searchWithScores(qVec, topK, category);
         long searchTime = System.currentTimeMillis() - searchStart;
         log.info("[TIMING] Vector search (topK={}): {}ms, found {} results", topK, searchTime, results.size());
         metrics.recordVectorSearchTime(searchTime);
@@ -416,7 +510,9 @@ public class RagService {
 
         // Stream LLM response
         long llmStart = System.currentTimeMillis();
+        StringBuilder answer = new StringBuilder();
         chat.chatStream(prompt, 0.2, 256, token -> {
+            answer.append(token);
             onEvent.accept(new StreamEvent("token", token, null));
         });
         long llmTime = System.currentTimeMillis() - llmStart;
@@ -426,6 +522,8 @@ public class RagService {
         // Send done event
         onEvent.accept(new StreamEvent("done", null, null));
 
+        cacheAnswer(MODE_STANDARD, topK, category, generation, new QueryResult(question, answer.toString(), sources), 0.65);
+
         long totalTime = System.currentTimeMillis() - totalStart;
         log.info("[TIMING] Total RAG streaming query time: {}ms (embed={}ms, search={}ms, llm={}ms)",
                 totalTime, embedTime, searchTime, llmTime);
@@ -528,20 +626,79 @@ public class RagService {
      * @return List of source chunks ranked by hybrid RRF score
      */
     public List<SourceChunk> hybridSearch(String question, int topK, String category) {
+        return hybridRetrieve(question, topK, category).sources();
+    }
+
+    /**
+     * Hybrid search that also reports which branches contributed.
+     *
+     * The sparse branch (local BM25) runs concurrently with the dense branch
+     * (embedding + Qdrant), each on a virtual thread and each with its own
+     * deadline measured from the start of the search. A branch that misses its
+     * deadline or fails is left out and the other branch's hits are fused alone.
+     * Only when neither branch answers does the search fail.
+     */
+    public Retrieval hybridRetrieve(String question, int topK, String category) {
         if (!hybridSearchEnabled) {
             log.warn("[HYBRID] Hybrid search not enabled, falling back to dense-only search");
-            return denseOnlySearch(question, topK, category);
+            return new Retrieval(denseOnlySearch(question, topK, category), List.of());
         }
 
-        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        int candidates = topK * 2;
+
+        CompletableFuture<TimedHits> sparse = CompletableFuture.supplyAsync(
+                () -> timed(() -> sparseHits(question, candidates, category)), retrievalExecutor);
+        CompletableFuture<TimedHits> dense = CompletableFuture.supplyAsync(
+                () -> timed(() -> denseHits(question, candidates, category)), retrievalExecutor);
+
+        BranchOutcome denseOutcome = await("dense", dense, startNanos, denseTimeoutMs, denseBranchMisses);
+        BranchOutcome sparseOutcome = await("sparse", sparse, startNanos, sparseTimeoutMs, sparseBranchMisses);
+
+        if (isMissing(denseOutcome) && isMissing(sparseOutcome)) {
+            Throwable cause = denseOutcome.failure() != null ? denseOutcome.failure() : sparseOutcome.failure();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Hybrid search failed: no retrieval branch answered in time", cause);
+        }
+
+        // Fuse with weighted RRF
+        long fusionStart = System.currentTimeMillis();
+        List<HybridResult> fusedResults = hybridSearchService.fuseWithWeightedRRF(
+                denseOutcome.hits(), sparseOutcome.hits(), hybridDenseWeight, hybridSparseWeight, topK);
+        long fusionTime = System.currentTimeMillis() - fusionStart;
+
+        BranchReport denseReport = denseOutcome.report();
+        BranchReport sparseReport = sparseOutcome.report();
+        long totalTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        log.info("[HYBRID TIMING] total={}ms (dense={}ms {}, sparse={}ms {}, fusion={}ms) " +
+                        "denseHits={}, sparseHits={}, fusedResults={}",
+                totalTime, denseReport.timeMs(), denseReport.status(), sparseReport.timeMs(), sparseReport.status(),
+                fusionTime, denseReport.hits(), sparseReport.hits(), fusedResults.size());
+
+        // Log fusion details
+        if (log.isDebugEnabled()) {
+            long bothCount = fusedResults.stream().filter(r -> r.inDense() && r.inSparse()).count();
+            long denseOnlyCount = fusedResults.stream().filter(r -> r.inDense() && !r.inSparse()).count();
+            long sparseOnlyCount = fusedResults.stream().filter(r -> !r.inDense() && r.inSparse()).count();
+            log.debug("[HYBRID] Result breakdown: both={}, denseOnly={}, sparseOnly={}",
+                    bothCount, denseOnlyCount, sparseOnlyCount);
+        }
+
+        List<SourceChunk> sources = fusedResults.stream()
+                .map(r -> enrichWithTitle(r.docId(), r.chunkIndex(), r.rrfScore(), r.text(), r.title()))
+                .toList();
+        return new Retrieval(sources, List.of(denseReport, sparseReport));
+    }
 
-        // 1. Dense search (semantic)
-        long denseStart = System.currentTimeMillis();
-        List<Double> qVec = embed.embed(question);
-        List<SearchResultWithScore> denseResults = qdrant.searchWithScores(qVec, topK * 2, category);
-        long denseTime = System.currentTimeMillis() - denseStart;
+    private List<SearchHit> denseHits(String question, int candidates, String category) {
+        float[] qVec = embed.embed(question);
+        return toSearchHits(vectorStore.searchWithScores(qVec, candidates, category));
+    }
 
-        List<SearchHit> denseHits = denseResults.stream()
+    private static List<SearchHit> toSearchHits(List<SearchResultWithScore> results) {
+        return results.stream()
                 .map(r -> new SearchHit(
                         stableId(r.docId() + ":" + r.chunkIndex() + ":" + r.text()),
                         r.docId(),
@@ -550,51 +707,80 @@ public class RagService {
                         r.title(),
                         r.score()))
                 .toList();
+    }
 
-        // 2. Sparse search (BM25)
-        long sparseStart = System.currentTimeMillis();
+    private List<SearchHit> sparseHits(String question, int candidates, String category) {
         List<BM25Index.BM25Result> sparseResults;
         if (category != null && !category.isBlank()) {
-            sparseResults = bm25Index.search(question, topK * 2, category, documentCategories);
+            sparseResults = bm25Index.search(question, candidates, BM25Index.CategoryFilter.of(category));
         } else {
-            sparseResults = bm25Index.search(question, topK * 2);
+            sparseResults = bm25Index.search(question, candidates);
         }
-        long sparseTime = System.currentTimeMillis() - sparseStart;
-
-        List<SearchHit> sparseHits = sparseResults.stream()
+        return sparseResults.stream()
                 .map(r -> new SearchHit(r.id(), r.docId(), r.chunkIndex(), r.text(), r.title(), r.score()))
                 .toList();
+    }
 
-        // 3. Fuse with weighted RRF
-        long fusionStart = System.currentTimeMillis();
-        List<HybridResult> fusedResults = hybridSearchService.fuseWithWeightedRRF(
-                denseHits, sparseHits, hybridDenseWeight, hybridSparseWeight, topK);
-        long fusionTime = System.currentTimeMillis() - fusionStart;
+    private static TimedHits timed(Supplier<List<SearchHit>> branch) {
+        long start = System.currentTimeMillis();
+        List<SearchHit> hits = branch.get();
+        return new TimedHits(hits, System.currentTimeMillis() - start);
+    }
 
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("[HYBRID TIMING] total={}ms (dense={}ms, sparse={}ms, fusion={}ms) " +
-                        "denseHits={}, sparseHits={}, fusedResults={}",
-                totalTime, denseTime, sparseTime, fusionTime,
-                denseHits.size(), sparseHits.size(), fusedResults.size());
+    /**
+     * Wait for a branch until its deadline. A late branch is abandoned rather
+     * than interrupted: its result is simply ignored when it arrives.
+     */
+    private BranchOutcome await(String branch, CompletableFuture<TimedHits> future, long startNanos,
+                                long timeoutMs, AtomicLong misses) {
+        long remainingNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs) - System.nanoTime();
+        try {
+            TimedHits result = future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+            BranchStatus status = result.hits().isEmpty() ? BranchStatus.EMPTY : BranchStatus.CONTRIBUTED;
+            return new BranchOutcome(result.hits(),
+                    new BranchReport(branch, status, result.timeMs(), result.hits().size()), null);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            misses.incrementAndGet();
+            log.warn("[HYBRID] {} branch missed its {}ms deadline, continuing without it", branch, timeoutMs);
+            return new BranchOutcome(List.of(),
+                    new BranchReport(branch, BranchStatus.TIMED_OUT, elapsedMs(startNanos), 0), null);
+        } catch (ExecutionException e) {
+            misses.incrementAndGet();
+            log.warn("[HYBRID] {} branch failed, continuing without it: {}", branch, e.getCause().getMessage());
+            return new BranchOutcome(List.of(),
+                    new BranchReport(branch, BranchStatus.FAILED, elapsedMs(startNanos), 0), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for the " + branch + " branch", e);
+        }
+    }
 
-        // Log fusion details
-        long bothCount = fusedResults.stream().filter(r -> r.inDense() && r.inSparse()).count();
-        long denseOnlyCount = fusedResults.stream().filter(r -> r.inDense() && !r.inSparse()).count();
-        long sparseOnlyCount = fusedResults.stream().filter(r -> !r.inDense() && r.inSparse()).count();
-        log.debug("[HYBRID] Result breakdown: both={}, denseOnly={}, sparseOnly={}",
-                bothCount, denseOnlyCount, sparseOnlyCount);
+    private static boolean isMissing(BranchOutcome outcome) {
+        BranchStatus status = outcome.report().status();
+        return status == BranchStatus.TIMED_OUT || status == BranchStatus.FAILED;
+    }
 
-        return fusedResults.stream()
-                .map(r -> enrichWithTitle(r.docId(), r.chunkIndex(), r.rrfScore(), r.text(), r.title()))
-                .toList();
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * First-stage retrieval: hybrid when enabled, dense-only otherwise
+     */
+    private Retrieval retrieve(String question, int topK, String category) {
+        return hybridSearchEnabled
+                ? hybridRetrieve(question, topK, category)
+                : new Retrieval(denseOnlySearch(question, topK, category), List.of());
     }
 
     /**
      * Fallback to dense-only search when hybrid is disabled
      */
     private List<SourceChunk> denseOnlySearch(String question, int topK, String category) {
-        List<Double> qVec = embed.embed(question);
-        List<SearchResultWithScore> results = qdrant.searchWithScores(qVec, topK, category);
+        float[] qVec = embed.embed(question);
+        List<SearchResultWithScore> results = vectorStore.searchWithScores(qVec, topK, category);
         return results.stream()
                 .map(r -> enrichWithTitle(r.docId(), r.chunkIndex(), r.score(), r.text(), r.title()))
                 .toList();
@@ -606,14 +792,23 @@ public class RagService {
     public QueryResult askWithHybridSearch(String question, int topK, String category) {
         long totalStart = System.currentTimeMillis();
 
+        long generation = answerCache.generation(category);
+        Optional<QueryResult> cached = answerCache.get(MODE_HYBRID, question, topK, category);
+        if (cached.isPresent()) {
+            log.info("[TIMING] Cache HIT - returning cached hybrid result in {}ms", System.currentTimeMillis() - totalStart);
+            return cached.get();
+        }
+
         // Use hybrid search for retrieval
-        List<SourceChunk> sources = hybridSearch(question, topK, category);
+        Retrieval retrieval = hybridRetrieve(question, topK, category);
+        List<SourceChunk> sources = retrieval.sources();
 
         // Check if top result meets minimum relevance threshold
         // Note: RRF scores are typically small (0.01-0.03), so we check if we have any results
         if (sources.isEmpty()) {
             log.info("[RAG] No results from hybrid search");
-            return new QueryResult(question, "I don't have information about that in the knowledge base.", sources);
+            return new QueryResult(question, "I don't have information about that in the knowledge base.", sources,
+                    retrieval.branches());
         }
 
         String contextBlock = sources.stream()
@@ -646,7 +841,10 @@ public class RagService {
         long totalTime = System.currentTimeMillis() - totalStart;
         log.info("[TIMING] Total hybrid RAG query time: {}ms (llm={}ms)", totalTime, llmTime);
 
-        return new QueryResult(question, answer, sources);
+        // RRF scores are not comparable to cosine scores, so only no-information answers are skipped
+        QueryResult result = new QueryResult(question, answer, sources, retrieval.branches());
+        cacheAnswer(MODE_HYBRID, topK, category, generation, result, Double.NEGATIVE_INFINITY);
+        return result;
     }
 
     /**
@@ -657,9 +855,124 @@ public class RagService {
         stats.put("hybridSearchEnabled", hybridSearchEnabled);
         stats.put("denseWeight", hybridDenseWeight);
         stats.put("sparseWeight", hybridSparseWeight);
+        stats.put("denseTimeoutMs", denseTimeoutMs);
+        stats.put("sparseTimeoutMs", sparseTimeoutMs);
+        stats.put("denseBranchMisses", denseBranchMisses.get());
+        stats.put("sparseBranchMisses", sparseBranchMisses.get());
+        stats.put("buildState", bm25BuildState);
+        stats.put("buildIndexedChunks", bm25BuildIndexed.get());
+        stats.put("buildTotalChunks", bm25BuildTotal);
+        stats.put("buildProgress", bm25BuildTotal == 0 ? 0.0
+                : Math.min(1.0, (double) bm25BuildIndexed.get() / bm25BuildTotal));
+        stats.put("buildTimeMs", bm25BuildTimeMs);
         return stats;
     }
 
+    /**
+     * Rebuild the BM25 index in the background when nothing was restored from disk,
+     * so hybrid search does not run with an empty sparse side after a restart.
+     * A restored index is rebuilt too when its chunk count differs from the
+     * vector store's: changes after the last commit are lost on a crash.
+     * The restored index keeps serving searches until the rebuild is swapped in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpBM25Index() {
+        if (!hybridSearchEnabled) {
+            return;
+        }
+        Thread.ofVirtual().name("bm25-rebuild").start(() -> {
+            if (bm25Index.isRestored() && restoredBM25IndexIsCurrent()) {
+                return;
+            }
+            rebuildBM25Index();
+        });
+    }
+
+    /**
+     * Whether the restored index holds as many chunks as the vector store, counting
+     * the chunks it skipped for having no terms. If the store cannot be counted,
+     * the restored index is kept.
+     */
+    private boolean restoredBM25IndexIsCurrent() {
+        try {
+            long stored = vectorStore.countPoints();
+            long indexed = (long) bm25Index.size() + bm25Index.skippedCount();
+            if (stored == indexed) {
+                log.info("[HYBRID] Restored BM25 index matches the vector store ({} chunks)", stored);
+                return true;
+            }
+            log.warn("[HYBRID] Restored BM25 index has {} chunks but the vector store has {}; rebuilding",
+                    indexed, stored);
+            return false;
+        } catch (Exception e) {
+            log.warn("[HYBRID] Could not count the vector store, keeping the restored BM25 index: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Re-index every chunk in the vector store, one scroll page at a time, into a
+     * separate index that replaces the current one when complete
+     */
+    private void rebuildBM25Index() {
+        long start = System.currentTimeMillis();
+        bm25BuildState = "REBUILDING";
+        bm25BuildIndexed.set(0);
+        BM25Index rebuilt = bm25Index.startRebuild();
+        try {
+            bm25BuildTotal = vectorStore.countPoints();
+            log.info("[HYBRID] Rebuilding BM25 index from the vector store ({} chunks)", bm25BuildTotal);
+
+            JsonNode offset = null;
+            do {
+                ScrollPage page = vectorStore.scrollChunks(offset, bm25RebuildPageSize);
+                List<BM25Index.DocumentToIndex> docs = new ArrayList<>(page.chunks().size());
+                for (StoredChunk chunk : page.chunks()) {
+                    // Same id scheme as ingest(), so later re-ingests replace these entries
+                    String chunkId = stableId(chunk.docId() + ":" + chunk.chunkIndex() + ":" + chunk.text());
+                    docs.add(new BM25Index.DocumentToIndex(chunkId, chunk.docId(), chunk.chunkIndex(), chunk.text(),
+                            chunk.categories()));
+                }
+                rebuilt.indexBatch(docs);
+                bm25BuildIndexed.addAndGet(docs.size());
+                offset = page.nextOffset();
+            } while (offset != null);
+
+            bm25Index.finishRebuild(rebuilt);
+            commitBM25Index();
+            bm25BuildTimeMs = System.currentTimeMillis() - start;
+            bm25BuildState = "READY";
+            log.info("[HYBRID] BM25 index rebuilt with {} chunks in {}ms", bm25BuildIndexed.get(), bm25BuildTimeMs);
+        } catch (Exception e) {
+            bm25Index.abandonRebuild(rebuilt);
+            bm25BuildTimeMs = System.currentTimeMillis() - start;
+            bm25BuildState = "FAILED";
+            log.warn("[HYBRID] BM25 index rebuild failed after {} chunks: {}", bm25BuildIndexed.get(), e.getMessage());
+        }
+    }
+
+    /**
+     * Periodically persist BM25 changes as a new on-disk segment
+     */
+    @Scheduled(fixedDelayString = "${naagi.rag.hybrid.commit-interval-ms:30000}")
+    public void commitBM25Index() {
+        if (!hybridSearchEnabled) {
+            return;
+        }
+        try {
+            bm25Index.commit();
+        } catch (Exception e) {
+            log.warn("[HYBRID] BM25 index commit failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void closeBM25Index() {
+        retrievalExecutor.shutdownNow();
+        commitBM25Index();
+        bm25Index.close();
+    }
+
     /**
      * Check if hybrid search is enabled
      */
@@ -667,12 +980,39 @@ public class RagService {
         return hybridSearchEnabled;
     }
 
+    /**
+     * Delete a document's chunks from the vector store and the BM25 index.
+     * Its categories are not known here, so every cached answer is dropped.
+     */
+    public void deleteDocument(String docId) {
+        vectorStore.deleteByDocId(docId);
+        removeFromBM25Index(docId);
+        answerCache.invalidateAll();
+    }
+
+    /**
+     * Delete every chunk from the vector store and the BM25 index
+     */
+    public void deleteAllDocuments() {
+        vectorStore.deleteAll();
+        clearBM25Index();
+        answerCache.invalidateAll();
+    }
+
+    /**
+     * Drop every chunk of a document from the BM25 index
+     */
+    public void removeFromBM25Index(String docId) {
+        if (hybridSearchEnabled) {
+            bm25Index.removeByDocId(docId);
+        }
+    }
+
     /**
      * Clear the BM25 index (useful for reindexing)
      */
     public void clearBM25Index() {
         bm25Index.clear();
-        documentCategories.clear();
         log.info("[HYBRID] BM25 index cleared");
     }
 
@@ -702,31 +1042,46 @@ public class RagService {
      * @return Re-ranked source chunks
      */
     public List<SourceChunk> searchWithReranking(String question, int topK, String category) {
+        return retrieveWithReranking(question, topK, category).sources();
+    }
+
+    private Retrieval retrieveWithReranking(String question, int topK, String category) {
         if (!rerankerService.isEnabled()) {
             log.debug("[RERANK] Reranker disabled, using standard search");
-            return hybridSearchEnabled
-                    ? hybridSearch(question, topK, category)
-                    : denseOnlySearch(question, topK, category);
+            return retrieve(question, topK, category);
         }
 
         long startTime = System.currentTimeMillis();
 
         // 1. Initial retrieval with more candidates
-        int candidateCount = rerankerService.getCandidateCount();
-        List<SourceChunk> candidates = hybridSearchEnabled
-                ? hybridSearch(question, candidateCount, category)
-                : denseOnlySearch(question, candidateCount, category);
+        Retrieval initial = retrieve(question, candidatePoolSize(topK), category);
+        List<SourceChunk> candidates = initial.sources();
 
         if (candidates.isEmpty()) {
-            return List.of();
+            return initial;
         }
 
         long retrievalTime = System.currentTimeMillis() - startTime;
 
-        // 2. Convert to reranker documents
+        // 2. Re-rank
+        long rerankStart = System.currentTimeMillis();
+        List<SourceChunk> sources = rerank(question, candidates, topK);
+        long rerankTime = System.currentTimeMillis() - rerankStart;
+
+        long totalTime = System.currentTimeMillis() - startTime;
+        log.info("[RERANK PIPELINE] total={}ms (retrieval={}ms, rerank={}ms) candidates={}, reranked={}",
+                totalTime, retrievalTime, rerankTime, candidates.size(), sources.size());
+
+        return new Retrieval(sources, initial.branches());
+    }
+
+    /**
+     * Cross-encoder re-rank of a candidate pool, keeping the top K
+     */
+    private List<SourceChunk> rerank(String question, List<SourceChunk> candidates, int topK) {
+        // Convert to reranker documents
         List<Document> documents = new ArrayList<>();
-        for (int i = 0; i < candidates.size(); i++) {
-            SourceChunk chunk = candidates.get(i);
+        for (SourceChunk chunk : candidates) {
             Map<String, Object> metadata = new HashMap<>();
             metadata.put("docId", chunk.docId());
             metadata.put("chunkIndex", chunk.chunkIndex());
@@ -739,14 +1094,7 @@ public class RagService {
             ));
         }
 
-        // 3. Re-rank
-        long rerankStart = System.currentTimeMillis();
         List<RerankResult> reranked = rerankerService.rerank(question, documents, topK);
-        long rerankTime = System.currentTimeMillis() - rerankStart;
-
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("[RERANK PIPELINE] total={}ms (retrieval={}ms, rerank={}ms) candidates={}, reranked={}",
-                totalTime, retrievalTime, rerankTime, candidates.size(), reranked.size());
 
         // Log rank changes for top results
         for (int i = 0; i < Math.min(3, reranked.size()); i++) {
@@ -755,7 +1103,7 @@ public class RagService {
                     i + 1, r.originalRank() + 1, r.rerankScore(), r.initialScore());
         }
 
-        // 4. Convert back to SourceChunks
+        // Convert back to SourceChunks
         return reranked.stream()
                 .map(r -> enrichWithTitle(
                         (String) r.metadata().get("docId"),
@@ -767,18 +1115,112 @@ public class RagService {
                 .toList();
     }
 
+    /**
+     * Size of the first-stage pool that searchWithReranking narrows to topK
+     */
+    private int candidatePoolSize(int topK) {
+        return rerankerService.isEnabled() ? rerankerService.getCandidateCount() : topK;
+    }
+
+    /**
+     * First-stage candidates for a question, i.e. what searchWithReranking
+     * would re-rank. Callers that merge several queries keep these pools and
+     * re-rank the merged pool once with {@link #rerankCandidates}.
+     */
+    public List<SourceChunk> retrieveCandidates(String question, int topK, String category) {
+        return retrieve(question, candidatePoolSize(topK), category).sources();
+    }
+
+    /**
+     * First-stage candidates for several questions, with one embeddings call
+     * and one Qdrant batch search for all of them. With hybrid search each
+     * question's BM25 hits are fused in as usual; if the dense batch fails the
+     * pools fall back to BM25 alone.
+     *
+     * @return one candidate pool per question, in order
+     */
+    public List<List<SourceChunk>> retrieveCandidatesBatch(List<String> questions, int topK, String category) {
+        if (questions.isEmpty()) {
+            return List.of();
+        }
+        long startTime = System.currentTimeMillis();
+        int poolSize = candidatePoolSize(topK);
+        int candidates = hybridSearchEnabled ? poolSize * 2 : poolSize;
+
+        List<List<SearchHit>> dense;
+        try {
+            List<float[]> vectors = embed.embedBatch(questions);
+            dense = vectorStore.searchBatchWithScores(vectors, candidates, category).stream()
+                    .map(RagService::toSearchHits)
+                    .toList();
+        } catch (RuntimeException e) {
+            if (!hybridSearchEnabled) {
+                throw e;
+            }
+            denseBranchMisses.incrementAndGet();
+            log.warn("[HYBRID] dense batch search failed, continuing without it: {}", e.getMessage());
+            dense = Collections.nCopies(questions.size(), List.of());
+        }
+
+        List<List<SourceChunk>> pools = new ArrayList<>(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            if (!hybridSearchEnabled) {
+                pools.add(dense.get(i).stream()
+                        .map(h -> enrichWithTitle(h.docId(), h.chunkIndex(), h.score(), h.text(), h.title()))
+                        .toList());
+                continue;
+            }
+            List<SearchHit> sparse = sparseHits(questions.get(i), candidates, category);
+            pools.add(hybridSearchService.fuseWithWeightedRRF(
+                            dense.get(i), sparse, hybridDenseWeight, hybridSparseWeight, poolSize).stream()
+                    .map(r -> enrichWithTitle(r.docId(), r.chunkIndex(), r.rrfScore(), r.text(), r.title()))
+                    .toList());
+        }
+
+        log.info("[BATCH RETRIEVAL] {} queries in {}ms (pool={}, hybrid={})",
+                questions.size(), System.currentTimeMillis() - startTime, poolSize, hybridSearchEnabled);
+        return pools;
+    }
+
+    /**
+     * Re-rank a candidate pool, possibly merged from several queries, against
+     * one question and keep the top K. Without a reranker the pool is ordered
+     * by its first-stage scores.
+     */
+    public List<SourceChunk> rerankCandidates(String question, List<SourceChunk> candidates, int topK) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        if (!rerankerService.isEnabled()) {
+            return candidates.stream()
+                    .sorted((a, b) -> Double.compare(b.relevanceScore(), a.relevanceScore()))
+                    .limit(topK)
+                    .toList();
+        }
+        return rerank(question, candidates, topK);
+    }
+
     /**
      * Ask a question using the full retrieval + re-ranking pipeline
      */
     public QueryResult askWithReranking(String question, int topK, String category) {
         long totalStart = System.currentTimeMillis();
 
+        long generation = answerCache.generation(category);
+        Optional<QueryResult> cached = answerCache.get(MODE_RERANK, question, topK, category);
+        if (cached.isPresent()) {
+            log.info("[TIMING] Cache HIT - returning cached re-ranked result in {}ms", System.currentTimeMillis() - totalStart);
+            return cached.get();
+        }
+
         // Use re-ranking pipeline for retrieval
-        List<SourceChunk> sources = searchWithReranking(question, topK, category);
+        Retrieval retrieval = retrieveWithReranking(question, topK, category);
+        List<SourceChunk> sources = retrieval.sources();
 
         if (sources.isEmpty()) {
             log.info("[RAG] No results from re-ranking pipeline");
-            return new QueryResult(question, "I don't have information about that in the knowledge base.", sources);
+            return new QueryResult(question, "I don't have information about that in the knowledge base.", sources,
+                    retrieval.branches());
         }
 
         String contextBlock = sources.stream()
@@ -811,7 +1253,10 @@ public class RagService {
         long totalTime = System.currentTimeMillis() - totalStart;
         log.info("[TIMING] Total re-ranking RAG query time: {}ms (llm={}ms)", totalTime, llmTime);
 
-        return new QueryResult(question, answer, sources);
+        // Rerank scores vary by model, so only no-information answers are skipped
+        QueryResult result = new QueryResult(question, answer, sources, retrieval.branches());
+        cacheAnswer(MODE_RERANK, topK, category, generation, result, Double.NEGATIVE_INFINITY);
+        return result;
     }
 
     /**
@@ -821,6 +1266,13 @@ public class RagService {
         return rerankerService.getStats();
     }
 
+    /**
+     * Get answer cache statistics
+     */
+    public Map<String, Object> getAnswerCacheStats() {
+        return answerCache.getStats();
+    }
+
     /**
      * Check if reranker is enabled
      */
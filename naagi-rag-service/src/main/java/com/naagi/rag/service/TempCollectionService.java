@@ -3,12 +3,16 @@ package com.naagi.rag.service;
 import com.naagi.rag.chunk.HybridChunker;
 import com.naagi.rag.entity.DocumentUpload;
 import com.naagi.rag.http.Http;
+import com.naagi.rag.ingest.IngestPipeline;
 import com.naagi.rag.json.Json;
 import com.naagi.rag.llm.ChatClient;
 import com.naagi.rag.llm.EmbeddingsClient;
 import com.naagi.rag.qdrant.QdrantClient;
 import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.QdrantCodec;
 import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import com.naagi.rag.vector.VectorStore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -33,7 +37,7 @@ import java.util.stream.Collectors;
 public class TempCollectionService {
 
     private final String qdrantBaseUrl;
-    private final String mainCollection;
+    private final VectorStore vectorStore;
     private final int vectorSize;
     private final String distance;
     private final EmbeddingsClient embeddingsClient;
@@ -42,10 +46,10 @@ public class TempCollectionService {
     private final int overlapChars;
     private final int minChars;
     private final int batchSize;
+    private final IngestPipeline ingestPipeline;
 
     public TempCollectionService(
             @Value("${naagi.rag.qdrant.baseUrl}") String qdrantBaseUrl,
-            @Value("${naagi.rag.qdrant.collection}") String mainCollection,
             @Value("${naagi.rag.qdrant.vectorSize}") int vectorSize,
             @Value("${naagi.rag.qdrant.distance:Cosine}") String distance,
             @Value("${naagi.rag.chunking.maxChars:1200}") int maxChars,
@@ -53,9 +57,11 @@ public class TempCollectionService {
             @Value("${naagi.rag.chunking.minChars:100}") int minChars,
             @Value("${naagi.rag.performance.qdrantBatchSize:64}") int batchSize,
             EmbeddingsClient embeddingsClient,
-            ChatClient chatClient) {
+            ChatClient chatClient,
+            IngestPipeline ingestPipeline,
+            VectorStore vectorStore) {
         this.qdrantBaseUrl = qdrantBaseUrl;
-        this.mainCollection = mainCollection;
+        this.vectorStore = vectorStore;
         this.vectorSize = vectorSize;
         this.distance = distance;
         this.embeddingsClient = embeddingsClient;
@@ -64,6 +70,7 @@ public class TempCollectionService {
         this.overlapChars = overlapChars;
         this.minChars = minChars;
         this.batchSize = batchSize;
+        this.ingestPipeline = ingestPipeline;
     }
 
     public String getTempCollectionName(String uploadId) {
@@ -76,59 +83,53 @@ public class TempCollectionService {
         // Create temp collection
         createCollection(tempCollection);
 
-        // Chunk the document
+        // Chunk, embed and store through the ingest pipeline
         HybridChunker chunker = new HybridChunker(maxChars, overlapChars, minChars);
-        List<String> chunks = chunker.chunk(upload.getOriginalContent());
-
-        if (chunks.isEmpty()) {
+        IngestPipeline.Result result = ingestPipeline.run(new IngestPipeline.Job(
+                tempCollection,
+                () -> chunker.chunk(upload.getOriginalContent()),
+                (i, chunk, vector) -> tempPoint(upload, i, chunk, vector),
+                points -> upsertBatch(tempCollection, points),
+                null));
+
+        if (result.chunks() == 0) {
             log.warn("No chunks generated for upload {}", upload.getId());
             return 0;
         }
 
-        // Store chunks in temp collection
-        List<Point> batch = new ArrayList<>();
-
-        for (int i = 0; i < chunks.size(); i++) {
-            String chunk = chunks.get(i);
-            List<Double> vector = embeddingsClient.embed(chunk);
-
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("docId", upload.getDocId());
-            payload.put("uploadId", upload.getId());
-            payload.put("chunkIndex", i);
-            payload.put("text", chunk);
-            if (upload.getCategoryId() != null) {
-                payload.put("categories", List.of(upload.getCategoryId()));
-            }
-
-            Point point = new Point(
-                    stableId(upload.getId() + ":" + i + ":" + chunk),
-                    vector,
-                    payload
-            );
-
-            batch.add(point);
+        log.info("Stored {} chunks in temp collection {} for upload {}",
+                result.chunks(), tempCollection, upload.getId());
 
-            if (batch.size() >= batchSize) {
-                upsertBatch(tempCollection, batch);
-                batch.clear();
-            }
-        }
+        return result.chunks();
+    }
 
-        if (!batch.isEmpty()) {
-            upsertBatch(tempCollection, batch);
+    private Point tempPoint(DocumentUpload upload, int chunkIndex, String chunk, float[] vector) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("docId", upload.getDocId());
+        payload.put("uploadId", upload.getId());
+        payload.put("chunkIndex", chunkIndex);
+        payload.put("text", chunk);
+        if (upload.getCategoryId() != null) {
+            payload.put("categories", List.of(upload.getCategoryId()));
         }
 
-        log.info("Stored {} chunks in temp collection {} for upload {}",
-                chunks.size(), tempCollection, upload.getId());
-
-        return chunks.size();
+        return new Point(
+                stableId(upload.getId() + ":" + chunkIndex + ":" + chunk),
+                vector,
+                payload
+        );
     }
 
     public String queryTemp(String uploadId, String question, int topK) {
+        return queryTemp(uploadId, question, embeddingsClient.embed(question), topK);
+    }
+
+    /**
+     * Answer a question whose embedding the caller already has, e.g. from a batch
+     */
+    public String queryTemp(String uploadId, String question, float[] queryVector, int topK) {
         String tempCollection = getTempCollectionName(uploadId);
 
-        List<Double> queryVector = embeddingsClient.embed(question);
         List<SearchResultWithScore> results = searchWithScores(tempCollection, queryVector, topK);
 
         if (results.isEmpty()) {
@@ -163,32 +164,17 @@ public class TempCollectionService {
             return List.of();
         }
 
-        List<Map<String, Object>> points = getAllPoints(tempCollection);
+        List<ScrolledPoint> points = getAllPoints(tempCollection, false);
 
         return points.stream()
                 .map(point -> {
-                    Object payloadObj = point.get("payload");
-                    if (payloadObj == null) return null;
-
-                    // Handle both JsonNode and Map types
-                    int chunkIndex;
-                    String text;
-
-                    if (payloadObj instanceof JsonNode) {
-                        JsonNode payload = (JsonNode) payloadObj;
-                        JsonNode chunkIndexNode = payload.get("chunkIndex");
-                        JsonNode textNode = payload.get("text");
-                        chunkIndex = chunkIndexNode != null ? chunkIndexNode.asInt(0) : 0;
-                        text = textNode != null ? textNode.asText() : "";
-                    } else if (payloadObj instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> payload = (Map<String, Object>) payloadObj;
-                        chunkIndex = payload.get("chunkIndex") != null
-                                ? ((Number) payload.get("chunkIndex")).intValue() : 0;
-                        text = (String) payload.get("text");
-                    } else {
-                        return null;
-                    }
+                    JsonNode payload = point.payload();
+                    if (payload == null) return null;
+
+                    JsonNode chunkIndexNode = payload.get("chunkIndex");
+                    JsonNode textNode = payload.get("text");
+                    int chunkIndex = chunkIndexNode != null ? chunkIndexNode.asInt(0) : 0;
+                    String text = textNode != null ? textNode.asText() : "";
 
                     return new ChunkData(chunkIndex, text);
                 })
@@ -203,73 +189,14 @@ public class TempCollectionService {
      */
     public List<ChunkData> getChunksFromMainCollection(String docId) {
         log.debug("Getting chunks from main collection for docId: {}", docId);
-        List<ChunkData> chunks = getChunksByDocId(mainCollection, docId);
-        log.info("Found {} chunks in main collection for docId: {}", chunks.size(), docId);
-        return chunks;
-    }
-
-    /**
-     * Get chunks from a collection filtered by docId.
-     * Returns ChunkData directly to avoid JSON parsing issues.
-     */
-    private List<ChunkData> getChunksByDocId(String collection, String docId) {
         try {
-            // Create filter for docId
-            ObjectNode matchVal = Json.MAPPER.createObjectNode();
-            matchVal.put("value", docId);
-
-            ObjectNode keyFilter = Json.MAPPER.createObjectNode();
-            keyFilter.put("key", "docId");
-            keyFilter.set("match", matchVal);
-
-            ObjectNode filter = Json.MAPPER.createObjectNode();
-            filter.set("must", Json.MAPPER.createArrayNode().add(keyFilter));
-
-            ObjectNode body = Json.MAPPER.createObjectNode();
-            body.put("limit", 10000);
-            body.put("with_payload", true);
-            body.put("with_vector", false);
-            body.set("filter", filter);
-
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(qdrantBaseUrl + "/collections/" + collection + "/points/scroll"))
-                    .timeout(Duration.ofSeconds(60))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
-                    .build();
-
-            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
-            if (resp.statusCode() / 100 != 2) {
-                log.warn("Failed to scroll points from {} for docId {}: HTTP {}", collection, docId, resp.statusCode());
-                return List.of();
-            }
-
-            JsonNode root = Json.MAPPER.readTree(resp.body());
-            JsonNode result = root.get("result");
-            if (result == null) return List.of();
-
-            JsonNode points = result.get("points");
-            if (points == null || !points.isArray()) return List.of();
-
-            List<ChunkData> chunks = new ArrayList<>();
-            for (JsonNode point : points) {
-                JsonNode payload = point.get("payload");
-                if (payload == null) continue;
-
-                JsonNode chunkIndexNode = payload.get("chunkIndex");
-                JsonNode textNode = payload.get("text");
-
-                int chunkIndex = chunkIndexNode != null ? chunkIndexNode.asInt(0) : 0;
-                String text = textNode != null ? textNode.asText() : "";
-
-                chunks.add(new ChunkData(chunkIndex, text));
-            }
-
-            // Sort by chunk index
-            chunks.sort((a, b) -> Integer.compare(a.chunkIndex(), b.chunkIndex()));
+            List<ChunkData> chunks = vectorStore.chunksByDocId(docId).stream()
+                    .map(chunk -> new ChunkData(chunk.chunkIndex(), chunk.text()))
+                    .toList();
+            log.info("Found {} chunks in main collection for docId: {}", chunks.size(), docId);
             return chunks;
         } catch (Exception e) {
-            log.error("Failed to get chunks by docId {} from {}", docId, collection, e);
+            log.error("Failed to get chunks by docId {} from main collection", docId, e);
             return List.of();
         }
     }
@@ -302,7 +229,7 @@ public class TempCollectionService {
         String tempCollection = getTempCollectionName(upload.getId());
 
         // Get all points from temp collection (including vectors)
-        List<Map<String, Object>> tempPoints = getAllPoints(tempCollection);
+        List<ScrolledPoint> tempPoints = getAllPoints(tempCollection, true);
 
         if (tempPoints.isEmpty()) {
             log.warn("No points found in temp collection for upload {}", upload.getId());
@@ -312,21 +239,15 @@ public class TempCollectionService {
         // Reuse existing vectors from temp collection - no need to re-embed
         List<Point> batch = new ArrayList<>();
 
-        for (Map<String, Object> tempPoint : tempPoints) {
-            JsonNode payloadNode = (JsonNode) tempPoint.get("payload");
-            JsonNode vectorNode = (JsonNode) tempPoint.get("vector");
+        for (ScrolledPoint tempPoint : tempPoints) {
+            JsonNode payloadNode = tempPoint.payload();
+            float[] vector = tempPoint.vector();
 
-            if (payloadNode == null || vectorNode == null) {
+            if (payloadNode == null || vector == null) {
                 log.warn("Skipping point with missing payload or vector");
                 continue;
             }
 
-            // Extract vector
-            List<Double> vector = new ArrayList<>();
-            for (JsonNode v : vectorNode) {
-                vector.add(v.asDouble());
-            }
-
             // Build new payload with updated metadata
             Map<String, Object> payload = new HashMap<>();
             payload.put("docId", upload.getDocId());
@@ -433,23 +354,13 @@ public class TempCollectionService {
 
     private void upsertBatch(String collection, List<Point> points) {
         try {
-            ArrayNode arr = Json.MAPPER.createArrayNode();
-            for (Point p : points) {
-                ObjectNode obj = Json.MAPPER.createObjectNode();
-                obj.put("id", p.id());
-                obj.set("vector", toArray(p.vector()));
-                obj.set("payload", Json.MAPPER.valueToTree(p.payload()));
-                arr.add(obj);
-            }
-
-            ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("points", arr);
+            QdrantCodec.Body body = QdrantCodec.writePoints(points);
 
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(qdrantBaseUrl + "/collections/" + collection + "/points?wait=true"))
                     .timeout(Duration.ofSeconds(60))
                     .header("Content-Type", "application/json")
-                    .PUT(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
+                    .PUT(body.publisher())
                     .build();
 
             HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
@@ -463,13 +374,13 @@ public class TempCollectionService {
     }
 
     private void upsertBatchToMain(List<Point> points) {
-        upsertBatch(mainCollection, points);
+        vectorStore.upsertBatch(points);
     }
 
-    private List<SearchResultWithScore> searchWithScores(String collection, List<Double> queryVector, int topK) {
+    private List<SearchResultWithScore> searchWithScores(String collection, float[] queryVector, int topK) {
         try {
             ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("vector", toArray(queryVector));
+            body.putPOJO("vector", queryVector);
             body.put("limit", topK);
             body.put("with_payload", true);
 
@@ -491,12 +402,24 @@ public class TempCollectionService {
         }
     }
 
-    private List<Map<String, Object>> getAllPoints(String collection) {
+    /**
+     * Scroll response shape; vectors bind straight to float[] without a JSON tree
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ScrollResponse(ScrollResult result) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ScrollResult(List<ScrolledPoint> points) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ScrolledPoint(String id, JsonNode payload, float[] vector) {}
+
+    private List<ScrolledPoint> getAllPoints(String collection, boolean withVectors) {
         try {
             ObjectNode body = Json.MAPPER.createObjectNode();
             body.put("limit", 10000);
             body.put("with_payload", true);
-            body.put("with_vector", true);
+            body.put("with_vector", withVectors);
 
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(qdrantBaseUrl + "/collections/" + collection + "/points/scroll"))
@@ -511,34 +434,15 @@ public class TempCollectionService {
                 return List.of();
             }
 
-            JsonNode root = Json.MAPPER.readTree(resp.body());
-            JsonNode result = root.get("result");
-            if (result == null) return List.of();
-
-            JsonNode points = result.get("points");
-            if (points == null || !points.isArray()) return List.of();
-
-            List<Map<String, Object>> out = new ArrayList<>();
-            for (JsonNode point : points) {
-                Map<String, Object> p = new HashMap<>();
-                p.put("id", point.get("id").asText());
-                p.put("payload", point.get("payload"));
-                p.put("vector", point.get("vector"));
-                out.add(p);
-            }
-            return out;
+            ScrollResponse scroll = Json.MAPPER.readValue(resp.body(), ScrollResponse.class);
+            if (scroll.result() == null || scroll.result().points() == null) return List.of();
+            return scroll.result().points();
         } catch (Exception e) {
             log.error("Failed to get all points from {}", collection, e);
             return List.of();
         }
     }
 
-    private static ArrayNode toArray(List<Double> v) {
-        ArrayNode a = Json.MAPPER.createArrayNode();
-        for (Double d : v) a.add(d);
-        return a;
-    }
-
     private static List<SearchResultWithScore> parseResultsWithScores(String json) {
         try {
             JsonNode root = Json.MAPPER.readTree(json);
@@ -586,49 +490,14 @@ public class TempCollectionService {
 
     /**
      * Update the title field for all chunks of a document in the main collection.
-     * Uses Qdrant's set_payload API with a filter to update all points matching the docId.
      */
     public void updateTitleInMainCollection(String docId, String title) {
         try {
-            // Build filter for docId
-            ObjectNode matchVal = Json.MAPPER.createObjectNode();
-            matchVal.put("value", docId);
-
-            ObjectNode keyFilter = Json.MAPPER.createObjectNode();
-            keyFilter.put("key", "docId");
-            keyFilter.set("match", matchVal);
-
-            ObjectNode filter = Json.MAPPER.createObjectNode();
-            filter.set("must", Json.MAPPER.createArrayNode().add(keyFilter));
-
-            // Build payload to set
-            ObjectNode payload = Json.MAPPER.createObjectNode();
-            payload.put("title", title);
-
-            // Build request body
-            ObjectNode body = Json.MAPPER.createObjectNode();
-            body.set("payload", payload);
-            body.set("filter", filter);
-
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(qdrantBaseUrl + "/collections/" + mainCollection + "/points/payload?wait=true"))
-                    .timeout(Duration.ofSeconds(60))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(Json.MAPPER.writeValueAsString(body)))
-                    .build();
-
-            HttpResponse<String> resp = Http.CLIENT.send(req, HttpResponse.BodyHandlers.ofString());
-
-            if (resp.statusCode() / 100 != 2) {
-                log.error("Failed to update title in Qdrant for docId {}: HTTP {} - {}",
-                        docId, resp.statusCode(), resp.body());
-                throw new RuntimeException("Failed to update title in Qdrant: HTTP " + resp.statusCode());
-            }
-
+            vectorStore.setPayloadByDocId(docId, Map.of("title", title));
             log.info("Updated title to '{}' for all chunks of docId {} in main collection", title, docId);
         } catch (Exception e) {
             log.error("Error updating title in main collection for docId {}", docId, e);
-            throw new RuntimeException("Failed to update title in Qdrant", e);
+            throw new RuntimeException("Failed to update title in main collection", e);
         }
     }
 }
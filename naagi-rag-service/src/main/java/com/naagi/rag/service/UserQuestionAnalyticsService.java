@@ -4,13 +4,13 @@ import com.naagi.rag.config.FaqConfig;
 import com.naagi.rag.entity.FaqEntry;
 import com.naagi.rag.entity.UserQuestion;
 import com.naagi.rag.llm.EmbeddingsClient;
-import com.naagi.rag.qdrant.FaqQdrantClient;
 import com.naagi.rag.qdrant.FaqQdrantClient.FaqSearchResult;
-import com.naagi.rag.qdrant.UserQuestionQdrantClient;
 import com.naagi.rag.qdrant.UserQuestionQdrantClient.QuestionPoint;
 import com.naagi.rag.qdrant.UserQuestionQdrantClient.SimilarQuestionResult;
 import com.naagi.rag.repository.FaqEntryRepository;
 import com.naagi.rag.repository.UserQuestionRepository;
+import com.naagi.rag.vector.FaqStore;
+import com.naagi.rag.vector.UserQuestionStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -38,30 +38,33 @@ public class UserQuestionAnalyticsService {
 
     private final UserQuestionRepository questionRepository;
     private final FaqEntryRepository faqEntryRepository;
-    private final UserQuestionQdrantClient questionQdrantClient;
-    private final FaqQdrantClient faqQdrantClient;
+    private final UserQuestionStore questionStore;
+    private final FaqStore faqStore;
     private final EmbeddingsClient embeddingsClient;
     private final FaqConfig faqConfig;
     private final FaqManagementService faqManagementService;
+    private final AccessCounters accessCounters;
 
     @Autowired
     public UserQuestionAnalyticsService(
             UserQuestionRepository questionRepository,
             FaqEntryRepository faqEntryRepository,
-            @Autowired(required = false) UserQuestionQdrantClient questionQdrantClient,
-            @Autowired(required = false) FaqQdrantClient faqQdrantClient,
+            @Autowired(required = false) UserQuestionStore questionStore,
+            @Autowired(required = false) FaqStore faqStore,
             EmbeddingsClient embeddingsClient,
             FaqConfig faqConfig,
-            @Lazy FaqManagementService faqManagementService) {
+            @Lazy FaqManagementService faqManagementService,
+            AccessCounters accessCounters) {
         this.questionRepository = questionRepository;
         this.faqEntryRepository = faqEntryRepository;
-        this.questionQdrantClient = questionQdrantClient;
-        this.faqQdrantClient = faqQdrantClient;
+        this.questionStore = questionStore;
+        this.faqStore = faqStore;
         this.embeddingsClient = embeddingsClient;
         this.faqConfig = faqConfig;
         this.faqManagementService = faqManagementService;
+        this.accessCounters = accessCounters;
 
-        if (questionQdrantClient == null) {
+        if (questionStore == null) {
             log.warn("User Question Qdrant client not available - deduplication will be limited");
         }
     }
@@ -72,110 +75,213 @@ public class UserQuestionAnalyticsService {
      * Otherwise, store as a new unique question.
      *
      * Note: This does NOT duplicate audit data. Only stores what's needed for FAQ analytics.
+     * Request threads should go through {@link QuestionTrackingQueue} instead of calling this directly.
      */
-    @Transactional
     public UserQuestion trackQuestion(TrackQuestionRequest request) {
+        List<UserQuestion> tracked = trackQuestions(List.of(request));
+        return tracked.isEmpty() ? null : tracked.get(0);
+    }
+
+    /**
+     * Track a batch of user questions.
+     * Questions are first deduplicated within the batch: repeats and near-duplicates
+     * (>= deduplication threshold, same category) are folded into their first occurrence,
+     * so close questions arriving together cannot create separate entries. The remaining
+     * questions are embedded, matched against stored questions and FAQs and upserted to
+     * Qdrant with one request each for the whole batch.
+     *
+     * Not transactional: the embedding and Qdrant calls run outside any database
+     * transaction, and only the insert of new questions ({@code saveAll}) runs in one.
+     *
+     * @return the tracked question for each request, in request order;
+     *         empty if tracking is disabled or failed
+     */
+    public List<UserQuestion> trackQuestions(List<TrackQuestionRequest> requests) {
         if (!faqConfig.isStoreAllQuestions()) {
             log.debug("Question tracking disabled");
-            return null;
+            return List.of();
+        }
+        if (requests.isEmpty()) {
+            return List.of();
         }
 
         try {
-            // Generate embedding for the question
-            List<Double> embedding = embeddingsClient.embed(request.question());
+            double threshold = faqConfig.getDeduplicationThreshold();
+
+            // Fold exact repeats into their first occurrence before embedding anything
+            int[] representativeOf = new int[requests.size()];
+            Map<List<String>, Integer> firstByText = new HashMap<>();
+            List<Integer> distinct = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                TrackQuestionRequest request = requests.get(i);
+                Integer first = firstByText.putIfAbsent(Arrays.asList(request.categoryId(), request.question().trim()), i);
+                representativeOf[i] = first != null ? first : i;
+                if (first == null) {
+                    distinct.add(i);
+                }
+            }
 
-            // Check for similar existing questions (deduplication)
-            if (questionQdrantClient != null) {
-                double threshold = faqConfig.getDeduplicationThreshold();
-                List<SimilarQuestionResult> similar = questionQdrantClient.findSimilarQuestions(
-                        embedding, 1, threshold, request.categoryId());
-
-                if (!similar.isEmpty()) {
-                    // Found a duplicate - increment frequency
-                    SimilarQuestionResult existing = similar.get(0);
-                    log.debug("Found similar question (score={}): {}", existing.score(), existing.questionId());
-
-                    UserQuestion existingQuestion = questionRepository.findById(existing.questionId()).orElse(null);
-                    if (existingQuestion != null) {
-                        existingQuestion.incrementFrequency();
-                        questionRepository.save(existingQuestion);
-
-                        // Update frequency in Qdrant
-                        questionQdrantClient.updateFrequency(
-                                existingQuestion.getQdrantPointId(),
-                                existingQuestion.getFrequency());
-
-                        return existingQuestion;
+            List<float[]> distinctEmbeddings = embeddingsClient.embedBatch(
+                    distinct.stream().map(i -> requests.get(i).question()).toList());
+            Map<Integer, float[]> embeddings = new HashMap<>();
+            for (int d = 0; d < distinct.size(); d++) {
+                embeddings.put(distinct.get(d), distinctEmbeddings.get(d));
+            }
+
+            // Fold near-duplicates into the first close question of the same category
+            List<Integer> representatives = new ArrayList<>();
+            for (int i : distinct) {
+                representativeOf[i] = i;
+                for (int r : representatives) {
+                    if (Objects.equals(requests.get(r).categoryId(), requests.get(i).categoryId())
+                            && cosine(embeddings.get(r), embeddings.get(i)) >= threshold) {
+                        representativeOf[i] = r;
+                        break;
                     }
                 }
+                if (representativeOf[i] == i) {
+                    representatives.add(i);
+                }
+            }
+            Map<Integer, Integer> asks = new HashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                representativeOf[i] = representativeOf[representativeOf[i]];
+                asks.merge(representativeOf[i], 1, Integer::sum);
             }
 
-            // Check if question matches an existing FAQ
-            String matchedFaqId = null;
-            Double matchedFaqScore = null;
-            if (faqQdrantClient != null) {
-                List<FaqSearchResult> faqMatches = faqQdrantClient.searchFaqs(
-                        embedding, 1, request.categoryId(), faqConfig.getFaqMinSimilarityScore());
-                if (!faqMatches.isEmpty()) {
-                    FaqSearchResult faqMatch = faqMatches.get(0);
-                    matchedFaqId = faqMatch.faqId();
-                    matchedFaqScore = faqMatch.score();
-                    log.debug("Question matches FAQ {} with score {}", matchedFaqId, matchedFaqScore);
+            // Check for similar existing questions (deduplication)
+            List<List<SimilarQuestionResult>> similar = questionStore != null
+                    ? questionStore.findSimilarQuestionsBatch(
+                            representatives.stream().map(embeddings::get).toList(),
+                            representatives.stream().map(r -> requests.get(r).categoryId()).toList(),
+                            1, threshold)
+                    : Collections.nCopies(representatives.size(), List.of());
+            Set<String> existingIds = new HashSet<>();
+            similar.forEach(hits -> hits.forEach(hit -> existingIds.add(hit.questionId())));
+            Map<String, UserQuestion> existingById = new HashMap<>();
+            if (!existingIds.isEmpty()) {
+                questionRepository.findAllById(existingIds).forEach(q -> existingById.put(q.getId(), q));
+            }
+
+            Map<Integer, UserQuestion> tracked = new HashMap<>();
+            List<Integer> fresh = new ArrayList<>();
+            for (int k = 0; k < representatives.size(); k++) {
+                int r = representatives.get(k);
+                UserQuestion existingQuestion = similar.get(k).isEmpty()
+                        ? null
+                        : existingById.get(similar.get(k).get(0).questionId());
+                if (existingQuestion == null) {
+                    fresh.add(r);
+                    continue;
                 }
+                log.debug("Found similar question (score={}): {}", similar.get(k).get(0).score(), existingQuestion.getId());
+                // Frequency is written behind to H2 and Qdrant; report it as including pending asks.
+                // Return a copy so the managed entity is not flushed with the bumped value.
+                long pending = accessCounters.recordQuestionAsked(existingQuestion.getId(), asks.get(r));
+                tracked.put(r, existingQuestion.toBuilder()
+                        .frequency((int) (existingQuestion.getFrequency() + pending))
+                        .lastAskedAt(LocalDateTime.now())
+                        .build());
             }
 
-            // Create new unique question entry
-            String pointId = UUID.randomUUID().toString();
-            UserQuestion question = UserQuestion.builder()
-                    .question(request.question())
-                    .categoryId(request.categoryId())
-                    .matchedFaqId(matchedFaqId)
-                    .matchedFaqScore(matchedFaqScore)
-                    .frequency(1)
-                    .qdrantPointId(pointId)
-                    .firstAskedAt(LocalDateTime.now())
-                    .lastAskedAt(LocalDateTime.now())
-                    .build();
-
-            question = questionRepository.save(question);
-
-            // Store in Qdrant for future deduplication
-            if (questionQdrantClient != null) {
-                QuestionPoint point = new QuestionPoint(
-                        pointId,
-                        embedding,
-                        question.getId(),
-                        question.getQuestion(),
-                        question.getCategoryId(),
-                        null, // categoryName not stored in simplified entity
-                        null, // sourceDocId not stored
-                        question.getFrequency(),
-                        question.getMatchedFaqId(),
-                        question.getFirstAskedAt()
-                );
-                questionQdrantClient.upsertQuestion(point);
+            if (!fresh.isEmpty()) {
+                // Match the new questions against existing FAQs
+                List<List<FaqSearchResult>> faqMatches = faqStore != null
+                        ? faqStore.searchFaqsBatch(
+                                fresh.stream().map(embeddings::get).toList(),
+                                fresh.stream().map(r -> requests.get(r).categoryId()).toList(),
+                                1, faqConfig.getFaqMinSimilarityScore())
+                        : Collections.nCopies(fresh.size(), List.of());
+                List<UserQuestion> newQuestions = new ArrayList<>(fresh.size());
+                for (int n = 0; n < fresh.size(); n++) {
+                    int r = fresh.get(n);
+                    newQuestions.add(newQuestion(requests.get(r), faqMatches.get(n), asks.get(r)));
+                }
+                List<UserQuestion> created = questionRepository.saveAll(newQuestions);
+                List<QuestionPoint> points = new ArrayList<>(created.size());
+                for (int n = 0; n < created.size(); n++) {
+                    UserQuestion question = created.get(n);
+                    tracked.put(fresh.get(n), question);
+                    points.add(new QuestionPoint(
+                            question.getQdrantPointId(),
+                            embeddings.get(fresh.get(n)),
+                            question.getId(),
+                            question.getQuestion(),
+                            question.getCategoryId(),
+                            null, // categoryName not stored in simplified entity
+                            null, // sourceDocId not stored
+                            question.getFrequency(),
+                            question.getMatchedFaqId(),
+                            question.getFirstAskedAt()
+                    ));
+                }
+
+                // Store in Qdrant for future deduplication
+                if (questionStore != null) {
+                    questionStore.upsertQuestions(points);
+                }
+                log.debug("Tracked {} new unique questions", created.size());
             }
 
-            log.debug("Tracked new unique question: {}", question.getId());
-            return question;
+            log.debug("Tracked {} questions as {} distinct questions", requests.size(), representatives.size());
+            List<UserQuestion> result = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                result.add(tracked.get(representativeOf[i]));
+            }
+            return result;
 
         } catch (Exception e) {
-            log.error("Failed to track user question", e);
-            return null;
+            log.error("Failed to track {} user questions", requests.size(), e);
+            return List.of();
+        }
+    }
+
+    /**
+     * A new unique question, linked to its best FAQ match if there is one
+     */
+    private UserQuestion newQuestion(TrackQuestionRequest request, List<FaqSearchResult> faqMatches, int asks) {
+        String matchedFaqId = null;
+        Double matchedFaqScore = null;
+        if (!faqMatches.isEmpty()) {
+            FaqSearchResult faqMatch = faqMatches.get(0);
+            matchedFaqId = faqMatch.faqId();
+            matchedFaqScore = faqMatch.score();
+            log.debug("Question matches FAQ {} with score {}", matchedFaqId, matchedFaqScore);
+        }
+
+        return UserQuestion.builder()
+                .question(request.question())
+                .categoryId(request.categoryId())
+                .matchedFaqId(matchedFaqId)
+                .matchedFaqScore(matchedFaqScore)
+                .frequency(asks)
+                .qdrantPointId(UUID.randomUUID().toString())
+                .firstAskedAt(LocalDateTime.now())
+                .lastAskedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
         }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
     }
 
     /**
      * Find similar questions to a given question text
      */
     public List<SimilarQuestionResult> findSimilarQuestions(String question, double minScore, int limit) {
-        if (questionQdrantClient == null) {
+        if (questionStore == null) {
             return List.of();
         }
 
         try {
-            List<Double> embedding = embeddingsClient.embed(question);
-            return questionQdrantClient.findSimilarQuestions(embedding, limit, minScore);
+            float[] embedding = embeddingsClient.embed(question);
+            return questionStore.findSimilarQuestions(embedding, limit, minScore);
         } catch (Exception e) {
             log.error("Failed to find similar questions", e);
             return List.of();
@@ -227,13 +333,13 @@ public class UserQuestionAnalyticsService {
      * Check if a question matches an existing FAQ
      */
     public Optional<FaqMatchResult> checkFaqMatch(String question, String categoryId) {
-        if (faqQdrantClient == null) {
+        if (faqStore == null) {
             return Optional.empty();
         }
 
         try {
-            List<Double> embedding = embeddingsClient.embed(question);
-            List<FaqSearchResult> results = faqQdrantClient.searchFaqs(
+            float[] embedding = embeddingsClient.embed(question);
+            List<FaqSearchResult> results = faqStore.searchFaqs(
                     embedding, 1, categoryId, faqConfig.getFaqMinSimilarityScore());
 
             if (!results.isEmpty()) {
@@ -288,9 +394,9 @@ public class UserQuestionAnalyticsService {
         }
 
         // Delete from user questions Qdrant collection
-        if (questionQdrantClient != null && qdrantPointId != null) {
+        if (questionStore != null && qdrantPointId != null) {
             try {
-                questionQdrantClient.deleteQuestion(qdrantPointId);
+                questionStore.deleteQuestion(qdrantPointId);
                 log.debug("Deleted question from Qdrant: {}", qdrantPointId);
             } catch (Exception e) {
                 log.error("Failed to delete question from Qdrant: {}", qdrantPointId, e);
@@ -320,9 +426,9 @@ public class UserQuestionAnalyticsService {
         String qdrantPointId = question.getQdrantPointId();
 
         // Delete from Qdrant first
-        if (questionQdrantClient != null && qdrantPointId != null) {
+        if (questionStore != null && qdrantPointId != null) {
             try {
-                questionQdrantClient.deleteQuestion(qdrantPointId);
+                questionStore.deleteQuestion(qdrantPointId);
                 log.debug("Deleted question from Qdrant: {}", qdrantPointId);
             } catch (Exception e) {
                 log.error("Failed to delete question from Qdrant: {}", qdrantPointId, e);
@@ -360,8 +466,8 @@ public class UserQuestionAnalyticsService {
                 ? (double) matchedFaqCount / totalUniqueQuestions * 100
                 : 0;
 
-        Map<String, Object> qdrantStats = questionQdrantClient != null
-                ? questionQdrantClient.getCollectionStats()
+        Map<String, Object> qdrantStats = questionStore != null
+                ? questionStore.getCollectionStats()
                 : Map.of();
 
         return new QuestionAnalytics(
@@ -0,0 +1,110 @@
+package com.naagi.rag.vector;
+
+import com.naagi.rag.qdrant.FaqQdrantClient.FaqPoint;
+import com.naagi.rag.qdrant.FaqQdrantClient.FaqSearchResult;
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.vector.EmbeddedVectorStore.PayloadHit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FAQ collection in an {@link EmbeddedVectorStore}. Payloads carry the same
+ * fields as in Qdrant, plus the categoryId as the store's {@code categories}
+ * so category filters use its per-category index.
+ */
+public final class EmbeddedFaqStore implements FaqStore {
+
+    private final EmbeddedVectorStore store;
+    private final String collection;
+
+    public EmbeddedFaqStore(EmbeddedVectorStore store, String collection) {
+        this.store = store;
+        this.collection = collection;
+    }
+
+    @Override
+    public void ensureCollectionExists() {
+        store.ensureCollectionExists();
+    }
+
+    @Override
+    public void upsertFaqs(List<FaqPoint> points) {
+        List<Point> storePoints = new ArrayList<>(points.size());
+        for (FaqPoint p : points) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("faqId", p.faqId());
+            payload.put("question", p.question());
+            payload.put("answer", p.answer());
+            payload.put("categoryId", p.categoryId());
+            if (p.categoryId() != null) payload.put("categories", List.of(p.categoryId()));
+            if (p.categoryName() != null) payload.put("categoryName", p.categoryName());
+            if (p.docId() != null) payload.put("docId", p.docId());
+            if (p.docTitle() != null) payload.put("docTitle", p.docTitle());
+            if (p.uploadId() != null) payload.put("uploadId", p.uploadId());
+            if (p.questionType() != null) payload.put("questionType", p.questionType());
+            if (p.approvedBy() != null) payload.put("approvedBy", p.approvedBy());
+            if (p.createdAt() != null) payload.put("createdAt", p.createdAt().toString());
+            storePoints.add(new Point(p.id(), p.vector(), payload));
+        }
+        store.upsertBatch(storePoints);
+    }
+
+    @Override
+    public List<FaqSearchResult> searchFaqs(float[] queryVector, int topK, String categoryFilter, double minScore) {
+        String category = categoryFilter == null || categoryFilter.isBlank() ? null : categoryFilter;
+        List<FaqSearchResult> out = new ArrayList<>();
+        for (PayloadHit hit : store.searchPayloads(queryVector, topK, category)) {
+            if (hit.score() < minScore) {
+                break;
+            }
+            Map<String, Object> payload = hit.payload();
+            out.add(new FaqSearchResult(
+                    string(payload, "faqId"),
+                    string(payload, "question"),
+                    string(payload, "answer"),
+                    string(payload, "categoryId"),
+                    string(payload, "categoryName"),
+                    string(payload, "docId"),
+                    string(payload, "docTitle"),
+                    hit.score()
+            ));
+        }
+        return out;
+    }
+
+    @Override
+    public void deleteFaqs(List<String> pointIds) {
+        store.deleteByIds(pointIds);
+    }
+
+    @Override
+    public void deleteFaqsByFaqId(String faqId) {
+        store.deleteByPayload("faqId", faqId);
+    }
+
+    @Override
+    public Map<String, Object> getCollectionStats() {
+        long pointsCount = store.countPoints();
+        return Map.of(
+                "collection", collection,
+                "pointsCount", pointsCount,
+                "vectorsCount", pointsCount,
+                "status", "embedded"
+        );
+    }
+
+    /**
+     * Stop the store's background maintenance and close its point log
+     */
+    public void close() {
+        store.close();
+    }
+
+    private static String string(Map<String, Object> payload, String field) {
+        Object value = payload.get(field);
+        return value instanceof String s ? s : null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.naagi.rag.vector;
+
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.UserQuestionQdrantClient.QuestionPoint;
+import com.naagi.rag.qdrant.UserQuestionQdrantClient.SimilarQuestionResult;
+import com.naagi.rag.vector.EmbeddedVectorStore.PayloadHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User questions collection in an {@link EmbeddedVectorStore}. Payloads carry
+ * the same fields as in Qdrant, plus the categoryId as the store's
+ * {@code categories} so category filters use its per-category index.
+ */
+public final class EmbeddedUserQuestionStore implements UserQuestionStore {
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedUserQuestionStore.class);
+
+    private final EmbeddedVectorStore store;
+    private final String collection;
+
+    public EmbeddedUserQuestionStore(EmbeddedVectorStore store, String collection) {
+        this.store = store;
+        this.collection = collection;
+    }
+
+    @Override
+    public void ensureCollectionExists() {
+        store.ensureCollectionExists();
+    }
+
+    @Override
+    public void upsertQuestions(List<QuestionPoint> points) {
+        List<Point> storePoints = new ArrayList<>(points.size());
+        for (QuestionPoint p : points) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("questionId", p.questionId());
+            payload.put("question", p.question());
+            if (p.categoryId() != null) {
+                payload.put("categoryId", p.categoryId());
+                payload.put("categories", List.of(p.categoryId()));
+            }
+            if (p.categoryName() != null) payload.put("categoryName", p.categoryName());
+            if (p.sourceDocId() != null) payload.put("sourceDocId", p.sourceDocId());
+            payload.put("frequency", p.frequency());
+            if (p.matchedFaqId() != null) payload.put("matchedFaqId", p.matchedFaqId());
+            if (p.askedAt() != null) payload.put("askedAt", p.askedAt().toString());
+            storePoints.add(new Point(p.id(), p.vector(), payload));
+        }
+        store.upsertBatch(storePoints);
+    }
+
+    @Override
+    public List<SimilarQuestionResult> findSimilarQuestions(float[] queryVector, int topK, double minScore, String categoryFilter) {
+        String category = categoryFilter == null || categoryFilter.isBlank() ? null : categoryFilter;
+        List<SimilarQuestionResult> out = new ArrayList<>();
+        for (PayloadHit hit : store.searchPayloads(queryVector, topK, category)) {
+            if (hit.score() < minScore) {
+                break;
+            }
+            Map<String, Object> payload = hit.payload();
+            out.add(new SimilarQuestionResult(
+                    string(payload, "questionId"),
+                    string(payload, "question"),
+                    string(payload, "categoryId"),
+                    string(payload, "categoryName"),
+                    payload.get("frequency") instanceof Number n ? n.intValue() : 1,
+                    string(payload, "matchedFaqId"),
+                    hit.score()
+            ));
+        }
+        return out;
+    }
+
+    @Override
+    public void updateFrequencies(Map<String, Integer> frequencyByPointId) {
+        if (frequencyByPointId.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Object>> fieldsById = new HashMap<>();
+        frequencyByPointId.forEach((pointId, frequency) -> fieldsById.put(pointId, Map.of("frequency", frequency)));
+        try {
+            store.setPayloadByIds(fieldsById);
+        } catch (Exception e) {
+            log.warn("Failed to update frequencies in the embedded store", e);
+        }
+    }
+
+    @Override
+    public void deleteQuestion(String pointId) {
+        store.deleteByIds(List.of(pointId));
+    }
+
+    @Override
+    public Map<String, Object> getCollectionStats() {
+        return Map.of(
+                "collection", collection,
+                "pointsCount", store.countPoints(),
+                "status", "embedded"
+        );
+    }
+
+    /**
+     * Stop the store's background maintenance and close its point log
+     */
+    public void close() {
+        store.close();
+    }
+
+    private static String string(Map<String, Object> payload, String field) {
+        Object value = payload.get(field);
+        return value instanceof String s ? s : null;
+    }
+}
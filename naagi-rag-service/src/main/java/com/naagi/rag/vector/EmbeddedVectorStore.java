@@ -0,0 +1,934 @@
+package com.naagi.rag.vector;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.naagi.rag.json.Json;
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.QdrantClient.ScrollPage;
+import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import com.naagi.rag.qdrant.QdrantClient.StoredChunk;
+import com.naagi.rag.vector.HnswGraph.Scored;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+/**
+ * In-process chunk store: an HNSW graph over vectors in memory-mapped
+ * segments, with payload filtering on {@code categories} and {@code docId}.
+ *
+ * - Vectors go to {@link VectorSegments}; with a directory they are mapped
+ *   files, otherwise heap buffers and the store is lost on restart.
+ * - Payloads, ids, payload updates and deletions are appended to
+ *   {@code points.log} (JSON lines). On open the log is replayed, so the log and segments are the
+ *   only persistent state. The graph is rebuilt from the live vectors on a
+ *   background thread; until it is complete searches score exactly.
+ * - Each category and each docId keeps a bitset of its points. Searches in a
+ *   category with at most {@code exactSearchThreshold} points (and searches
+ *   of a store that small) score every member exactly instead of walking the
+ *   graph, where a selective filter would otherwise cost recall.
+ * - Upserting an existing id replaces its point under a new ordinal; the old
+ *   one is dead and its payload is dropped, but its vector stays in the
+ *   segments and the graph as a waypoint. Once dead ordinals pass
+ *   {@code compactionDeadRatio} of all ordinals the store is compacted in
+ *   the background: live points are renumbered into fresh segments and a
+ *   fresh log, and the graph is rebuilt.
+ *
+ * Writes are serialized; searches run concurrently under a read lock.
+ * {@link EmbeddedFaqStore} and {@link EmbeddedUserQuestionStore} keep their
+ * collections in instances of their own through the package-private
+ * payload search, update and delete methods.
+ */
+public final class EmbeddedVectorStore implements VectorStore {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedVectorStore.class);
+
+    private static final int SEGMENT_VECTORS = 4096;
+    private static final String LOG_FILE = "points.log";
+    // Compaction writes here, then renames it to COMPACTED_DIR once complete
+    private static final String COMPACTING_DIR = "compacting";
+    private static final String COMPACTED_DIR = "compacted";
+    // Fewer dead ordinals than this are never worth a compaction
+    private static final int MIN_COMPACTION_DEAD = 1024;
+    // Nodes linked per write-lock hold while building the graph in the background
+    private static final int GRAPH_BUILD_BATCH = 256;
+
+    private final Path dir;
+    private final int vectorSize;
+    private final boolean cosine;
+    private final int maxConnections;
+    private final int efConstruction;
+    private final int efSearch;
+    private final int exactSearchThreshold;
+    private final double compactionDeadRatio;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService maintenance =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("vector-store-maintenance").factory());
+    private VectorSegments vectors;
+    private HnswGraph graph;
+    // False while the graph is built in the background; searches score exactly until then
+    private boolean graphComplete = true;
+    // Bumped to abandon a background build whose graph was replaced
+    private long graphGeneration;
+    private boolean compactionScheduled;
+    private List<Map<String, Object>> payloads = new ArrayList<>();
+    private List<String> ids = new ArrayList<>();
+    private Map<String, Integer> ordinalById = new HashMap<>();
+    private Map<String, BitSet> ordinalsByCategory = new HashMap<>();
+    private Map<String, BitSet> ordinalsByDocId = new HashMap<>();
+    private BitSet live = new BitSet();
+    private BufferedWriter pointLog;
+
+    /**
+     * @param dir                  directory for segments and the point log, or null for a heap-only store
+     * @param distance             Cosine or Dot
+     * @param maxConnections       HNSW links per node and level (twice as many on level 0)
+     * @param efConstruction       candidate list size while linking a new node
+     * @param efSearch             candidate list size while searching
+     * @param exactSearchThreshold filtered sets up to this size are scanned exactly
+     * @param compactionDeadRatio  share of dead ordinals that triggers a compaction
+     */
+    public EmbeddedVectorStore(Path dir, int vectorSize, String distance, int maxConnections,
+                               int efConstruction, int efSearch, int exactSearchThreshold,
+                               double compactionDeadRatio) {
+        if (!"Cosine".equalsIgnoreCase(distance) && !"Dot".equalsIgnoreCase(distance)) {
+            throw new IllegalArgumentException("Embedded vector store supports Cosine and Dot distance, not " + distance);
+        }
+        this.dir = dir;
+        this.vectorSize = vectorSize;
+        this.cosine = "Cosine".equalsIgnoreCase(distance);
+        this.maxConnections = maxConnections;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.exactSearchThreshold = exactSearchThreshold;
+        this.compactionDeadRatio = compactionDeadRatio;
+
+        long start = System.currentTimeMillis();
+        if (dir != null) {
+            recoverCompaction();
+        }
+        this.vectors = new VectorSegments(dir, vectorSize, SEGMENT_VECTORS);
+        this.graph = new HnswGraph(vectors, maxConnections, efConstruction);
+        if (dir != null) {
+            lock.writeLock().lock();
+            try {
+                replayLog();
+                vectors.truncate(payloads.size());
+                openLog();
+                if (needsCompaction()) {
+                    compact();
+                } else {
+                    rebuildGraph();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("[VECTOR STORE] Embedded store ready in {}ms: points={}, dir={}, M={}, efConstruction={}, efSearch={}",
+                System.currentTimeMillis() - start, live.cardinality(), dir, maxConnections, efConstruction, efSearch);
+    }
+
+    @Override
+    public void ensureCollectionExists() {
+        // Nothing to create; segments and the log are opened by the constructor
+    }
+
+    @Override
+    public void upsertBatch(List<Point> points) {
+        for (Point p : points) {
+            if (p.vector() == null || p.vector().length != vectorSize) {
+                throw new IllegalArgumentException("Vector dimension mismatch for id=" + p.id()
+                        + " expected=" + vectorSize
+                        + " got=" + (p.vector() == null ? "null" : p.vector().length));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<String> lines = new ArrayList<>(points.size());
+            for (Point p : points) {
+                int ordinal = ids.size();
+                vectors.set(ordinal, normalize(p.vector()));
+                Map<String, Object> payload = new HashMap<>(p.payload());
+                put(ordinal, p.id(), payload);
+                graph.add(ordinal);
+                if (dir != null) {
+                    lines.add(pointLine(ordinal, p.id(), payload));
+                }
+            }
+            if (dir != null) {
+                vectors.force();
+                append(lines);
+            }
+            scheduleCompactionIfNeeded();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded vector store upsert failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResultWithScore> searchWithScores(float[] queryVector, int topK, String categoryFilter) {
+        List<SearchResultWithScore> results = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Scored hit : search(queryVector, topK, categoryFilter)) {
+                Map<String, Object> payload = payloads.get(hit.node());
+                String docId = string(payload.get("docId"));
+                Integer chunkIndex = integer(payload.get("chunkIndex"));
+                String text = string(payload.get("text"));
+                if (docId != null && chunkIndex != null && text != null) {
+                    results.add(new SearchResultWithScore(docId, chunkIndex, text,
+                            string(payload.get("title")), hit.score()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    @Override
+    public List<String> searchPayloadTexts(float[] queryVector, int topK, String categoryFilter) {
+        List<String> texts = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Scored hit : search(queryVector, topK, categoryFilter)) {
+                String text = string(payloads.get(hit.node()).get("text"));
+                if (text != null) {
+                    texts.add(text);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return texts;
+    }
+
+    @Override
+    public long countPoints() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ScrollPage scrollChunks(JsonNode offset, int limit) {
+        List<StoredChunk> chunks = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int ordinal = live.nextSetBit(offset == null ? 0 : offset.asInt());
+            for (; ordinal >= 0 && chunks.size() < limit; ordinal = live.nextSetBit(ordinal + 1)) {
+                Map<String, Object> payload = payloads.get(ordinal);
+                String docId = string(payload.get("docId"));
+                String text = string(payload.get("text"));
+                if (docId != null && text != null) {
+                    Integer chunkIndex = integer(payload.get("chunkIndex"));
+                    chunks.add(new StoredChunk(docId, chunkIndex != null ? chunkIndex : 0, text, categories(payload)));
+                }
+            }
+            return new ScrollPage(chunks, ordinal >= 0 ? IntNode.valueOf(ordinal) : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<StoredChunk> chunksByDocId(String docId) {
+        List<StoredChunk> chunks = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet members = ordinalsByDocId.get(docId);
+            if (members == null) {
+                return chunks;
+            }
+            for (int ordinal = members.nextSetBit(0); ordinal >= 0; ordinal = members.nextSetBit(ordinal + 1)) {
+                Map<String, Object> payload = payloads.get(ordinal);
+                String text = string(payload.get("text"));
+                if (text != null) {
+                    Integer chunkIndex = integer(payload.get("chunkIndex"));
+                    chunks.add(new StoredChunk(docId, chunkIndex != null ? chunkIndex : 0, text, categories(payload)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        chunks.sort(Comparator.comparingInt(StoredChunk::chunkIndex));
+        return chunks;
+    }
+
+    @Override
+    public void setPayloadByDocId(String docId, Map<String, Object> fields) {
+        lock.writeLock().lock();
+        try {
+            BitSet members = ordinalsByDocId.get(docId);
+            List<Integer> updated = members == null ? List.of() : members.stream().boxed().toList();
+            updated.forEach(ordinal -> update(ordinal, fields));
+            if (dir != null && !updated.isEmpty()) {
+                ObjectNode line = Json.MAPPER.createObjectNode();
+                line.set("updated", Json.MAPPER.valueToTree(updated));
+                line.set("fields", Json.MAPPER.valueToTree(fields));
+                append(List.of(Json.MAPPER.writeValueAsString(line)));
+            }
+            log.info("[VECTOR STORE] Updated {} payload fields on {} points of docId={}",
+                    fields.keySet(), updated.size(), docId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded vector store payload update failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteByDocId(String docId) {
+        lock.writeLock().lock();
+        try {
+            BitSet members = ordinalsByDocId.get(docId);
+            List<Integer> deleted = members == null ? List.of() : members.stream().boxed().toList();
+            delete(deleted);
+            log.info("[VECTOR STORE] Deleted {} points of docId={}", deleted.size(), docId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded vector store delete failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            closeLog();
+            vectors.clear();
+            if (dir != null) {
+                Files.deleteIfExists(dir.resolve(LOG_FILE));
+            }
+            payloads.clear();
+            ids.clear();
+            ordinalById.clear();
+            ordinalsByCategory.clear();
+            ordinalsByDocId.clear();
+            live.clear();
+            vectors = new VectorSegments(dir, vectorSize, SEGMENT_VECTORS);
+            graph = new HnswGraph(vectors, maxConnections, efConstruction);
+            graphComplete = true;
+            graphGeneration++;
+            if (dir != null) {
+                openLog();
+            }
+            log.info("[VECTOR STORE] Deleted all points");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded vector store delete failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A live point with a copy of its whole payload
+     */
+    record PayloadHit(String id, Map<String, Object> payload, double score) {}
+
+    /**
+     * Closest live points with their whole payload, for collections whose
+     * points are not chunks
+     */
+    List<PayloadHit> searchPayloads(float[] queryVector, int topK, String categoryFilter) {
+        List<PayloadHit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Scored hit : search(queryVector, topK, categoryFilter)) {
+                hits.add(new PayloadHit(ids.get(hit.node()), new HashMap<>(payloads.get(hit.node())), hit.score()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return hits;
+    }
+
+    /**
+     * Merge fields into the payloads of points by id, keeping their other
+     * fields; ids not in the store are skipped
+     */
+    void setPayloadByIds(Map<String, Map<String, Object>> fieldsById) {
+        lock.writeLock().lock();
+        try {
+            List<String> lines = new ArrayList<>(fieldsById.size());
+            for (Map.Entry<String, Map<String, Object>> entry : fieldsById.entrySet()) {
+                Integer ordinal = ordinalById.get(entry.getKey());
+                if (ordinal == null) {
+                    continue;
+                }
+                update(ordinal, entry.getValue());
+                ObjectNode line = Json.MAPPER.createObjectNode();
+                line.set("updated", Json.MAPPER.createArrayNode().add(ordinal));
+                line.set("fields", Json.MAPPER.valueToTree(entry.getValue()));
+                lines.add(Json.MAPPER.writeValueAsString(line));
+            }
+            if (dir != null && !lines.isEmpty()) {
+                append(lines);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded vector store payload update failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Delete points by id; ids not in the store are skipped
+     */
+    void deleteByIds(Collection<String> pointIds) {
+        lock.writeLock().lock();
+        try {
+            delete(pointIds.stream().map(ordinalById::get).filter(Objects::nonNull).distinct().toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded vector store delete failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Delete every point whose payload {@code field} equals {@code value}.
+     * Scans all live points, so it suits only small collections.
+     */
+    void deleteByPayload(String field, String value) {
+        lock.writeLock().lock();
+        try {
+            delete(live.stream()
+                    .filter(ordinal -> value.equals(string(payloads.get(ordinal).get(field))))
+                    .boxed()
+                    .toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded vector store delete failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop background maintenance, then flush and close the point log
+     */
+    public void close() {
+        maintenance.shutdownNow();
+        lock.writeLock().lock();
+        try {
+            graphGeneration++;
+            closeLog();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Wait until no compaction or graph build is pending
+     */
+    void awaitMaintenance() throws InterruptedException, ExecutionException {
+        while (true) {
+            maintenance.submit(() -> {}).get();
+            lock.readLock().lock();
+            try {
+                if (graphComplete && !compactionScheduled) {
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Ordinals in use, live or dead
+     */
+    int ordinals() {
+        lock.readLock().lock();
+        try {
+            return payloads.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Live points best first; callers hold the read lock
+     */
+    private List<Scored> search(float[] queryVector, int topK, String categoryFilter) {
+        float[] query = normalize(queryVector);
+        BitSet members = categoryFilter == null ? live : ordinalsByCategory.get(categoryFilter);
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
+        if (!graphComplete || members.cardinality() <= exactSearchThreshold) {
+            return exactSearch(query, topK, members);
+        }
+        IntPredicate accept = members::get;
+        return graph.search(query, topK, efSearch, accept);
+    }
+
+    private List<Scored> exactSearch(float[] query, int topK, BitSet members) {
+        List<Scored> scored = new ArrayList<>(members.cardinality());
+        for (int ordinal = members.nextSetBit(0); ordinal >= 0; ordinal = members.nextSetBit(ordinal + 1)) {
+            scored.add(new Scored(ordinal, vectors.dot(ordinal, query)));
+        }
+        scored.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return scored.size() > topK ? scored.subList(0, topK) : scored;
+    }
+
+    /**
+     * Register the payload of a point whose vector is stored at {@code ordinal},
+     * replacing any point with the same id; linking it into the graph is up to the caller
+     */
+    private void put(int ordinal, String id, Map<String, Object> payload) {
+        Integer previous = ordinalById.put(id, ordinal);
+        if (previous != null) {
+            remove(previous);
+        }
+        while (payloads.size() <= ordinal) {
+            payloads.add(null);
+            ids.add(null);
+        }
+        payloads.set(ordinal, payload);
+        ids.set(ordinal, id);
+        live.set(ordinal);
+        for (String category : categories(payload)) {
+            ordinalsByCategory.computeIfAbsent(category, c -> new BitSet()).set(ordinal);
+        }
+        String docId = string(payload.get("docId"));
+        if (docId != null) {
+            ordinalsByDocId.computeIfAbsent(docId, d -> new BitSet()).set(ordinal);
+        }
+    }
+
+    /**
+     * Merge fields into a live point's payload, re-indexing its categories and docId
+     */
+    private void update(int ordinal, Map<String, Object> fields) {
+        if (!live.get(ordinal)) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>(payloads.get(ordinal));
+        payload.putAll(fields);
+        String id = ids.get(ordinal);
+        remove(ordinal);
+        put(ordinal, id, payload);
+    }
+
+    /**
+     * Mark a point dead and drop its payload; its vector stays until the next compaction
+     */
+    private void remove(int ordinal) {
+        if (!live.get(ordinal)) {
+            return;
+        }
+        live.clear(ordinal);
+        Map<String, Object> payload = payloads.get(ordinal);
+        for (String category : categories(payload)) {
+            BitSet members = ordinalsByCategory.get(category);
+            if (members != null) {
+                members.clear(ordinal);
+            }
+        }
+        String docId = string(payload.get("docId"));
+        BitSet docMembers = docId == null ? null : ordinalsByDocId.get(docId);
+        if (docMembers != null) {
+            docMembers.clear(ordinal);
+            if (docMembers.isEmpty()) {
+                ordinalsByDocId.remove(docId);
+            }
+        }
+        ordinalById.remove(ids.get(ordinal), ordinal);
+        payloads.set(ordinal, null);
+        ids.set(ordinal, null);
+    }
+
+    /**
+     * Remove live points and log their deletion; callers hold the write lock
+     */
+    private void delete(List<Integer> ordinals) throws IOException {
+        ordinals.forEach(this::remove);
+        if (dir != null && !ordinals.isEmpty()) {
+            ObjectNode line = Json.MAPPER.createObjectNode();
+            line.set("deleted", Json.MAPPER.valueToTree(ordinals));
+            append(List.of(Json.MAPPER.writeValueAsString(line)));
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Replace the graph with an empty one and link the live points into it
+     * on the maintenance thread; callers hold the write lock
+     */
+    private void rebuildGraph() {
+        graph = new HnswGraph(vectors, maxConnections, efConstruction);
+        int end = payloads.size();
+        graphComplete = end == 0;
+        long generation = ++graphGeneration;
+        if (!graphComplete) {
+            maintenance.execute(() -> buildGraph(generation, end));
+        }
+    }
+
+    /**
+     * Link the live points below {@code end} in batches, releasing the lock
+     * between batches so writes and searches keep going. Points written
+     * meanwhile get ordinals from {@code end} up and link themselves.
+     */
+    private void buildGraph(long generation, int end) {
+        long start = System.currentTimeMillis();
+        for (int from = 0; from < end; from += GRAPH_BUILD_BATCH) {
+            int to = Math.min(end, from + GRAPH_BUILD_BATCH);
+            lock.writeLock().lock();
+            try {
+                if (generation != graphGeneration || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                for (int ordinal = live.nextSetBit(from); ordinal >= 0 && ordinal < to; ordinal = live.nextSetBit(ordinal + 1)) {
+                    graph.add(ordinal);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (generation == graphGeneration) {
+                graphComplete = true;
+                log.info("[VECTOR STORE] Built graph of {} points in {}ms", graph.size(), System.currentTimeMillis() - start);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean needsCompaction() {
+        int dead = payloads.size() - live.cardinality();
+        return dead >= MIN_COMPACTION_DEAD && dead > compactionDeadRatio * payloads.size();
+    }
+
+    /**
+     * Queue a compaction once enough ordinals are dead; callers hold the write lock
+     */
+    private void scheduleCompactionIfNeeded() {
+        if (compactionScheduled || !needsCompaction()) {
+            return;
+        }
+        compactionScheduled = true;
+        maintenance.execute(() -> {
+            lock.writeLock().lock();
+            try {
+                compactionScheduled = false;
+                if (needsCompaction()) {
+                    compact();
+                }
+            } catch (RuntimeException e) {
+                log.error("[VECTOR STORE] Compaction failed; continuing on the current segments", e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Renumber the live points into fresh segments and a fresh log, dropping
+     * dead vectors and the log history, then rebuild the graph. Callers hold
+     * the write lock.
+     *
+     * The new files are written to {@code compacting/}, which is renamed to
+     * {@code compacted/} once complete. Only then are they moved over the old
+     * ones, and an interrupted move is finished by {@link #recoverCompaction}
+     * on the next open.
+     */
+    private void compact() {
+        long start = System.currentTimeMillis();
+        int before = payloads.size();
+        int[] survivors = live.stream().toArray();
+        try {
+            Path target = dir == null ? null : dir.resolve(COMPACTING_DIR);
+            if (target != null) {
+                deleteRecursively(target);
+            }
+            VectorSegments compacted = new VectorSegments(target, vectorSize, SEGMENT_VECTORS);
+            for (int i = 0; i < survivors.length; i++) {
+                compacted.set(i, vectors.get(survivors[i]));
+            }
+
+            if (dir != null) {
+                compacted.force();
+                try (BufferedWriter writer = Files.newBufferedWriter(target.resolve(LOG_FILE), StandardCharsets.UTF_8)) {
+                    for (int i = 0; i < survivors.length; i++) {
+                        writer.write(pointLine(i, ids.get(survivors[i]), payloads.get(survivors[i])));
+                        writer.write('\n');
+                    }
+                }
+                Files.move(target, dir.resolve(COMPACTED_DIR), StandardCopyOption.ATOMIC_MOVE);
+                closeLog();
+                installCompacted();
+                compacted = new VectorSegments(dir, vectorSize, SEGMENT_VECTORS);
+                compacted.truncate(survivors.length);
+            }
+
+            List<Map<String, Object>> oldPayloads = payloads;
+            List<String> oldIds = ids;
+            payloads = new ArrayList<>(survivors.length);
+            ids = new ArrayList<>(survivors.length);
+            ordinalById = new HashMap<>();
+            ordinalsByCategory = new HashMap<>();
+            ordinalsByDocId = new HashMap<>();
+            live = new BitSet();
+            vectors = compacted;
+            for (int i = 0; i < survivors.length; i++) {
+                put(i, oldIds.get(survivors[i]), oldPayloads.get(survivors[i]));
+            }
+            rebuildGraph();
+            if (dir != null) {
+                openLog();
+            }
+            log.info("[VECTOR STORE] Compacted {} ordinals to {} live points in {}ms",
+                    before, survivors.length, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Embedded vector store compaction failed", e);
+        }
+    }
+
+    /**
+     * Finish or discard a compaction interrupted by a crash, before the segments are opened
+     */
+    private void recoverCompaction() {
+        try {
+            if (Files.isDirectory(dir.resolve(COMPACTED_DIR))) {
+                log.warn("[VECTOR STORE] Finishing an interrupted compaction in {}", dir);
+                installCompacted();
+            }
+            deleteRecursively(dir.resolve(COMPACTING_DIR));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover the compaction in " + dir, e);
+        }
+    }
+
+    /**
+     * Move the files of {@code compacted/} over the store's, the log last,
+     * then delete the directory. Safe to repeat after a crash part way.
+     */
+    private void installCompacted() throws IOException {
+        Path source = dir.resolve(COMPACTED_DIR);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(source)) {
+            files = list.sorted(Comparator.comparing(file -> file.getFileName().toString().equals(LOG_FILE))).toList();
+        }
+        for (Path file : files) {
+            Files.move(file, dir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.delete(source);
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path file : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static String pointLine(int ordinal, String id, Map<String, Object> payload) throws IOException {
+        ObjectNode line = Json.MAPPER.createObjectNode().put("ord", ordinal).put("id", id);
+        line.set("payload", Json.MAPPER.valueToTree(payload));
+        return Json.MAPPER.writeValueAsString(line);
+    }
+
+    /**
+     * Apply the point log. A crash mid-append leaves an unterminated or
+     * unparseable last line; it was never acknowledged, so it is cut off and
+     * the log continues from the last complete line. Any other bad line is
+     * real corruption and fails the open.
+     */
+    private void replayLog() {
+        Path file = dir.resolve(LOG_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        TypeReference<Map<String, Object>> payloadType = new TypeReference<>() {};
+        long goodBytes = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            String pending = null;
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    line.write(buffer, from, i - from);
+                    from = i + 1;
+                    if (pending != null) {
+                        throw new IOException("Unparseable line in " + file + ": " + pending);
+                    }
+                    int length = line.size();
+                    String text = line.toString(StandardCharsets.UTF_8);
+                    line.reset();
+                    if (!apply(text, payloadType)) {
+                        // Fatal unless this turns out to be the last line
+                        pending = text;
+                        continue;
+                    }
+                    goodBytes += length + 1;
+                }
+                line.write(buffer, from, read - from);
+            }
+            if (pending != null || line.size() > 0) {
+                long size = Files.size(file);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(goodBytes);
+                }
+                log.warn("[VECTOR STORE] Dropped a torn write at the end of {}: truncated {} to {} bytes",
+                        file, size, goodBytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay " + file, e);
+        }
+    }
+
+    /**
+     * Apply one log line
+     *
+     * @return false if the line is not a valid entry
+     */
+    private boolean apply(String line, TypeReference<Map<String, Object>> payloadType) {
+        if (line.isBlank()) {
+            return true;
+        }
+        JsonNode entry;
+        try {
+            entry = Json.MAPPER.readTree(line);
+        } catch (IOException e) {
+            return false;
+        }
+        if (entry.has("deleted")) {
+            entry.get("deleted").forEach(ordinal -> remove(ordinal.asInt()));
+            return true;
+        }
+        if (entry.has("updated")) {
+            Map<String, Object> fields = Json.MAPPER.convertValue(entry.get("fields"), payloadType);
+            entry.get("updated").forEach(ordinal -> update(ordinal.asInt(), fields));
+            return true;
+        }
+        if (!entry.hasNonNull("ord") || !entry.hasNonNull("id") || !entry.has("payload")) {
+            return false;
+        }
+        put(entry.get("ord").asInt(), entry.get("id").asText(),
+                Json.MAPPER.convertValue(entry.get("payload"), payloadType));
+        return true;
+    }
+
+    private void openLog() {
+        try {
+            pointLog = Files.newBufferedWriter(dir.resolve(LOG_FILE), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the point log in " + dir, e);
+        }
+    }
+
+    private void closeLog() {
+        if (pointLog == null) {
+            return;
+        }
+        try {
+            pointLog.close();
+        } catch (IOException e) {
+            log.warn("[VECTOR STORE] Failed to close the point log: {}", e.getMessage());
+        }
+        pointLog = null;
+    }
+
+    private void append(Collection<String> lines) throws IOException {
+        if (pointLog == null) {
+            throw new IOException("The point log in " + dir + " is closed");
+        }
+        for (String line : lines) {
+            pointLog.write(line);
+            pointLog.write('\n');
+        }
+        pointLog.flush();
+    }
+
+    private float[] normalize(float[] vector) {
+        if (!cosine) {
+            return vector;
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return vector;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        float[] out = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            out[i] = vector[i] * scale;
+        }
+        return out;
+    }
+
+    private static List<String> categories(Map<String, Object> payload) {
+        if (payload != null && payload.get("categories") instanceof Collection<?> values) {
+            return values.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static Integer integer(Object value) {
+        if (value instanceof Number n) {
+            return n.intValue();
+        }
+        if (value instanceof String s) {
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.naagi.rag.vector;
+
+import com.naagi.rag.qdrant.FaqQdrantClient.FaqPoint;
+import com.naagi.rag.qdrant.FaqQdrantClient.FaqSearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store for the FAQ collection: approved FAQ question vectors with a payload
+ * of faqId, question, answer, category and source document.
+ *
+ * Implemented by the Qdrant FAQ client and by an embedded in-process store;
+ * {@code naagi.rag.vector-store.type} selects one. Category filters match
+ * FAQs whose {@code categoryId} equals the category.
+ */
+public interface FaqStore {
+
+    void ensureCollectionExists();
+
+    /**
+     * Insert or replace a single FAQ point
+     */
+    default void upsertFaq(FaqPoint point) {
+        upsertFaqs(List.of(point));
+    }
+
+    /**
+     * Insert or replace FAQ points by id
+     */
+    void upsertFaqs(List<FaqPoint> points);
+
+    /**
+     * FAQs whose question is closest to the query, best first
+     *
+     * @param categoryFilter categoryId to search in, or null for all FAQs
+     * @param minScore       hits scoring below this are left out
+     */
+    List<FaqSearchResult> searchFaqs(float[] queryVector, int topK, String categoryFilter, double minScore);
+
+    /**
+     * Run several searches at once.
+     *
+     * @param categoryFilters category filter per query (null entries for no filter)
+     * @return matching FAQs per query, in query order
+     */
+    default List<List<FaqSearchResult>> searchFaqsBatch(
+            List<float[]> queryVectors, List<String> categoryFilters, int topK, double minScore) {
+        List<List<FaqSearchResult>> results = new ArrayList<>(queryVectors.size());
+        for (int i = 0; i < queryVectors.size(); i++) {
+            results.add(searchFaqs(queryVectors.get(i), topK, categoryFilters.get(i), minScore));
+        }
+        return results;
+    }
+
+    /**
+     * Delete a FAQ point by id
+     */
+    default void deleteFaq(String pointId) {
+        deleteFaqs(List.of(pointId));
+    }
+
+    /**
+     * Delete FAQ points by id
+     */
+    void deleteFaqs(List<String> pointIds);
+
+    /**
+     * Delete every point of a FAQ by the faqId in its payload, for FAQs
+     * without a stored point id
+     */
+    void deleteFaqsByFaqId(String faqId);
+
+    /**
+     * Collection name, point count and status; an error entry if they cannot be read
+     */
+    Map<String, Object> getCollectionStats();
+}
@@ -0,0 +1,232 @@
+package com.naagi.rag.vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over the vectors in a
+ * {@link VectorSegments}, scored by dot product (callers normalize vectors
+ * for cosine similarity).
+ *
+ * Nodes are never removed; deleted vectors stay in the graph as waypoints and
+ * are filtered out of results by the caller's predicate. Not thread-safe:
+ * searches may run concurrently with each other but not with {@link #add}.
+ */
+final class HnswGraph {
+
+    /**
+     * A node and its score against the current query
+     */
+    record Scored(int node, float score) {}
+
+    private static final Comparator<Scored> BEST_FIRST = (a, b) -> Float.compare(b.score(), a.score());
+    private static final Comparator<Scored> WORST_FIRST = (a, b) -> Float.compare(a.score(), b.score());
+
+    private final VectorSegments vectors;
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    // neighbors.get(node)[level] holds the node's links on that level; null for nodes not in the graph
+    private final List<int[][]> neighbors = new ArrayList<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int size;
+
+    HnswGraph(VectorSegments vectors, int maxConnections, int efConstruction) {
+        this.vectors = vectors;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsLevel0 = maxConnections * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(maxConnections);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Link a node whose vector is already stored in the segments
+     */
+    void add(int node) {
+        float[] vector = vectors.get(node);
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+
+        while (neighbors.size() <= node) {
+            neighbors.add(null);
+        }
+        int[][] links = new int[level + 1][];
+        Arrays.fill(links, new int[0]);
+        neighbors.set(node, links);
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        Scored entry = new Scored(entryPoint, vectors.dot(entryPoint, vector));
+        for (int l = maxLevel; l > level; l--) {
+            entry = greedy(vector, entry, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Scored> found = searchLevel(vector, entry, efConstruction, l, n -> true);
+            int max = l == 0 ? maxConnectionsLevel0 : maxConnections;
+            int[] selected = select(found, max);
+            links[l] = selected;
+            for (int neighbor : selected) {
+                link(neighbor, node, l, max);
+            }
+            entry = found.get(0);
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Up to {@code k} accepted nodes closest to the query, best first.
+     *
+     * @param ef      size of the candidate list; larger trades speed for recall
+     * @param accept  result filter; rejected nodes are still traversed
+     */
+    List<Scored> search(float[] query, int k, int ef, IntPredicate accept) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        Scored entry = new Scored(entryPoint, vectors.dot(entryPoint, query));
+        for (int l = maxLevel; l > 0; l--) {
+            entry = greedy(query, entry, l);
+        }
+        List<Scored> found = searchLevel(query, entry, Math.max(ef, k), 0, accept);
+        return found.size() > k ? found.subList(0, k) : found;
+    }
+
+    private Scored greedy(float[] query, Scored entry, int level) {
+        Scored best = entry;
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int neighbor : neighbors.get(best.node())[level]) {
+                float score = vectors.dot(neighbor, query);
+                if (score > best.score()) {
+                    best = new Scored(neighbor, score);
+                    changed = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search of one level, keeping the {@code ef} best accepted nodes
+     *
+     * @return accepted nodes, best first
+     */
+    private List<Scored> searchLevel(float[] query, Scored entry, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(neighbors.size());
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Scored> results = new PriorityQueue<>(WORST_FIRST);
+
+        visited.set(entry.node());
+        candidates.add(entry);
+        if (accept.test(entry.node())) {
+            results.add(entry);
+        }
+
+        while (!candidates.isEmpty()) {
+            Scored current = candidates.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) {
+                break;
+            }
+            int[][] links = neighbors.get(current.node());
+            if (links.length <= level) {
+                continue;
+            }
+            for (int neighbor : links[level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float score = vectors.dot(neighbor, query);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Scored scored = new Scored(neighbor, score);
+                    candidates.add(scored);
+                    if (accept.test(neighbor)) {
+                        results.add(scored);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Scored> sorted = new ArrayList<>(results);
+        sorted.sort(BEST_FIRST);
+        return sorted;
+    }
+
+    /**
+     * Neighbor selection heuristic: walk candidates best first and keep one
+     * only if it is closer to the new node than to every neighbor kept so far,
+     * which spreads links across clusters instead of into the nearest one.
+     * Remaining slots are filled with the best skipped candidates.
+     */
+    private int[] select(List<Scored> candidates, int max) {
+        List<Scored> kept = new ArrayList<>(max);
+        List<float[]> keptVectors = new ArrayList<>(max);
+        List<Scored> skipped = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (kept.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            for (float[] keptVector : keptVectors) {
+                if (vectors.dot(candidate.node(), keptVector) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                kept.add(candidate);
+                keptVectors.add(vectors.get(candidate.node()));
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; kept.size() < max && i < skipped.size(); i++) {
+            kept.add(skipped.get(i));
+        }
+        return kept.stream().mapToInt(Scored::node).toArray();
+    }
+
+    private void link(int from, int to, int level, int max) {
+        int[][] links = neighbors.get(from);
+        int[] current = links[level];
+        int[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = to;
+        if (grown.length <= max) {
+            links[level] = grown;
+            return;
+        }
+
+        float[] fromVector = vectors.get(from);
+        List<Scored> candidates = new ArrayList<>(grown.length);
+        for (int node : grown) {
+            candidates.add(new Scored(node, vectors.dot(node, fromVector)));
+        }
+        candidates.sort(BEST_FIRST);
+        links[level] = select(candidates, max);
+    }
+}
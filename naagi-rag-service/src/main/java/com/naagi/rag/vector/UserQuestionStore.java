@@ -0,0 +1,81 @@
+package com.naagi.rag.vector;
+
+import com.naagi.rag.qdrant.UserQuestionQdrantClient.QuestionPoint;
+import com.naagi.rag.qdrant.UserQuestionQdrantClient.SimilarQuestionResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store for the user questions collection: vectors of asked questions with a
+ * payload of questionId, question, category, frequency and matched FAQ, used
+ * for deduplication and finding similar questions.
+ *
+ * Implemented by the Qdrant user questions client and by an embedded
+ * in-process store; {@code naagi.rag.vector-store.type} selects one.
+ * Category filters match questions whose {@code categoryId} equals the category.
+ */
+public interface UserQuestionStore {
+
+    void ensureCollectionExists();
+
+    /**
+     * Insert or replace a question point
+     */
+    default void upsertQuestion(QuestionPoint point) {
+        upsertQuestions(List.of(point));
+    }
+
+    /**
+     * Insert or replace question points by id
+     */
+    void upsertQuestions(List<QuestionPoint> points);
+
+    /**
+     * Find similar questions (for deduplication)
+     * @param queryVector embedding of the question
+     * @param topK max results
+     * @param minScore minimum similarity score (e.g., 0.95 for deduplication)
+     * @return list of similar questions
+     */
+    default List<SimilarQuestionResult> findSimilarQuestions(float[] queryVector, int topK, double minScore) {
+        return findSimilarQuestions(queryVector, topK, minScore, null);
+    }
+
+    /**
+     * Find similar questions with optional category filter
+     */
+    List<SimilarQuestionResult> findSimilarQuestions(float[] queryVector, int topK, double minScore, String categoryFilter);
+
+    /**
+     * Run several searches at once.
+     *
+     * @param categoryFilters category filter per query (null entries for no filter)
+     * @return similar questions per query, in query order
+     */
+    default List<List<SimilarQuestionResult>> findSimilarQuestionsBatch(
+            List<float[]> queryVectors, List<String> categoryFilters, int topK, double minScore) {
+        List<List<SimilarQuestionResult>> results = new ArrayList<>(queryVectors.size());
+        for (int i = 0; i < queryVectors.size(); i++) {
+            results.add(findSimilarQuestions(queryVectors.get(i), topK, minScore, categoryFilters.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Set the frequency in the payloads of questions by point id. Best effort:
+     * failures are logged, not thrown.
+     */
+    void updateFrequencies(Map<String, Integer> frequencyByPointId);
+
+    /**
+     * Delete a question point
+     */
+    void deleteQuestion(String pointId);
+
+    /**
+     * Collection name, point count and status; an error entry if they cannot be read
+     */
+    Map<String, Object> getCollectionStats();
+}
@@ -0,0 +1,147 @@
+package com.naagi.rag.vector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-dimension float vectors addressed by ordinal, stored in segments of
+ * {@code segmentVectors} vectors each.
+ *
+ * With a directory each segment is a memory-mapped file
+ * ({@code segment-00000.vec}, ...), so vectors live off-heap and survive a
+ * restart; without one segments are heap buffers. Reads use absolute
+ * buffer access and may run concurrently with each other; writes must be
+ * serialized by the caller and must not overlap reads of the same ordinal.
+ */
+final class VectorSegments {
+
+    private final Path dir;
+    private final int dim;
+    private final int segmentVectors;
+    private final List<FloatBuffer> segments = new ArrayList<>();
+    private final List<MappedByteBuffer> mapped = new ArrayList<>();
+
+    VectorSegments(Path dir, int dim, int segmentVectors) {
+        this.dir = dir;
+        this.dim = dim;
+        this.segmentVectors = segmentVectors;
+        if (dir != null) {
+            try {
+                Files.createDirectories(dir);
+                for (int i = 0; Files.exists(segmentFile(i)); i++) {
+                    addSegment();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open vector segments in " + dir, e);
+            }
+        }
+    }
+
+    int dimension() {
+        return dim;
+    }
+
+    void set(int ordinal, float[] vector) {
+        int segment = ordinal / segmentVectors;
+        while (segments.size() <= segment) {
+            addSegment();
+        }
+        segments.get(segment).put((ordinal % segmentVectors) * dim, vector);
+    }
+
+    float[] get(int ordinal) {
+        float[] out = new float[dim];
+        segments.get(ordinal / segmentVectors).get((ordinal % segmentVectors) * dim, out);
+        return out;
+    }
+
+    float dot(int ordinal, float[] query) {
+        FloatBuffer segment = segments.get(ordinal / segmentVectors);
+        int base = (ordinal % segmentVectors) * dim;
+        float sum = 0f;
+        for (int i = 0; i < dim; i++) {
+            sum += segment.get(base + i) * query[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Flush mapped segments to disk
+     */
+    void force() {
+        for (MappedByteBuffer buffer : mapped) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Drop every segment, deleting the files of a mapped store
+     */
+    void clear() {
+        int count = segments.size();
+        segments.clear();
+        mapped.clear();
+        if (dir != null) {
+            try {
+                for (int i = 0; i < count; i++) {
+                    Files.deleteIfExists(segmentFile(i));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete vector segments in " + dir, e);
+            }
+        }
+    }
+
+    /**
+     * Drop the segments past the first {@code ordinals} vectors, deleting their files
+     */
+    void truncate(int ordinals) {
+        int keep = (ordinals + segmentVectors - 1) / segmentVectors;
+        if (dir != null) {
+            try {
+                for (int i = keep; Files.exists(segmentFile(i)); i++) {
+                    Files.delete(segmentFile(i));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete vector segments in " + dir, e);
+            }
+        }
+        while (segments.size() > keep) {
+            segments.remove(segments.size() - 1);
+            if (mapped.size() > keep) {
+                mapped.remove(mapped.size() - 1);
+            }
+        }
+    }
+
+    private void addSegment() {
+        long bytes = (long) segmentVectors * dim * Float.BYTES;
+        if (dir == null) {
+            segments.add(ByteBuffer.allocate((int) bytes).order(ByteOrder.nativeOrder()).asFloatBuffer());
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(segmentFile(segments.size()),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.order(ByteOrder.nativeOrder());
+            mapped.add(buffer);
+            segments.add(buffer.asFloatBuffer());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map vector segment " + segments.size(), e);
+        }
+    }
+
+    private Path segmentFile(int segment) {
+        return dir.resolve("segment-%05d.vec".formatted(segment));
+    }
+}
@@ -0,0 +1,83 @@
+package com.naagi.rag.vector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.QdrantClient.ScrollPage;
+import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import com.naagi.rag.qdrant.QdrantClient.StoredChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store for the RAG chunk collection: chunk vectors with a payload of docId,
+ * chunkIndex, text, title and categories.
+ *
+ * Implemented by the Qdrant client and by an embedded in-process store;
+ * {@code naagi.rag.vector-store.type} selects one. Category filters match
+ * chunks whose {@code categories} payload contains the category.
+ */
+public interface VectorStore {
+
+    void ensureCollectionExists();
+
+    /**
+     * Insert or replace points by id
+     */
+    void upsertBatch(List<Point> points);
+
+    List<SearchResultWithScore> searchWithScores(float[] queryVector, int topK, String categoryFilter);
+
+    /**
+     * Run several searches at once.
+     *
+     * @return hits per query vector, in the order of {@code queryVectors}
+     */
+    default List<List<SearchResultWithScore>> searchBatchWithScores(List<float[]> queryVectors, int topK,
+                                                                    String categoryFilter) {
+        List<List<SearchResultWithScore>> results = new ArrayList<>(queryVectors.size());
+        for (float[] queryVector : queryVectors) {
+            results.add(searchWithScores(queryVector, topK, categoryFilter));
+        }
+        return results;
+    }
+
+    /**
+     * Texts of the closest chunks, for callers that need no scores or metadata
+     */
+    List<String> searchPayloadTexts(float[] queryVector, int topK, String categoryFilter);
+
+    /**
+     * Exact number of points in the collection
+     */
+    long countPoints();
+
+    /**
+     * Page through all chunks without their vectors.
+     *
+     * @param offset nextOffset of the previous page, or null to start from the beginning
+     * @param limit  maximum chunks per page
+     */
+    ScrollPage scrollChunks(JsonNode offset, int limit);
+
+    /**
+     * Chunks of one document without their vectors, in chunkIndex order
+     */
+    List<StoredChunk> chunksByDocId(String docId);
+
+    /**
+     * Set payload fields on every chunk of a document, keeping its other fields
+     */
+    void setPayloadByDocId(String docId, Map<String, Object> fields);
+
+    /**
+     * Delete every chunk of a document
+     */
+    void deleteByDocId(String docId);
+
+    /**
+     * Delete every chunk in the collection
+     */
+    void deleteAll();
+}
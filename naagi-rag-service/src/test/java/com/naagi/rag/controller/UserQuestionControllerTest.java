@@ -3,6 +3,7 @@ package com.naagi.rag.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.naagi.rag.entity.FaqEntry;
 import com.naagi.rag.entity.UserQuestion;
+import com.naagi.rag.service.QuestionTrackingQueue;
 import com.naagi.rag.service.UserQuestionAnalyticsService;
 import com.naagi.rag.service.UserQuestionAnalyticsService.PromotionResult;
 import com.naagi.rag.service.UserQuestionAnalyticsService.QuestionAnalytics;
@@ -42,22 +43,18 @@ class UserQuestionControllerTest {
     @MockBean
     private UserQuestionAnalyticsService analyticsService;
 
+    @MockBean
+    private QuestionTrackingQueue trackingQueue;
+
     @Nested
     @DisplayName("POST /api/questions/track")
     class TrackQuestionTests {
 
         @Test
-        @DisplayName("Should track question successfully")
+        @DisplayName("Should queue question for tracking")
         void shouldTrackQuestionSuccessfully() throws Exception {
             // Given
-            UserQuestion tracked = UserQuestion.builder()
-                    .id("q-123")
-                    .question("How do I reset my password?")
-                    .categoryId("cat-1")
-                    .frequency(1)
-                    .build();
-
-            when(analyticsService.trackQuestion(any())).thenReturn(tracked);
+            when(trackingQueue.submit(any())).thenReturn(true);
 
             // When/Then
             mockMvc.perform(post("/api/questions/track")
@@ -70,16 +67,17 @@ class UserQuestionControllerTest {
                                 """))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.success").value(true))
-                    .andExpect(jsonPath("$.questionId").value("q-123"))
-                    .andExpect(jsonPath("$.frequency").value(1))
-                    .andExpect(jsonPath("$.isDuplicate").value(false));
+                    .andExpect(jsonPath("$.queued").value(true));
+            verify(trackingQueue).submit(new UserQuestionAnalyticsService.TrackQuestionRequest(
+                    "How do I reset my password?", "cat-1"));
+            verifyNoInteractions(analyticsService);
         }
 
         @Test
-        @DisplayName("Should return success false when tracking fails")
+        @DisplayName("Should return success false when the question is not queued")
         void shouldReturnSuccessFalseWhenTrackingFails() throws Exception {
             // Given
-            when(analyticsService.trackQuestion(any())).thenReturn(null);
+            when(trackingQueue.submit(any())).thenReturn(false);
 
             // When/Then
             mockMvc.perform(post("/api/questions/track")
@@ -0,0 +1,163 @@
+package com.naagi.rag.ingest;
+
+import com.naagi.rag.ingest.IngestPipeline.Job;
+import com.naagi.rag.ingest.IngestPipeline.Result;
+import com.naagi.rag.ingest.IngestPipeline.SparseIndexer;
+import com.naagi.rag.ingest.IngestPipeline.StageStats;
+import com.naagi.rag.llm.EmbeddingsClient;
+import com.naagi.rag.metrics.RagMetrics;
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for IngestPipeline.
+ */
+class IngestPipelineTest {
+
+    private final AtomicInteger activeEmbeds = new AtomicInteger();
+    private final AtomicInteger maxActiveEmbeds = new AtomicInteger();
+    private final List<Point> upserted = Collections.synchronizedList(new ArrayList<>());
+    private SimpleMeterRegistry registry;
+    private IngestPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        EmbeddingsClient embeddings = new EmbeddingsClient() {
+            @Override
+            public float[] embed(String text) {
+                return new float[]{text.length(), 1f};
+            }
+
+            @Override
+            public List<float[]> embedBatch(List<String> texts) {
+                maxActiveEmbeds.accumulateAndGet(activeEmbeds.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                    return texts.stream().map(this::embed).toList();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    activeEmbeds.decrementAndGet();
+                }
+            }
+        };
+        // batch=4, 2 embed workers, embed queue 1, 2 upsert workers, upsert queue 1, sparse queue 2
+        pipeline = new IngestPipeline(4, 2, 1, 2, 1, 2, embeddings, new RagMetrics(registry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    private static List<String> chunks(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "chunk-" + i).toList();
+    }
+
+    private static Point point(int chunkIndex, String chunk, float[] vector) {
+        return new Point("id-" + chunkIndex, vector, Map.of("chunkIndex", chunkIndex, "text", chunk));
+    }
+
+    private static final class RecordingIndexer implements SparseIndexer {
+        final List<Integer> added = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean committed = new AtomicBoolean();
+        final AtomicBoolean rolledBack = new AtomicBoolean();
+
+        @Override
+        public void add(int firstChunkIndex, List<String> chunks) {
+            for (int i = 0; i < chunks.size(); i++) {
+                added.add(firstChunkIndex + i);
+            }
+        }
+
+        @Override
+        public void commit() {
+            committed.set(true);
+        }
+
+        @Override
+        public void rollback() {
+            rolledBack.set(true);
+        }
+    }
+
+    @Test
+    @DisplayName("Should upsert and index every chunk and report each stage")
+    void testAllStagesComplete() {
+        RecordingIndexer sparse = new RecordingIndexer();
+
+        Result result = pipeline.run(new Job("doc-1", () -> chunks(30),
+                IngestPipelineTest::point, upserted::addAll, sparse));
+
+        assertThat(result.chunks()).isEqualTo(30);
+        assertThat(upserted).extracting(Point::id)
+                .containsExactlyInAnyOrderElementsOf(IntStream.range(0, 30).mapToObj(i -> "id-" + i).toList());
+        assertThat(upserted).allSatisfy(p -> assertThat(p.vector()[0]).isEqualTo(((String) p.payload().get("text")).length()));
+        assertThat(sparse.added).containsExactlyElementsOf(IntStream.range(0, 30).boxed().toList());
+        assertThat(sparse.committed).isTrue();
+        assertThat(result.stages()).extracting(StageStats::stage)
+                .containsExactly(IngestPipeline.CHUNK, IngestPipeline.EMBED, IngestPipeline.UPSERT, IngestPipeline.SPARSE);
+        assertThat(result.stages()).filteredOn(s -> s.stage().equals(IngestPipeline.EMBED))
+                .singleElement()
+                .satisfies(s -> {
+                    assertThat(s.items()).isEqualTo(30);
+                    assertThat(s.batches()).isEqualTo(8);
+                });
+        assertThat(registry.get("rag.ingest.stage.items").tag("stage", "upsert").counter().count()).isEqualTo(30.0);
+    }
+
+    @Test
+    @DisplayName("Should run embedding batches concurrently up to the worker limit")
+    void testEmbedConcurrencyBounded() {
+        pipeline.run(new Job("doc-1", () -> chunks(40), IngestPipelineTest::point, upserted::addAll, null));
+
+        assertThat(maxActiveEmbeds.get()).isEqualTo(2);
+        assertThat(upserted).hasSize(40);
+    }
+
+    @Test
+    @DisplayName("Should fail at the barrier and roll back the sparse index when an upsert fails")
+    void testUpsertFailureRollsBack() {
+        RecordingIndexer sparse = new RecordingIndexer();
+        AtomicInteger upserts = new AtomicInteger();
+
+        assertThatThrownBy(() -> pipeline.run(new Job("doc-1", () -> chunks(30), IngestPipelineTest::point,
+                points -> {
+                    if (upserts.incrementAndGet() == 3) {
+                        throw new IllegalStateException("qdrant unavailable");
+                    }
+                }, sparse)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("qdrant unavailable");
+
+        assertThat(sparse.committed.get()).isEqualTo(sparse.rolledBack.get());
+    }
+
+    @Test
+    @DisplayName("Should return zero chunks for empty text")
+    void testEmptyDocument() {
+        RecordingIndexer sparse = new RecordingIndexer();
+
+        Result result = pipeline.run(new Job("doc-1", List::of, IngestPipelineTest::point, upserted::addAll, sparse));
+
+        assertThat(result.chunks()).isZero();
+        assertThat(upserted).isEmpty();
+        assertThat(sparse.committed).isFalse();
+    }
+}
@@ -0,0 +1,142 @@
+package com.naagi.rag.llm;
+
+import com.naagi.rag.metrics.RagMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CachingEmbeddingsClient.
+ */
+class CachingEmbeddingsClientTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private SimpleMeterRegistry registry;
+    private CachingEmbeddingsClient client;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        client = new CachingEmbeddingsClient(text -> {
+            calls.incrementAndGet();
+            return new float[]{0.25f, 0.5f, text.length()};
+        }, new ConcurrentMapCache("embeddings"), new RagMetrics(registry), 64);
+    }
+
+    private double counter(String name) {
+        return registry.get(name).tag("cache", "embeddings").counter().count();
+    }
+
+    @Test
+    @DisplayName("Should embed normalized duplicates once")
+    void testNormalizedHit() {
+        float[] first = client.embed("What is a  Pod?");
+        float[] second = client.embed("  what is a pod?\n");
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(second).isSameAs(first).containsExactly(0.25f, 0.5f, 15f);
+        assertThat(counter("rag.cache.misses")).isEqualTo(1.0);
+        assertThat(counter("rag.cache.hits")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should bypass the cache for long texts")
+    void testLongTextBypass() {
+        String chunk = "x".repeat(100);
+        client.embed(chunk);
+        client.embed(chunk);
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(counter("rag.cache.misses")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent misses into one delegate call")
+    void testCoalescedMisses() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CachingEmbeddingsClient slow = new CachingEmbeddingsClient(text -> {
+            calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new float[]{1f, 2f};
+        }, new ConcurrentMapCache("embeddings"), new RagMetrics(registry), 64);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<float[]>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> slow.embed("same question")));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<float[]> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).containsExactly(1f, 2f);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(counter("rag.cache.misses")).isEqualTo(1.0);
+        assertThat(counter("rag.cache.coalesced") + counter("rag.cache.hits")).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Should not cache failures")
+    void testFailureNotCached() {
+        AtomicInteger attempts = new AtomicInteger();
+        CachingEmbeddingsClient flaky = new CachingEmbeddingsClient(text -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("embedding server down");
+            }
+            return new float[]{1f, 2f};
+        }, new ConcurrentMapCache("embeddings"), new RagMetrics(registry), 64);
+
+        assertThatThrownBy(() -> flaky.embed("question")).isInstanceOf(IllegalStateException.class);
+        assertThat(flaky.embed("question")).containsExactly(1f, 2f);
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should send only cache misses to the delegate batch")
+    void testBatchServesHits() {
+        List<List<String>> batches = new ArrayList<>();
+        CachingEmbeddingsClient batching = new CachingEmbeddingsClient(new EmbeddingsClient() {
+            @Override
+            public float[] embed(String text) {
+                return new float[]{text.length()};
+            }
+
+            @Override
+            public List<float[]> embedBatch(List<String> texts) {
+                batches.add(texts);
+                return texts.stream().map(this::embed).toList();
+            }
+        }, new ConcurrentMapCache("embeddings"), new RagMetrics(registry), 64);
+
+        batching.embed("cached");
+        List<float[]> vectors = batching.embedBatch(List.of("Cached", "new", "x".repeat(100), "NEW"));
+
+        assertThat(batches).containsExactly(List.of("new", "x".repeat(100)));
+        assertThat(vectors).extracting(v -> v[0]).containsExactly(6f, 3f, 100f, 3f);
+        assertThat(counter("rag.cache.hits")).isEqualTo(1.0);
+        assertThat(counter("rag.cache.coalesced")).isEqualTo(1.0);
+    }
+}
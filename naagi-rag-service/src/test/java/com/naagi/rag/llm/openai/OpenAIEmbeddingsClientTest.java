@@ -0,0 +1,134 @@
+package com.naagi.rag.llm.openai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.naagi.rag.json.Json;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for OpenAIEmbeddingsClient batching against a local embeddings endpoint.
+ */
+class OpenAIEmbeddingsClientTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final List<Integer> requestSizes = new CopyOnWriteArrayList<>();
+    private volatile int serverMaxItems = Integer.MAX_VALUE;
+    private volatile int serverStatus = 200;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/embeddings", this::handle);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Embeds each input as [length, position] and lists the results in reverse order
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode body = Json.MAPPER.readTree(exchange.getRequestBody());
+        JsonNode input = body.get("input");
+        int size = input.isArray() ? input.size() : 1;
+        requestSizes.add(size);
+
+        String response;
+        int status = 200;
+        if (serverStatus != 200) {
+            status = serverStatus;
+            response = "{\"error\":\"Loading model\"}";
+        } else if (size > serverMaxItems) {
+            status = 500;
+            response = "{\"error\":\"input is too large to process\"}";
+        } else {
+            ObjectNode root = Json.MAPPER.createObjectNode();
+            ArrayNode data = root.putArray("data");
+            for (int i = size - 1; i >= 0; i--) {
+                String text = input.isArray() ? input.get(i).asText() : input.asText();
+                ObjectNode item = data.addObject().put("object", "embedding").put("index", i);
+                item.putArray("embedding").add(text.length()).add(i);
+            }
+            response = Json.MAPPER.writeValueAsString(root);
+        }
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    @Test
+    @DisplayName("Should pack texts by item and char limits and keep input order")
+    void testBatchPacking() {
+        OpenAIEmbeddingsClient client = new OpenAIEmbeddingsClient(baseUrl, "test", 3, 10);
+
+        List<float[]> vectors = client.embedBatch(List.of("a", "bb", "ccc", "dddd", "eeeeeeeee"));
+
+        assertThat(vectors).extracting(v -> v[0]).containsExactly(1f, 2f, 3f, 4f, 9f);
+        assertThat(requestSizes).containsExactly(3, 1, 1);
+    }
+
+    @Test
+    @DisplayName("Should halve rejected batches and remember the smaller limit")
+    void testAdaptiveSplit() {
+        serverMaxItems = 2;
+        OpenAIEmbeddingsClient client = new OpenAIEmbeddingsClient(baseUrl, "test", 8, 10_000);
+
+        List<float[]> vectors = client.embedBatch(List.of("a", "bb", "ccc", "dddd", "eeeee", "ffffff", "g", "hh"));
+
+        assertThat(vectors).extracting(v -> v[0]).containsExactly(1f, 2f, 3f, 4f, 5f, 6f, 1f, 2f);
+        assertThat(requestSizes).startsWith(8, 4, 2);
+
+        requestSizes.clear();
+        client.embedBatch(List.of("a", "b", "c", "d"));
+        assertThat(requestSizes.get(0)).isLessThan(4);
+    }
+
+    @Test
+    @DisplayName("Should fail when a single text is rejected")
+    void testSingleTextRejected() {
+        serverMaxItems = 0;
+        OpenAIEmbeddingsClient client = new OpenAIEmbeddingsClient(baseUrl, "test", 4, 10_000);
+
+        assertThatThrownBy(() -> client.embedBatch(List.of("a", "b")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("embedding failed");
+    }
+
+    @Test
+    @DisplayName("Should fail fast on a server error without shrinking the batch limit")
+    void testServerUnavailable() {
+        serverStatus = 503;
+        OpenAIEmbeddingsClient client = new OpenAIEmbeddingsClient(baseUrl, "test", 8, 10_000);
+
+        assertThatThrownBy(() -> client.embedBatch(List.of("a", "b", "c", "d", "e", "f", "g", "h")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("embedding failed");
+        assertThat(requestSizes).containsExactly(8);
+
+        serverStatus = 200;
+        requestSizes.clear();
+        client.embedBatch(List.of("a", "b", "c", "d", "e", "f", "g", "h"));
+        assertThat(requestSizes).containsExactly(8);
+    }
+}
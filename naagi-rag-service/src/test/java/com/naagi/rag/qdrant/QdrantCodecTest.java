@@ -0,0 +1,137 @@
+package com.naagi.rag.qdrant;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.naagi.rag.json.Json;
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.QdrantClient.ScrollPage;
+import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for QdrantCodec.
+ */
+class QdrantCodecTest {
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should write points as Qdrant upsert JSON")
+    void testWritePoints() throws Exception {
+        QdrantCodec.Body body = QdrantCodec.writePoints(List.of(
+                new Point("p-1", new float[]{0.5f, -1.25f}, Map.of("docId", "doc-1", "chunkIndex", 3,
+                        "categories", List.of("ops")))));
+
+        JsonNode root = Json.MAPPER.readTree(body.toByteArray());
+
+        JsonNode point = root.get("points").get(0);
+        assertThat(point.get("id").asText()).isEqualTo("p-1");
+        assertThat(point.get("vector").get(0).floatValue()).isEqualTo(0.5f);
+        assertThat(point.get("vector").get(1).floatValue()).isEqualTo(-1.25f);
+        assertThat(point.get("payload").get("chunkIndex").asInt()).isEqualTo(3);
+        assertThat(point.get("payload").get("categories").get(0).asText()).isEqualTo("ops");
+    }
+
+    @Test
+    @DisplayName("Should request only the needed payload fields and the category filter")
+    void testWriteSearch() throws Exception {
+        QdrantCodec.Body body = QdrantCodec.writeSearch(new float[]{1f}, 5, "ops", QdrantCodec.SEARCH_PAYLOAD_FIELDS);
+
+        JsonNode root = Json.MAPPER.readTree(body.toByteArray());
+
+        assertThat(root.get("limit").asInt()).isEqualTo(5);
+        assertThat(root.get("with_payload")).extracting(JsonNode::asText)
+                .containsExactly("docId", "chunkIndex", "text", "title");
+        assertThat(root.at("/filter/must/0/match/any/0").asText()).isEqualTo("ops");
+    }
+
+    @Test
+    @DisplayName("Should write a scroll limited to one docId")
+    void testWriteScrollByDocId() throws Exception {
+        JsonNode root = Json.MAPPER.readTree(QdrantCodec.writeScroll(null, 100, "doc-1").toByteArray());
+
+        assertThat(root.get("limit").asInt()).isEqualTo(100);
+        assertThat(root.get("with_vector").asBoolean()).isFalse();
+        JsonNode match = root.get("filter").get("must").get(0);
+        assertThat(match.get("key").asText()).isEqualTo("docId");
+        assertThat(match.get("match").get("value").asText()).isEqualTo("doc-1");
+        assertThat(Json.MAPPER.readTree(QdrantCodec.writeScroll(null, 100).toByteArray()).has("filter")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should read search hits and skip unneeded fields")
+    void testReadSearchHits() throws Exception {
+        String json = """
+                {"result":[
+                  {"id":"a","version":3,"score":0.91,"vector":null,
+                   "payload":{"docId":"doc-1","chunkIndex":2,"text":"Pods","extra":{"nested":[1,2,{"x":1}]},"title":"K8s"}},
+                  {"id":"b","score":0.5,"payload":{"docId":42,"chunkIndex":"7","text":"Nodes"}},
+                  {"id":"c","score":0.4,"payload":{"docId":"doc-3","text":"no index"}},
+                  {"id":"d","score":0.3}
+                ],"status":"ok","time":0.001}
+                """;
+
+        List<SearchResultWithScore> hits = QdrantCodec.readSearchHits(bytes(json));
+
+        assertThat(hits).containsExactly(
+                new SearchResultWithScore("doc-1", 2, "Pods", "K8s", 0.91),
+                new SearchResultWithScore("42", 7, "Nodes", null, 0.5));
+        assertThat(QdrantCodec.readSearchTexts(bytes(json))).containsExactly("Pods", "Nodes", "no index");
+    }
+
+    @Test
+    @DisplayName("Should write one search per vector and read results per search")
+    void testSearchBatch() throws Exception {
+        QdrantCodec.Body body = QdrantCodec.writeSearchBatch(List.of(new float[]{1f}, new float[]{2f}), 4, null,
+                QdrantCodec.SEARCH_PAYLOAD_FIELDS);
+
+        JsonNode searches = Json.MAPPER.readTree(body.toByteArray()).get("searches");
+
+        assertThat(searches).hasSize(2);
+        assertThat(searches.get(1).get("vector").get(0).floatValue()).isEqualTo(2f);
+        assertThat(searches.get(1).get("limit").asInt()).isEqualTo(4);
+        assertThat(searches.get(1).has("filter")).isFalse();
+
+        String json = """
+                {"result":[
+                  [{"id":"a","score":0.9,"payload":{"docId":"doc-1","chunkIndex":0,"text":"Pods"}}],
+                  [],
+                  [{"id":"b","score":0.7,"payload":{"docId":"doc-2","chunkIndex":1,"text":"Nodes","title":"K8s"}}]
+                ],"status":"ok"}
+                """;
+
+        assertThat(QdrantCodec.readSearchBatchHits(bytes(json))).containsExactly(
+                List.of(new SearchResultWithScore("doc-1", 0, "Pods", null, 0.9)),
+                List.of(),
+                List.of(new SearchResultWithScore("doc-2", 1, "Nodes", "K8s", 0.7)));
+    }
+
+    @Test
+    @DisplayName("Should read a scroll page and its next offset")
+    void testReadScrollPage() throws Exception {
+        String json = """
+                {"result":{"points":[
+                  {"id":"a","payload":{"docId":"doc-1","chunkIndex":0,"text":"First","categories":["ops","dev"]}},
+                  {"id":"b","payload":{"text":"no doc"}}
+                ],"next_page_offset":"b"},"status":"ok"}
+                """;
+
+        ScrollPage page = QdrantCodec.readScrollPage(bytes(json));
+
+        assertThat(page.chunks()).singleElement().satisfies(chunk -> {
+            assertThat(chunk.docId()).isEqualTo("doc-1");
+            assertThat(chunk.categories()).containsExactly("ops", "dev");
+        });
+        assertThat(page.nextOffset().asText()).isEqualTo("b");
+        assertThat(QdrantCodec.readScrollPage(bytes("{\"result\":{\"points\":[],\"next_page_offset\":null}}")).nextOffset())
+                .isNull();
+    }
+}
@@ -1,12 +1,25 @@
 package com.naagi.rag.rerank;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.naagi.rag.rerank.RerankerService.Document;
 import com.naagi.rag.rerank.RerankerService.RerankResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,7 +37,9 @@ class RerankerServiceTest {
                     "test-model",
                     "",
                     50,
-                    0.0
+                    0.0,
+                    8,
+                    new ConcurrentMapCacheManager()
             );
 
             List<Document> docs = List.of(
@@ -53,7 +68,9 @@ class RerankerServiceTest {
                     "test-model",
                     "",
                     50,
-                    0.0
+                    0.0,
+                    8,
+                    new ConcurrentMapCacheManager()
             );
 
             List<Document> docs = List.of(
@@ -141,7 +158,9 @@ class RerankerServiceTest {
                     "test-model",
                     "",
                     50,
-                    0.0
+                    0.0,
+                    8,
+                    new ConcurrentMapCacheManager()
             );
 
             List<RerankResult> results = service.rerank("test query", List.of(), 5);
@@ -162,7 +181,9 @@ class RerankerServiceTest {
                     "rerank-english-v3.0",
                     "test-api-key",
                     100,
-                    0.5
+                    0.5,
+                    8,
+                    new ConcurrentMapCacheManager()
             );
 
             assertTrue(service.isEnabled());
@@ -179,7 +200,9 @@ class RerankerServiceTest {
                     "jina-reranker-v2",
                     "api-key",
                     75,
-                    0.3
+                    0.3,
+                    8,
+                    new ConcurrentMapCacheManager()
             );
 
             Map<String, Object> stats = service.getStats();
@@ -205,7 +228,9 @@ class RerankerServiceTest {
                     "test-model",
                     "",
                     50,
-                    0.0
+                    0.0,
+                    8,
+                    new ConcurrentMapCacheManager()
             );
 
             List<Document> docs = List.of(
@@ -227,7 +252,7 @@ class RerankerServiceTest {
         @Test
         void testLocalProvider() {
             RerankerService service = new RerankerService(
-                    true, "local", "http://localhost:8001", "bge-reranker-base", "", 50, 0.0
+                    true, "local", "http://localhost:8001", "bge-reranker-base", "", 50, 0.0, 8, new ConcurrentMapCacheManager()
             );
             assertEquals("local", service.getProvider());
         }
@@ -235,7 +260,7 @@ class RerankerServiceTest {
         @Test
         void testCohereProvider() {
             RerankerService service = new RerankerService(
-                    true, "cohere", "http://localhost:8001", "rerank-english-v3.0", "key", 50, 0.0
+                    true, "cohere", "http://localhost:8001", "rerank-english-v3.0", "key", 50, 0.0, 8, new ConcurrentMapCacheManager()
             );
             assertEquals("cohere", service.getProvider());
         }
@@ -243,7 +268,7 @@ class RerankerServiceTest {
         @Test
         void testJinaProvider() {
             RerankerService service = new RerankerService(
-                    true, "jina", "http://localhost:8001", "jina-reranker-v2", "key", 50, 0.0
+                    true, "jina", "http://localhost:8001", "jina-reranker-v2", "key", 50, 0.0, 8, new ConcurrentMapCacheManager()
             );
             assertEquals("jina", service.getProvider());
         }
@@ -251,9 +276,117 @@ class RerankerServiceTest {
         @Test
         void testLlmProvider() {
             RerankerService service = new RerankerService(
-                    true, "llm", "http://localhost:8000", "llama3", "", 50, 0.0
+                    true, "llm", "http://localhost:8000", "llama3", "", 50, 0.0, 8, new ConcurrentMapCacheManager()
             );
             assertEquals("llm", service.getProvider());
         }
     }
+
+    @Nested
+    class ScoreCacheTests {
+
+        private final ObjectMapper mapper = new ObjectMapper();
+        private final List<List<String>> rerankRequests = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> completionPrompts = Collections.synchronizedList(new ArrayList<>());
+        private HttpServer server;
+
+        @BeforeEach
+        void startServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/v1/rerank", this::handleRerank);
+            server.createContext("/v1/completions", this::handleCompletion);
+            server.start();
+        }
+
+        @AfterEach
+        void stopServer() {
+            server.stop(0);
+        }
+
+        /**
+         * Scores each document by its text length, returned in the index order of the request
+         */
+        private void handleRerank(HttpExchange exchange) throws IOException {
+            JsonNode body = mapper.readTree(exchange.getRequestBody());
+            List<String> texts = new ArrayList<>();
+            body.path("documents").forEach(doc -> texts.add(doc.asText()));
+            rerankRequests.add(texts);
+
+            var results = mapper.createArrayNode();
+            for (int i = 0; i < texts.size(); i++) {
+                results.addObject().put("index", i).put("relevance_score", texts.get(i).length() / 100.0);
+            }
+            respond(exchange, mapper.createObjectNode().set("results", results).toString());
+        }
+
+        /**
+         * Every document is a perfect match
+         */
+        private void handleCompletion(HttpExchange exchange) throws IOException {
+            completionPrompts.add(mapper.readTree(exchange.getRequestBody()).path("prompt").asText());
+            respond(exchange, "{\"choices\":[{\"text\":\"10\"}]}");
+        }
+
+        private void respond(HttpExchange exchange, String json) throws IOException {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        }
+
+        private RerankerService service(String provider, ConcurrentMapCacheManager cacheManager) {
+            String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+            return new RerankerService(true, provider, baseUrl, "test-model", "", 50, 0.0, 2, cacheManager);
+        }
+
+        @Test
+        void testOnlyUncachedDocumentsAreSentToProvider() {
+            RerankerService service = service("local", new ConcurrentMapCacheManager());
+            List<Document> first = List.of(
+                    new Document("id1", "short", 0.9, Map.of()),
+                    new Document("id2", "a much longer document", 0.8, Map.of())
+            );
+            List<Document> second = List.of(
+                    new Document("id2", "a much longer document", 0.8, Map.of()),
+                    new Document("id3", "medium length", 0.7, Map.of())
+            );
+
+            service.rerank("query", first, 2);
+            List<RerankResult> results = service.rerank("query", second, 2);
+
+            assertEquals(List.of(List.of("short", "a much longer document"), List.of("medium length")), rerankRequests);
+            assertEquals(List.of("id2", "id3"), results.stream().map(RerankResult::id).toList());
+            assertEquals(0.22, results.get(0).rerankScore(), 0.001);
+        }
+
+        @Test
+        void testChangedQueryOrTextIsScoredAgain() {
+            RerankerService service = service("local", new ConcurrentMapCacheManager());
+
+            service.rerank("query", List.of(new Document("id1", "text", 0.9, Map.of())), 1);
+            service.rerank("other query", List.of(new Document("id1", "text", 0.9, Map.of())), 1);
+            service.rerank("query", List.of(new Document("id1", "new text", 0.9, Map.of())), 1);
+
+            assertEquals(3, rerankRequests.size());
+        }
+
+        @Test
+        void testLlmStopsOnceTopKIsSettled() {
+            RerankerService service = service("llm", new ConcurrentMapCacheManager());
+            List<Document> docs = IntStream.range(0, 10)
+                    .mapToObj(i -> new Document("id" + i, "Doc " + i, 1.0 - i / 10.0, Map.of()))
+                    .toList();
+
+            List<RerankResult> results = service.rerank("query", docs, 2);
+
+            // One wave of llm-concurrency (2) perfect scores settles the top 2
+            assertEquals(2, completionPrompts.size());
+            assertEquals(List.of("id0", "id1"), results.stream().map(RerankResult::id).toList());
+            assertEquals(1.0, results.get(0).rerankScore(), 0.001);
+
+            service.rerank("query", docs, 2);
+            assertEquals(2, completionPrompts.size());
+        }
+    }
 }
@@ -1,14 +1,30 @@
 package com.naagi.rag.search;
 
 import com.naagi.rag.search.BM25Index.BM25Result;
+import com.naagi.rag.search.BM25Index.CategoryFilter;
+import com.naagi.rag.search.BM25Index.DocumentToIndex;
+import com.naagi.rag.search.HybridSearchService.Fusion;
+import com.naagi.rag.search.HybridSearchService.FusedHit;
 import com.naagi.rag.search.HybridSearchService.HybridResult;
+import com.naagi.rag.search.HybridSearchService.RankedList;
 import com.naagi.rag.search.HybridSearchService.SearchHit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -78,6 +94,287 @@ class HybridSearchTest {
             assertEquals(1, index.size());
         }
 
+        @Test
+        void testReindexReplacesChunk() {
+            index.index("id1", "doc1", 0, "Kafka consumer configuration");
+            index.index("id1", "doc1", 0, "Redis cache configuration");
+
+            assertEquals(1, index.size());
+            assertTrue(index.search("kafka", 5).isEmpty());
+            assertEquals("id1", index.search("redis", 5).get(0).id());
+        }
+
+        @Test
+        void testSearchAfterCompaction() {
+            for (int i = 0; i < 3000; i++) {
+                index.index("id" + i, "doc" + (i % 3), i, "shared term chunk" + i + (i % 3 == 0 ? " kubernetes" : ""));
+            }
+
+            // Deleting two thirds of the chunks rewrites the mostly deleted segments
+            index.removeByDocId("doc1");
+            index.removeByDocId("doc2");
+            assertEquals(1000, index.size());
+
+            List<BM25Result> results = index.search("kubernetes", 2000);
+            assertEquals(1000, results.size());
+            assertTrue(results.stream().allMatch(r -> r.docId().equals("doc0")));
+
+            List<BM25Result> exact = index.search("chunk2997", 5);
+            assertEquals(1, exact.size());
+            assertEquals("id2997", exact.get(0).id());
+            assertTrue(index.search("chunk2998", 5).isEmpty());
+        }
+
+        @Test
+        void testCommitAndReopen(@TempDir Path dir) {
+            BM25Index persistent = BM25Index.open(dir);
+            assertFalse(persistent.isRestored());
+            persistent.index("id1", "doc1", 0, "Spring Boot is a framework for building Java applications");
+            persistent.index("id2", "doc1", 1, "Spring Data provides repository abstractions for data access");
+            persistent.index("id3", "doc2", 0, "Python is a programming language for data science");
+            assertTrue(persistent.commit());
+            assertFalse(persistent.commit(), "Nothing changed since the last commit");
+            List<BM25Result> before = persistent.search("spring data", 5);
+            persistent.close();
+
+            BM25Index reopened = BM25Index.open(dir);
+            assertTrue(reopened.isRestored());
+            assertEquals(3, reopened.size());
+            assertEquals(before, reopened.search("spring data", 5));
+
+            // Changes on top of a restored segment survive the next commit
+            reopened.remove("id2");
+            reopened.index("id4", "doc3", 0, "Spring Security handles authentication");
+            assertTrue(reopened.commit());
+            reopened.close();
+
+            BM25Index third = BM25Index.open(dir);
+            assertEquals(3, third.size());
+            assertTrue(third.search("repository", 5).isEmpty());
+            assertEquals("id4", third.search("authentication", 5).get(0).id());
+            third.close();
+        }
+
+        @Test
+        void testUnreadableManifestStartsEmpty(@TempDir Path dir) throws Exception {
+            Files.writeString(dir.resolve("manifest.json"), "{ not json");
+            Files.writeString(dir.resolve("segment-00000001.bm25"), "garbage");
+
+            BM25Index persistent = BM25Index.open(dir);
+            assertFalse(persistent.isRestored());
+            assertEquals(0, persistent.size());
+            assertFalse(Files.exists(dir.resolve("segment-00000001.bm25")), "Uncommitted segments are removed");
+            persistent.close();
+        }
+
+        @Test
+        void testMaxScoreMatchesExhaustive(@TempDir Path dir) {
+            String[] vocabulary = {"kafka", "redis", "spring", "cache", "consumer", "topic",
+                    "cluster", "vector", "search", "index", "query", "latency"};
+            Random random = new Random(42);
+            BM25Index persistent = BM25Index.open(dir);
+            for (int i = 0; i < 3000; i++) {
+                StringBuilder text = new StringBuilder("chunk" + i);
+                int words = 3 + random.nextInt(20);
+                for (int w = 0; w < words; w++) {
+                    // Skewed choice so common and rare terms are both present
+                    int term = (int) (vocabulary.length * Math.pow(random.nextDouble(), 2));
+                    text.append(' ').append(vocabulary[term]);
+                }
+                persistent.index("id" + i, "doc" + (i % 50), i, text.toString());
+                if (i == 2000) {
+                    persistent.commit();
+                }
+                if (i % 7 == 0) {
+                    persistent.remove("id" + (i / 2));
+                }
+            }
+
+            String[] queries = {"kafka", "latency query", "redis cache cluster", "spring spring topic",
+                    "vector search index latency query", "consumer chunk17 kafka"};
+            for (String query : queries) {
+                for (int topK : new int[]{1, 5, 50}) {
+                    persistent.setEvaluation(BM25Index.Evaluation.EXHAUSTIVE);
+                    List<BM25Result> exhaustive = persistent.search(query, topK);
+                    persistent.setEvaluation(BM25Index.Evaluation.MAX_SCORE);
+                    assertEquals(exhaustive, persistent.search(query, topK), query + " top " + topK);
+                }
+            }
+
+            persistent.setEvaluation(BM25Index.Evaluation.VERIFY);
+            for (String query : queries) {
+                persistent.search(query, 10);
+            }
+            assertEquals(0L, persistent.getStats().get("verifyMismatches"));
+            persistent.close();
+        }
+
+        @Test
+        void testCategoryFilters(@TempDir Path dir) {
+            BM25Index persistent = BM25Index.open(dir);
+            for (int i = 0; i < 10000; i++) {
+                List<String> categories = i % 2 == 0 ? List.of("kafka") : List.of("redis");
+                if (i % 3 == 0) {
+                    categories = List.of(categories.get(0), "ops");
+                }
+                persistent.index("id" + i, "doc" + i, 0, "cluster configuration chunk" + i, categories);
+                if (i == 6000) {
+                    persistent.commit();
+                }
+            }
+
+            List<BM25Result> kafka = persistent.search("cluster", 10000, CategoryFilter.of("kafka"));
+            assertEquals(5000, kafka.size());
+            assertTrue(kafka.stream().allMatch(r -> Integer.parseInt(r.id().substring(2)) % 2 == 0));
+
+            assertEquals(10000, persistent.search("cluster", 10000,
+                    CategoryFilter.anyOf(List.of("kafka", "redis"))).size());
+
+            List<BM25Result> kafkaOps = persistent.search("cluster", 10000,
+                    CategoryFilter.allOf(List.of("kafka", "ops")));
+            assertEquals(1667, kafkaOps.size());
+            assertTrue(kafkaOps.stream().allMatch(r -> Integer.parseInt(r.id().substring(2)) % 6 == 0));
+
+            assertTrue(persistent.search("cluster", 10, CategoryFilter.of("unknown")).isEmpty());
+            assertTrue(persistent.search("cluster", 10, CategoryFilter.allOf(List.of("kafka", "redis"))).isEmpty());
+
+            // Filtered MaxScore agrees with exhaustive scoring
+            assertEquals("id12", persistent.search("chunk12 cluster", 1, CategoryFilter.of("ops")).get(0).id());
+            persistent.setEvaluation(BM25Index.Evaluation.VERIFY);
+            persistent.search("chunk12 configuration", 5, CategoryFilter.of("ops"));
+            assertEquals(0L, persistent.getStats().get("verifyMismatches"));
+
+            // Removed chunks drop out of the category after a commit
+            persistent.remove("id0");
+            persistent.commit();
+            assertEquals(4999, persistent.search("cluster", 10000, CategoryFilter.of("kafka")).size());
+            persistent.close();
+
+            BM25Index reopened = BM25Index.open(dir);
+            assertEquals(1666, reopened.search("cluster", 10000,
+                    CategoryFilter.allOf(List.of("kafka", "ops"))).size());
+            reopened.close();
+        }
+
+        @Test
+        void testDeletesAcrossCommittedSegments(@TempDir Path dir) {
+            BM25Index persistent = BM25Index.open(dir);
+            for (int batch = 0; batch < 25; batch++) {
+                List<DocumentToIndex> docs = new ArrayList<>();
+                for (int i = 0; i < 40; i++) {
+                    int n = batch * 40 + i;
+                    docs.add(new DocumentToIndex("id" + n, "doc" + (n % 10), n, "merge segment chunk" + n));
+                }
+                persistent.indexBatch(docs);
+                if (batch % 5 == 4) {
+                    persistent.commit();
+                }
+            }
+            assertEquals(1000, persistent.size());
+
+            // Whole-document deletes reach committed, merged and buffered segments alike
+            persistent.removeByDocId("doc3");
+            persistent.remove("id1");
+            assertEquals(899, persistent.size());
+            assertTrue(persistent.search("chunk13", 5).isEmpty());
+            assertTrue(persistent.commit());
+            persistent.close();
+
+            BM25Index reopened = BM25Index.open(dir);
+            assertEquals(899, reopened.size());
+            assertEquals(899, reopened.search("segment", 1000).size());
+            assertTrue(reopened.search("chunk993", 5).isEmpty());
+            assertEquals("id994", reopened.search("chunk994", 5).get(0).id());
+            reopened.close();
+        }
+
+        @Test
+        void testSearchDuringWrites() throws Exception {
+            for (int i = 0; i < 500; i++) {
+                index.index("base" + i, "base", i, "stable corpus chunk" + i);
+            }
+
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        index.index("id" + i, "doc" + (i % 20), i, "stable churn chunk" + i);
+                        if (i % 3 == 0) {
+                            index.remove("id" + (i / 2));
+                        }
+                        if (i % 500 == 499) {
+                            index.removeByDocId("doc" + (i % 20));
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                // Every snapshot holds all base chunks, whatever the writer is doing
+                List<BM25Result> results = index.search("corpus", 1000);
+                assertEquals(500, results.size());
+            }
+            writer.join();
+            assertNull(failure.get());
+
+            int size = index.size();
+            assertEquals(size, index.search("stable", 5000).size());
+            assertTrue((long) index.getStats().get("merges") > 0);
+        }
+
+        @Test
+        void testStandardAnalyzer() {
+            Analyzer analyzer = Analyzer.standard();
+            assertEquals(List.of("spring", "boot", "kafka", "consumers", "k8s"),
+                    analyzer.terms("Spring-Boot 3x: the KAFKA consumers on k8s, at 5 a.m."));
+            assertEquals(List.of("caf", "kelvin"), analyzer.terms("Café Kelvin"));
+            assertTrue(analyzer.terms("  ").isEmpty());
+            assertTrue(analyzer.terms(null).isEmpty());
+
+            // Same terms as lowercase, strip punctuation, split, drop short tokens and stopwords
+            Random random = new Random(7);
+            String alphabet = "abcXYZ019 ,.-_éK\tTHE the";
+            for (int i = 0; i < 200; i++) {
+                StringBuilder text = new StringBuilder();
+                for (int c = 0; c < 60; c++) {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                List<String> expected = Arrays.stream(text.toString().toLowerCase(Locale.ROOT)
+                                .replaceAll("[^a-z0-9\\s]", " ")
+                                .split("\\s+"))
+                        .filter(t -> t.length() > 2 && !Analyzer.STOPWORDS.contains(t))
+                        .toList();
+                assertEquals(expected, analyzer.terms(text.toString()), text.toString());
+            }
+        }
+
+        @Test
+        void testStemmingAnalyzer() {
+            assertEquals(List.of("query", "cache", "class", "status", "toes", "topic"),
+                    Analyzer.stemming().terms("queries caches class status toes topics"));
+
+            BM25Index stemmed = new BM25Index(Analyzer.stemming());
+            stemmed.index("id1", "doc1", 0, "Configuring distributed caches");
+            stemmed.index("id2", "doc2", 0, "Kafka consumer groups");
+            assertEquals("id1", stemmed.search("cache", 5).get(0).id());
+            assertTrue(index.search("cache", 5).isEmpty(), "The standard analyzer does not stem");
+        }
+
+        @Test
+        void testAnalyzerChangeDiscardsIndex(@TempDir Path dir) {
+            BM25Index persistent = BM25Index.open(dir);
+            persistent.index("id1", "doc1", 0, "Configuring distributed caches");
+            assertTrue(persistent.commit());
+            persistent.close();
+
+            BM25Index stemmed = BM25Index.open(dir, Analyzer.stemming());
+            assertFalse(stemmed.isRestored(), "Terms of another analyzer cannot be searched");
+            assertEquals(0, stemmed.size());
+            stemmed.close();
+        }
+
         @Test
         void testClear() {
             index.index("id1", "doc1", 0, "Test document");
@@ -89,6 +386,73 @@ class HybridSearchTest {
             assertEquals(0, index.size());
         }
 
+        @Test
+        void testTermlessChunksCounted(@TempDir Path dir) {
+            BM25Index persistent = BM25Index.open(dir);
+            persistent.index("id1", "doc1", 0, "Spring Boot is a framework");
+            persistent.index("id2", "doc1", 1, "—— ***");
+            persistent.index("id3", "doc2", 0, "日本語のテキスト");
+            assertEquals(1, persistent.size());
+            assertEquals(2, persistent.skippedCount());
+            assertTrue(persistent.commit());
+            persistent.close();
+
+            BM25Index reopened = BM25Index.open(dir);
+            assertEquals(1, reopened.size());
+            assertEquals(2, reopened.skippedCount());
+
+            // Re-indexing with terms, or removing, drops a chunk from the skipped ones
+            reopened.index("id3", "doc2", 0, "Japanese text");
+            reopened.removeByDocId("doc1");
+            assertEquals(1, reopened.size());
+            assertEquals(0, reopened.skippedCount());
+            reopened.close();
+        }
+
+        @Test
+        void testRebuildSwapsInWhenFinished(@TempDir Path dir) {
+            BM25Index persistent = BM25Index.open(dir);
+            persistent.index("old", "doc1", 0, "Legacy deployment notes");
+
+            BM25Index rebuilt = persistent.startRebuild();
+            rebuilt.index("id1", "doc2", 0, "Kubernetes deployment guide");
+            // Writes during the rebuild reach both indexes
+            persistent.index("id2", "doc3", 0, "Payment service runbook");
+            persistent.index("id3", "doc3", 1, "***");
+
+            assertEquals("old", persistent.search("deployment", 5).get(0).id());
+            assertEquals(2, persistent.size());
+
+            persistent.finishRebuild(rebuilt);
+            assertEquals(2, persistent.size());
+            assertEquals(1, persistent.skippedCount());
+            assertEquals("id1", persistent.search("deployment", 5).get(0).id());
+            assertTrue(persistent.search("legacy", 5).isEmpty());
+            assertFalse(persistent.search("runbook", 5).isEmpty());
+            assertTrue(persistent.commit());
+            persistent.close();
+
+            BM25Index reopened = BM25Index.open(dir);
+            assertEquals(2, reopened.size());
+            assertEquals(1, reopened.skippedCount());
+            assertTrue(reopened.search("legacy", 5).isEmpty());
+            reopened.close();
+        }
+
+        @Test
+        void testAbandonedRebuildLeavesIndex() {
+            index.index("id1", "doc1", 0, "Legacy deployment notes");
+
+            BM25Index rebuilt = index.startRebuild();
+            rebuilt.index("id2", "doc2", 0, "Kubernetes deployment guide");
+            index.abandonRebuild(rebuilt);
+            index.index("id3", "doc3", 0, "Payment service runbook");
+
+            assertEquals(2, index.size());
+            assertEquals("id1", index.search("deployment", 5).get(0).id());
+            assertEquals(1, index.search("deployment", 5).size());
+        }
+
         @Test
         void testStats() {
             index.index("id1", "doc1", 0, "The quick brown fox jumps over the lazy dog");
@@ -227,5 +591,49 @@ class HybridSearchTest {
             List<HybridResult> limited = service.fuseWithRRF(denseResults, List.of(), 3);
             assertEquals(3, limited.size());
         }
+
+        @Test
+        void testFuseManyLists() {
+            // Random lists over a small id space so ids overlap across lists
+            Random random = new Random(42);
+            List<RankedList> lists = new ArrayList<>();
+            for (int list = 0; list < 4; list++) {
+                List<SearchHit> hits = new ArrayList<>();
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < 30; i++) {
+                    ids.add(i);
+                }
+                Collections.shuffle(ids, random);
+                for (int rank = 0; rank < 12; rank++) {
+                    int id = ids.get(rank);
+                    hits.add(new SearchHit("id" + id, "doc" + id, 0, "text" + id, null, 12 - rank));
+                }
+                lists.add(new RankedList("list" + list, hits, 0.5 + list * 0.25));
+            }
+
+            List<FusedHit> fused = service.fuse(lists, Fusion.RRF, 10);
+
+            // Reference: plain per-id sums
+            Map<String, Double> expected = new HashMap<>();
+            for (RankedList list : lists) {
+                for (int rank = 0; rank < list.hits().size(); rank++) {
+                    expected.merge(list.hits().get(rank).id(), list.weight() / (60.0 + rank + 1), Double::sum);
+                }
+            }
+            List<Double> best = expected.values().stream()
+                    .sorted(Comparator.reverseOrder()).limit(10).toList();
+
+            assertEquals(10, fused.size());
+            for (int rank = 0; rank < fused.size(); rank++) {
+                FusedHit hit = fused.get(rank);
+                assertEquals(best.get(rank), hit.score(), 1e-12);
+                assertEquals(expected.get(hit.id()), hit.score(), 1e-12);
+                for (int list = 0; list < lists.size(); list++) {
+                    boolean present = lists.get(list).hits().stream().anyMatch(h -> h.id().equals(hit.id()));
+                    assertEquals(present, hit.inList(list));
+                    assertEquals(present ? 1 : 0, hit.listScore(list) > 0 ? 1 : 0);
+                }
+            }
+        }
     }
 }
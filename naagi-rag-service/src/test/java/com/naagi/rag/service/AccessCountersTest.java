@@ -0,0 +1,113 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.entity.UserQuestion;
+import com.naagi.rag.repository.UserQuestionRepository;
+import com.naagi.rag.vector.UserQuestionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AccessCounters.
+ */
+@ExtendWith(MockitoExtension.class)
+class AccessCountersTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserQuestionRepository questionRepository;
+
+    @Mock
+    private UserQuestionStore questionStore;
+
+    private AccessCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        counters = new AccessCounters(jdbcTemplate, questionRepository, questionStore);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> batchFor(String tablePrefix) {
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(tablePrefix), args.capture());
+        return args.getValue();
+    }
+
+    @Test
+    @DisplayName("Should write aggregated FAQ accesses in one batch")
+    void testFlushFaqAccesses() {
+        IntStream.range(0, 3).forEach(i -> counters.recordFaqAccess(1L));
+        counters.recordFaqAccess(2L);
+
+        counters.flush();
+
+        assertThat(batchFor("UPDATE faq_entries"))
+                .extracting(row -> row[2] + "=" + row[0])
+                .containsExactlyInAnyOrder("1=3", "2=1");
+        verifyNoInteractions(questionStore);
+    }
+
+    @Test
+    @DisplayName("Should push flushed question frequencies to Qdrant in one batch")
+    void testFlushQuestionAsks() {
+        assertThat(counters.recordQuestionAsked("q-1")).isEqualTo(1);
+        assertThat(counters.recordQuestionAsked("q-1")).isEqualTo(2);
+        when(questionRepository.findAllById(any())).thenReturn(List.of(
+                UserQuestion.builder().id("q-1").frequency(7).qdrantPointId("point-1").build()));
+
+        counters.flush();
+
+        assertThat(batchFor("UPDATE user_questions")).singleElement()
+                .satisfies(row -> assertThat(row).containsExactly(2L, row[1], "q-1"));
+        verify(questionStore).updateFrequencies(Map.of("point-1", 7));
+    }
+
+    @Test
+    @DisplayName("Should keep increments of a failed flush for the next one")
+    void testFailedFlushIsRetried() {
+        counters.recordFaqAccess(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new QueryTimeoutException("locked"))
+                .thenReturn(new int[]{1});
+
+        counters.flush();
+        counters.recordFaqAccess(1L);
+        counters.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), args.capture());
+        assertThat(args.getAllValues().get(1)).singleElement()
+                .satisfies(row -> assertThat(row[0]).isEqualTo(2L));
+    }
+
+    @Test
+    @DisplayName("Should not write anything when no counters are pending")
+    void testIdleFlush() {
+        counters.recordFaqAccess(1L);
+        counters.flush();
+        clearInvocations(jdbcTemplate);
+
+        counters.flush();
+        counters.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,100 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.metrics.RagMetrics;
+import com.naagi.rag.service.RagService.QueryResult;
+import com.naagi.rag.service.RagService.SourceChunk;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AnswerCache.
+ */
+class AnswerCacheTest {
+
+    private static final Map<String, float[]> VECTORS = Map.of(
+            "how do i restart a pod?", new float[]{1f, 0f, 0f},
+            "how can i restart a pod?", new float[]{0.99f, 0.05f, 0f},
+            "how do i delete a pod?", new float[]{0.6f, 0.8f, 0f});
+
+    private SimpleMeterRegistry registry;
+    private AnswerCache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new AnswerCache(new ConcurrentMapCacheManager(AnswerCache.CACHE_NAME),
+                text -> VECTORS.getOrDefault(text.toLowerCase(), new float[]{0f, 0f, 1f}),
+                new RagMetrics(registry), true, 0.05, 16);
+    }
+
+    private static QueryResult answer(String question, String answer) {
+        return new QueryResult(question, answer, List.of(new SourceChunk("doc-1", 0, 0.9, "text", "Title")));
+    }
+
+    private void put(String question, String category, String answer) {
+        cache.put("standard", question, 5, category, cache.generation(category), answer(question, answer));
+    }
+
+    @Test
+    @DisplayName("Should serve normalized duplicates from the cache")
+    void testExactHit() {
+        put("How do I restart a pod?", "ops", "Use kubectl rollout restart.");
+
+        assertThat(cache.get("standard", "  how do I  restart a POD?", 5, "ops"))
+                .hasValueSatisfying(r -> assertThat(r.answer()).isEqualTo("Use kubectl rollout restart."));
+        assertThat(cache.get("rerank", "How do I restart a pod?", 5, "ops")).isEmpty();
+        assertThat(cache.get("standard", "How do I restart a pod?", 3, "ops")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should serve close questions and miss distant ones")
+    void testSemanticHit() {
+        put("How do I restart a pod?", null, "Use kubectl rollout restart.");
+
+        assertThat(cache.get("standard", "How can I restart a pod?", 5, null)).hasValueSatisfying(r -> {
+            assertThat(r.question()).isEqualTo("How can I restart a pod?");
+            assertThat(r.answer()).isEqualTo("Use kubectl rollout restart.");
+        });
+        assertThat(cache.get("standard", "How do I delete a pod?", 5, null)).isEmpty();
+        assertThat(registry.get("rag.cache.semantic.hits").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should invalidate the changed category and unfiltered answers only")
+    void testCategoryInvalidation() {
+        put("How do I restart a pod?", "ops", "ops answer");
+        put("How do I restart a pod?", "dev", "dev answer");
+        put("How do I restart a pod?", null, "all answer");
+
+        cache.invalidate(List.of("ops"));
+
+        assertThat(cache.get("standard", "How do I restart a pod?", 5, "ops")).isEmpty();
+        assertThat(cache.get("standard", "How do I restart a pod?", 5, null)).isEmpty();
+        assertThat(cache.get("standard", "How do I restart a pod?", 5, "dev"))
+                .hasValueSatisfying(r -> assertThat(r.answer()).isEqualTo("dev answer"));
+
+        cache.invalidateAll();
+
+        assertThat(cache.get("standard", "How do I restart a pod?", 5, "dev")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should drop answers computed before an invalidation")
+    void testStaleGenerationNotCached() {
+        long generation = cache.generation("ops");
+        cache.invalidate(List.of("ops"));
+
+        cache.put("standard", "How do I restart a pod?", 5, "ops", generation,
+                answer("How do I restart a pod?", "stale answer"));
+
+        assertThat(cache.get("standard", "How do I restart a pod?", 5, "ops")).isEmpty();
+    }
+}
@@ -259,7 +259,8 @@ class DocumentProcessingServiceTest {
                     .thenReturn("[{\"question\": \"What is the test?\", \"answer\": \"It is testing.\"}]");
             when(qaRepository.save(any(GeneratedQA.class))).thenAnswer(inv -> inv.getArgument(0));
             when(ragService.ask(anyString(), eq("test-category"))).thenReturn("The RAG answer about testing.");
-            when(embeddingsClient.embed(anyString())).thenReturn(List.of(1.0, 0.0, 0.0)); // Mock embeddings
+            when(embeddingsClient.embedBatch(anyList())).thenReturn(List.of(
+                    new float[]{1.0f, 0.0f, 0.0f}, new float[]{1.0f, 0.0f, 0.0f})); // Mock expected and RAG answer embeddings
 
             // When
             List<GeneratedQA> result = processingService.generateAdditionalQA(uploadId, 1, 0);
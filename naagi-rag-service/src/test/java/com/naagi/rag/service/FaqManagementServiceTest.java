@@ -5,12 +5,12 @@ import com.naagi.rag.entity.FaqEntry;
 import com.naagi.rag.entity.FaqSettings;
 import com.naagi.rag.entity.GeneratedQA;
 import com.naagi.rag.llm.EmbeddingsClient;
-import com.naagi.rag.qdrant.FaqQdrantClient;
 import com.naagi.rag.qdrant.FaqQdrantClient.FaqSearchResult;
 import com.naagi.rag.repository.DocumentUploadRepository;
 import com.naagi.rag.repository.FaqEntryRepository;
 import com.naagi.rag.repository.FaqSettingsRepository;
 import com.naagi.rag.repository.GeneratedQARepository;
+import com.naagi.rag.vector.FaqStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -46,7 +46,7 @@ class FaqManagementServiceTest {
     private FaqSettingsRepository settingsRepository;
 
     @Mock
-    private FaqQdrantClient faqQdrantClient;
+    private FaqStore faqStore;
 
     @Mock
     private EmbeddingsClient embeddingsClient;
@@ -54,6 +54,9 @@ class FaqManagementServiceTest {
     @Mock
     private FaqConfig faqConfig;
 
+    @Mock
+    private AccessCounters accessCounters;
+
     private FaqManagementService faqManagementService;
 
     @BeforeEach
@@ -63,9 +66,10 @@ class FaqManagementServiceTest {
                 uploadRepository,
                 faqEntryRepository,
                 settingsRepository,
-                faqQdrantClient,
+                faqStore,
                 embeddingsClient,
-                faqConfig
+                faqConfig,
+                accessCounters
         );
     }
 
@@ -82,7 +86,7 @@ class FaqManagementServiceTest {
             String categoryId = "cat-1";
             String createdBy = "admin";
 
-            when(embeddingsClient.embed(question)).thenReturn(List.of(0.1, 0.2, 0.3));
+            when(embeddingsClient.embed(question)).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
             when(faqEntryRepository.save(any(FaqEntry.class))).thenAnswer(invocation -> {
                 FaqEntry entry = invocation.getArgument(0);
                 entry.setId(1L);
@@ -102,7 +106,7 @@ class FaqManagementServiceTest {
             assertThat(result.getDocId()).isEqualTo("USER_QUESTION");
             assertThat(result.isActive()).isTrue();
 
-            verify(faqQdrantClient).upsertFaq(any());
+            verify(faqStore).upsertFaq(any());
             verify(faqEntryRepository).save(any(FaqEntry.class));
         }
 
@@ -112,7 +116,7 @@ class FaqManagementServiceTest {
             // Given - create service without Qdrant client
             FaqManagementService serviceWithoutQdrant = new FaqManagementService(
                     qaRepository, uploadRepository, faqEntryRepository,
-                    settingsRepository, null, embeddingsClient, faqConfig
+                    settingsRepository, null, embeddingsClient, faqConfig, accessCounters
             );
 
             // When
@@ -156,8 +160,8 @@ class FaqManagementServiceTest {
                     .build();
 
             when(settingsRepository.getSettings()).thenReturn(settings);
-            when(embeddingsClient.embed(question)).thenReturn(List.of(0.1, 0.2, 0.3));
-            when(faqQdrantClient.searchFaqs(anyList(), eq(5), eq(categoryId), eq(0.85)))
+            when(embeddingsClient.embed(question)).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+            when(faqStore.searchFaqs(any(float[].class), eq(5), eq(categoryId), eq(0.85)))
                     .thenReturn(List.of(
                             new FaqSearchResult("faq-1", "How to reset password?",
                                     "Click reset link", categoryId, null, "doc-1", "title", 0.92)
@@ -189,7 +193,7 @@ class FaqManagementServiceTest {
             // Then
             assertThat(results).isEmpty();
             verifyNoInteractions(embeddingsClient);
-            verifyNoInteractions(faqQdrantClient);
+            verifyNoInteractions(faqStore);
         }
 
         @Test
@@ -202,8 +206,8 @@ class FaqManagementServiceTest {
                     .build();
 
             when(settingsRepository.getSettings()).thenReturn(settings);
-            when(embeddingsClient.embed(anyString())).thenReturn(List.of(0.1, 0.2, 0.3));
-            when(faqQdrantClient.searchFaqs(anyList(), eq(1), anyString(), eq(0.85)))
+            when(embeddingsClient.embed(anyString())).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+            when(faqStore.searchFaqs(any(float[].class), eq(1), anyString(), eq(0.85)))
                     .thenReturn(List.of(
                             new FaqSearchResult("faq-1", "Best match question",
                                     "Best match answer", "cat-1", null, "doc-1", "title", 0.95)
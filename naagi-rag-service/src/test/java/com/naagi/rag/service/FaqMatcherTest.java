@@ -0,0 +1,99 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.entity.FaqEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for FaqMatcher.
+ */
+class FaqMatcherTest {
+
+    private static FaqEntry faq(long id, String question) {
+        return FaqEntry.builder().id(id).question(question).answer("answer " + id).build();
+    }
+
+    private static double jaccard(String a, String b) {
+        if (a.equals(b)) return 1.0;
+        Set<String> wordsA = new HashSet<>(Arrays.asList(a.split("\\s+")));
+        Set<String> wordsB = new HashSet<>(Arrays.asList(b.split("\\s+")));
+        Set<String> union = new HashSet<>(wordsA);
+        union.addAll(wordsB);
+        wordsA.retainAll(wordsB);
+        return (double) wordsA.size() / union.size();
+    }
+
+    /**
+     * The linear scan FaqMatcher replaces
+     */
+    private static Optional<FaqEntry> scan(List<FaqEntry> faqs, String question) {
+        String q = FaqMatcher.normalize(question);
+        return faqs.stream()
+                .filter(faq -> jaccard(q, FaqMatcher.normalize(faq.getQuestion())) > 0.8)
+                .max(Comparator.comparingDouble(faq -> jaccard(q, FaqMatcher.normalize(faq.getQuestion()))));
+    }
+
+    @Test
+    @DisplayName("Should match normalized and reordered questions but not loosely related ones")
+    void testMatch() {
+        FaqMatcher matcher = new FaqMatcher(List.of(
+                faq(1, "How do I reset my password?"),
+                faq(2, "What is the VPN address for the office network?"),
+                faq(3, "Where can I find the holiday calendar?")), 0.8);
+
+        assertThat(matcher.match("how do i reset my PASSWORD")).map(FaqEntry::getId).contains(1L);
+        assertThat(matcher.match("what is the office network VPN address")).map(FaqEntry::getId).contains(2L);
+        assertThat(matcher.match("How do I reset my VPN?")).isEmpty();
+        assertThat(matcher.match("")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should prefer the earlier FAQ when two score the same")
+    void testTieGoesToEarlierFaq() {
+        FaqMatcher matcher = new FaqMatcher(List.of(
+                faq(1, "restart the payment service"),
+                faq(2, "restart payment service the"),
+                faq(3, "Restart the payment service!")), 0.8);
+
+        assertThat(matcher.match("restart the payment service")).map(FaqEntry::getId).contains(1L);
+    }
+
+    @Test
+    @DisplayName("Should return the same FAQ as a full similarity scan")
+    void testAgreesWithScan() {
+        Random random = new Random(17);
+        String[] vocabulary = ("how what where do i can the a to reset restart deploy password vpn service pod "
+                + "cluster log access token office holiday build pipeline cache").split(" ");
+        List<FaqEntry> faqs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            faqs.add(faq(i, sentence(random, vocabulary)));
+        }
+        FaqMatcher matcher = new FaqMatcher(faqs, 0.8);
+
+        for (int i = 0; i < 500; i++) {
+            // Half the queries are perturbed FAQ questions so that matches actually occur
+            String query = i % 2 == 0
+                    ? faqs.get(random.nextInt(faqs.size())).getQuestion() + " " + vocabulary[random.nextInt(vocabulary.length)]
+                    : sentence(random, vocabulary);
+            assertThat(matcher.match(query)).as(query).isEqualTo(scan(faqs, query));
+        }
+    }
+
+    private static String sentence(Random random, String[] vocabulary) {
+        return random.ints(3 + random.nextInt(8), 0, vocabulary.length)
+                .mapToObj(i -> vocabulary[i])
+                .collect(Collectors.joining(" "));
+    }
+}
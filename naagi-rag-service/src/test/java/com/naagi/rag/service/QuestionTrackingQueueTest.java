@@ -0,0 +1,88 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.config.FaqConfig;
+import com.naagi.rag.metrics.RagMetrics;
+import com.naagi.rag.service.UserQuestionAnalyticsService.TrackQuestionRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for QuestionTrackingQueue.
+ */
+@ExtendWith(MockitoExtension.class)
+class QuestionTrackingQueueTest {
+
+    @Mock
+    private UserQuestionAnalyticsService analyticsService;
+
+    @Mock
+    private FaqConfig faqConfig;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private QuestionTrackingQueue queue(int capacity) {
+        return new QuestionTrackingQueue(analyticsService, faqConfig, new RagMetrics(registry), capacity, 10, 200);
+    }
+
+    private static TrackQuestionRequest question(int n) {
+        return new TrackQuestionRequest("question " + n, "cat-1");
+    }
+
+    @Test
+    @DisplayName("Should drop and count questions once the queue is full")
+    void testDropWhenFull() {
+        when(faqConfig.isStoreAllQuestions()).thenReturn(true);
+        QuestionTrackingQueue queue = queue(2);
+
+        assertThat(queue.submit(question(1))).isTrue();
+        assertThat(queue.submit(question(2))).isTrue();
+        assertThat(queue.submit(question(3))).isFalse();
+
+        assertThat(registry.get("rag.questions.dropped").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("rag.questions.queue.depth").gauge().value()).isEqualTo(2.0);
+        verifyNoInteractions(analyticsService);
+    }
+
+    @Test
+    @DisplayName("Should not queue anything when tracking is disabled")
+    void testDisabled() {
+        when(faqConfig.isStoreAllQuestions()).thenReturn(false);
+
+        assertThat(queue(2).submit(question(1))).isFalse();
+        assertThat(registry.get("rag.questions.dropped").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hand queued questions to analytics as one batch and drain on stop")
+    void testBatchesQueuedQuestions() throws Exception {
+        when(faqConfig.isStoreAllQuestions()).thenReturn(true);
+        QuestionTrackingQueue queue = queue(100);
+        queue.submit(question(1));
+        queue.submit(question(2));
+        queue.submit(question(3));
+
+        queue.start();
+        verify(analyticsService, timeout(5000)).trackQuestions(List.of(question(1), question(2), question(3)));
+
+        queue.submit(question(4));
+        queue.stop();
+        verify(analyticsService).trackQuestions(List.of(question(4)));
+        assertThat(queue.depth()).isZero();
+        assertThat(registry.get("rag.questions.tracked").counter().count()).isEqualTo(4.0);
+    }
+}
@@ -0,0 +1,269 @@
+package com.naagi.rag.service;
+
+import com.naagi.rag.ingest.IngestPipeline;
+import com.naagi.rag.llm.ChatClient;
+import com.naagi.rag.llm.EmbeddingsClient;
+import com.naagi.rag.metrics.RagMetrics;
+import com.naagi.rag.qdrant.QdrantClient.ScrollPage;
+import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import com.naagi.rag.qdrant.QdrantClient.StoredChunk;
+import com.naagi.rag.repository.DocumentUploadRepository;
+import com.naagi.rag.rerank.RerankerService;
+import com.naagi.rag.search.BM25Index;
+import com.naagi.rag.service.RagService.BranchReport;
+import com.naagi.rag.service.RagService.BranchStatus;
+import com.naagi.rag.service.RagService.Retrieval;
+import com.naagi.rag.vector.VectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RagService.
+ * Tests the concurrent dense/sparse fan-out of hybrid search.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RagServiceTest {
+
+    @Mock
+    private EmbeddingsClient embed;
+
+    @Mock
+    private ChatClient chat;
+
+    @Mock
+    private VectorStore qdrant;
+
+    @Mock
+    private RagMetrics metrics;
+
+    @Mock
+    private AnswerCache answerCache;
+
+    @Mock
+    private RerankerService rerankerService;
+
+    @Mock
+    private DocumentUploadRepository documentUploadRepository;
+
+    private IngestPipeline ingestPipeline;
+    private RagService ragService;
+
+    @BeforeEach
+    void setUp() {
+        ingestPipeline = new IngestPipeline(64, 4, 4, 2, 4, 16, embed, metrics);
+        ragService = new RagService(1000, 100, 1, 5, 0.75,
+                true, 0.7, 0.3, 60, "", 256, BM25Index.Evaluation.MAX_SCORE, "standard", 300, 300,
+                embed, chat, qdrant, metrics, ingestPipeline, answerCache, rerankerService, documentUploadRepository);
+        when(embed.embed(anyString())).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+        when(embed.embedBatch(anyList())).thenReturn(List.of(new float[]{0.1f, 0.2f, 0.3f}));
+        ragService.ingest("doc-1", "Kubernetes deployment guide for the payment service", List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ragService.closeBM25Index();
+        ingestPipeline.close();
+    }
+
+    private static BranchReport branch(Retrieval retrieval, String name) {
+        return retrieval.branches().stream()
+                .filter(b -> b.branch().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Nested
+    @DisplayName("Hybrid Fan-out Tests")
+    class HybridFanOutTests {
+
+        @Test
+        @DisplayName("Should report both branches when both answer in time")
+        void testBothBranchesContribute() {
+            when(qdrant.searchWithScores(any(float[].class), anyInt(), any())).thenReturn(List.of(
+                    new SearchResultWithScore("doc-2", 0, "Payment service runbook", "Runbook", 0.9)));
+
+            Retrieval retrieval = ragService.hybridRetrieve("kubernetes payment", 5, null);
+
+            assertThat(branch(retrieval, "dense").status()).isEqualTo(BranchStatus.CONTRIBUTED);
+            assertThat(branch(retrieval, "sparse").status()).isEqualTo(BranchStatus.CONTRIBUTED);
+            assertThat(retrieval.sources()).extracting(RagService.SourceChunk::docId)
+                    .containsExactlyInAnyOrder("doc-1", "doc-2");
+        }
+
+        @Test
+        @DisplayName("Should use sparse results alone when dense misses its deadline")
+        void testDenseTimeoutFallsBackToSparse() {
+            when(embed.embed(anyString())).thenAnswer(invocation -> {
+                Thread.sleep(2000);
+                return new float[]{0.1f, 0.2f, 0.3f};
+            });
+
+            long start = System.currentTimeMillis();
+            Retrieval retrieval = ragService.hybridRetrieve("kubernetes payment", 5, null);
+
+            assertThat(System.currentTimeMillis() - start).isLessThan(1500);
+            assertThat(branch(retrieval, "dense").status()).isEqualTo(BranchStatus.TIMED_OUT);
+            assertThat(branch(retrieval, "sparse").status()).isEqualTo(BranchStatus.CONTRIBUTED);
+            assertThat(retrieval.sources()).extracting(RagService.SourceChunk::docId).containsExactly("doc-1");
+            assertThat(ragService.getBM25Stats().get("denseBranchMisses")).isEqualTo(1L);
+        }
+
+        @Test
+        @DisplayName("Should use sparse results alone when dense fails")
+        void testDenseFailureFallsBackToSparse() {
+            when(qdrant.searchWithScores(any(float[].class), anyInt(), any()))
+                    .thenThrow(new IllegalStateException("qdrant unavailable"));
+
+            Retrieval retrieval = ragService.hybridRetrieve("kubernetes payment", 5, null);
+
+            assertThat(branch(retrieval, "dense").status()).isEqualTo(BranchStatus.FAILED);
+            assertThat(retrieval.sources()).extracting(RagService.SourceChunk::docId).containsExactly("doc-1");
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Retrieval Tests")
+    class BatchRetrievalTests {
+
+        @Test
+        @DisplayName("Should embed and search all queries in one call each")
+        void testOneEmbeddingAndSearchCall() {
+            List<String> queries = List.of("kubernetes payment", "payment deployment");
+            when(embed.embedBatch(queries)).thenReturn(List.of(new float[]{0.1f}, new float[]{0.2f}));
+            when(qdrant.searchBatchWithScores(anyList(), anyInt(), any())).thenReturn(List.of(
+                    List.of(new SearchResultWithScore("doc-2", 0, "Payment service runbook", "Runbook", 0.9)),
+                    List.of()));
+
+            List<List<RagService.SourceChunk>> pools = ragService.retrieveCandidatesBatch(queries, 5, null);
+
+            assertThat(pools).hasSize(2);
+            assertThat(pools.get(0)).extracting(RagService.SourceChunk::docId)
+                    .containsExactlyInAnyOrder("doc-1", "doc-2");
+            assertThat(pools.get(1)).extracting(RagService.SourceChunk::docId).containsExactly("doc-1");
+            verify(embed, never()).embed(anyString());
+            verify(qdrant, times(1)).searchBatchWithScores(anyList(), anyInt(), any());
+            verify(qdrant, never()).searchWithScores(any(float[].class), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("Should fall back to sparse pools when the dense batch fails")
+        void testDenseBatchFailureFallsBackToSparse() {
+            when(qdrant.searchBatchWithScores(anyList(), anyInt(), any()))
+                    .thenThrow(new IllegalStateException("qdrant unavailable"));
+
+            List<List<RagService.SourceChunk>> pools =
+                    ragService.retrieveCandidatesBatch(List.of("kubernetes payment"), 5, null);
+
+            assertThat(pools).singleElement().satisfies(pool ->
+                    assertThat(pool).extracting(RagService.SourceChunk::docId).containsExactly("doc-1"));
+        }
+    }
+    @Nested
+    @DisplayName("BM25 Restore Tests")
+    class RestoreTests {
+
+        @TempDir
+        Path indexDir;
+
+        private RagService restored;
+
+        @BeforeEach
+        void setUp() {
+            RagService writer = service();
+            writer.ingest("doc-1", "Kubernetes deployment guide for the payment service", List.of());
+            writer.closeBM25Index();
+            restored = service();
+        }
+
+        @AfterEach
+        void tearDown() {
+            restored.closeBM25Index();
+        }
+
+        private RagService service() {
+            return new RagService(1000, 100, 1, 5, 0.75,
+                    true, 0.7, 0.3, 60, indexDir.toString(), 256, BM25Index.Evaluation.MAX_SCORE, "standard",
+                    300, 300, embed, chat, qdrant, metrics, ingestPipeline, answerCache, rerankerService,
+                    documentUploadRepository);
+        }
+
+        private void awaitBuildState(String expected) throws InterruptedException {
+            for (int i = 0; i < 100 && !expected.equals(restored.getBM25Stats().get("buildState")); i++) {
+                Thread.sleep(20);
+            }
+            assertThat(restored.getBM25Stats().get("buildState")).isEqualTo(expected);
+        }
+
+        @Test
+        @DisplayName("Should keep a restored index that matches the vector store")
+        void testRestoredIndexKept() throws InterruptedException {
+            when(qdrant.countPoints()).thenReturn(1L);
+
+            restored.warmUpBM25Index();
+
+            verify(qdrant, timeout(2000)).countPoints();
+            Thread.sleep(100);
+            assertThat(restored.getBM25Stats().get("buildState")).isEqualTo("RESTORED");
+            verify(qdrant, never()).scrollChunks(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should keep a restored index whose term-less chunks make up the difference")
+        void testRestoredIndexWithTermlessChunksKept() throws InterruptedException {
+            RagService writer = restored;
+            writer.ingest("doc-2", "—— ***", List.of());
+            writer.closeBM25Index();
+            restored = service();
+            when(qdrant.countPoints()).thenReturn(2L);
+
+            restored.warmUpBM25Index();
+
+            verify(qdrant, timeout(2000)).countPoints();
+            Thread.sleep(100);
+            assertThat(restored.getBM25Stats().get("buildState")).isEqualTo("RESTORED");
+            verify(qdrant, never()).scrollChunks(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should rebuild a restored index that is behind the vector store while it keeps serving")
+        void testStaleRestoredIndexRebuilt() throws InterruptedException {
+            when(qdrant.countPoints()).thenReturn(2L);
+            when(qdrant.searchBatchWithScores(anyList(), anyInt(), any())).thenReturn(List.of(List.of()));
+            List<List<String>> servedDuringRebuild = new ArrayList<>();
+            when(qdrant.scrollChunks(any(), anyInt())).thenAnswer(invocation -> {
+                servedDuringRebuild.add(restored.retrieveCandidatesBatch(List.of("kubernetes"), 5, null).get(0)
+                        .stream().map(RagService.SourceChunk::docId).toList());
+                return new ScrollPage(List.of(
+                        new StoredChunk("doc-1", 0, "Kubernetes deployment guide for the payment service", List.of()),
+                        new StoredChunk("doc-2", 0, "Payment service runbook", List.of())), null);
+            });
+
+            restored.warmUpBM25Index();
+
+            awaitBuildState("READY");
+            assertThat(servedDuringRebuild).containsExactly(List.of("doc-1"));
+            assertThat(restored.getBM25Stats().get("buildIndexedChunks")).isEqualTo(2L);
+            assertThat(restored.retrieveCandidatesBatch(List.of("runbook"), 5, null))
+                    .singleElement().satisfies(pool -> assertThat(pool)
+                            .extracting(RagService.SourceChunk::docId).contains("doc-2"));
+        }
+    }
+}
@@ -10,6 +10,8 @@ import com.naagi.rag.repository.FaqEntryRepository;
 import com.naagi.rag.repository.UserQuestionRepository;
 import com.naagi.rag.service.UserQuestionAnalyticsService.PromotionResult;
 import com.naagi.rag.service.UserQuestionAnalyticsService.TrackQuestionRequest;
+import com.naagi.rag.vector.FaqStore;
+import com.naagi.rag.vector.UserQuestionStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,8 +21,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,10 +44,10 @@ class UserQuestionAnalyticsServiceTest {
     private FaqEntryRepository faqEntryRepository;
 
     @Mock
-    private UserQuestionQdrantClient questionQdrantClient;
+    private UserQuestionStore questionStore;
 
     @Mock
-    private FaqQdrantClient faqQdrantClient;
+    private FaqStore faqStore;
 
     @Mock
     private EmbeddingsClient embeddingsClient;
@@ -54,6 +58,9 @@ class UserQuestionAnalyticsServiceTest {
     @Mock
     private FaqManagementService faqManagementService;
 
+    @Mock
+    private AccessCounters accessCounters;
+
     private UserQuestionAnalyticsService analyticsService;
 
     @BeforeEach
@@ -61,11 +68,12 @@ class UserQuestionAnalyticsServiceTest {
         analyticsService = new UserQuestionAnalyticsService(
                 questionRepository,
                 faqEntryRepository,
-                questionQdrantClient,
-                faqQdrantClient,
+                questionStore,
+                faqStore,
                 embeddingsClient,
                 faqConfig,
-                faqManagementService
+                faqManagementService,
+                accessCounters
         );
     }
 
@@ -84,15 +92,17 @@ class UserQuestionAnalyticsServiceTest {
             when(faqConfig.isStoreAllQuestions()).thenReturn(true);
             when(faqConfig.getDeduplicationThreshold()).thenReturn(0.95);
             when(faqConfig.getFaqMinSimilarityScore()).thenReturn(0.85);
-            when(embeddingsClient.embed(question)).thenReturn(List.of(0.1, 0.2, 0.3));
-            when(questionQdrantClient.findSimilarQuestions(anyList(), eq(1), eq(0.95), eq(categoryId)))
-                    .thenReturn(List.of());
-            when(faqQdrantClient.searchFaqs(anyList(), eq(1), eq(categoryId), eq(0.85)))
-                    .thenReturn(List.of());
-            when(questionRepository.save(any(UserQuestion.class))).thenAnswer(invocation -> {
-                UserQuestion q = invocation.getArgument(0);
-                q.setId("q-123");
-                return q;
+            when(embeddingsClient.embedBatch(List.of(question))).thenReturn(List.of(new float[]{0.1f, 0.2f, 0.3f}));
+            when(questionStore.findSimilarQuestionsBatch(anyList(), eq(Collections.singletonList(categoryId)), eq(1), eq(0.95)))
+                    .thenReturn(List.of(List.of()));
+            when(faqStore.searchFaqsBatch(anyList(), eq(Collections.singletonList(categoryId)), eq(1), eq(0.85)))
+                    .thenReturn(List.of(List.of(new FaqQdrantClient.FaqSearchResult(
+                            "faq-7", "Resetting your password", "Use the settings page", categoryId,
+                            null, null, null, 0.9))));
+            when(questionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<UserQuestion> questions = invocation.getArgument(0);
+                questions.forEach(q -> q.setId("q-123"));
+                return questions;
             });
 
             // When
@@ -103,8 +113,11 @@ class UserQuestionAnalyticsServiceTest {
             assertThat(result.getQuestion()).isEqualTo(question);
             assertThat(result.getCategoryId()).isEqualTo(categoryId);
             assertThat(result.getFrequency()).isEqualTo(1);
-            verify(questionRepository).save(any(UserQuestion.class));
-            verify(questionQdrantClient).upsertQuestion(any());
+            assertThat(result.getMatchedFaqId()).isEqualTo("faq-7");
+            assertThat(result.getMatchedFaqScore()).isEqualTo(0.9);
+            verify(faqStore, never()).searchFaqs(any(float[].class), anyInt(), any(), anyDouble());
+            verify(questionRepository).saveAll(anyList());
+            verify(questionStore).upsertQuestions(argThat(points -> points.size() == 1));
         }
 
         @Test
@@ -125,21 +138,61 @@ class UserQuestionAnalyticsServiceTest {
 
             when(faqConfig.isStoreAllQuestions()).thenReturn(true);
             when(faqConfig.getDeduplicationThreshold()).thenReturn(0.95);
-            when(embeddingsClient.embed(question)).thenReturn(List.of(0.1, 0.2, 0.3));
-            when(questionQdrantClient.findSimilarQuestions(anyList(), eq(1), eq(0.95), eq(categoryId)))
-                    .thenReturn(List.of(new UserQuestionQdrantClient.SimilarQuestionResult(
+            when(embeddingsClient.embedBatch(List.of(question))).thenReturn(List.of(new float[]{0.1f, 0.2f, 0.3f}));
+            when(questionStore.findSimilarQuestionsBatch(anyList(), eq(Collections.singletonList(categoryId)), eq(1), eq(0.95)))
+                    .thenReturn(List.of(List.of(new UserQuestionQdrantClient.SimilarQuestionResult(
                             "existing-id", question, categoryId, null, 5, null, 0.98
-                    )));
-            when(questionRepository.findById("existing-id")).thenReturn(Optional.of(existingQuestion));
-            when(questionRepository.save(any(UserQuestion.class))).thenAnswer(invocation -> invocation.getArgument(0));
+                    ))));
+            when(questionRepository.findAllById(Set.of("existing-id"))).thenReturn(List.of(existingQuestion));
+            when(accessCounters.recordQuestionAsked("existing-id", 1)).thenReturn(1L);
 
             // When
             UserQuestion result = analyticsService.trackQuestion(request);
 
-            // Then
+            // Then - the increment is written behind, not saved on the request path
             assertThat(result).isNotNull();
             assertThat(result.getFrequency()).isEqualTo(6);
-            verify(questionQdrantClient).updateFrequency("point-123", 6);
+            assertThat(existingQuestion.getFrequency()).isEqualTo(5);
+            verify(questionRepository, never()).saveAll(anyList());
+            verify(questionStore, never()).updateFrequencies(any());
+        }
+
+        @Test
+        @DisplayName("Should fold repeated and near-duplicate questions in a batch into one entry")
+        void shouldCoalesceDuplicatesWithinBatch() {
+            // Given
+            String question = "How do I reset my password?";
+            String rephrased = "How can I reset my password?";
+            String other = "Where is the VPN guide?";
+            List<TrackQuestionRequest> requests = List.of(
+                    new TrackQuestionRequest(question, "cat-1"),
+                    new TrackQuestionRequest(rephrased, "cat-1"),
+                    new TrackQuestionRequest(question, "cat-1"),
+                    new TrackQuestionRequest(other, "cat-1"));
+
+            when(faqConfig.isStoreAllQuestions()).thenReturn(true);
+            when(faqConfig.getDeduplicationThreshold()).thenReturn(0.95);
+            when(embeddingsClient.embedBatch(List.of(question, rephrased, other))).thenReturn(List.of(
+                    new float[]{1f, 0f, 0f}, new float[]{0.99f, 0.05f, 0f}, new float[]{0f, 1f, 0f}));
+            when(questionStore.findSimilarQuestionsBatch(anyList(), eq(List.of("cat-1", "cat-1")), eq(1), eq(0.95)))
+                    .thenReturn(List.of(List.of(), List.of()));
+            when(faqStore.searchFaqsBatch(anyList(), eq(List.of("cat-1", "cat-1")), eq(1), anyDouble()))
+                    .thenReturn(List.of(List.of(), List.of()));
+            when(questionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            List<UserQuestion> result = analyticsService.trackQuestions(requests);
+
+            // Then - one entry asked three times, one asked once
+            assertThat(result).hasSize(4);
+            assertThat(result.get(0)).isSameAs(result.get(1)).isSameAs(result.get(2));
+            assertThat(result.get(0).getQuestion()).isEqualTo(question);
+            assertThat(result.get(0).getFrequency()).isEqualTo(3);
+            assertThat(result.get(3).getQuestion()).isEqualTo(other);
+            assertThat(result.get(3).getFrequency()).isEqualTo(1);
+            verify(embeddingsClient, never()).embed(anyString());
+            verify(faqStore).searchFaqsBatch(argThat(vectors -> vectors.size() == 2), anyList(), eq(1), anyDouble());
+            verify(questionStore).upsertQuestions(argThat(points -> points.size() == 2));
         }
 
         @Test
@@ -203,7 +256,7 @@ class UserQuestionAnalyticsServiceTest {
 
             verify(faqManagementService).createFaqFromUserQuestion(
                     question.getQuestion(), answer, "cat-1", promotedBy);
-            verify(questionQdrantClient).deleteQuestion("point-123");
+            verify(questionStore).deleteQuestion("point-123");
             verify(questionRepository).delete(question);
         }
 
@@ -271,7 +324,7 @@ class UserQuestionAnalyticsServiceTest {
 
             // Then
             assertThat(result).isTrue();
-            verify(questionQdrantClient).deleteQuestion("point-123");
+            verify(questionStore).deleteQuestion("point-123");
             verify(questionRepository).delete(question);
         }
 
@@ -302,7 +355,7 @@ class UserQuestionAnalyticsServiceTest {
             when(questionRepository.getTotalQuestionCount()).thenReturn(500L);
             when(questionRepository.countByMatchedFaqIdIsNotNull()).thenReturn(60L);
             when(questionRepository.countByMatchedFaqIdIsNull()).thenReturn(40L);
-            when(questionQdrantClient.getCollectionStats()).thenReturn(java.util.Map.of("pointsCount", 100L));
+            when(questionStore.getCollectionStats()).thenReturn(java.util.Map.of("pointsCount", 100L));
 
             // When
             var analytics = analyticsService.getAnalytics(null);
@@ -0,0 +1,87 @@
+package com.naagi.rag.vector;
+
+import com.naagi.rag.qdrant.FaqQdrantClient.FaqPoint;
+import com.naagi.rag.qdrant.FaqQdrantClient.FaqSearchResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EmbeddedFaqStore.
+ */
+class EmbeddedFaqStoreTest {
+
+    private static final int DIM = 4;
+
+    private static float[] axis(int i) {
+        float[] v = new float[DIM];
+        v[i] = 1f;
+        return v;
+    }
+
+    private static FaqPoint faq(String id, float[] vector, String faqId, String categoryId) {
+        return new FaqPoint(id, vector, faqId, "Question " + faqId, "Answer " + faqId, categoryId, "Category",
+                "doc-1", "Guide", "upload-1", "FACTUAL", "admin", LocalDateTime.of(2026, 1, 1, 0, 0));
+    }
+
+    private static EmbeddedFaqStore open(Path dir) {
+        return new EmbeddedFaqStore(new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3), "naagi_faq");
+    }
+
+    @Test
+    @DisplayName("Should search FAQs by category and minimum score")
+    void testSearch() {
+        EmbeddedFaqStore store = open(null);
+        store.upsertFaqs(List.of(
+                faq("p-1", axis(0), "1", "cat-1"),
+                faq("p-2", new float[]{0.8f, 0.6f, 0f, 0f}, "2", "cat-2"),
+                faq("p-3", axis(1), "3", "cat-1")));
+
+        List<FaqSearchResult> all = store.searchFaqs(axis(0), 5, null, 0.5);
+        assertThat(all).extracting(FaqSearchResult::faqId).containsExactly("1", "2");
+        assertThat(all.get(0).answer()).isEqualTo("Answer 1");
+        assertThat(all.get(0).docTitle()).isEqualTo("Guide");
+
+        assertThat(store.searchFaqs(axis(0), 5, "cat-2", 0.5)).extracting(FaqSearchResult::faqId)
+                .containsExactly("2");
+        assertThat(store.searchFaqs(axis(0), 5, "", 0.9)).extracting(FaqSearchResult::faqId)
+                .containsExactly("1");
+        assertThat(store.searchFaqs(axis(0), 5, "unknown", 0.0)).isEmpty();
+
+        List<List<FaqSearchResult>> batch = store.searchFaqsBatch(
+                List.of(axis(0), axis(1)), Arrays.asList(null, "cat-1"), 1, 0.5);
+        assertThat(batch).hasSize(2);
+        assertThat(batch.get(0)).extracting(FaqSearchResult::faqId).containsExactly("1");
+        assertThat(batch.get(1)).extracting(FaqSearchResult::faqId).containsExactly("3");
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should delete FAQs by point id and by faqId and restore the deletes after reopening")
+    void testDelete(@TempDir Path dir) {
+        EmbeddedFaqStore store = open(dir);
+        store.upsertFaqs(List.of(
+                faq("p-1", axis(0), "1", "cat-1"),
+                faq("p-2", axis(1), "2", "cat-1"),
+                faq("p-3", axis(2), "2", "cat-1"),
+                faq("p-4", axis(3), "4", "cat-1")));
+
+        store.deleteFaq("p-1");
+        store.deleteFaqsByFaqId("2");
+        store.deleteFaq("missing");
+        store.close();
+
+        EmbeddedFaqStore reopened = open(dir);
+        assertThat(reopened.getCollectionStats()).containsEntry("pointsCount", 1L);
+        assertThat(reopened.searchFaqs(axis(3), 5, "cat-1", 0.0)).extracting(FaqSearchResult::faqId)
+                .containsExactly("4");
+        reopened.close();
+    }
+}
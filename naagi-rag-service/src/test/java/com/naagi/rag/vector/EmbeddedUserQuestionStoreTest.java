@@ -0,0 +1,79 @@
+package com.naagi.rag.vector;
+
+import com.naagi.rag.qdrant.UserQuestionQdrantClient.QuestionPoint;
+import com.naagi.rag.qdrant.UserQuestionQdrantClient.SimilarQuestionResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EmbeddedUserQuestionStore.
+ */
+class EmbeddedUserQuestionStoreTest {
+
+    private static final int DIM = 4;
+
+    private static float[] axis(int i) {
+        float[] v = new float[DIM];
+        v[i] = 1f;
+        return v;
+    }
+
+    private static QuestionPoint question(String id, float[] vector, String categoryId) {
+        return new QuestionPoint(id, vector, "q-" + id, "Question " + id, categoryId, null, null, 1, null,
+                LocalDateTime.of(2026, 1, 1, 0, 0));
+    }
+
+    private static EmbeddedUserQuestionStore open(Path dir) {
+        return new EmbeddedUserQuestionStore(
+                new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3), "naagi_user_questions");
+    }
+
+    @Test
+    @DisplayName("Should find similar questions above the minimum score, optionally in one category")
+    void testFindSimilar() {
+        EmbeddedUserQuestionStore store = open(null);
+        store.upsertQuestions(List.of(
+                question("p-1", axis(0), "cat-1"),
+                question("p-2", new float[]{0.9f, 0.1f, 0f, 0f}, "cat-2"),
+                question("p-3", axis(1), null)));
+
+        assertThat(store.findSimilarQuestions(axis(0), 5, 0.95)).extracting(SimilarQuestionResult::questionId)
+                .containsExactly("q-p-1", "q-p-2");
+        assertThat(store.findSimilarQuestions(axis(0), 5, 0.95, "cat-2"))
+                .extracting(SimilarQuestionResult::questionId).containsExactly("q-p-2");
+        assertThat(store.findSimilarQuestionsBatch(List.of(axis(1)), List.of("cat-1"), 1, 0.5))
+                .containsExactly(List.of());
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should update frequencies and delete questions and restore both after reopening")
+    void testUpdateAndDelete(@TempDir Path dir) {
+        EmbeddedUserQuestionStore store = open(dir);
+        store.upsertQuestions(List.of(
+                question("p-1", axis(0), "cat-1"),
+                question("p-2", axis(1), "cat-1")));
+
+        store.updateFrequencies(Map.of("p-1", 7, "missing", 3));
+        store.deleteQuestion("p-2");
+        store.close();
+
+        EmbeddedUserQuestionStore reopened = open(dir);
+        assertThat(reopened.getCollectionStats()).containsEntry("pointsCount", 1L);
+        assertThat(reopened.findSimilarQuestions(axis(0), 5, 0.9, "cat-1")).singleElement()
+                .satisfies(hit -> {
+                    assertThat(hit.frequency()).isEqualTo(7);
+                    assertThat(hit.question()).isEqualTo("Question p-1");
+                });
+        assertThat(reopened.findSimilarQuestions(axis(1), 5, 0.9)).isEmpty();
+        reopened.close();
+    }
+}
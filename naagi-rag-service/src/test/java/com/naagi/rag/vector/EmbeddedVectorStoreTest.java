@@ -0,0 +1,289 @@
+package com.naagi.rag.vector;
+
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.QdrantClient.ScrollPage;
+import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for EmbeddedVectorStore.
+ */
+class EmbeddedVectorStoreTest {
+
+    private static final int DIM = 32;
+
+    private static float[] randomVector(Random random) {
+        float[] v = new float[DIM];
+        for (int i = 0; i < DIM; i++) {
+            v[i] = (float) random.nextGaussian();
+        }
+        return v;
+    }
+
+    private static Point point(String docId, int chunkIndex, float[] vector, List<String> categories) {
+        return new Point(docId + ":" + chunkIndex, vector, Map.of(
+                "docId", docId, "chunkIndex", chunkIndex, "text", "chunk " + chunkIndex, "categories", categories));
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+
+    @Test
+    @DisplayName("Should find nearly all exact nearest neighbours through the graph")
+    void testGraphRecall() {
+        Random random = new Random(7);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(null, DIM, "Cosine", 16, 128, 64, 0, 0.3);
+        List<float[]> vectors = new ArrayList<>();
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            float[] v = randomVector(random);
+            vectors.add(v);
+            points.add(point("doc", i, v, List.of()));
+        }
+        store.upsertBatch(points);
+
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<Integer> exact = new HashSet<>(IntStream.range(0, vectors.size()).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors.get(i))))
+                    .limit(10)
+                    .toList());
+            for (SearchResultWithScore hit : store.searchWithScores(query, 10, null)) {
+                if (exact.contains(hit.chunkIndex())) {
+                    found++;
+                }
+            }
+        }
+
+        assertThat(found / (queries * 10.0)).isGreaterThan(0.95);
+    }
+
+    @Test
+    @DisplayName("Should return only chunks of the filtered category and honour deletes")
+    void testCategoryFilterAndDelete() {
+        Random random = new Random(11);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(null, DIM, "Cosine", 8, 64, 32, 20, 0.3);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String category = i % 10 == 0 ? "ops" : "dev";
+            points.add(point(i % 10 == 0 ? "ops-doc" : "dev-doc-" + (i % 3), i, randomVector(random), List.of(category)));
+        }
+        store.upsertBatch(points);
+        float[] query = randomVector(random);
+
+        // 20 ops chunks are scanned exactly, 180 dev chunks go through the graph with a filter
+        assertThat(store.searchWithScores(query, 30, "ops")).hasSize(20)
+                .allSatisfy(hit -> assertThat(hit.docId()).isEqualTo("ops-doc"))
+                .isSortedAccordingTo(Comparator.comparingDouble(SearchResultWithScore::score).reversed());
+        assertThat(store.searchWithScores(query, 10, "dev")).hasSize(10)
+                .allSatisfy(hit -> assertThat(hit.docId()).startsWith("dev-doc"));
+        assertThat(store.searchWithScores(query, 10, "unknown")).isEmpty();
+
+        store.deleteByDocId("ops-doc");
+
+        assertThat(store.searchWithScores(query, 10, "ops")).isEmpty();
+        assertThat(store.searchWithScores(query, 200, null)).noneMatch(hit -> hit.docId().equals("ops-doc"));
+        assertThat(store.countPoints()).isEqualTo(180);
+    }
+
+    @Test
+    @DisplayName("Should restore points, replacements and deletes after reopening")
+    void testReopen(@TempDir Path dir) {
+        Random random = new Random(3);
+        float[] replaced = randomVector(random);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        store.upsertBatch(List.of(
+                point("doc-1", 0, randomVector(random), List.of("ops")),
+                point("doc-1", 1, randomVector(random), List.of("ops")),
+                point("doc-2", 0, randomVector(random), List.of("dev"))));
+        store.upsertBatch(List.of(point("doc-1", 1, replaced, List.of("ops"))));
+        store.deleteByDocId("doc-2");
+        store.close();
+
+        EmbeddedVectorStore reopened = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+
+        assertThat(reopened.countPoints()).isEqualTo(2);
+        assertThat(reopened.searchWithScores(replaced, 1, "ops")).singleElement().satisfies(hit -> {
+            assertThat(hit.docId()).isEqualTo("doc-1");
+            assertThat(hit.chunkIndex()).isEqualTo(1);
+            assertThat(hit.score()).isCloseTo(1.0, org.assertj.core.data.Offset.offset(1e-5));
+        });
+        assertThat(reopened.searchWithScores(replaced, 5, "dev")).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should drop a torn last log line and keep appending after it")
+    void testTornLogWrite(@TempDir Path dir) throws Exception {
+        Random random = new Random(9);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        store.upsertBatch(List.of(
+                point("doc-1", 0, randomVector(random), List.of("ops")),
+                point("doc-1", 1, randomVector(random), List.of("ops"))));
+        store.close();
+        Path log = dir.resolve("points.log");
+        long intact = Files.size(log);
+        Files.writeString(log, "{\"ord\":2,\"id\":\"doc-2:0\",\"payl", StandardOpenOption.APPEND);
+
+        EmbeddedVectorStore reopened = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+
+        assertThat(reopened.countPoints()).isEqualTo(2);
+        assertThat(Files.size(log)).isEqualTo(intact);
+        reopened.upsertBatch(List.of(point("doc-2", 0, randomVector(random), List.of("dev"))));
+        reopened.close();
+
+        // A complete but garbled last line counts as torn as well
+        Files.writeString(log, "\u0000\u0000\u0000\n", StandardOpenOption.APPEND);
+        EmbeddedVectorStore again = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        assertThat(again.countPoints()).isEqualTo(3);
+        again.close();
+    }
+
+    @Test
+    @DisplayName("Should refuse to open a log with a bad line before its end")
+    void testCorruptLog(@TempDir Path dir) throws Exception {
+        Random random = new Random(13);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        store.upsertBatch(List.of(point("doc-1", 0, randomVector(random), List.of("ops"))));
+        store.close();
+        Path log = dir.resolve("points.log");
+        String valid = Files.readString(log);
+        Files.writeString(log, "garbage\n" + valid);
+
+        assertThatThrownBy(() -> new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    @DisplayName("Should compact once most ordinals are dead and keep serving the live points")
+    void testCompaction(@TempDir Path dir) throws Exception {
+        Random random = new Random(17);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        store.upsertBatch(IntStream.range(0, 1200).mapToObj(i -> point("doc-" + (i % 4), i, randomVector(random), List.of("ops"))).toList());
+        List<Point> replacements = IntStream.range(0, 1200)
+                .mapToObj(i -> point("doc-" + (i % 4), i, randomVector(random), List.of("ops")))
+                .toList();
+        store.upsertBatch(replacements);
+        store.awaitMaintenance();
+
+        assertThat(store.ordinals()).isEqualTo(1200);
+        assertThat(store.countPoints()).isEqualTo(1200);
+        float[] probe = replacements.get(42).vector();
+        assertThat(store.searchWithScores(probe, 1, "ops")).singleElement()
+                .satisfies(hit -> assertThat(hit.chunkIndex()).isEqualTo(42));
+        store.deleteByDocId("doc-0");
+        assertThat(store.countPoints()).isEqualTo(900);
+        store.close();
+
+        assertThat(dir.resolve("compacting")).doesNotExist();
+        assertThat(dir.resolve("compacted")).doesNotExist();
+        assertThat(Files.readAllLines(dir.resolve("points.log"))).hasSize(1201);
+
+        EmbeddedVectorStore reopened = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        reopened.awaitMaintenance();
+        assertThat(reopened.countPoints()).isEqualTo(900);
+        assertThat(reopened.searchWithScores(probe, 1, "ops")).singleElement()
+                .satisfies(hit -> assertThat(hit.chunkIndex()).isEqualTo(42));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should discard an unfinished compaction and finish a committed one on open")
+    void testCompactionRecovery(@TempDir Path dir) throws Exception {
+        Random random = new Random(19);
+        float[] kept = randomVector(random);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        store.upsertBatch(List.of(point("doc-1", 0, kept, List.of("ops"))));
+        store.close();
+
+        // Crash while writing: the old files are still authoritative
+        Files.createDirectories(dir.resolve("compacting"));
+        Files.writeString(dir.resolve("compacting").resolve("points.log"), "{\"ord\":0");
+        EmbeddedVectorStore reopened = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        assertThat(reopened.countPoints()).isEqualTo(1);
+        assertThat(dir.resolve("compacting")).doesNotExist();
+        reopened.close();
+
+        // Crash while installing: the committed files replace the old ones
+        Path compacted = Files.createDirectories(dir.resolve("compacted"));
+        Files.move(dir.resolve("points.log"), compacted.resolve("points.log"));
+        Files.writeString(dir.resolve("points.log"), "");
+        EmbeddedVectorStore recovered = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        recovered.awaitMaintenance();
+        assertThat(recovered.countPoints()).isEqualTo(1);
+        assertThat(recovered.searchWithScores(kept, 1, null)).singleElement()
+                .satisfies(hit -> assertThat(hit.docId()).isEqualTo("doc-1"));
+        assertThat(compacted).doesNotExist();
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("Should list and update a document's chunks and restore the update after reopening")
+    void testDocumentChunksAndPayloadUpdate(@TempDir Path dir) {
+        Random random = new Random(23);
+        float[] probe = randomVector(random);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        store.upsertBatch(List.of(
+                point("doc-1", 1, probe, List.of("ops")),
+                point("doc-1", 0, randomVector(random), List.of("ops")),
+                point("doc-2", 0, randomVector(random), List.of("dev"))));
+
+        assertThat(store.chunksByDocId("doc-1")).extracting(c -> c.chunkIndex()).containsExactly(0, 1);
+        assertThat(store.chunksByDocId("missing")).isEmpty();
+
+        store.setPayloadByDocId("doc-1", Map.of("title", "Runbook"));
+        store.close();
+
+        EmbeddedVectorStore reopened = new EmbeddedVectorStore(dir, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        assertThat(reopened.searchWithScores(probe, 1, "ops")).singleElement()
+                .satisfies(hit -> assertThat(hit.title()).isEqualTo("Runbook"));
+        assertThat(reopened.searchWithScores(probe, 3, "dev")).singleElement()
+                .satisfies(hit -> assertThat(hit.title()).isNull());
+        assertThat(reopened.chunksByDocId("doc-1")).hasSize(2)
+                .allSatisfy(chunk -> assertThat(chunk.categories()).containsExactly("ops"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should page through live chunks")
+    void testScroll() {
+        Random random = new Random(5);
+        EmbeddedVectorStore store = new EmbeddedVectorStore(null, DIM, "Cosine", 8, 64, 32, 0, 0.3);
+        store.upsertBatch(IntStream.range(0, 5).mapToObj(i -> point("doc", i, randomVector(random), List.of("ops"))).toList());
+
+        ScrollPage first = store.scrollChunks(null, 3);
+        ScrollPage second = store.scrollChunks(first.nextOffset(), 3);
+
+        assertThat(first.chunks()).extracting(c -> c.chunkIndex()).containsExactly(0, 1, 2);
+        assertThat(second.chunks()).extracting(c -> c.chunkIndex()).containsExactly(3, 4);
+        assertThat(second.chunks().get(0).categories()).containsExactly("ops");
+        assertThat(second.nextOffset()).isNull();
+    }
+}
@@ -0,0 +1,151 @@
+package com.naagi.rag.vector;
+
+import com.naagi.rag.http.Http;
+import com.naagi.rag.qdrant.QdrantClient;
+import com.naagi.rag.qdrant.QdrantClient.Point;
+import com.naagi.rag.qdrant.QdrantClient.SearchResultWithScore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recall and latency of the embedded store against Qdrant on the same random
+ * corpus. Needs a running Qdrant and is not part of the regular test run:
+ *
+ * <pre>
+ * mvn test -Dtest=VectorStoreBenchmark -Dvectorstore.benchmark.qdrant-url=http://localhost:6333
+ * </pre>
+ *
+ * Optional: {@code -Dvectorstore.benchmark.points=20000 -Dvectorstore.benchmark.dim=768
+ * -Dvectorstore.benchmark.queries=200}. Recall is measured against an exact
+ * scan of the corpus, for unfiltered searches and for a small category.
+ */
+@EnabledIfSystemProperty(named = "vectorstore.benchmark.qdrant-url", matches = ".+")
+class VectorStoreBenchmark {
+
+    private static final int TOP_K = 10;
+
+    private record Run(double recall, double p50Ms, double p99Ms) {}
+
+    @Test
+    @DisplayName("Compare recall and p99 latency of the embedded store and Qdrant")
+    void compareStores() throws Exception {
+        String qdrantUrl = System.getProperty("vectorstore.benchmark.qdrant-url");
+        int pointCount = Integer.getInteger("vectorstore.benchmark.points", 20000);
+        int dim = Integer.getInteger("vectorstore.benchmark.dim", 768);
+        int queryCount = Integer.getInteger("vectorstore.benchmark.queries", 200);
+        String collection = "naagi_benchmark_" + System.currentTimeMillis();
+
+        Random random = new Random(42);
+        List<float[]> corpus = new ArrayList<>(pointCount);
+        List<String> categories = new ArrayList<>(pointCount);
+        List<Point> points = new ArrayList<>(pointCount);
+        for (int i = 0; i < pointCount; i++) {
+            float[] v = randomUnitVector(random, dim);
+            // 2% of the corpus is in the small category
+            String category = i % 50 == 0 ? "small" : "large";
+            corpus.add(v);
+            categories.add(category);
+            points.add(new Point(new java.util.UUID(0, i).toString(), v, Map.of(
+                    "docId", "doc-" + i, "chunkIndex", i, "text", "chunk " + i, "categories", List.of(category))));
+        }
+        List<float[]> queries = IntStream.range(0, queryCount).mapToObj(i -> randomUnitVector(random, dim)).toList();
+
+        QdrantClient qdrant = new QdrantClient(qdrantUrl, collection, dim, "Cosine");
+        EmbeddedVectorStore embedded = new EmbeddedVectorStore(null, dim, "Cosine", 16, 128, 64, 2000, 0.3);
+        try {
+            long loadStart = System.currentTimeMillis();
+            for (int i = 0; i < points.size(); i += 256) {
+                List<Point> batch = points.subList(i, Math.min(points.size(), i + 256));
+                qdrant.upsertBatch(batch);
+                embedded.upsertBatch(batch);
+            }
+            System.out.printf("Loaded %d points of dim %d in %dms%n", pointCount, dim,
+                    System.currentTimeMillis() - loadStart);
+
+            for (String filter : Arrays.asList(null, "small")) {
+                List<Set<Integer>> exact = queries.stream().map(q -> exactTopK(corpus, categories, q, filter)).toList();
+                // Warm up both paths before measuring
+                run(qdrant, queries.subList(0, Math.min(20, queryCount)), exact, filter);
+                run(embedded, queries.subList(0, Math.min(20, queryCount)), exact, filter);
+
+                Run q = run(qdrant, queries, exact, filter);
+                Run e = run(embedded, queries, exact, filter);
+                System.out.printf("filter=%-5s qdrant:   recall@%d=%.3f p50=%.2fms p99=%.2fms%n",
+                        filter, TOP_K, q.recall(), q.p50Ms(), q.p99Ms());
+                System.out.printf("filter=%-5s embedded: recall@%d=%.3f p50=%.2fms p99=%.2fms%n",
+                        filter, TOP_K, e.recall(), e.p50Ms(), e.p99Ms());
+                assertThat(e.recall()).isGreaterThan(0.9);
+            }
+        } finally {
+            HttpRequest drop = HttpRequest.newBuilder()
+                    .uri(URI.create(qdrantUrl + "/collections/" + collection))
+                    .DELETE()
+                    .build();
+            Http.CLIENT.send(drop, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private static Run run(VectorStore store, List<float[]> queries, List<Set<Integer>> exact, String filter) {
+        long[] nanos = new long[queries.size()];
+        int found = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            List<SearchResultWithScore> hits = store.searchWithScores(queries.get(i), TOP_K, filter);
+            nanos[i] = System.nanoTime() - start;
+            for (SearchResultWithScore hit : hits) {
+                if (exact.get(i).contains(hit.chunkIndex())) {
+                    found++;
+                }
+            }
+        }
+        Arrays.sort(nanos);
+        return new Run((double) found / (queries.size() * TOP_K),
+                nanos[nanos.length / 2] / 1e6,
+                nanos[(int) Math.min(nanos.length - 1, Math.ceil(nanos.length * 0.99) - 1)] / 1e6);
+    }
+
+    private static Set<Integer> exactTopK(List<float[]> corpus, List<String> categories, float[] query, String filter) {
+        return new HashSet<>(IntStream.range(0, corpus.size()).boxed()
+                .filter(i -> filter == null || filter.equals(categories.get(i)))
+                .sorted(Comparator.comparingDouble(i -> -dot(corpus.get(i), query)))
+                .limit(TOP_K)
+                .toList());
+    }
+
+    private static float[] randomUnitVector(Random random, int dim) {
+        float[] v = new float[dim];
+        double norm = 0;
+        for (int i = 0; i < dim; i++) {
+            v[i] = (float) random.nextGaussian();
+            norm += v[i] * v[i];
+        }
+        for (int i = 0; i < dim; i++) {
+            v[i] /= (float) Math.sqrt(norm);
+        }
+        return v;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
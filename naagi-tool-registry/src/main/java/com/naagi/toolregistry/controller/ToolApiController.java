@@ -5,11 +5,14 @@ import com.naagi.toolregistry.dto.ParsedToolInfo;
 import com.naagi.toolregistry.dto.ResponseUpdateRequest;
 import com.naagi.toolregistry.dto.ToolRegistrationRequest;
 import com.naagi.toolregistry.entity.ToolDefinition;
+import com.naagi.toolregistry.service.ToolReadModel;
+import com.naagi.toolregistry.service.ToolReadModel.ToolListing;
 import com.naagi.toolregistry.service.ToolRegistrationService;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.PathItem;
 import io.swagger.v3.parser.OpenAPIV3Parser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,6 +25,7 @@ import java.util.*;
 public class ToolApiController {
 
     private final ToolRegistrationService toolRegistrationService;
+    private final ToolReadModel toolReadModel;
 
     @PostMapping("/register")
     public ResponseEntity<?> registerTool(@RequestBody ToolRegistrationRequest request) {
@@ -160,15 +164,33 @@ public class ToolApiController {
         }
     }
 
+    /**
+     * Tools are served pre-serialized from the read model. Clients that send
+     * If-None-Match with the last ETag get 304 when nothing changed.
+     */
     @GetMapping
-    public ResponseEntity<List<ToolDefinition>> getAllTools(
+    public ResponseEntity<byte[]> getAllTools(
             @RequestParam(required = false) String categoryId) {
         if (categoryId != null && !categoryId.isBlank()) {
-            return ResponseEntity.ok(toolRegistrationService.getToolsByCategory(categoryId));
+            return json(toolReadModel.getByCategory(categoryId));
+        }
+        return json(toolReadModel.getAll());
+    }
+
+    /**
+     * Get several tools by toolId in one request, e.g. all tools of a category.
+     * Unknown toolIds are left out of the result.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<byte[]> getToolsByToolIds(@RequestBody ToolBatchRequest request) {
+        if (request.toolIds() == null || request.toolIds().isEmpty()) {
+            return json(ToolListing.of(List.of()));
         }
-        return ResponseEntity.ok(toolRegistrationService.getAllTools());
+        return json(toolReadModel.getByToolIds(request.toolIds()));
     }
 
+    public record ToolBatchRequest(List<String> toolIds) {}
+
     @GetMapping("/{id}")
     public ResponseEntity<ToolDefinition> getToolById(@PathVariable Long id) {
         try {
@@ -179,12 +201,10 @@ public class ToolApiController {
     }
 
     @GetMapping("/by-tool-id/{toolId}")
-    public ResponseEntity<ToolDefinition> getToolByToolId(@PathVariable String toolId) {
-        try {
-            return ResponseEntity.ok(toolRegistrationService.getToolByToolId(toolId));
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<byte[]> getToolByToolId(@PathVariable String toolId) {
+        return toolReadModel.getByToolId(toolId)
+                .map(snapshot -> json(snapshot.json(), snapshot.etag()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @DeleteMapping
@@ -675,7 +695,7 @@ public class ToolApiController {
         return ResponseEntity.ok(Map.of(
                 "status", "UP",
                 "service", "naagi-tool-registry",
-                "toolCount", toolRegistrationService.getAllTools().size()
+                "toolCount", toolReadModel.size()
         ));
     }
 
@@ -688,4 +708,15 @@ public class ToolApiController {
         if (pathItem.getPatch() != null) methods.add("PATCH");
         return methods;
     }
+
+    private static ResponseEntity<byte[]> json(ToolListing listing) {
+        return json(listing.json(), listing.etag());
+    }
+
+    private static ResponseEntity<byte[]> json(byte[] body, String etag) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(body);
+    }
 }
@@ -11,7 +11,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "parameter_definitions")
+@Table(name = "parameter_definitions", indexes = {
+        @Index(name = "idx_parameter_definitions_tool", columnList = "tool_definition_id"),
+        @Index(name = "idx_parameter_definitions_response", columnList = "response_definition_id"),
+        @Index(name = "idx_parameter_definitions_parent", columnList = "parent_parameter_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -10,7 +10,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "response_definitions")
+@Table(name = "response_definitions", indexes = {
+        @Index(name = "idx_response_definitions_tool", columnList = "tool_definition_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
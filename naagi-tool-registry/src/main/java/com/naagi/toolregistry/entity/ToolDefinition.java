@@ -10,7 +10,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "tool_definitions")
+@Table(name = "tool_definitions", indexes = {
+        @Index(name = "idx_tool_definitions_category", columnList = "category_id"),
+        @Index(name = "idx_tool_definitions_endpoint", columnList = "open_api_endpoint, path")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -4,6 +4,7 @@ import com.naagi.toolregistry.entity.ToolDefinition;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +15,6 @@ public interface ToolDefinitionRepository extends JpaRepository<ToolDefinition,
     boolean existsByToolId(String toolId);
     boolean existsByName(String name);
     List<ToolDefinition> findByCategoryId(String categoryId);
+    List<ToolDefinition> findByToolIdIn(Collection<String> toolIds);
+    boolean existsByOpenApiEndpointAndPathAndHttpMethodIgnoreCase(String openApiEndpoint, String path, String httpMethod);
 }
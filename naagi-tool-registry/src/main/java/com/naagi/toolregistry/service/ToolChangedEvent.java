@@ -0,0 +1,9 @@
+package com.naagi.toolregistry.service;
+
+/**
+ * Published when a tool, or any of its parameters or responses, was written.
+ *
+ * @param toolId the changed tool, or null when any number of tools may have changed
+ */
+public record ToolChangedEvent(String toolId) {
+}
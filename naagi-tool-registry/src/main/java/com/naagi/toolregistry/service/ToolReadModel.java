@@ -0,0 +1,194 @@
+package com.naagi.toolregistry.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naagi.toolregistry.entity.ToolDefinition;
+import com.naagi.toolregistry.repository.ToolDefinitionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory read model of the tool catalog.
+ *
+ * Every tool is held as its serialized JSON with an ETag, so reads neither
+ * query the database nor walk the lazy parameter and response trees. The
+ * snapshots are built at startup and a tool's snapshot is rebuilt from the
+ * database after each committed write, announced by {@link ToolChangedEvent}.
+ * Rebuilds are serialized, and each one reads the latest committed state, so
+ * the last rebuild of a tool always reflects its last write.
+ */
+@Service
+@Slf4j
+public class ToolReadModel {
+
+    private final ToolDefinitionRepository toolDefinitionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTransaction;
+
+    private volatile Catalog catalog = Catalog.of(Map.of());
+
+    /**
+     * A tool serialized exactly as the API returns it
+     */
+    public record ToolSnapshot(Long id, String toolId, String categoryId, byte[] json, String etag) {
+
+        public static ToolSnapshot of(ToolDefinition tool, ObjectMapper objectMapper) {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(tool);
+                return new ToolSnapshot(tool.getId(), tool.getToolId(), tool.getCategoryId(), json,
+                        DigestUtils.md5DigestAsHex(json));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize tool " + tool.getToolId(), e);
+            }
+        }
+    }
+
+    /**
+     * A JSON array of snapshots; the ETag changes when any member, or the membership, changes
+     */
+    public record ToolListing(byte[] json, String etag) {
+
+        public static ToolListing of(List<ToolSnapshot> snapshots) {
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            StringBuilder etags = new StringBuilder();
+            json.write('[');
+            for (int i = 0; i < snapshots.size(); i++) {
+                if (i > 0) {
+                    json.write(',');
+                }
+                json.writeBytes(snapshots.get(i).json());
+                etags.append(snapshots.get(i).etag());
+            }
+            json.write(']');
+            return new ToolListing(json.toByteArray(),
+                    DigestUtils.md5DigestAsHex(etags.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Immutable state swapped as a whole on every rebuild. The full listing and the
+     * per-category listings are built here once, so list requests only copy bytes.
+     */
+    private record Catalog(Map<String, ToolSnapshot> byToolId, ToolListing all, Map<String, ToolListing> byCategory) {
+
+        static final ToolListing EMPTY = ToolListing.of(List.of());
+
+        static Catalog of(Map<String, ToolSnapshot> byToolId) {
+            List<ToolSnapshot> ordered = byToolId.values().stream()
+                    .sorted(Comparator.comparing(ToolSnapshot::id))
+                    .toList();
+            Map<String, List<ToolSnapshot>> orderedByCategory = new HashMap<>();
+            for (ToolSnapshot snapshot : ordered) {
+                if (snapshot.categoryId() != null) {
+                    orderedByCategory.computeIfAbsent(snapshot.categoryId(), k -> new ArrayList<>()).add(snapshot);
+                }
+            }
+            Map<String, ToolListing> byCategory = new HashMap<>();
+            orderedByCategory.forEach((categoryId, snapshots) -> byCategory.put(categoryId, ToolListing.of(snapshots)));
+            return new Catalog(Map.copyOf(byToolId), ToolListing.of(ordered), Map.copyOf(byCategory));
+        }
+    }
+
+    public ToolReadModel(
+            ToolDefinitionRepository toolDefinitionRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.toolDefinitionRepository = toolDefinitionRepository;
+        this.objectMapper = objectMapper;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void load() {
+        rebuildAll();
+    }
+
+    public ToolListing getAll() {
+        return catalog.all();
+    }
+
+    public ToolListing getByCategory(String categoryId) {
+        return catalog.byCategory().getOrDefault(categoryId, Catalog.EMPTY);
+    }
+
+    public Optional<ToolSnapshot> getByToolId(String toolId) {
+        return Optional.ofNullable(catalog.byToolId().get(toolId));
+    }
+
+    /**
+     * Several tools in the order of {@code toolIds}. Unknown toolIds are skipped.
+     */
+    public ToolListing getByToolIds(List<String> toolIds) {
+        Map<String, ToolSnapshot> byToolId = catalog.byToolId();
+        return ToolListing.of(toolIds.stream()
+                .distinct()
+                .map(byToolId::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    public int size() {
+        return catalog.byToolId().size();
+    }
+
+    /**
+     * Rebuild after the writing transaction committed. A failed rebuild must not
+     * fail the write, which is already committed; the snapshot stays as it was
+     * until the next write of the tool.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToolChanged(ToolChangedEvent event) {
+        try {
+            if (event.toolId() == null) {
+                rebuildAll();
+            } else {
+                rebuild(event.toolId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild read model for tool {}", event.toolId() != null ? event.toolId() : "(all)", e);
+        }
+    }
+
+    synchronized void rebuild(String toolId) {
+        Optional<ToolSnapshot> snapshot = readTransaction.execute(status ->
+                toolDefinitionRepository.findByToolId(toolId).map(tool -> ToolSnapshot.of(tool, objectMapper)));
+
+        Map<String, ToolSnapshot> byToolId = new HashMap<>(catalog.byToolId());
+        if (snapshot != null && snapshot.isPresent()) {
+            byToolId.put(toolId, snapshot.get());
+        } else {
+            byToolId.remove(toolId);
+        }
+        catalog = Catalog.of(byToolId);
+        log.debug("Rebuilt read model for tool {} ({})", toolId, snapshot != null && snapshot.isPresent() ? "updated" : "removed");
+    }
+
+    synchronized void rebuildAll() {
+        long start = System.currentTimeMillis();
+        Map<String, ToolSnapshot> byToolId = readTransaction.execute(status ->
+                toolDefinitionRepository.findAll().stream()
+                        .map(tool -> ToolSnapshot.of(tool, objectMapper))
+                        .collect(Collectors.toMap(ToolSnapshot::toolId, snapshot -> snapshot)));
+        catalog = Catalog.of(byToolId != null ? byToolId : Map.of());
+        log.info("Built read model for {} tools in {}ms", catalog.byToolId().size(), System.currentTimeMillis() - start);
+    }
+}
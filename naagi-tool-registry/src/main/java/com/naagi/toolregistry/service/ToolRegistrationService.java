@@ -10,9 +10,12 @@ import com.naagi.toolregistry.entity.ParameterDefinition;
 import com.naagi.toolregistry.entity.ResponseDefinition;
 import com.naagi.toolregistry.entity.ToolDefinition;
 import com.naagi.toolregistry.metrics.ToolRegistryMetrics;
+import com.naagi.toolregistry.repository.ParameterDefinitionRepository;
+import com.naagi.toolregistry.repository.ResponseDefinitionRepository;
 import com.naagi.toolregistry.repository.ToolDefinitionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,9 +31,12 @@ public class ToolRegistrationService {
 
     private final OpenApiParserService openApiParserService;
     private final ToolDefinitionRepository toolDefinitionRepository;
+    private final ParameterDefinitionRepository parameterDefinitionRepository;
+    private final ResponseDefinitionRepository responseDefinitionRepository;
     private final ObjectMapper objectMapper;
     private final ToolRegistryMetrics metrics;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ToolDefinition registerTool(ToolRegistrationRequest request) {
@@ -99,7 +105,7 @@ public class ToolRegistrationService {
             toolDefinition.setParameters(parameters);
             toolDefinition.setResponses(responses);
 
-            ToolDefinition saved = toolDefinitionRepository.save(toolDefinition);
+            ToolDefinition saved = saveTool(toolDefinition);
             metrics.recordToolRegistration(System.currentTimeMillis() - startTime);
             updateToolCount();
             return saved;
@@ -183,7 +189,7 @@ public class ToolRegistrationService {
             toolDefinition.setParameters(parameters);
             toolDefinition.setResponses(responses);
 
-            ToolDefinition saved = toolDefinitionRepository.save(toolDefinition);
+            ToolDefinition saved = saveTool(toolDefinition);
             metrics.recordToolRegistration(System.currentTimeMillis() - startTime);
             updateToolCount();
             return saved;
@@ -286,7 +292,7 @@ public class ToolRegistrationService {
             toolDefinition.getParameters().addAll(parameters);
         }
 
-        ToolDefinition saved = toolDefinitionRepository.save(toolDefinition);
+        ToolDefinition saved = saveTool(toolDefinition);
         log.info("{} simple tool: {} (id={})", isUpdate ? "Updated" : "Created", saved.getToolId(), saved.getId());
         return saved;
     }
@@ -339,27 +345,17 @@ public class ToolRegistrationService {
         return parameters;
     }
 
-    public List<ToolDefinition> getAllTools() {
-        return toolDefinitionRepository.findAll();
-    }
-
-    public List<ToolDefinition> getToolsByCategory(String categoryId) {
-        return toolDefinitionRepository.findByCategoryId(categoryId);
-    }
-
     public ToolDefinition getToolById(Long id) {
         return toolDefinitionRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Tool not found with id: " + id));
     }
 
-    public ToolDefinition getToolByToolId(String toolId) {
-        return toolDefinitionRepository.findByToolId(toolId)
-                .orElseThrow(() -> new IllegalArgumentException("Tool not found with toolId: " + toolId));
-    }
-
     @Transactional
     public void deleteTool(Long id) {
-        toolDefinitionRepository.deleteById(id);
+        toolDefinitionRepository.findById(id).ifPresent(tool -> {
+            toolDefinitionRepository.delete(tool);
+            eventPublisher.publishEvent(new ToolChangedEvent(tool.getToolId()));
+        });
         metrics.recordToolDeleted();
         updateToolCount();
     }
@@ -369,6 +365,7 @@ public class ToolRegistrationService {
         ToolDefinition tool = toolDefinitionRepository.findByToolId(toolId)
                 .orElseThrow(() -> new IllegalArgumentException("Tool not found with toolId: " + toolId));
         toolDefinitionRepository.delete(tool);
+        eventPublisher.publishEvent(new ToolChangedEvent(toolId));
         metrics.recordToolDeleted();
         updateToolCount();
     }
@@ -378,6 +375,7 @@ public class ToolRegistrationService {
         List<ToolDefinition> allTools = toolDefinitionRepository.findAll();
         int count = allTools.size();
         toolDefinitionRepository.deleteAll();
+        eventPublisher.publishEvent(new ToolChangedEvent(null));
         for (int i = 0; i < count; i++) {
             metrics.recordToolDeleted();
         }
@@ -405,7 +403,7 @@ public class ToolRegistrationService {
 
         log.info("Updated tool: {} (id={})", tool.getToolId(), tool.getId());
         metrics.recordToolUpdated();
-        return toolDefinitionRepository.save(tool);
+        return saveTool(tool);
     }
 
     /**
@@ -428,7 +426,7 @@ public class ToolRegistrationService {
 
         log.info("Updated tool by toolId: {} (id={})", tool.getToolId(), tool.getId());
         metrics.recordToolUpdated();
-        return toolDefinitionRepository.save(tool);
+        return saveTool(tool);
     }
 
     /**
@@ -436,21 +434,10 @@ public class ToolRegistrationService {
      */
     @Transactional
     public void updateParameterHumanDescription(Long parameterId, String humanDescription) {
-        ToolDefinition tool = toolDefinitionRepository.findAll().stream()
-                .filter(t -> containsParameterId(t.getParameters(), parameterId) ||
-                             t.getResponses().stream().anyMatch(r -> containsParameterId(r.getParameters(), parameterId)))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Parameter not found with id: " + parameterId));
+        ParameterDefinition param = findParameter(parameterId);
+        param.setHumanReadableDescription(humanDescription);
 
-        // Update in input parameters
-        updateParameterHumanDescriptionRecursive(tool.getParameters(), parameterId, humanDescription);
-
-        // Update in response parameters
-        for (ResponseDefinition response : tool.getResponses()) {
-            updateParameterHumanDescriptionRecursive(response.getParameters(), parameterId, humanDescription);
-        }
-
-        toolDefinitionRepository.save(tool);
+        saveTool(owningTool(param));
         log.info("Updated parameter {} human description", parameterId);
     }
 
@@ -459,21 +446,10 @@ public class ToolRegistrationService {
      */
     @Transactional
     public void updateParameterExample(Long parameterId, String example) {
-        ToolDefinition tool = toolDefinitionRepository.findAll().stream()
-                .filter(t -> containsParameterId(t.getParameters(), parameterId) ||
-                             t.getResponses().stream().anyMatch(r -> containsParameterId(r.getParameters(), parameterId)))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Parameter not found with id: " + parameterId));
+        ParameterDefinition param = findParameter(parameterId);
+        param.setExample(example);
 
-        // Update in input parameters
-        updateParameterExampleRecursive(tool.getParameters(), parameterId, example);
-
-        // Update in response parameters
-        for (ResponseDefinition response : tool.getResponses()) {
-            updateParameterExampleRecursive(response.getParameters(), parameterId, example);
-        }
-
-        toolDefinitionRepository.save(tool);
+        saveTool(owningTool(param));
         log.info("Updated parameter {} example", parameterId);
     }
 
@@ -482,21 +458,13 @@ public class ToolRegistrationService {
      */
     @Transactional
     public void updateParameterEnumValues(Long parameterId, List<String> enumValues) {
-        ToolDefinition tool = toolDefinitionRepository.findAll().stream()
-                .filter(t -> containsParameterId(t.getParameters(), parameterId) ||
-                             t.getResponses().stream().anyMatch(r -> containsParameterId(r.getParameters(), parameterId)))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Parameter not found with id: " + parameterId));
-
-        // Update in input parameters
-        updateParameterEnumValuesRecursive(tool.getParameters(), parameterId, enumValues);
+        ParameterDefinition param = findParameter(parameterId);
+        // Convert List<String> to comma-separated String for storage
+        param.setEnumValues(enumValues != null && !enumValues.isEmpty()
+                ? String.join(",", enumValues)
+                : null);
 
-        // Update in response parameters
-        for (ResponseDefinition response : tool.getResponses()) {
-            updateParameterEnumValuesRecursive(response.getParameters(), parameterId, enumValues);
-        }
-
-        toolDefinitionRepository.save(tool);
+        saveTool(owningTool(param));
         log.info("Updated parameter {} enum values", parameterId);
     }
 
@@ -505,21 +473,21 @@ public class ToolRegistrationService {
      */
     @Transactional
     public void updateParameter(Long parameterId, ParameterUpdateRequest request) {
-        ToolDefinition tool = toolDefinitionRepository.findAll().stream()
-                .filter(t -> containsParameterId(t.getParameters(), parameterId) ||
-                             t.getResponses().stream().anyMatch(r -> containsParameterId(r.getParameters(), parameterId)))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Parameter not found with id: " + parameterId));
-
-        // Update in input parameters
-        updateParameterFullRecursive(tool.getParameters(), parameterId, request);
-
-        // Update in response parameters
-        for (ResponseDefinition response : tool.getResponses()) {
-            updateParameterFullRecursive(response.getParameters(), parameterId, request);
+        ParameterDefinition param = findParameter(parameterId);
+        if (request.humanReadableDescription() != null && !request.humanReadableDescription().isBlank()) {
+            param.setHumanReadableDescription(request.humanReadableDescription());
+        }
+        if (request.example() != null && !request.example().isBlank()) {
+            param.setExample(request.example());
+        }
+        if (request.enumValues() != null) {
+            // Convert List<String> to comma-separated String for storage
+            param.setEnumValues(!request.enumValues().isEmpty()
+                    ? String.join(",", request.enumValues())
+                    : null);
         }
 
-        toolDefinitionRepository.save(tool);
+        saveTool(owningTool(param));
         log.info("Updated parameter {} with full update", parameterId);
     }
 
@@ -528,19 +496,11 @@ public class ToolRegistrationService {
      */
     @Transactional
     public void updateResponseHumanDescription(Long responseId, String humanDescription) {
-        ToolDefinition tool = toolDefinitionRepository.findAll().stream()
-                .filter(t -> t.getResponses().stream().anyMatch(r -> r.getId().equals(responseId)))
-                .findFirst()
+        ResponseDefinition response = responseDefinitionRepository.findById(responseId)
                 .orElseThrow(() -> new IllegalArgumentException("Response not found with id: " + responseId));
+        response.setHumanReadableDescription(humanDescription);
 
-        for (ResponseDefinition response : tool.getResponses()) {
-            if (response.getId().equals(responseId)) {
-                response.setHumanReadableDescription(humanDescription);
-                break;
-            }
-        }
-
-        toolDefinitionRepository.save(tool);
+        saveTool(response.getToolDefinition());
         log.info("Updated response {} human description", responseId);
     }
 
@@ -620,84 +580,39 @@ public class ToolRegistrationService {
 
         response.getParameters().add(rootParam);
 
-        toolDefinitionRepository.save(tool);
+        saveTool(tool);
         log.info("Added test response parameters to tool {}", toolId);
     }
 
-    // Helper methods for recursive parameter updates
-
-    private boolean containsParameterId(List<ParameterDefinition> parameters, Long parameterId) {
-        for (ParameterDefinition param : parameters) {
-            if (param.getId() != null && param.getId().equals(parameterId)) {
-                return true;
-            }
-            if (!param.getNestedParameters().isEmpty() && containsParameterId(param.getNestedParameters(), parameterId)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private void updateParameterHumanDescriptionRecursive(List<ParameterDefinition> parameters, Long parameterId, String humanDescription) {
-        for (ParameterDefinition param : parameters) {
-            if (param.getId() != null && param.getId().equals(parameterId)) {
-                param.setHumanReadableDescription(humanDescription);
-                return;
-            }
-            if (!param.getNestedParameters().isEmpty()) {
-                updateParameterHumanDescriptionRecursive(param.getNestedParameters(), parameterId, humanDescription);
-            }
-        }
-    }
-
-    private void updateParameterExampleRecursive(List<ParameterDefinition> parameters, Long parameterId, String example) {
-        for (ParameterDefinition param : parameters) {
-            if (param.getId() != null && param.getId().equals(parameterId)) {
-                param.setExample(example);
-                return;
-            }
-            if (!param.getNestedParameters().isEmpty()) {
-                updateParameterExampleRecursive(param.getNestedParameters(), parameterId, example);
-            }
-        }
+    private ParameterDefinition findParameter(Long parameterId) {
+        return parameterDefinitionRepository.findById(parameterId)
+                .orElseThrow(() -> new IllegalArgumentException("Parameter not found with id: " + parameterId));
     }
 
-    private void updateParameterEnumValuesRecursive(List<ParameterDefinition> parameters, Long parameterId, List<String> enumValues) {
-        for (ParameterDefinition param : parameters) {
-            if (param.getId() != null && param.getId().equals(parameterId)) {
-                // Convert List<String> to comma-separated String for storage
-                param.setEnumValues(enumValues != null && !enumValues.isEmpty()
-                        ? String.join(",", enumValues)
-                        : null);
-                return;
+    /**
+     * The tool a parameter belongs to. Input parameters reference the tool and
+     * response parameters their response; nested parameters may only reference
+     * their parent.
+     */
+    private ToolDefinition owningTool(ParameterDefinition param) {
+        for (ParameterDefinition p = param; p != null; p = p.getParentParameter()) {
+            if (p.getToolDefinition() != null) {
+                return p.getToolDefinition();
             }
-            if (!param.getNestedParameters().isEmpty()) {
-                updateParameterEnumValuesRecursive(param.getNestedParameters(), parameterId, enumValues);
+            if (p.getResponseDefinition() != null) {
+                return p.getResponseDefinition().getToolDefinition();
             }
         }
+        throw new IllegalStateException("Parameter " + param.getId() + " is not attached to a tool");
     }
 
-    private void updateParameterFullRecursive(List<ParameterDefinition> parameters, Long parameterId, ParameterUpdateRequest request) {
-        for (ParameterDefinition param : parameters) {
-            if (param.getId() != null && param.getId().equals(parameterId)) {
-                if (request.humanReadableDescription() != null && !request.humanReadableDescription().isBlank()) {
-                    param.setHumanReadableDescription(request.humanReadableDescription());
-                }
-                if (request.example() != null && !request.example().isBlank()) {
-                    param.setExample(request.example());
-                }
-                if (request.enumValues() != null) {
-                    // Convert List<String> to comma-separated String for storage
-                    param.setEnumValues(!request.enumValues().isEmpty()
-                            ? String.join(",", request.enumValues())
-                            : null);
-                }
-                return;
-            }
-            if (!param.getNestedParameters().isEmpty()) {
-                updateParameterFullRecursive(param.getNestedParameters(), parameterId, request);
-            }
-        }
+    /**
+     * Save a tool and have its read model snapshot rebuilt once the transaction commits
+     */
+    private ToolDefinition saveTool(ToolDefinition tool) {
+        ToolDefinition saved = toolDefinitionRepository.save(tool);
+        eventPublisher.publishEvent(new ToolChangedEvent(tool.getToolId()));
+        return saved;
     }
 
     public ParsedToolInfo previewTool(ToolRegistrationRequest request) {
@@ -713,10 +628,8 @@ public class ToolRegistrationService {
     }
 
     public boolean toolExists(String openApiEndpoint, String path, String httpMethod) {
-        return toolDefinitionRepository.findAll().stream()
-                .anyMatch(tool -> tool.getOpenApiEndpoint().equals(openApiEndpoint) &&
-                        tool.getPath().equals(path) &&
-                        tool.getHttpMethod().equalsIgnoreCase(httpMethod));
+        return toolDefinitionRepository.existsByOpenApiEndpointAndPathAndHttpMethodIgnoreCase(
+                openApiEndpoint, path, httpMethod);
     }
 
     private ParameterDefinition convertToParameterDefinition(
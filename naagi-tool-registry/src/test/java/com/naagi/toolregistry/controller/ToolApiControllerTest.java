@@ -6,6 +6,9 @@ import com.naagi.toolregistry.dto.ResponseUpdateRequest;
 import com.naagi.toolregistry.entity.ParameterDefinition;
 import com.naagi.toolregistry.entity.ResponseDefinition;
 import com.naagi.toolregistry.entity.ToolDefinition;
+import com.naagi.toolregistry.service.ToolReadModel;
+import com.naagi.toolregistry.service.ToolReadModel.ToolListing;
+import com.naagi.toolregistry.service.ToolReadModel.ToolSnapshot;
 import com.naagi.toolregistry.service.ToolRegistrationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,6 +23,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -39,6 +43,9 @@ class ToolApiControllerTest {
     @MockBean
     private ToolRegistrationService toolRegistrationService;
 
+    @MockBean
+    private ToolReadModel toolReadModel;
+
     private ToolDefinition testTool;
 
     @BeforeEach
@@ -69,6 +76,10 @@ class ToolApiControllerTest {
         testTool.setResponses(new ArrayList<>(List.of(response)));
     }
 
+    private ToolSnapshot snapshot(ToolDefinition tool) {
+        return ToolSnapshot.of(tool, objectMapper);
+    }
+
     @Nested
     @DisplayName("GET /api/tools Tests")
     class GetAllToolsTests {
@@ -76,7 +87,7 @@ class ToolApiControllerTest {
         @Test
         @DisplayName("Should return all tools")
         void shouldReturnAllTools() throws Exception {
-            when(toolRegistrationService.getAllTools()).thenReturn(List.of(testTool));
+            when(toolReadModel.getAll()).thenReturn(ToolListing.of(List.of(snapshot(testTool))));
 
             mockMvc.perform(get("/api/tools"))
                     .andExpect(status().isOk())
@@ -84,10 +95,31 @@ class ToolApiControllerTest {
                     .andExpect(jsonPath("$[0].name").value("Test Tool"));
         }
 
+        @Test
+        @DisplayName("Should return 304 when the ETag still matches")
+        void shouldReturnNotModifiedForMatchingEtag() throws Exception {
+            ToolListing listing = ToolListing.of(List.of(snapshot(testTool)));
+            when(toolReadModel.getAll()).thenReturn(listing);
+
+            mockMvc.perform(get("/api/tools").header("If-None-Match", "\"" + listing.etag() + "\""))
+                    .andExpect(status().isNotModified());
+        }
+
+        @Test
+        @DisplayName("Should return tools of a category")
+        void shouldReturnToolsOfCategory() throws Exception {
+            when(toolReadModel.getByCategory("cat-1")).thenReturn(ToolListing.of(List.of(snapshot(testTool))));
+
+            mockMvc.perform(get("/api/tools").param("categoryId", "cat-1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].toolId").value("test-tool"));
+        }
+
         @Test
         @DisplayName("Should return empty list when no tools")
         void shouldReturnEmptyListWhenNoTools() throws Exception {
-            when(toolRegistrationService.getAllTools()).thenReturn(List.of());
+            when(toolReadModel.getAll()).thenReturn(ToolListing.of(List.of()));
 
             mockMvc.perform(get("/api/tools"))
                     .andExpect(status().isOk())
@@ -103,10 +135,12 @@ class ToolApiControllerTest {
         @Test
         @DisplayName("Should return tool by toolId")
         void shouldReturnToolByToolId() throws Exception {
-            when(toolRegistrationService.getToolByToolId("test-tool")).thenReturn(testTool);
+            ToolSnapshot snapshot = snapshot(testTool);
+            when(toolReadModel.getByToolId("test-tool")).thenReturn(Optional.of(snapshot));
 
             mockMvc.perform(get("/api/tools/by-tool-id/test-tool"))
                     .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"" + snapshot.etag() + "\""))
                     .andExpect(jsonPath("$.toolId").value("test-tool"))
                     .andExpect(jsonPath("$.name").value("Test Tool"));
         }
@@ -114,14 +148,45 @@ class ToolApiControllerTest {
         @Test
         @DisplayName("Should return 404 when tool not found")
         void shouldReturn404WhenToolNotFound() throws Exception {
-            when(toolRegistrationService.getToolByToolId("non-existent"))
-                    .thenThrow(new IllegalArgumentException("Tool not found"));
+            when(toolReadModel.getByToolId("non-existent")).thenReturn(Optional.empty());
 
             mockMvc.perform(get("/api/tools/by-tool-id/non-existent"))
                     .andExpect(status().isNotFound());
         }
     }
 
+    @Nested
+    @DisplayName("POST /api/tools/batch Tests")
+    class GetToolsByToolIdsTests {
+
+        @Test
+        @DisplayName("Should return the requested tools")
+        void shouldReturnRequestedTools() throws Exception {
+            when(toolReadModel.getByToolIds(List.of("test-tool", "unknown")))
+                    .thenReturn(ToolListing.of(List.of(snapshot(testTool))));
+
+            mockMvc.perform(post("/api/tools/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"toolIds\": [\"test-tool\", \"unknown\"]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].toolId").value("test-tool"))
+                    .andExpect(jsonPath("$[0].parameters[0].name").value("testParam"));
+        }
+
+        @Test
+        @DisplayName("Should return empty list without querying for no toolIds")
+        void shouldReturnEmptyListForNoToolIds() throws Exception {
+            mockMvc.perform(post("/api/tools/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"toolIds\": []}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isEmpty());
+
+            verifyNoInteractions(toolReadModel);
+        }
+    }
+
     @Nested
     @DisplayName("PUT /api/tools/by-tool-id/{toolId} Tests")
     class UpdateToolByToolIdTests {
@@ -0,0 +1,115 @@
+package com.naagi.toolregistry.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naagi.toolregistry.entity.ToolDefinition;
+import com.naagi.toolregistry.repository.ToolDefinitionRepository;
+import com.naagi.toolregistry.service.ToolReadModel.ToolListing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ToolReadModelTest {
+
+    @Mock
+    private ToolDefinitionRepository toolDefinitionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private ToolReadModel readModel;
+    private ToolDefinition weatherTool;
+    private ToolDefinition stockTool;
+
+    @BeforeEach
+    void setUp() {
+        weatherTool = tool(1L, "10001", "Weather", "cat-1");
+        stockTool = tool(2L, "10002", "Stocks", "cat-2");
+        readModel = new ToolReadModel(toolDefinitionRepository, objectMapper, transactionManager);
+    }
+
+    private static ToolDefinition tool(Long id, String toolId, String name, String categoryId) {
+        ToolDefinition tool = new ToolDefinition();
+        tool.setId(id);
+        tool.setToolId(toolId);
+        tool.setName(name);
+        tool.setCategoryId(categoryId);
+        return tool;
+    }
+
+    private List<String> toolIds(ToolListing listing) throws Exception {
+        JsonNode array = objectMapper.readTree(listing.json());
+        return array.findValuesAsText("toolId");
+    }
+
+    @Test
+    @DisplayName("Should serve all tools from the snapshots built at startup")
+    void shouldServeSnapshotsBuiltAtStartup() throws Exception {
+        when(toolDefinitionRepository.findAll()).thenReturn(List.of(stockTool, weatherTool));
+
+        readModel.load();
+
+        assertThat(toolIds(readModel.getAll())).containsExactly("10001", "10002");
+        assertThat(toolIds(readModel.getByCategory("cat-2"))).containsExactly("10002");
+        assertThat(toolIds(readModel.getByCategory("unknown"))).isEmpty();
+        assertThat(readModel.getByToolId("10001")).isPresent();
+        // Listings are built once per rebuild, not per request
+        assertThat(readModel.getAll()).isSameAs(readModel.getAll());
+        assertThat(readModel.getByCategory("cat-2")).isSameAs(readModel.getByCategory("cat-2"));
+        verify(toolDefinitionRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should return requested tools in request order and skip unknown toolIds")
+    void shouldReturnToolsInRequestOrder() throws Exception {
+        when(toolDefinitionRepository.findAll()).thenReturn(List.of(weatherTool, stockTool));
+        readModel.load();
+
+        ToolListing listing = readModel.getByToolIds(List.of("10002", "unknown", "10001", "10002"));
+
+        assertThat(toolIds(listing)).containsExactly("10002", "10001");
+    }
+
+    @Test
+    @DisplayName("Should rebuild a changed tool and change the listing ETag")
+    void shouldRebuildChangedTool() {
+        when(toolDefinitionRepository.findAll()).thenReturn(List.of(weatherTool, stockTool));
+        readModel.load();
+        String etagBefore = readModel.getAll().etag();
+
+        weatherTool.setHumanReadableDescription("Current weather for a city");
+        when(toolDefinitionRepository.findByToolId("10001")).thenReturn(Optional.of(weatherTool));
+        readModel.onToolChanged(new ToolChangedEvent("10001"));
+
+        assertThat(new String(readModel.getByToolId("10001").orElseThrow().json()))
+                .contains("Current weather for a city");
+        assertThat(readModel.getAll().etag()).isNotEqualTo(etagBefore);
+    }
+
+    @Test
+    @DisplayName("Should drop a deleted tool")
+    void shouldDropDeletedTool() throws Exception {
+        when(toolDefinitionRepository.findAll()).thenReturn(List.of(weatherTool, stockTool));
+        readModel.load();
+
+        when(toolDefinitionRepository.findByToolId("10002")).thenReturn(Optional.empty());
+        readModel.onToolChanged(new ToolChangedEvent("10002"));
+
+        assertThat(readModel.getByToolId("10002")).isEmpty();
+        assertThat(toolIds(readModel.getAll())).containsExactly("10001");
+        assertThat(toolIds(readModel.getByCategory("cat-2"))).isEmpty();
+    }
+}
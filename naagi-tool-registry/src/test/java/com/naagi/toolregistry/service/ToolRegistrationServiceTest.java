@@ -6,6 +6,8 @@ import com.naagi.toolregistry.entity.ParameterDefinition;
 import com.naagi.toolregistry.entity.ResponseDefinition;
 import com.naagi.toolregistry.entity.ToolDefinition;
 import com.naagi.toolregistry.metrics.ToolRegistryMetrics;
+import com.naagi.toolregistry.repository.ParameterDefinitionRepository;
+import com.naagi.toolregistry.repository.ResponseDefinitionRepository;
 import com.naagi.toolregistry.repository.ToolDefinitionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,6 +18,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,6 +36,15 @@ class ToolRegistrationServiceTest {
     @Mock
     private ToolDefinitionRepository toolDefinitionRepository;
 
+    @Mock
+    private ParameterDefinitionRepository parameterDefinitionRepository;
+
+    @Mock
+    private ResponseDefinitionRepository responseDefinitionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Mock
     private OpenApiParserService openApiParserService;
 
@@ -108,6 +120,11 @@ class ToolRegistrationServiceTest {
         // Set up tool with parameters and responses
         testTool.setParameters(new ArrayList<>(List.of(testParam)));
         testTool.setResponses(new ArrayList<>(List.of(testResponse)));
+
+        lenient().when(parameterDefinitionRepository.findById(100L)).thenReturn(Optional.of(testParam));
+        lenient().when(parameterDefinitionRepository.findById(101L)).thenReturn(Optional.of(nestedParam));
+        lenient().when(parameterDefinitionRepository.findById(201L)).thenReturn(Optional.of(responseParam));
+        lenient().when(responseDefinitionRepository.findById(200L)).thenReturn(Optional.of(testResponse));
     }
 
     @Nested
@@ -118,7 +135,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update human description for top-level parameter")
         void shouldUpdateHumanDescriptionForTopLevelParam() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             // When
@@ -137,7 +153,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update human description for nested parameter")
         void shouldUpdateHumanDescriptionForNestedParam() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             // When
@@ -155,9 +170,6 @@ class ToolRegistrationServiceTest {
         @Test
         @DisplayName("Should throw exception when parameter not found")
         void shouldThrowExceptionWhenParamNotFound() {
-            // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
-
             // When/Then
             assertThatThrownBy(() -> toolRegistrationService.updateParameterHumanDescription(999L, "test"))
                     .isInstanceOf(IllegalArgumentException.class)
@@ -173,7 +185,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update example for parameter")
         void shouldUpdateExampleForParam() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             // When
@@ -191,7 +202,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update example for nested parameter")
         void shouldUpdateExampleForNestedParam() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             // When
@@ -215,7 +225,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update enum values as comma-separated string")
         void shouldUpdateEnumValues() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
             List<String> enumValues = Arrays.asList("RED", "GREEN", "BLUE");
 
@@ -234,7 +243,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should set null when enum values is empty list")
         void shouldSetNullWhenEnumValuesEmpty() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             // When
@@ -252,7 +260,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should set null when enum values is null")
         void shouldSetNullWhenEnumValuesNull() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             // When
@@ -275,7 +282,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update all fields in full parameter update")
         void shouldUpdateAllFields() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             ParameterUpdateRequest request = new ParameterUpdateRequest(
@@ -304,7 +310,6 @@ class ToolRegistrationServiceTest {
             // Given
             testParam.setHumanReadableDescription("Original description");
             testParam.setExample("original-example");
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             ParameterUpdateRequest request = new ParameterUpdateRequest(
@@ -330,7 +335,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update nested parameter in full update")
         void shouldUpdateNestedParamInFullUpdate() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             ParameterUpdateRequest request = new ParameterUpdateRequest(
@@ -362,7 +366,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update response human description")
         void shouldUpdateResponseHumanDescription() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             // When
@@ -380,9 +383,6 @@ class ToolRegistrationServiceTest {
         @Test
         @DisplayName("Should throw exception when response not found")
         void shouldThrowExceptionWhenResponseNotFound() {
-            // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
-
             // When/Then
             assertThatThrownBy(() -> toolRegistrationService.updateResponseHumanDescription(999L, "test"))
                     .isInstanceOf(IllegalArgumentException.class)
@@ -398,7 +398,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update response parameter human description")
         void shouldUpdateResponseParamHumanDescription() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             // When
@@ -417,7 +416,6 @@ class ToolRegistrationServiceTest {
         @DisplayName("Should update response parameter in full update")
         void shouldUpdateResponseParamInFullUpdate() {
             // Given
-            when(toolDefinitionRepository.findAll()).thenReturn(List.of(testTool));
             when(toolDefinitionRepository.save(any())).thenReturn(testTool);
 
             ParameterUpdateRequest request = new ParameterUpdateRequest(
@@ -512,4 +510,50 @@ class ToolRegistrationServiceTest {
             assertThat(savedTool.getCategoryId()).isNull();
         }
     }
+
+    @Nested
+    @DisplayName("Read Model Change Event Tests")
+    class ChangeEventTests {
+
+        @Test
+        @DisplayName("Should announce the owning tool when a nested parameter changes")
+        void shouldPublishOwningToolForNestedParam() {
+            // When
+            toolRegistrationService.updateParameterExample(101L, "42");
+
+            // Then
+            verify(eventPublisher).publishEvent(new ToolChangedEvent("test-tool"));
+        }
+
+        @Test
+        @DisplayName("Should announce a deleted tool")
+        void shouldPublishDeletedTool() {
+            // Given
+            when(toolDefinitionRepository.findByToolId("test-tool")).thenReturn(Optional.of(testTool));
+
+            // When
+            toolRegistrationService.deleteToolByToolId("test-tool");
+
+            // Then
+            verify(toolDefinitionRepository).delete(testTool);
+            verify(eventPublisher).publishEvent(new ToolChangedEvent("test-tool"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Duplicate Check Tests")
+    class DuplicateCheckTests {
+
+        @Test
+        @DisplayName("Should check duplicates with an indexed query")
+        void shouldCheckDuplicatesWithQuery() {
+            // Given
+            when(toolDefinitionRepository.existsByOpenApiEndpointAndPathAndHttpMethodIgnoreCase(
+                    "http://example.com/api", "/test", "get")).thenReturn(true);
+
+            // When/Then
+            assertThat(toolRegistrationService.toolExists("http://example.com/api", "/test", "get")).isTrue();
+            verify(toolDefinitionRepository, never()).findAll();
+        }
+    }
 }